@@ -0,0 +1,129 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeMerged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time per listener call of looking up and invoking the listener method by reflection for every event,
+ * compared with the method resolved once in the {@link ListenerDispatchTable}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ListenerDispatchBenchmark {
+
+    private static final int LISTENERS = 50;
+    private static final int CALLS = LISTENERS * 3;
+
+    private final TypedListener[] listeners = new TypedListener[LISTENERS];
+    private final GerritEvent[] events = {new PatchsetCreated(), new ChangeMerged(), new CommentAdded(), };
+
+    /**
+     * Standard constructor.
+     */
+    public ListenerDispatchBenchmark() {
+        for (int i = 0; i < LISTENERS; i++) {
+            listeners[i] = new TypedListener();
+        }
+    }
+
+    /**
+     * Looks the method up by reflection for every call.
+     *
+     * @throws Exception if the method can't be invoked.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void reflective() throws Exception {
+        for (GerritEvent event : events) {
+            for (TypedListener listener : listeners) {
+                try {
+                    Method method = listener.getClass().getMethod("gerritEvent", event.getClass());
+                    method.invoke(listener, event);
+                } catch (NoSuchMethodException e) {
+                    listener.gerritEvent(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the method resolved in the dispatch table.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void table() {
+        for (GerritEvent event : events) {
+            for (TypedListener listener : listeners) {
+                ListenerDispatchTable.dispatch(listener, event);
+            }
+        }
+    }
+
+    /**
+     * A listener with methods for some event classes.
+     */
+    public static class TypedListener implements GerritEventListener {
+        private int patchsetCreated;
+        private int changeMerged;
+        private int other;
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            other++;
+        }
+
+        /**
+         * Called for patchset-created events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(PatchsetCreated event) {
+            patchsetCreated++;
+        }
+
+        /**
+         * Called for change-merged events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(ChangeMerged event) {
+            changeMerged++;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time from notifying to the last of eight listeners being done, when the listeners
+ * are called one after another and when they are fanned out with the join barrier on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListenerFanOutBenchmark {
+
+    private static final int LISTENERS = 8;
+    private static final long LISTENER_MILLIS = 5;
+
+    @Param({"false", "true" })
+    private boolean fanOut;
+
+    private GerritHandler handler;
+    private ForkJoinPool pool;
+    private final GerritEvent event = new PatchsetCreated();
+
+    /**
+     * Creates the handler with its listeners.
+     */
+    @Setup
+    public void setUp() {
+        handler = new GerritHandler();
+        for (int i = 0; i < LISTENERS; i++) {
+            handler.addListener(new GerritEventListener() {
+                @Override
+                public void gerritEvent(GerritEvent e) {
+                    try {
+                        Thread.sleep(LISTENER_MILLIS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        if (fanOut) {
+            pool = new ForkJoinPool(LISTENERS);
+            handler.setFanOut(pool, true);
+        }
+    }
+
+    /**
+     * Shuts the handler and the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        handler.shutdown(true);
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Notifies the listeners and returns when all of them are done.
+     */
+    @Benchmark
+    public void notifyListeners() {
+        handler.notifyListeners(event);
+    }
+}
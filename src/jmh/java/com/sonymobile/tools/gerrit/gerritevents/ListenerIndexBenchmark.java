@@ -0,0 +1,163 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time per event of notifying all listeners and letting them filter the events themselves,
+ * compared with finding the subscribed listeners in the {@link ListenerIndex}.
+ * Every listener subscribes to patchset-created events of a project of its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ListenerIndexBenchmark {
+
+    @Param({"100", "1000" })
+    private int listenerCount;
+
+    private GerritHandler filtering;
+    private GerritHandler indexed;
+    private GerritEvent[] events;
+    private int next;
+
+    /**
+     * Adds the listeners to the handlers and creates an event for every project.
+     */
+    @Setup
+    public void setUp() {
+        filtering = new GerritHandler();
+        indexed = new GerritHandler();
+        events = new GerritEvent[listenerCount];
+        for (int i = 0; i < listenerCount; i++) {
+            CountingSubscriber subscriber = new CountingSubscriber(
+                    new GerritEventSubscription(GerritEventType.PATCHSET_CREATED).addProject("project" + i));
+            filtering.addListener(new FilteringListener(subscriber));
+            indexed.addListener(subscriber);
+            PatchsetCreated event = new PatchsetCreated();
+            Change change = new Change();
+            change.setProject("project" + i);
+            change.setBranch("master");
+            event.setChange(change);
+            events[i] = event;
+        }
+    }
+
+    /**
+     * Notifies every listener, which filters the event itself.
+     */
+    @Benchmark
+    public void filtering() {
+        filtering.notifyListeners(nextEvent());
+    }
+
+    /**
+     * Notifies the listeners found in the index.
+     */
+    @Benchmark
+    public void indexed() {
+        indexed.notifyListeners(nextEvent());
+    }
+
+    /**
+     * The event of the next project.
+     *
+     * @return the event.
+     */
+    private GerritEvent nextEvent() {
+        GerritEvent event = events[next];
+        next++;
+        if (next == events.length) {
+            next = 0;
+        }
+        return event;
+    }
+
+    /**
+     * Counts the events it is notified about.
+     */
+    private static final class CountingSubscriber implements GerritEventSubscriber {
+        private final GerritEventSubscription subscription;
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param subscription the subscription.
+         */
+        CountingSubscriber(GerritEventSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public GerritEventSubscription getSubscription() {
+            return subscription;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            count++;
+        }
+    }
+
+    /**
+     * Listens to all events and passes on the ones its target subscribes to, the way listeners filter
+     * without an index.
+     */
+    private static final class FilteringListener implements GerritEventListener {
+        private final CountingSubscriber target;
+
+        /**
+         * Constructor.
+         *
+         * @param target the listener to call for wanted events.
+         */
+        FilteringListener(CountingSubscriber target) {
+            this.target = target;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            GerritEventSubscription subscription = target.getSubscription();
+            if (subscription.matchesType(event.getEventType())
+                    && subscription.matches(ListenerIndex.getProject(event), ListenerIndex.getBranch(event))) {
+                target.gerritEvent(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.PatchSet;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of ordered dispatch with different numbers of worker threads,
+ * for events spread over many changes and a listener that takes a millisecond per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderedDispatchBenchmark {
+
+    private static final int CHANGES = 64;
+    private static final int PER_CHANGE = 4;
+    private static final int EVENTS = CHANGES * PER_CHANGE;
+    private static final long LISTENER_MILLIS = 1;
+
+    @Param({"1", "2", "4", "8" })
+    private int threads;
+
+    private GerritHandler handler;
+    private GerritEvent[] events;
+    private volatile CountDownLatch done;
+
+    /**
+     * Creates a handler with ordered dispatch and the events to post to it.
+     */
+    @Setup
+    public void setUp() {
+        handler = new GerritHandler(threads);
+        handler.setOrderedDispatch(true);
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                try {
+                    Thread.sleep(LISTENER_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        events = new GerritEvent[EVENTS];
+        for (int i = 0; i < PER_CHANGE; i++) {
+            for (int c = 0; c < CHANGES; c++) {
+                PatchsetCreated event = new PatchsetCreated();
+                Change change = new Change();
+                change.setNumber(String.valueOf(c));
+                change.setProject("project");
+                event.setChange(change);
+                PatchSet patchSet = new PatchSet();
+                patchSet.setNumber(String.valueOf(i));
+                event.setPatchset(patchSet);
+                events[i * CHANGES + c] = event;
+            }
+        }
+    }
+
+    /**
+     * Shuts the handler down.
+     */
+    @TearDown
+    public void tearDown() {
+        handler.shutdown(true);
+    }
+
+    /**
+     * Posts the events and waits for the listener to have been called with all of them.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void dispatch() throws InterruptedException {
+        done = new CountDownLatch(EVENTS);
+        for (GerritEvent event : events) {
+            handler.post(event);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.dto;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time per event of decoding stream-events lines through a json-lib object tree
+ * and straight into the event DTOs. Run with {@code -prof gc} for the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamDecodingBenchmark {
+
+    //CS IGNORE LineLength FOR NEXT 4 LINES. REASON: Test data.
+    private static final String PATCHSET_CREATED = "{\"uploader\":{\"name\":\"Foo, Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"patchSet\":{\"number\":\"1\",\"revision\":\"8bd741fd\",\"parents\":[\"8bd741fe\"],\"ref\":\"refs/changes/1/1234567/1\",\"uploader\":{\"name\":\"Foo Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"createdOn\":1527883364,\"author\":{\"name\":\"Foo Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"isDraft\":false,\"kind\":\"REWORK\",\"sizeInsertions\":2,\"sizeDeletions\":-2},\"change\":{\"project\":\"Foo/Bar\",\"branch\":\"Foo\",\"topic\":\"t\",\"hashtags\":[\"a\",\"b\"],\"id\":\"I8bd741fd\",\"number\":\"351587\",\"subject\":\"Foo Bar\",\"owner\":{\"name\":\"Foo Bar\",\"email\":\"foo@bar.com\",\"username\":\"foobar\"},\"url\":\"https://Foo.bar/com/gerrit/351587\",\"commitMessage\":\"Foo Changes\\n\\nChange-Id: I4a0ca0dd\\n\",\"status\":\"NEW\",\"wip\":true},\"project\":\"Foo/Bar\",\"refName\":\"refs/heads/FOOMAIN\",\"changeKey\":{\"id\":\"I4a0ca0dd\"},\"type\":\"patchset-created\",\"eventCreatedOn\":1527883364,\"provider\":{\"name\":\"gerrit\",\"host\":\"example.com\",\"port\":\"29418\",\"scheme\":\"ssh\",\"url\":\"https://example.com\",\"version\":\"3.1\"}}";
+    private static final String COMMENT_ADDED = "{\"type\":\"comment-added\",\"change\":{\"project\":\"p\",\"number\":7,\"id\":\"I7\"},\"patchSet\":{\"number\":3,\"approvals\":[{\"type\":\"Code-Review\",\"value\":\"2\",\"by\":{\"name\":\"R\"}}]},\"author\":{\"name\":\"C\",\"email\":\"c@x.com\"},\"approvals\":[{\"type\":\"Verified\",\"value\":\"1\",\"oldValue\":\"0\"},{\"type\":\"Code-Review\"}],\"comment\":\"Looks \\\"good\\\"\",\"unknown\":{\"nested\":[1,2,{\"x\":null}]}}";
+    private static final String REF_UPDATED = "{\"type\":\"ref-updated\",\"submitter\":{\"name\":\"S\"},\"refUpdate\":{\"oldRev\":\"0\",\"newRev\":\"1\",\"refName\":\"refs/heads/master\",\"project\":\"p\"}}";
+
+    @Param({"patchset-created", "comment-added", "ref-updated" })
+    private String type;
+
+    private String line;
+
+    /**
+     * Picks the line of the event type.
+     */
+    @Setup
+    public void setUp() {
+        if ("patchset-created".equals(type)) {
+            line = PATCHSET_CREATED;
+        } else if ("comment-added".equals(type)) {
+            line = COMMENT_ADDED;
+        } else {
+            line = REF_UPDATED;
+        }
+    }
+
+    /**
+     * Decodes the line the old way, through a json-lib object tree.
+     *
+     * @return the event.
+     */
+    @Benchmark
+    public GerritEvent jsonLib() {
+        return GerritJsonEventFactory.getEvent(GerritJsonEventFactory.getJsonObjectIfInterestingAndUsable(line));
+    }
+
+    /**
+     * Decodes the line with the streaming decoder.
+     *
+     * @return the event.
+     */
+    @Benchmark
+    public GerritEvent stream() {
+        return GerritJsonEventFactory.getEventIfInteresting(line);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the events for one {@link GerritBatchEventListener} and hands them over in batches.
+ * <p>
+ * A batch is handed over on the thread adding the event that fills it, or on the scheduler thread when its oldest
+ * event has waited the max linger time. Handing over is serialized so the listener gets the batches in order.
+ */
+final class EventBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBatcher.class);
+
+    private final GerritBatchEventListener listener;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Object deliveryLock = new Object();
+    private List<GerritEvent> buffer;
+    private long oldestNanos;
+    private boolean flushScheduled = false;
+
+    /**
+     * Standard constructor.
+     *
+     * @param listener the listener.
+     * @param maxBatchSize the max number of events in a batch.
+     * @param maxLingerMillis how long an event may wait for its batch to fill up, 0 or less to wait until it is full.
+     * @param scheduler runs the flushes of batches that have waited long enough.
+     */
+    EventBatcher(GerritBatchEventListener listener, int maxBatchSize, long maxLingerMillis,
+                 ScheduledExecutorService scheduler) {
+        this.listener = listener;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+        this.scheduler = scheduler;
+        this.buffer = new ArrayList<GerritEvent>(this.maxBatchSize);
+    }
+
+    /**
+     * The listener.
+     *
+     * @return the listener.
+     */
+    GerritBatchEventListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Adds an event, handing the batch over if it is full.
+     *
+     * @param event the event.
+     */
+    void add(GerritEvent event) {
+        boolean full;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                oldestNanos = System.nanoTime();
+                scheduleFlush(maxLingerNanos);
+            }
+            buffer.add(event);
+            full = buffer.size() >= maxBatchSize;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands over the events collected so far, if any.
+     */
+    void flush() {
+        synchronized (deliveryLock) {
+            List<GerritEvent> batch;
+            synchronized (this) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                batch = buffer;
+                buffer = new ArrayList<GerritEvent>(maxBatchSize);
+            }
+            try {
+                listener.gerritEvents(batch);
+            } catch (Exception ex) {
+                logger.error("When notifying batch listener: {} about {} events", listener, batch.size());
+                logger.error("Notify-error: ", ex);
+            }
+        }
+    }
+
+    /**
+     * Flushes the batch if its oldest event has waited long enough, otherwise checks again when it will have.
+     */
+    private void flushIfLingered() {
+        long remaining;
+        synchronized (this) {
+            flushScheduled = false;
+            if (buffer.isEmpty()) {
+                return;
+            }
+            remaining = maxLingerNanos - (System.nanoTime() - oldestNanos);
+            if (remaining > 0) {
+                scheduleFlush(remaining);
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Schedules a check for lingering events, unless one is scheduled already or there is no linger time.
+     * Called with the lock of this batcher held.
+     *
+     * @param delayNanos when to check.
+     */
+    private void scheduleFlush(long delayNanos) {
+        if (flushScheduled || maxLingerNanos <= 0) {
+            return;
+        }
+        try {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushIfLingered();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+            flushScheduled = true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Flush of batch listener {} not scheduled, the handler is shut down.", listener);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import java.util.List;
+
+/**
+ * Listener for consumers that handle Gerrit events in bulk, like ones writing them to a database or search index.
+ * <p>
+ * {@link GerritHandler} collects the events for each batch listener alongside the normal notification,
+ * and hands them over when a batch is full or its oldest event has waited the max linger time.
+ * The batches of one listener are handed over one at a time and in the order the events were notified,
+ * but not necessarily on the same thread.
+ *
+ * @see GerritHandler#addBatchListener(GerritBatchEventListener, int, long)
+ */
+public interface GerritBatchEventListener {
+
+    /**
+     * Called with a batch of events.
+     *
+     * @param events the events, never empty. The list belongs to the listener.
+     */
+    void gerritEvents(List<GerritEvent> events);
+}
@@ -25,14 +25,16 @@
 package com.sonymobile.tools.gerrit.gerritevents;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.nio.CharBuffer;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
-import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,7 +74,20 @@ public class GerritConnection extends Thread implements Connector {
      * big. See https://issues.jenkins-ci.org/browse/JENKINS-44568
      */
     private static final int SSH_RX_BUFFER_SIZE = 262400;
+    /**
+     * The longest time to back off when the stream keeps returning without data.
+     */
     private static final int SSH_RX_SLEEP_MILLIS = 100;
+    /**
+     * Number of empty reads to just yield on before starting to park the thread.
+     */
+    private static final int SSH_RX_SPIN_READS = 16;
+    /**
+     * The first park time after spinning, doubled for every empty read after that.
+     */
+    private static final long SSH_RX_MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SSH_RX_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(SSH_RX_SLEEP_MILLIS);
+    private static final int SSH_RX_MAX_PARK_SHIFT = 20;
     /**
      * The standard scheme used for stream-events.
      */
@@ -96,7 +111,6 @@ public class GerritConnection extends Thread implements Connector {
     private AuthenticationUpdater authenticationUpdater = null;
     private final Set<ConnectionListener> listeners = new CopyOnWriteArraySet<ConnectionListener>();
     private int sshRxBufferSize = SSH_RX_BUFFER_SIZE;
-    private StringBuilder eventBuffer = null;
 
     /**
      * Creates a GerritHandler with all the default values set.
@@ -237,7 +251,8 @@ public class GerritConnection extends Thread implements Connector {
     }
 
     /**
-     * Sets Buffer size for receiving SSH stream.
+     * Sets the initial buffer size for receiving SSH stream.
+     * The buffer grows on demand when an event is bigger than this.
      *
      * @param size buffer size.
      * @return The previous size.
@@ -331,67 +346,25 @@ public class GerritConnection extends Thread implements Connector {
     }
 
     /**
-     * Offers lines in buffer to queue.
+     * Backs off after a read from the stream that didn't give any data.
+     * The stream from the SSH channel blocks until data arrives, so this is only for streams that don't,
+     * the first few empty reads just yield and after that the thread is parked for a doubling time
+     * that is capped at {@link #SSH_RX_SLEEP_MILLIS}.
+     * Any data resets the back off, so a busy stream is never slowed down by it.
      *
-     * @param cb a buffer to have received text data.
-     * @return the line string. null if no EOL, otherwise buffer is compacted.
-     */
-    private String getLine(CharBuffer cb) {
-        String line = null;
-        int pos = cb.position();
-        int limit = cb.limit();
-        cb.flip();
-        for (int i = 0; i < cb.length(); i++) {
-            if (cb.charAt(i) == '\n') {
-                line = getSubSequence(cb, 0, i).toString();
-                cb.position(i + 1);
-                break;
-            }
-        }
-        if (line != null) {
-            cb.compact();
-            if (eventBuffer != null) {
-                eventBuffer.append(line);
-                String eventString = eventBuffer.toString();
-                eventBuffer = null;
-                line = eventString;
-            }
-            line.trim();
+     * @param emptyReads the number of empty reads in a row.
+     * @throws InterruptedException if the thread was interrupted while backing off.
+     */
+    private void backOff(int emptyReads) throws InterruptedException {
+        if (emptyReads <= SSH_RX_SPIN_READS) {
+            Thread.yield();
         } else {
-            if (cb.length() > 0) {
-                if (cb.length() == cb.capacity()) {
-                    if (eventBuffer == null) {
-                        logger.debug("Encountered big event.");
-                        eventBuffer = new StringBuilder();
-                    }
-                    eventBuffer.append(getSubSequence(cb, 0, pos));
-                } else {
-                    cb.position(pos);
-                    cb.limit(limit);
-                }
-            } else {
-                cb.clear();
-            }
+            int shift = Math.min(emptyReads - SSH_RX_SPIN_READS - 1, SSH_RX_MAX_PARK_SHIFT);
+            LockSupport.parkNanos(this, Math.min(SSH_RX_MIN_PARK_NANOS << shift, SSH_RX_MAX_PARK_NANOS));
+        }
+        if (interrupted()) {
+            throw new InterruptedException("Interrupted while waiting for data.");
         }
-        return line;
-    }
-
-    /**
-     *  Get sub sequence of buffer.
-     *
-     *  This method avoids error in java-api-check.
-     *  animal-sniffer is confused by the signature of CharBuffer.subSequence()
-     *  due to declaration of this method has been changed since Java7.
-     *  (abstract -> non-abstract)
-     *
-     * @param cb a buffer
-     * @param start start of sub sequence
-     * @param end end of sub sequence
-     * @return sub sequence.
-     */
-    @IgnoreJRERequirement
-    private CharSequence getSubSequence(CharBuffer cb, int start, int end) {
-        return cb.subSequence(start, end);
     }
 
     /**
@@ -417,9 +390,9 @@ public class GerritConnection extends Thread implements Connector {
                 if (channel == null) {
                     throw new IOException("Cannot open SSH channel.");
                 }
-                Reader reader = new InputStreamReader(channel.getInputStream(), "utf-8");
+                InputStream stream = channel.getInputStream();
                 channel.connect();
-                CharBuffer cb = CharBuffer.allocate(sshRxBufferSize);
+                StreamEventsLineFramer framer = new StreamEventsLineFramer(sshRxBufferSize);
                 notifyConnectionEstablished();
                 Provider provider = new Provider(
                         gerritName,
@@ -430,16 +403,17 @@ public class GerritConnection extends Thread implements Connector {
                         getGerritVersionString());
                 logger.info("Ready to receive data from Gerrit: " + gerritName);
                 String line;
-                Integer readCount;
-                while ((readCount = reader.read(cb)) != -1) {
-                    logger.debug("Read count from Gerrit stream: {}", String.valueOf(readCount));
-                    int linecount = 0;
-                    while ((line = getLine(cb)) != null) {
-                        linecount++;
+                int readCount;
+                int emptyReads = 0;
+                while ((readCount = framer.read(stream)) != -1) {
+                    logger.debug("Read count from Gerrit stream: {}", readCount);
+                    List<String> lines = new ArrayList<String>();
+                    while ((line = framer.nextLine()) != null) {
                         logger.debug("Data-line from Gerrit: {}", line);
-                        if (handler != null) {
-                            handler.post(line, provider);
-                        }
+                        lines.add(line);
+                    }
+                    if (handler != null && !lines.isEmpty()) {
+                        handler.post(lines, provider);
                     }
                     if (shutdownInProgress || interrupted()) {
                         throw new InterruptedException("shutdown requested: " + shutdownInProgress);
@@ -450,10 +424,15 @@ public class GerritConnection extends Thread implements Connector {
                     if (!channel.isConnected() || !sshConnection.isConnected()) {
                         throw new IllegalStateException("SSH connection is already lost.");
                     }
-                    if (readCount == 0 || linecount > 0) {
-                        sleep(SSH_RX_SLEEP_MILLIS);
+                    if (readCount > 0) {
+                        emptyReads = 0;
+                    } else {
+                        emptyReads++;
+                        backOff(emptyReads);
                     }
                 }
+            } catch (InterruptedIOException ex) {
+                logger.error("Interrupted while reading.", ex);
             } catch (IOException ex) {
                 logger.error("Stream events command error. ", ex);
             } catch (IllegalStateException ex) {
@@ -0,0 +1,276 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lets events be pulled from a {@link GerritHandler} in a loop, as an {@link Iterator} or a {@link Stream},
+ * instead of being pushed to a listener.
+ * <p>
+ * Each cursor listens on the handler from when it is opened until it is closed and has its own bounded queue,
+ * so several cursors can read the same events independently. Filling the queue takes no locks; when it is full
+ * new events are dropped and counted. The lag of a cursor is the number of events waiting in its queue.
+ * <p>
+ * A cursor is meant to be read by one thread. Waiting for the next event ends when one arrives, when the timeout
+ * passes, when the thread is interrupted or when the cursor is closed, which ends the iteration.
+ *
+ * @see GerritHandler#openCursor(int, long)
+ */
+public class GerritEventCursor implements GerritEventListener, Iterator<GerritEvent>, Closeable {
+
+    private final GerritHandler handler;
+    private final int capacity;
+    private final long timeoutNanos;
+    private final ConcurrentLinkedQueue<GerritEvent> queue = new ConcurrentLinkedQueue<GerritEvent>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread waiter = null;
+    private volatile boolean closed = false;
+    private GerritEvent next = null;
+
+    /**
+     * Standard constructor, the cursor has to be added as listener by the handler.
+     *
+     * @param handler the handler, that the cursor is removed from when closed.
+     * @param capacity the max number of events waiting to be read.
+     * @param timeoutMillis how long to wait for the next event before the iteration ends, 0 or less to wait forever.
+     */
+    GerritEventCursor(GerritHandler handler, int capacity, long timeoutMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.handler = handler;
+        this.capacity = capacity;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @Override
+    public void gerritEvent(GerritEvent event) {
+        if (closed) {
+            return;
+        }
+        received.incrementAndGet();
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        queue.offer(event);
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Takes the next event, waiting for it at most the given time.
+     *
+     * @param timeout how long to wait, 0 or less to not wait.
+     * @param unit the unit of the timeout.
+     * @return the event, or null if none came in time, the thread was interrupted or the cursor is closed.
+     */
+    public GerritEvent poll(long timeout, TimeUnit unit) {
+        if (next != null) {
+            GerritEvent event = next;
+            next = null;
+            return event;
+        }
+        return take(unit.toNanos(timeout), false);
+    }
+
+    /**
+     * Waits for an event if there is none left to iterate over, at most the timeout of the cursor.
+     *
+     * @return true if there is an event, false if the iteration has ended.
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = take(timeoutNanos, timeoutNanos <= 0);
+        }
+        return next != null;
+    }
+
+    @Override
+    public GerritEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No event came in time or the cursor is closed");
+        }
+        GerritEvent event = next;
+        next = null;
+        return event;
+    }
+
+    /**
+     * A sequential stream of the events, that closes the cursor when it is closed.
+     * The stream ends like the iteration does.
+     *
+     * @return the stream.
+     */
+    public Stream<GerritEvent> stream() {
+        Spliterator<GerritEvent> spliterator =
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    /**
+     * The number of events waiting to be read.
+     *
+     * @return the lag.
+     */
+    public int getLag() {
+        int lag = size.get();
+        if (next != null) {
+            lag++;
+        }
+        return lag;
+    }
+
+    /**
+     * The number of events the cursor has been notified about, including the dropped ones.
+     *
+     * @return the number.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * The number of events that have been read.
+     *
+     * @return the number.
+     */
+    public long getConsumedCount() {
+        return consumed.get();
+    }
+
+    /**
+     * The number of events dropped because the queue was full.
+     *
+     * @return the number.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * If the cursor is closed.
+     *
+     * @return true if so.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops listening on the handler and ends the iteration, also for a thread waiting for an event.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        handler.removeCursor(this);
+        queue.clear();
+        size.set(0);
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Takes the next event from the queue, waiting for it if there is none.
+     *
+     * @param timeout how long to wait in nanoseconds.
+     * @param forever true to wait without timeout.
+     * @return the event or null.
+     */
+    private GerritEvent take(long timeout, boolean forever) {
+        GerritEvent event = poll();
+        if (event != null || closed || (!forever && timeout <= 0)) {
+            return event;
+        }
+        long deadline = System.nanoTime() + timeout;
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                event = poll();
+                if (event != null || closed || Thread.currentThread().isInterrupted()) {
+                    return event;
+                }
+                if (forever) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Takes the next event from the queue without waiting.
+     *
+     * @return the event or null.
+     */
+    private GerritEvent poll() {
+        GerritEvent event = queue.poll();
+        if (event != null) {
+            size.decrementAndGet();
+            consumed.incrementAndGet();
+        }
+        return event;
+    }
+}
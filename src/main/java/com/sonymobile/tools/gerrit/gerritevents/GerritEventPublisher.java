@@ -0,0 +1,327 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Reactive Streams {@link Publisher} of the events of a {@link Handler}.
+ * <p>
+ * Every subscriber is a listener on the handler from when it subscribes until it cancels. Events are passed on
+ * as far as the subscriber has requested them; the ones it hasn't requested yet wait in a bounded buffer of its own,
+ * and the {@link Overflow} strategy decides what happens when that is full. {@link #close()} completes all
+ * subscribers once they have got what is in their buffers.
+ * <p>
+ * The reactive-streams library is an optional dependency, it has to be added by those using this class.
+ */
+public class GerritEventPublisher implements Publisher<GerritEvent>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GerritEventPublisher.class);
+
+    /**
+     * What to do with an event when the buffer of a subscriber is full.
+     */
+    public enum Overflow {
+        /**
+         * Drops the oldest event in the buffer to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Drops the new event.
+         */
+        DROP_LATEST,
+        /**
+         * Ends the subscription with {@link BufferOverflowException} once the buffered events have been requested,
+         * the new event is dropped.
+         */
+        ERROR
+    }
+
+    private final Handler handler;
+    private final int bufferSize;
+    private final Overflow overflow;
+    private final Set<EventSubscription> subscriptions = new CopyOnWriteArraySet<EventSubscription>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Standard constructor.
+     *
+     * @param handler the handler to get the events from.
+     * @param bufferSize the max number of events waiting for each subscriber to request them.
+     * @param overflow what to do when the buffer is full.
+     */
+    public GerritEventPublisher(Handler handler, int bufferSize, Overflow overflow) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive");
+        }
+        if (handler == null || overflow == null) {
+            throw new IllegalArgumentException("The handler and overflow must not be null");
+        }
+        this.handler = handler;
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super GerritEvent> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("The subscriber must not be null");
+        }
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+        handler.addListener(subscription);
+    }
+
+    /**
+     * The number of subscribers that haven't cancelled or ended.
+     *
+     * @return the number.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * The number of events dropped, or refused with {@link Overflow#ERROR}, because a buffer was full.
+     *
+     * @return the number, for all subscribers together.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Completes all subscribers once they have got the events in their buffers, and refuses new ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Signalled when events come faster than a subscriber requests them and the overflow strategy is
+     * {@link Overflow#ERROR}.
+     */
+    public static class BufferOverflowException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Standard constructor.
+         *
+         * @param message the message.
+         */
+        public BufferOverflowException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The subscription of one subscriber, listening on the handler.
+     * <p>
+     * All signals to the subscriber go through {@link #drain()}, which only one thread runs at a time.
+     */
+    private final class EventSubscription implements Subscription, GerritEventListener {
+        private final Subscriber<? super GerritEvent> subscriber;
+        private final ArrayDeque<GerritEvent> buffer = new ArrayDeque<GerritEvent>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private volatile Throwable error = null;
+
+        /**
+         * Standard constructor.
+         *
+         * @param subscriber the subscriber.
+         */
+        EventSubscription(Subscriber<? super GerritEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            if (cancelled || done) {
+                return;
+            }
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    switch (overflow) {
+                        case DROP_OLDEST:
+                            buffer.poll();
+                            buffer.offer(event);
+                            break;
+                        case ERROR:
+                            fail(new BufferOverflowException("More than " + bufferSize
+                                    + " events were not requested"), false);
+                            break;
+                        default:
+                            break;
+                    }
+                    if (dropped.getAndIncrement() == 0) {
+                        logger.warn("Events come faster than subscriber {} requests them.", subscriber);
+                    }
+                } else {
+                    buffer.offer(event);
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested " + n + " events, it has to be more than 0"), true);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            stopListening();
+        }
+
+        /**
+         * Ends the subscription with an error.
+         *
+         * @param cause the error.
+         * @param now true to drop the buffered events, false to signal the error once they have been requested.
+         */
+        private void fail(Throwable cause, boolean now) {
+            if (error == null) {
+                error = cause;
+            }
+            if (now) {
+                synchronized (buffer) {
+                    buffer.clear();
+                }
+            }
+            done = true;
+            stopListening();
+        }
+
+        /**
+         * Ends the subscription once the buffered events have been requested.
+         */
+        void complete() {
+            done = true;
+            stopListening();
+            drain();
+        }
+
+        /**
+         * Stops getting events from the handler.
+         */
+        private void stopListening() {
+            if (subscriptions.remove(this)) {
+                handler.removeListener(this);
+            }
+        }
+
+        /**
+         * Passes on the requested events and, when done and the buffer is empty, the end of the subscription.
+         */
+        private void drain() {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long wanted = requested.get();
+                long emitted = 0;
+                while (emitted != wanted && !cancelled) {
+                    GerritEvent event;
+                    synchronized (buffer) {
+                        event = buffer.poll();
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    subscriber.onNext(event);
+                    emitted++;
+                }
+                if (emitted != 0 && wanted != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (done && isBufferEmpty()) {
+                    cancelled = true;
+                    Throwable cause = error;
+                    if (cause != null) {
+                        subscriber.onError(cause);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * If there are no events waiting.
+         *
+         * @return true if so.
+         */
+        private boolean isBufferEmpty() {
+            synchronized (buffer) {
+                return buffer.isEmpty();
+            }
+        }
+    }
+}
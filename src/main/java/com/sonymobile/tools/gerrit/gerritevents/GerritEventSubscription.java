@@ -0,0 +1,257 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The events a {@link GerritEventListener} wants, so that {@link GerritHandler} only notifies it about those.
+ * <p>
+ * An event is wanted if its type is one of the types, its project one of the projects or matching one of the
+ * project patterns, and its branch one of the branches or matching one of the branch patterns. Leaving out
+ * the types, the projects or the branches means that any is wanted. Events without a project or branch,
+ * like the ones of plugins or of types without a change, are only wanted when no projects or branches are given.
+ * <p>
+ * Subscriptions on exact project names are indexed and cheapest; patterns are tried one by one.
+ * The handler takes a copy when the listener is added, so later changes need the listener to be added again.
+ *
+ * @see GerritHandler#addListener(GerritEventListener, GerritEventSubscription)
+ */
+public class GerritEventSubscription {
+
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    private final Set<GerritEventType> types = EnumSet.noneOf(GerritEventType.class);
+    private final Set<String> projects = new LinkedHashSet<String>();
+    private final List<Pattern> projectPatterns = new ArrayList<Pattern>();
+    private final Set<String> branches = new LinkedHashSet<String>();
+    private final List<Pattern> branchPatterns = new ArrayList<Pattern>();
+
+    /**
+     * Constructor.
+     *
+     * @param types the types of events that are wanted, none for all types.
+     */
+    public GerritEventSubscription(GerritEventType... types) {
+        Collections.addAll(this.types, types);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other the subscription to copy.
+     */
+    public GerritEventSubscription(GerritEventSubscription other) {
+        types.addAll(other.types);
+        projects.addAll(other.projects);
+        projectPatterns.addAll(other.projectPatterns);
+        branches.addAll(other.branches);
+        branchPatterns.addAll(other.branchPatterns);
+    }
+
+    /**
+     * Adds a type of events that is wanted.
+     *
+     * @param type the type.
+     * @return this instance for convenience
+     */
+    public GerritEventSubscription addType(GerritEventType type) {
+        types.add(type);
+        return this;
+    }
+
+    /**
+     * Adds the name of a project whose events are wanted.
+     *
+     * @param project the full name of the project.
+     * @return this instance for convenience
+     */
+    public GerritEventSubscription addProject(String project) {
+        projects.add(project);
+        return this;
+    }
+
+    /**
+     * Adds a pattern for the names of projects whose events are wanted. The whole name has to match.
+     *
+     * @param pattern the pattern.
+     * @return this instance for convenience
+     */
+    public GerritEventSubscription addProjectPattern(Pattern pattern) {
+        projectPatterns.add(pattern);
+        return this;
+    }
+
+    /**
+     * Adds the name of a branch whose events are wanted.
+     *
+     * @param branch the name of the branch, with or without refs/heads/.
+     * @return this instance for convenience
+     */
+    public GerritEventSubscription addBranch(String branch) {
+        branches.add(toBranch(branch));
+        return this;
+    }
+
+    /**
+     * Adds a pattern for the names of branches whose events are wanted. The whole name, without refs/heads/,
+     * has to match.
+     *
+     * @param pattern the pattern.
+     * @return this instance for convenience
+     */
+    public GerritEventSubscription addBranchPattern(Pattern pattern) {
+        branchPatterns.add(pattern);
+        return this;
+    }
+
+    /**
+     * The types of events that are wanted.
+     *
+     * @return the types, empty if all types are wanted.
+     */
+    public Set<GerritEventType> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /**
+     * The names of the projects whose events are wanted.
+     *
+     * @return the names.
+     */
+    public Set<String> getProjects() {
+        return Collections.unmodifiableSet(projects);
+    }
+
+    /**
+     * The patterns for projects whose events are wanted.
+     *
+     * @return the patterns.
+     */
+    public List<Pattern> getProjectPatterns() {
+        return Collections.unmodifiableList(projectPatterns);
+    }
+
+    /**
+     * The names of the branches whose events are wanted.
+     *
+     * @return the names.
+     */
+    public Set<String> getBranches() {
+        return Collections.unmodifiableSet(branches);
+    }
+
+    /**
+     * The patterns for branches whose events are wanted.
+     *
+     * @return the patterns.
+     */
+    public List<Pattern> getBranchPatterns() {
+        return Collections.unmodifiableList(branchPatterns);
+    }
+
+    /**
+     * If the events can be found by project name alone, i.e. there are projects but no project patterns.
+     *
+     * @return true if so.
+     */
+    boolean isByProjectName() {
+        return !projects.isEmpty() && projectPatterns.isEmpty();
+    }
+
+    /**
+     * If an event of the type is wanted.
+     *
+     * @param type the type, null for events of plugins.
+     * @return true if so.
+     */
+    public boolean matchesType(GerritEventType type) {
+        return types.isEmpty() || types.contains(type);
+    }
+
+    /**
+     * If an event in the project and on the branch is wanted.
+     *
+     * @param project the project name or null.
+     * @param branch the branch name, with or without refs/heads/, or null.
+     * @return true if so.
+     */
+    public boolean matches(String project, String branch) {
+        return matches(project, projects, projectPatterns) && matches(toBranch(branch), branches, branchPatterns);
+    }
+
+    /**
+     * If a name is one of the names or matches one of the patterns, or if there are neither.
+     *
+     * @param name the name or null.
+     * @param names the names.
+     * @param patterns the patterns.
+     * @return true if so.
+     */
+    private static boolean matches(String name, Set<String> names, List<Pattern> patterns) {
+        if (names.isEmpty() && patterns.isEmpty()) {
+            return true;
+        }
+        if (name == null) {
+            return false;
+        }
+        if (names.contains(name)) {
+            return true;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The branch name of a ref.
+     *
+     * @param ref the ref or branch name.
+     * @return the name without refs/heads/.
+     */
+    static String toBranch(String ref) {
+        if (ref != null && ref.startsWith(BRANCH_PREFIX)) {
+            return ref.substring(BRANCH_PREFIX.length());
+        }
+        return ref;
+    }
+
+    @Override
+    public String toString() {
+        return "GerritEventSubscription{types=" + types + ", projects=" + projects
+                + ", projectPatterns=" + projectPatterns + ", branches=" + branches
+                + ", branchPatterns=" + branchPatterns + "}";
+    }
+}
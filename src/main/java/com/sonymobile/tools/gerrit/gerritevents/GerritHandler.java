@@ -24,14 +24,22 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents;
 
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority;
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority.Priority;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
 import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.spool.EventJournal;
+import com.sonymobile.tools.gerrit.gerritevents.spool.EventRecord;
+import com.sonymobile.tools.gerrit.gerritevents.spool.EventSpool;
 import com.sonymobile.tools.gerrit.gerritevents.workers.Coordinator;
 import com.sonymobile.tools.gerrit.gerritevents.workers.EventThread;
 import com.sonymobile.tools.gerrit.gerritevents.workers.GerritEventWork;
 import com.sonymobile.tools.gerrit.gerritevents.workers.JSONEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsBatchWork;
 import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsStringWork;
 import com.sonymobile.tools.gerrit.gerritevents.workers.Work;
 
@@ -41,27 +49,32 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
 
-import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import java.io.BufferedReader;
@@ -89,6 +102,7 @@ public class GerritHandler implements Coordinator, Handler {
     private static final Logger logger = LoggerFactory.getLogger(GerritHandler.class);
     private int numberOfWorkerThreads;
     private final Set<GerritEventListener> gerritEventListeners = new CopyOnWriteArraySet<GerritEventListener>();
+    private final ListenerIndex listenerIndex = new ListenerIndex();
     private Map<String, String> ignoreEMails = new ConcurrentHashMap<String, String>();
     private ThreadPoolExecutor executor = null;
     private int threadKeepAliveTime = DEFAULT_RECEIVE_THREAD_KEEP_ALIVE_TIME;
@@ -104,6 +118,185 @@ public class GerritHandler implements Coordinator, Handler {
      */
     private static final int WORK_QUEUE_SIZE_WARNING_THRESHOLD =
             Integer.getInteger("gerritevents.GerritSendCommandQueue.WORK_QUEUE_SIZE_WARNING_THRESHOLD", 40);
+    /**
+     * The maximum number of stream-events lines handed over to a worker thread as one piece of work.
+     */
+    private static final int MAX_BATCH_SIZE =
+            Math.max(1, Integer.getInteger("gerritevents.GerritHandler.MAX_BATCH_SIZE", 64));
+    private final AtomicInteger batchSize = new AtomicInteger(1);
+    /**
+     * The capacity of the receive queue used by the default constructors, 0 or less means unbounded.
+     */
+    private static final int RECEIVE_QUEUE_CAPACITY =
+            Integer.getInteger("gerritevents.GerritHandler.RECEIVE_QUEUE_CAPACITY", 0);
+    /**
+     * The name of the overflow policy used by the default constructors when the receive queue is bounded.
+     *
+     * @see ReceiveQueueOverflowPolicy#forName(String, long)
+     */
+    private static final String RECEIVE_QUEUE_OVERFLOW_POLICY =
+            System.getProperty("gerritevents.GerritHandler.RECEIVE_QUEUE_OVERFLOW_POLICY", "block");
+    /**
+     * The max age in milliseconds for the max-age overflow policy used by the default constructors.
+     */
+    private static final long RECEIVE_QUEUE_MAX_AGE =
+            Long.getLong("gerritevents.GerritHandler.RECEIVE_QUEUE_MAX_AGE", TimeUnit.MINUTES.toMillis(1));
+    private final int receiveQueueCapacity;
+    private final ReceiveQueueOverflowPolicy overflowPolicy;
+    /**
+     * The directory of the event spool used by the default constructors, no spool is used if it isn't set.
+     * What the spool holds from before is moved to the work queue by {@link #drainEventSpool()}.
+     */
+    private static final String SPOOL_DIRECTORY = System.getProperty("gerritevents.GerritHandler.SPOOL_DIRECTORY");
+    /**
+     * The default size of the work queue at which stream-events lines start to go to the event spool.
+     */
+    private static final int DEFAULT_SPOOL_HIGH_WATER_MARK =
+            Integer.getInteger("gerritevents.GerritHandler.SPOOL_HIGH_WATER_MARK", 1000);
+    private volatile EventSpool eventSpool = null;
+    private int spoolHighWaterMark = DEFAULT_SPOOL_HIGH_WATER_MARK;
+    private final ReentrantLock spoolLock = new ReentrantLock();
+    private volatile boolean spoolDraining = true;
+    /**
+     * The directory of the event journal used by the default constructors, no journal is used if it isn't set.
+     * What the journal holds from before is replayed by {@link #replayJournal()}.
+     */
+    private static final String JOURNAL_DIRECTORY =
+            System.getProperty("gerritevents.GerritHandler.JOURNAL_DIRECTORY");
+    private volatile EventJournal eventJournal = null;
+    /**
+     * If the default constructors should keep the order of events per change, project or ref.
+     */
+    private static final boolean ORDERED_DISPATCH = Boolean.getBoolean("gerritevents.GerritHandler.ORDERED_DISPATCH");
+    /**
+     * The number of lanes that ordered events are partitioned onto.
+     */
+    private static final int ORDERED_DISPATCH_LANES =
+            Integer.getInteger("gerritevents.GerritHandler.ORDERED_DISPATCH_LANES", 256);
+    private volatile OrderedDispatcher orderedDispatcher = null;
+    /**
+     * If the default constructors should run listeners on their own threads.
+     *
+     * @see ListenerIsolation
+     */
+    private static final boolean LISTENER_ISOLATION =
+            Boolean.getBoolean("gerritevents.GerritHandler.LISTENER_ISOLATION");
+    /**
+     * The max number of events waiting for each isolated listener.
+     */
+    private static final int LISTENER_QUEUE_CAPACITY =
+            Integer.getInteger("gerritevents.GerritHandler.LISTENER_QUEUE_CAPACITY", 1000);
+    /**
+     * How many milliseconds an isolated listener may take for one event before it is an overrun.
+     */
+    private static final long LISTENER_TIME_BUDGET =
+            Long.getLong("gerritevents.GerritHandler.LISTENER_TIME_BUDGET", TimeUnit.SECONDS.toMillis(10));
+    /**
+     * The number of overruns in a row that quarantines an isolated listener, 0 to never quarantine.
+     */
+    private static final int LISTENER_MAX_OVERRUNS =
+            Integer.getInteger("gerritevents.GerritHandler.LISTENER_MAX_OVERRUNS", 0);
+    /**
+     * How many milliseconds a quarantine lasts, 0 until the listener is released.
+     */
+    private static final long LISTENER_QUARANTINE =
+            Long.getLong("gerritevents.GerritHandler.LISTENER_QUARANTINE", TimeUnit.MINUTES.toMillis(5));
+    private volatile ListenerIsolation listenerIsolation = null;
+    /**
+     * The number of threads the default constructors deliver one event to several listeners with,
+     * 0 or less to notify them one after another.
+     *
+     * @see #setFanOut(ForkJoinPool, boolean)
+     */
+    private static final int FAN_OUT_PARALLELISM =
+            Integer.getInteger("gerritevents.GerritHandler.FAN_OUT_PARALLELISM", 0);
+    /**
+     * If the worker threads wait until all listeners have got an event when it is fanned out.
+     */
+    private static final boolean FAN_OUT_JOIN = Boolean.getBoolean("gerritevents.GerritHandler.FAN_OUT_JOIN");
+    private volatile ListenerFanOut listenerFanOut = null;
+    /**
+     * The default max number of events in a batch for {@link GerritBatchEventListener}s.
+     */
+    private static final int BATCH_LISTENER_MAX_SIZE =
+            Integer.getInteger("gerritevents.GerritHandler.BATCH_LISTENER_MAX_SIZE", 100);
+    /**
+     * The default number of milliseconds an event may wait for its batch to fill up.
+     */
+    private static final long BATCH_LISTENER_MAX_LINGER =
+            Long.getLong("gerritevents.GerritHandler.BATCH_LISTENER_MAX_LINGER", TimeUnit.SECONDS.toMillis(1));
+    private final Map<GerritBatchEventListener, EventBatcher> batchers =
+            new ConcurrentHashMap<GerritBatchEventListener, EventBatcher>();
+    private ScheduledExecutorService batchScheduler = null;
+    /**
+     * The default max number of events waiting in a {@link GerritEventCursor}.
+     */
+    private static final int CURSOR_CAPACITY = Integer.getInteger("gerritevents.GerritHandler.CURSOR_CAPACITY", 1000);
+    /**
+     * The default number of milliseconds a {@link GerritEventCursor} waits for the next event, 0 to wait forever.
+     */
+    private static final long CURSOR_TIMEOUT = Long.getLong("gerritevents.GerritHandler.CURSOR_TIMEOUT", 0);
+    private final Set<GerritEventCursor> cursors = new CopyOnWriteArraySet<GerritEventCursor>();
+    /**
+     * The number of slots in the ring buffer used by the default constructors instead of a thread pool,
+     * 0 or less to use a thread pool.
+     *
+     * @see WorkRingBuffer
+     */
+    private static final int RING_BUFFER_CAPACITY =
+            Integer.getInteger("gerritevents.GerritHandler.RING_BUFFER_CAPACITY", 0);
+    /**
+     * The name of the wait strategy of the ring buffer used by the default constructors.
+     *
+     * @see WorkRingBuffer.WaitStrategy#forName(String)
+     */
+    private static final String RING_BUFFER_WAIT_STRATEGY =
+            System.getProperty("gerritevents.GerritHandler.RING_BUFFER_WAIT_STRATEGY", "blocking");
+    /**
+     * The max number of works a worker thread claims from the ring buffer at once.
+     */
+    private static final int RING_BUFFER_BATCH_SIZE =
+            Integer.getInteger("gerritevents.GerritHandler.RING_BUFFER_BATCH_SIZE", 16);
+    private final int ringBufferCapacity;
+    private final WorkRingBuffer.WaitStrategy waitStrategy;
+    private WorkRingBuffer ringBuffer = null;
+    /**
+     * The most worker threads the default constructors let the autoscaler grow the pool to, 0 or less for no
+     * autoscaling.
+     *
+     * @see ReceivePoolAutoscaler
+     */
+    private static final int AUTOSCALE_MAX_THREADS =
+            Integer.getInteger("gerritevents.GerritHandler.AUTOSCALE_MAX_THREADS", 0);
+    /**
+     * The least worker threads the autoscaler shrinks the pool to.
+     */
+    private static final int AUTOSCALE_MIN_THREADS =
+            Integer.getInteger("gerritevents.GerritHandler.AUTOSCALE_MIN_THREADS", 1);
+    /**
+     * The number of milliseconds work should wait in the queue at most on average, before the pool is grown.
+     */
+    private static final long AUTOSCALE_TARGET_WAIT =
+            Long.getLong("gerritevents.GerritHandler.AUTOSCALE_TARGET_WAIT", 100);
+    /**
+     * The number of milliseconds between the decisions of the autoscaler.
+     */
+    private static final long AUTOSCALE_INTERVAL =
+            Long.getLong("gerritevents.GerritHandler.AUTOSCALE_INTERVAL", TimeUnit.SECONDS.toMillis(5));
+    private volatile ReceivePoolAutoscaler autoscaler = null;
+    /**
+     * If the default receive queue should have a lane per priority of event type.
+     *
+     * @see PriorityLaneQueue
+     */
+    private static final boolean PRIORITY_LANES = Boolean.getBoolean("gerritevents.GerritHandler.PRIORITY_LANES");
+    /**
+     * The weights of the priority lanes, like high=16,normal=4,low=1.
+     *
+     * @see PriorityLaneQueue#parseWeights(String)
+     */
+    private static final String PRIORITY_LANE_WEIGHTS =
+            System.getProperty("gerritevents.GerritHandler.PRIORITY_LANE_WEIGHTS");
 
     /**
      * Creates a GerritHandler with all the default values set.
@@ -134,10 +327,130 @@ public class GerritHandler implements Coordinator, Handler {
      * @param threadKeepAliveTime the number of seconds threads will stay alive.
      */
     public GerritHandler(int numberOfWorkerThreads, int threadKeepAliveTime) {
+        this(numberOfWorkerThreads, threadKeepAliveTime, RECEIVE_QUEUE_CAPACITY, getDefaultOverflowPolicy());
+    }
+
+    /**
+     * Create handler with the given number of maximum worker threads, given thread keep alive time
+     * and a receive queue that holds at most the given number of work items.
+     * When the queue is full the overflow policy decides if the posting thread blocks or what is shed.
+     *
+     * @param numberOfWorkerThreads the number of event threads.
+     * @param threadKeepAliveTime the number of seconds threads will stay alive.
+     * @param receiveQueueCapacity the max size of the receive queue, 0 or less means unbounded.
+     * @param overflowPolicy what to do when the queue is full, null means {@link ReceiveQueueOverflowPolicy.Block}.
+     */
+    public GerritHandler(int numberOfWorkerThreads, int threadKeepAliveTime, int receiveQueueCapacity,
+                         ReceiveQueueOverflowPolicy overflowPolicy) {
+        this(numberOfWorkerThreads, threadKeepAliveTime, receiveQueueCapacity, overflowPolicy,
+                RING_BUFFER_CAPACITY, getDefaultWaitStrategy());
+    }
+
+    /**
+     * Create handler with the given number of worker threads that get their work through a ring buffer
+     * instead of the queue of a thread pool. The worker threads are kept alive until the handler is shut down.
+     * When the ring is full the posting thread waits for room, nothing is shed.
+     *
+     * @param numberOfWorkerThreads the number of event threads.
+     * @param ringBufferCapacity the number of slots in the ring, rounded up to a power of two.
+     * @param waitStrategy how idle worker threads and posting threads wait.
+     * @see WorkRingBuffer
+     */
+    public GerritHandler(int numberOfWorkerThreads, int ringBufferCapacity, WorkRingBuffer.WaitStrategy waitStrategy) {
+        this(numberOfWorkerThreads, DEFAULT_RECEIVE_THREAD_KEEP_ALIVE_TIME, 0, null, ringBufferCapacity,
+                waitStrategy);
+    }
+
+    /**
+     * Create handler with either a thread pool or a ring buffer handing the work to the worker threads.
+     *
+     * @param numberOfWorkerThreads the number of event threads.
+     * @param threadKeepAliveTime the number of seconds threads of the pool will stay alive.
+     * @param receiveQueueCapacity the max size of the receive queue of the pool, 0 or less means unbounded.
+     * @param overflowPolicy what to do when the queue of the pool is full.
+     * @param ringBufferCapacity the number of slots in the ring buffer, 0 or less to use a thread pool.
+     * @param waitStrategy the wait strategy of the ring buffer, null means {@link WorkRingBuffer.Blocking}.
+     */
+    private GerritHandler(int numberOfWorkerThreads, int threadKeepAliveTime, int receiveQueueCapacity,
+                          ReceiveQueueOverflowPolicy overflowPolicy, int ringBufferCapacity,
+                          WorkRingBuffer.WaitStrategy waitStrategy) {
         this.numberOfWorkerThreads = numberOfWorkerThreads;
         this.threadKeepAliveTime = Math.max(MIN_RECEIVE_THREAD_KEEP_ALIVE_TIME, threadKeepAliveTime);
+        this.receiveQueueCapacity = receiveQueueCapacity;
+        this.ringBufferCapacity = ringBufferCapacity;
+        if (waitStrategy == null) {
+            this.waitStrategy = new WorkRingBuffer.Blocking();
+        } else {
+            this.waitStrategy = waitStrategy;
+        }
+        if (overflowPolicy == null && receiveQueueCapacity > 0) {
+            this.overflowPolicy = new ReceiveQueueOverflowPolicy.Block();
+        } else {
+            this.overflowPolicy = overflowPolicy;
+        }
 
         startQueue();
+        setOrderedDispatch(ORDERED_DISPATCH);
+        if (FAN_OUT_PARALLELISM > 0) {
+            replaceFanOut(new ListenerFanOut(new ForkJoinPool(FAN_OUT_PARALLELISM), FAN_OUT_JOIN, true));
+        }
+        if (LISTENER_ISOLATION) {
+            setListenerIsolation(new ListenerIsolation(LISTENER_QUEUE_CAPACITY, LISTENER_TIME_BUDGET,
+                    LISTENER_MAX_OVERRUNS, LISTENER_QUARANTINE));
+        }
+        if (SPOOL_DIRECTORY != null) {
+            try {
+                setEventSpool(new EventSpool(new File(SPOOL_DIRECTORY)), DEFAULT_SPOOL_HIGH_WATER_MARK);
+            } catch (IOException e) {
+                logger.error("Could not open the event spool, events will only be kept in memory.", e);
+            }
+        }
+        if (JOURNAL_DIRECTORY != null) {
+            try {
+                setEventJournal(new EventJournal(new File(JOURNAL_DIRECTORY)));
+            } catch (IOException e) {
+                logger.error("Could not open the event journal, events will not be journaled.", e);
+            }
+        }
+        if (AUTOSCALE_MAX_THREADS > 0) {
+            try {
+                setAutoscaler(new ReceivePoolAutoscaler(AUTOSCALE_MIN_THREADS, AUTOSCALE_MAX_THREADS,
+                        AUTOSCALE_TARGET_WAIT, AUTOSCALE_INTERVAL));
+            } catch (IllegalArgumentException e) {
+                logger.error("Bad autoscaling settings, the receive pool keeps its size.", e);
+            }
+        }
+    }
+
+    /**
+     * The overflow policy configured by system properties, when the receive queue is bounded by them.
+     *
+     * @return the policy, or null if the receive queue is unbounded.
+     */
+    private static ReceiveQueueOverflowPolicy getDefaultOverflowPolicy() {
+        if (RECEIVE_QUEUE_CAPACITY <= 0) {
+            return null;
+        }
+        try {
+            return ReceiveQueueOverflowPolicy.forName(RECEIVE_QUEUE_OVERFLOW_POLICY, RECEIVE_QUEUE_MAX_AGE);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad receive queue overflow policy, blocking instead.", e);
+            return new ReceiveQueueOverflowPolicy.Block();
+        }
+    }
+
+    /**
+     * The wait strategy of the ring buffer configured by system properties.
+     *
+     * @return the strategy.
+     */
+    private static WorkRingBuffer.WaitStrategy getDefaultWaitStrategy() {
+        try {
+            return WorkRingBuffer.WaitStrategy.forName(RING_BUFFER_WAIT_STRATEGY);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad ring buffer wait strategy, blocking instead.", e);
+            return new WorkRingBuffer.Blocking();
+        }
     }
 
     /**
@@ -176,14 +489,41 @@ public class GerritHandler implements Coordinator, Handler {
      * Starts the executor if it hasn't started yet, or updates the thread-pool size if it is started.
      */
     protected void startQueue() {
-      if (executor == null) {
+      if (ringBufferCapacity > 0) {
+          if (ringBuffer == null) {
+              logger.debug("Starting the receiving ring buffer.");
+              ringBuffer = new WorkRingBuffer(ringBufferCapacity, numberOfWorkerThreads, RING_BUFFER_BATCH_SIZE,
+                      waitStrategy, getThreadFactory(), new Runnable() {
+                          @Override
+                          public void run() {
+                              drainSpool();
+                          }
+                      });
+              logger.info("ReceiveQueue started as a ring buffer of {} slots! Current pool size: {}",
+                      ringBuffer.getCapacity(), ringBuffer.getConsumerCount());
+          } else {
+              ringBuffer.setConsumerCount(numberOfWorkerThreads);
+              logger.info("ReceiveQueue running. Current pool size: {}. Current Queue size: {}",
+                      numberOfWorkerThreads, getQueueSize());
+          }
+      } else if (executor == null) {
           logger.debug("Starting the receiving thread pool.");
+          BlockingQueue<Runnable> queue = createReceiveQueue();
           executor = new ThreadPoolExecutor(
                   numberOfWorkerThreads,
                   numberOfWorkerThreads,
                   threadKeepAliveTime, TimeUnit.SECONDS,
-                  new LinkedBlockingQueue<Runnable>(),
-                  getThreadFactory());
+                  queue,
+                  getThreadFactory()) {
+              @Override
+              protected void afterExecute(Runnable r, Throwable t) {
+                  super.afterExecute(r, t);
+                  drainSpool();
+              }
+          };
+          if (overflowPolicy != null) {
+              executor.setRejectedExecutionHandler(overflowPolicy);
+          }
           executor.allowCoreThreadTimeOut(true);
           //Start with one thread, and build it up gradually as it needs.
           executor.prestartCoreThread();
@@ -205,13 +545,355 @@ public class GerritHandler implements Coordinator, Handler {
     }
 
     /**
-     * Returns the largest number of threads that have ever simultaneously been in the pool.
+     * Creates the queue of the receiving thread pool, bounded by the receive queue capacity.
+     * By default a FIFO queue, or a {@link PriorityLaneQueue} if the system property
+     * gerritevents.GerritHandler.PRIORITY_LANES is true.
+     * Overwrite when you want to e.g. prioritize events differently.
+     *
+     * @return the queue.
+     */
+    protected BlockingQueue<Runnable> createReceiveQueue() {
+        if (PRIORITY_LANES) {
+            Map<Priority, Integer> weights;
+            try {
+                weights = PriorityLaneQueue.parseWeights(PRIORITY_LANE_WEIGHTS);
+            } catch (IllegalArgumentException e) {
+                logger.error("Bad priority lane weights, using the default weights instead.", e);
+                weights = PriorityLaneQueue.getDefaultWeights();
+            }
+            Map<GerritEventType, Priority> priorities = DropByPriority.getDefaultPriorities();
+            if (overflowPolicy instanceof DropByPriority) {
+                priorities = ((DropByPriority)overflowPolicy).getPriorities();
+            }
+            return new PriorityLaneQueue(receiveQueueCapacity, priorities, weights);
+        } else if (receiveQueueCapacity > 0) {
+            return new LinkedBlockingQueue<Runnable>(receiveQueueCapacity);
+        } else {
+            return new LinkedBlockingQueue<Runnable>();
+        }
+    }
+
+    /**
+     * The receive queue if it has priority lanes, for their statistics.
+     *
+     * @return the queue, or null if the receive queue has no lanes.
+     */
+    public PriorityLaneQueue getPriorityLanes() {
+        ThreadPoolExecutor pool = executor;
+        if (pool != null && pool.getQueue() instanceof PriorityLaneQueue) {
+            return (PriorityLaneQueue)pool.getQueue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the largest number of threads that have ever simultaneously been in the pool.
+     * Package visibility for testing purposes only.
+     *
+     * @return number of threads
+     */
+    int getLargestPoolSize() {
+        WorkRingBuffer ring = ringBuffer;
+        if (ring != null) {
+            return ring.getLargestConsumerCount();
+        }
+        return executor.getLargestPoolSize();
+    }
+
+    /**
+     * The current number of worker threads.
+     *
+     * @return number of threads
+     */
+    private int getPoolSize() {
+        WorkRingBuffer ring = ringBuffer;
+        if (ring != null) {
+            return ring.getConsumerCount();
+        }
+        return executor.getPoolSize();
+    }
+
+    /**
+     * The ring buffer handing work to the worker threads.
+     *
+     * @return the ring buffer, or null if a thread pool is used.
+     */
+    public WorkRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * The max size of the receive queue.
+     *
+     * @return the capacity, 0 or less if the queue is unbounded.
+     */
+    public int getReceiveQueueCapacity() {
+        return receiveQueueCapacity;
+    }
+
+    /**
+     * The policy deciding what happens when the receive queue is full, it also holds the counters of what was shed.
+     *
+     * @return the policy, or null if the receive queue is unbounded and no policy was given.
+     */
+    public ReceiveQueueOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets a spool that stream-events lines are written to instead of being queued in memory,
+     * once the work queue has reached the high-water mark. Lines are moved back from the spool
+     * in the order they were received when the queue has shrunk to half of the high-water mark.
+     * A spooled line is only removed from the spool once it has been performed, or shed by the overflow policy.
+     * If the spool already holds lines, e.g. from before a restart, they stay there, and new lines
+     * are spooled behind them, until {@link #drainEventSpool()} is called.
+     * The handler closes the spool when it is shut down.
+     *
+     * @param spool the spool, or null to stop spooling.
+     * @param highWaterMark the size of the work queue at which lines start to go to the spool.
+     */
+    public void setEventSpool(EventSpool spool, int highWaterMark) {
+        spoolLock.lock();
+        try {
+            this.spoolHighWaterMark = Math.max(1, highWaterMark);
+            this.eventSpool = spool;
+            this.spoolDraining = spool == null || spool.isEmpty();
+        } finally {
+            spoolLock.unlock();
+        }
+    }
+
+    /**
+     * Starts moving the lines that the event spool held when it was set, e.g. from before a restart,
+     * to the work queue. Call it once the listeners have been added, since the lines are removed from
+     * the spool when they have been performed whether anyone was listening or not.
+     */
+    public void drainEventSpool() {
+        spoolDraining = true;
+        drainSpool();
+    }
+
+    /**
+     * Sets a journal that every stream-events line is appended to when it is posted.
+     * The line is acknowledged in the journal once it has been performed, or shed by the overflow policy.
+     * Lines from before that were never acknowledged, e.g. because of a crash, are kept in the journal
+     * until {@link #replayJournal()} is called.
+     * The handler closes the journal when it is shut down.
+     *
+     * @param journal the journal, or null to stop journaling.
+     */
+    public void setEventJournal(EventJournal journal) {
+        this.eventJournal = journal;
+    }
+
+    /**
+     * Replays the lines in the event journal that were never acknowledged, e.g. because of a crash.
+     * They keep their journal offsets and the time they were received, and are acknowledged
+     * when they have been performed, like any other line.
+     * Call it once the listeners have been added, since replayed lines are acknowledged when they have been
+     * performed whether anyone was listening or not.
+     *
+     * @return the number of replayed lines.
+     */
+    public int replayJournal() {
+        EventJournal journal = eventJournal;
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            return journal.replay(new EventJournal.Replayer() {
+                @Override
+                public void replay(EventRecord record, long offset) {
+                    postJournaled(record, offset);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Failed to replay the event journal.", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Spools or queues a line that is in the event journal already.
+     *
+     * @param record the line as it was journaled.
+     * @param offset the offset of the line in the journal.
+     */
+    void postJournaled(EventRecord record, long offset) {
+        long[] offsets = new long[] {offset};
+        List<String> lines = Collections.singletonList(record.getLine());
+        if (spool(lines, record.getProvider(), offsets, record.getReceivedOn()) == 0) {
+            post(new StreamEventsStringWork(record.getLine(), record.getProvider(), record.getReceivedOn()),
+                    offsets, null);
+        }
+        drainSpool();
+    }
+
+    /**
+     * The journal that stream-events lines are appended to.
+     *
+     * @return the journal, or null if none is used.
+     */
+    public EventJournal getEventJournal() {
+        return eventJournal;
+    }
+
+    /**
+     * Lets the autoscaler decide the number of worker threads from now on, or stops autoscaling.
+     * The pool is brought within the bounds of the autoscaler right away and then keeps the size it has
+     * when autoscaling is stopped. While autoscaling, {@link #setNumberOfWorkerThreads(int)} is only a starting point.
+     *
+     * @param scaler the autoscaler, null to stop autoscaling.
+     */
+    public void setAutoscaler(ReceivePoolAutoscaler scaler) {
+        ReceivePoolAutoscaler old = autoscaler;
+        if (old == scaler) {
+            return;
+        }
+        if (old != null) {
+            old.stop();
+        }
+        if (scaler != null) {
+            scaler.start(this);
+        }
+        autoscaler = scaler;
+    }
+
+    /**
+     * The autoscaler of the worker threads.
+     *
+     * @return the autoscaler, or null if the number of threads is fixed.
+     * @see #setAutoscaler(ReceivePoolAutoscaler)
+     */
+    public ReceivePoolAutoscaler getAutoscaler() {
+        return autoscaler;
+    }
+
+    /**
+     * Turns ordered dispatch on or off.
+     * When on, events about the same change, or the same project or ref when there is no change,
+     * are performed one at a time in the order they were received, while unrelated events still run in parallel.
+     * Stream-events lines are not batched when ordered dispatch is on.
+     *
+     * @param ordered true to keep the order.
+     */
+    public void setOrderedDispatch(boolean ordered) {
+        if (!ordered) {
+            orderedDispatcher = null;
+        } else if (orderedDispatcher == null) {
+            orderedDispatcher = new OrderedDispatcher(ORDERED_DISPATCH_LANES);
+        }
+    }
+
+    /**
+     * Runs listeners on their own threads with their own queues, or turns that off.
+     * The isolation that was used before is shut down after the events already queued in it.
+     * Journaled and spooled lines are acknowledged once every isolated listener has been called with their event,
+     * an event dropped by a full or quarantined listener queue leaves its line to be replayed after a restart.
+     *
+     * @param isolation the isolation, null to notify listeners on the worker threads.
+     */
+    public void setListenerIsolation(ListenerIsolation isolation) {
+        ListenerIsolation old = listenerIsolation;
+        listenerIsolation = isolation;
+        if (old != null && old != isolation) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * The isolation of listeners.
+     *
+     * @return the isolation, or null if listeners are notified on the worker threads.
+     * @see #setListenerIsolation(ListenerIsolation)
+     */
+    public ListenerIsolation getListenerIsolation() {
+        return listenerIsolation;
+    }
+
+    /**
+     * Delivers each event to its listeners at the same time on the pool, or turns that off.
+     * With the join barrier on, the worker thread notifying the listeners waits until all of them are done,
+     * which also keeps the order of events for ordered dispatch; without it the worker thread goes on at once.
+     * Listener isolation, if set, takes precedence.
+     *
+     * @param pool the pool, null to notify the listeners one after another.
+     * @param join if the worker thread should wait for all listeners.
+     * @see #setListenerIsolation(ListenerIsolation)
+     */
+    public void setFanOut(ForkJoinPool pool, boolean join) {
+        if (pool == null) {
+            replaceFanOut(null);
+        } else {
+            replaceFanOut(new ListenerFanOut(pool, join, false));
+        }
+    }
+
+    /**
+     * Replaces the fan-out, shutting down the pool of the former one if the handler created it.
+     *
+     * @param fanOut the fan-out or null.
+     */
+    private void replaceFanOut(ListenerFanOut fanOut) {
+        ListenerFanOut old = listenerFanOut;
+        listenerFanOut = fanOut;
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * The pool events are fanned out to listeners on.
+     *
+     * @return the pool, or null if listeners are notified one after another.
+     * @see #setFanOut(ForkJoinPool, boolean)
+     */
+    public ForkJoinPool getFanOutPool() {
+        ListenerFanOut fanOut = listenerFanOut;
+        if (fanOut == null) {
+            return null;
+        }
+        return fanOut.getPool();
+    }
+
+    /**
+     * If the worker threads wait until all listeners have got a fanned out event.
+     *
+     * @return true if so.
+     * @see #setFanOut(ForkJoinPool, boolean)
+     */
+    public boolean isFanOutJoin() {
+        ListenerFanOut fanOut = listenerFanOut;
+        return fanOut != null && fanOut.isJoin();
+    }
+
+    /**
+     * If ordered dispatch is on.
+     *
+     * @return true if the order of related events is kept.
+     * @see #setOrderedDispatch(boolean)
+     */
+    public boolean isOrderedDispatch() {
+        return orderedDispatcher != null;
+    }
+
+    /**
+     * The spool that stream-events lines are written to when the work queue is too long.
+     *
+     * @return the spool, or null if none is used.
+     */
+    public EventSpool getEventSpool() {
+        return eventSpool;
+    }
+
+    /**
+     * Returns the number of lines currently handed over to a worker thread as one piece of work.
      * Package visibility for testing purposes only.
      *
-     * @return number of threads
+     * @return the current batch size.
      */
-    int getLargestPoolSize() {
-        return executor.getLargestPoolSize();
+    int getBatchSize() {
+        return batchSize.get();
     }
 
     /**
@@ -258,7 +940,181 @@ public class GerritHandler implements Coordinator, Handler {
     @Override
     public void post(String data, Provider provider) {
         logger.debug("Trigger event string: {}", data);
-        post(new StreamEventsStringWork(data, provider));
+        postLines(Collections.singletonList(data), provider, false);
+    }
+
+    /**
+     * Posts the lines in chunks of the current batch size, each chunk is performed by one worker thread
+     * in the order the lines were received. The batch size grows while the work queue is longer
+     * than the thread pool and shrinks back when the queue has been drained,
+     * so that a burst of events doesn't cost one queue handoff per event.
+     *
+     * Note that you must not update objects passed to this method.
+     *
+     * @param lines lines of text from the stream-events stream of events.
+     * @param provider the Gerrit server info.
+     */
+    public void post(List<String> lines, Provider provider) {
+        postLines(lines, provider, true);
+    }
+
+    /**
+     * Journals the lines and then spools or queues them.
+     *
+     * @param lines the lines.
+     * @param provider the Gerrit server info.
+     * @param batch if the lines may be queued in batches.
+     */
+    private void postLines(List<String> lines, Provider provider, boolean batch) {
+        long receivedOn = System.currentTimeMillis();
+        long[] offsets = journal(lines, provider, receivedOn);
+        int spooled = spool(lines, provider, offsets, receivedOn);
+        int size = 1;
+        if (batch && orderedDispatcher == null && getPriorityLanes() == null) {
+            size = tuneBatchSize();
+        }
+        for (int from = spooled; from < lines.size(); from += size) {
+            int to = Math.min(lines.size(), from + size);
+            long[] chunkOffsets = null;
+            if (offsets != null) {
+                chunkOffsets = Arrays.copyOfRange(offsets, from, to);
+            }
+            if (to - from == 1) {
+                post(new StreamEventsStringWork(lines.get(from), provider), chunkOffsets, null);
+            } else {
+                logger.debug("Trigger event batch of {} lines", to - from);
+                post(new StreamEventsBatchWork(new ArrayList<String>(lines.subList(from, to)), provider),
+                        chunkOffsets, null);
+            }
+        }
+        drainSpool();
+    }
+
+    /**
+     * Appends the lines to the event journal.
+     *
+     * @param lines the lines.
+     * @param provider the Gerrit server info.
+     * @param receivedOn when the lines were received.
+     * @return the journal offset of each line, -1 for lines that could not be journaled,
+     *         or null if there is no journal.
+     */
+    private long[] journal(List<String> lines, Provider provider, long receivedOn) {
+        EventJournal journal = eventJournal;
+        if (journal == null) {
+            return null;
+        }
+        long[] offsets = new long[lines.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            try {
+                offsets[i] = journal.append(new EventRecord(lines.get(i), provider, receivedOn));
+            } catch (IOException e) {
+                logger.error("Failed to journal an event.", e);
+                offsets[i] = -1;
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Appends lines to the event spool instead of the work queue, if the queue has reached the high-water mark
+     * or if there are lines in the spool already, since they must be performed first.
+     *
+     * @param lines the lines.
+     * @param provider the Gerrit server info.
+     * @param offsets the journal offsets of the lines, or null.
+     * @param receivedOn when the lines were received.
+     * @return the number of lines that were spooled, from the start of the list.
+     */
+    private int spool(List<String> lines, Provider provider, long[] offsets, long receivedOn) {
+        EventSpool spool = eventSpool;
+        if (spool == null) {
+            return 0;
+        }
+        int spooled = 0;
+        spoolLock.lock();
+        try {
+            if (spool.isEmpty() && getQueueSize() < spoolHighWaterMark) {
+                return 0;
+            }
+            for (String line : lines) {
+                long offset = -1;
+                if (offsets != null) {
+                    offset = offsets[spooled];
+                }
+                spool.append(new EventRecord(line, provider, receivedOn, offset));
+                spooled++;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to spool events, queueing them in memory instead.", e);
+        } finally {
+            spoolLock.unlock();
+        }
+        return spooled;
+    }
+
+    /**
+     * Moves lines from the event spool to the work queue while the queue is shorter than half the high-water mark.
+     * Does nothing if someone else is using the spool at the moment, they will drain it when done.
+     */
+    private void drainSpool() {
+        EventSpool spool = eventSpool;
+        if (spool == null || !spoolDraining || spool.isEmpty() || !spoolLock.tryLock()) {
+            return;
+        }
+        try {
+            int lowWaterMark = Math.max(1, spoolHighWaterMark / 2);
+            while (isQueueOpen() && getQueueSize() < lowWaterMark) {
+                EventRecord record = spool.poll();
+                if (record == null) {
+                    break;
+                }
+                long[] offsets = null;
+                if (record.getJournalOffset() >= 0) {
+                    offsets = new long[] {record.getJournalOffset()};
+                }
+                post(new StreamEventsStringWork(record.getLine(), record.getProvider(), record.getReceivedOn()),
+                        offsets, record);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read events from the spool.", e);
+        } finally {
+            spoolLock.unlock();
+        }
+    }
+
+    /**
+     * If work can be queued, i.e. the handler isn't shut down.
+     *
+     * @return true if so.
+     */
+    private boolean isQueueOpen() {
+        WorkRingBuffer ring = ringBuffer;
+        if (ring != null) {
+            return !ring.isShutdown();
+        }
+        ThreadPoolExecutor pool = executor;
+        return pool != null && !pool.isShutdown();
+    }
+
+    /**
+     * Adjusts the batch size to the current load of the work queue.
+     *
+     * @return the batch size to use.
+     */
+    private int tuneBatchSize() {
+        int current = batchSize.get();
+        int queueSize = getQueueSize();
+        int next = current;
+        if (queueSize > getPoolSize()) {
+            next = Math.min(MAX_BATCH_SIZE, current * 2);
+        } else if (queueSize == 0) {
+            next = Math.max(1, current / 2);
+        }
+        if (next != current && batchSize.compareAndSet(current, next)) {
+            logger.debug("Batch size changed from {} to {}", current, next);
+        }
+        return next;
     }
 
     @Override
@@ -278,6 +1134,10 @@ public class GerritHandler implements Coordinator, Handler {
      * @return number of events
      */
     public int getQueueSize() {
+        WorkRingBuffer ring = ringBuffer;
+        if (ring != null) {
+            return ring.size();
+        }
         return executor.getQueue().size();
     }
 
@@ -287,101 +1147,198 @@ public class GerritHandler implements Coordinator, Handler {
      * @param work the work object.
      */
     private void post(Work work) {
+        post(work, null, null);
+    }
+
+    /**
+     * Post work object to work queue.
+     *
+     * @param work the work object.
+     * @param journalOffsets the offsets in the event journal to acknowledge when the work is done, or null.
+     * @param spooled the record from the event spool to acknowledge when the work is done, or null.
+     */
+    private void post(Work work, long[] journalOffsets, EventRecord spooled) {
         logger.trace("putting work on queue.");
-        queueWork(work);
-        checkQueueSize();
+        queueWork(work, journalOffsets, spooled);
     }
 
     /**
      * Helper that will trigger to perform the work
      *
      */
-    private static class EventWorker implements Runnable {
+    static class EventWorker implements Runnable {
 
         Work work;
+        GerritHandler handler;
         Coordinator coordinator;
+        ReceiveQueueOverflowPolicy overflowPolicy;
+        EventJournal journal;
+        long[] journalOffsets;
+        EventSpool spool;
+        EventRecord spooled;
+        OrderedDispatcher.Lane lane;
+        long ticket;
+        long queuedAt;
+        private Map<GerritEventType, Priority> priorityMap;
+        private Priority priority;
 
         /**
          * creates a new new EventWorker
          *
          * @param work the work to do
-         * @param coordinator the coordinator
+         * @param handler the handler
+         * @param overflowPolicy the policy of the receive queue, or null
+         * @param journal the event journal, or null
+         * @param journalOffsets the offsets in the journal to acknowledge when done, or null
          */
-        public EventWorker(Work work, Coordinator coordinator) {
+        public EventWorker(Work work, GerritHandler handler, ReceiveQueueOverflowPolicy overflowPolicy,
+                           EventJournal journal, long[] journalOffsets) {
             this.work = work;
-            this.coordinator = coordinator;
+            this.handler = handler;
+            this.coordinator = handler;
+            this.overflowPolicy = overflowPolicy;
+            this.journal = journal;
+            this.journalOffsets = journalOffsets;
+            this.queuedAt = System.nanoTime();
         }
 
-        @Override
-        public void run() {
-            //Check if we want to actually perform any further work on this.
-            if (work instanceof StreamEventsStringWork) {
-                workEvent(((StreamEventsStringWork)work).getLine());
-            } else if (work instanceof JSONEventWork) {
-                logger.debug("JSON project: {}", ((JSONEventWork)work).getJson());
-                workEvent(((JSONEventWork)work).getJson().toString());
-            } else {
-                work.perform(coordinator);
+        /**
+         * Acknowledges the journaled and spooled lines of the work, it is done with them one way or the other.
+         */
+        void acknowledge() {
+            EventRecord record = spooled;
+            spooled = null;
+            if (spool != null && record != null) {
+                spool.acknowledge(record);
+            }
+            long[] offsets = journalOffsets;
+            journalOffsets = null;
+            if (journal != null && offsets != null) {
+                for (long offset : offsets) {
+                    if (offset >= 0) {
+                        journal.acknowledge(offset);
+                    }
+                }
             }
         }
 
         /**
-         * Check String and carry out work if in whitelist.
-         * @param line - string of json to look at
+         * The work to do.
+         *
+         * @return the work
          */
-        private void workEvent(String line) {
-            logger.debug("Line for project evaluation{},line");
-            String project = getProjectNameFromJsonString(line);
-            logger.debug("Project before filter: {}", project);
-            if (isValidProject(project)) {
-                work.perform(coordinator);
+        Work getWork() {
+            return work;
+        }
+
+        /**
+         * The priority of the work, the highest among its events.
+         * Worked out once and kept, so the lines of queued work aren't scanned again
+         * every time the receive queue overflows.
+         * It is only worked out again when asked for with different priorities.
+         *
+         * @param priorities the priority of each event type.
+         * @return the priority.
+         */
+        synchronized Priority getPriority(Map<GerritEventType, Priority> priorities) {
+            if (priorityMap != priorities && !priorities.equals(priorityMap)) {
+                priority = ReceiveQueueOverflowPolicy.getPriority(work, priorities);
+                priorityMap = priorities;
+            }
+            return priority;
+        }
+
+        /**
+         * Puts the worker in a lane of ordered work.
+         *
+         * @param orderedLane the lane.
+         * @param laneTicket the worker's turn in the lane.
+         */
+        void setLane(OrderedDispatcher.Lane orderedLane, long laneTicket) {
+            this.lane = orderedLane;
+            this.ticket = laneTicket;
+        }
+
+        /**
+         * Gives up the worker's turn in its lane without performing the work, if it is in a lane.
+         * Used when the work is shed or never queued so that the work after it isn't held up.
+         */
+        void skipLane() {
+            OrderedDispatcher.Lane orderedLane = lane;
+            lane = null;
+            if (orderedLane != null) {
+                orderedLane.arrive(ticket, null);
+            }
+        }
+
+        @Override
+        public void run() {
+            ReceivePoolAutoscaler scaler = handler.autoscaler;
+            if (scaler != null) {
+                scaler.recordWait(System.nanoTime() - queuedAt);
+            }
+            OrderedDispatcher.Lane orderedLane = lane;
+            lane = null;
+            if (orderedLane != null) {
+                orderedLane.arrive(ticket, this);
             } else {
-                logger.debug("Ignoring event from: {}", project);
+                perform();
             }
         }
 
         /**
-         * Checks if project is in hash list or list is empty(default to true)
-         * @param project - project id
-         * @return boolean if project is in
+         * Performs the work, unless it has expired, and acknowledges it.
          */
-        private boolean isValidProject(String project) {
-            // If whitelist is empty, either on purpose or because whitelist file is
-            // missing,
-            // treat everything as valid.
-            if (getWhitelist().isEmpty()) {
-                return true;
+        void perform() {
+            long start = System.nanoTime();
+            ReceivePoolAutoscaler scaler = handler.autoscaler;
+            long busyId = 0;
+            if (scaler != null) {
+                busyId = scaler.recordStart(start);
+            }
+            PendingAcknowledgement.begin(this);
+            try {
+                if (overflowPolicy != null && overflowPolicy.isExpired(work)) {
+                    overflowPolicy.recordShed(work);
+                } else {
+                    doWork();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to perform work " + work, e);
+            } finally {
+                PendingAcknowledgement.end(this);
+                if (scaler != null) {
+                    scaler.recordEnd(busyId);
+                    scaler.recordService(System.nanoTime() - start);
+                }
             }
-            return getWhitelist().containsKey(project);
         }
 
         /**
-        * Helper method to parse Strings of json. Problem is project key might be
-        * nested under another json object, so parsing the json is recursive. This
-        * method should be sub-linear.
-         *
-        * project could be "foo" and could also be "foo/bar". Because of this I added
-        * the logic for nextSeparator and nextQuote. We will only match on the "foo"
-        * value in both of the preceding examples.
-         *
-         * @param data incoming json string from from project
-         * @return the json project string
+         * Performs the work, filtering out stream-events lines that aren't wanted before they are parsed.
          */
-        String getProjectNameFromJsonString(String data) {
-            int indexOf = data.indexOf(PROJECT);
-            if (indexOf >= 0) {
-                indexOf += PROJECT.length();
-                indexOf = data.indexOf(':', indexOf);
-                indexOf = data.indexOf('"', indexOf);
-                indexOf++;
-                int nextSeparator = data.indexOf('/', indexOf);
-                int nextQuote = data.indexOf('"', indexOf);
-                if (nextSeparator > 0 && nextSeparator < nextQuote) {
-                    return data.substring(indexOf, nextSeparator);
+        private void doWork() {
+            //Check if we want to actually perform any further work on this.
+            if (work instanceof StreamEventsStringWork) {
+                StreamEventsStringWork stringWork = (StreamEventsStringWork)work;
+                if (handler.isWanted(stringWork.getLine(), stringWork.getProvider())) {
+                    work.perform(coordinator);
+                }
+            } else if (work instanceof StreamEventsBatchWork) {
+                StreamEventsBatchWork batch = (StreamEventsBatchWork)work;
+                for (String line : batch.getLines()) {
+                    if (handler.isWanted(line, batch.getProvider())) {
+                        batch.performLine(line, coordinator);
+                    }
+                }
+            } else if (work instanceof JSONEventWork) {
+                JSONEventWork jsonWork = (JSONEventWork)work;
+                logger.debug("JSON project: {}", jsonWork.getJson());
+                if (handler.isWanted(jsonWork.getJson().toString(), jsonWork.getProvider())) {
+                    work.perform(coordinator);
                 }
-                return data.substring(indexOf, nextQuote);
             } else {
-                return "";
+                work.perform(coordinator);
             }
         }
     }
@@ -389,13 +1346,33 @@ public class GerritHandler implements Coordinator, Handler {
     /**
      * puts work in the queue
      * @param work the work to do
+     * @param journalOffsets the offsets in the event journal to acknowledge when the work is done, or null
+     * @param spooled the record from the event spool to acknowledge when the work is done, or null
      */
-    private void queueWork(Work work) {
+    private void queueWork(Work work, long[] journalOffsets, EventRecord spooled) {
+        EventWorker worker = new EventWorker(work, this, overflowPolicy, eventJournal, journalOffsets);
+        if (spooled != null) {
+            worker.spool = eventSpool;
+            worker.spooled = spooled;
+        }
+        if (overflowPolicy instanceof DropByPriority) {
+            worker.getPriority(((DropByPriority)overflowPolicy).getPriorities());
+        }
+        OrderedDispatcher dispatcher = orderedDispatcher;
+        if (dispatcher != null) {
+            dispatcher.assign(worker);
+        }
         try {
             logger.debug("Queueing work {}", work);
-            executor.submit(new EventWorker(work, this));
+            WorkRingBuffer ring = ringBuffer;
+            if (ring != null) {
+                ring.execute(worker);
+            } else {
+                executor.execute(worker);
+            }
         } catch (RejectedExecutionException e) {
             logger.error("Unable to queue a received event! ", e);
+            worker.skipLane();
         }
         checkQueueSize();
     }
@@ -410,19 +1387,54 @@ public class GerritHandler implements Coordinator, Handler {
                         + " Something might be stuck, or your system can't process the commands fast enough."
                         + " Try to increase the number of receiving worker threads."
                         + " Current thread-pool size: {}",
-                    queueSize, executor.getPoolSize());
+                    queueSize, getPoolSize());
         }
     }
 
+    /**
+     * Adds a listener. If it is a {@link GerritEventSubscriber} it is only notified about the events
+     * matching its subscription, otherwise about all events.
+     *
+     * @param listener the listener to add.
+     */
     @Override
     public void addListener(GerritEventListener listener) {
         synchronized (this) {
             if (!gerritEventListeners.add(listener)) {
                 logger.warn("The listener was doubly-added: {}", listener);
+            } else {
+                listenerIndex.put(listener, getSubscription(listener));
             }
         }
     }
 
+    /**
+     * Adds a listener that is only notified about the events matching the subscription.
+     * If the listener is already added its subscription is replaced.
+     *
+     * @param listener the listener to add.
+     * @param subscription the events it wants, null for all events.
+     */
+    public void addListener(GerritEventListener listener, GerritEventSubscription subscription) {
+        synchronized (this) {
+            gerritEventListeners.add(listener);
+            listenerIndex.put(listener, subscription);
+        }
+    }
+
+    /**
+     * The subscription a listener declares.
+     *
+     * @param listener the listener.
+     * @return the subscription or null if it wants all events.
+     */
+    private static GerritEventSubscription getSubscription(GerritEventListener listener) {
+        if (listener instanceof GerritEventSubscriber) {
+            return ((GerritEventSubscriber)listener).getSubscription();
+        }
+        return null;
+    }
+
     /**
      * Adds all the provided listeners to the internal list of listeners.
      *
@@ -440,7 +1452,11 @@ public class GerritHandler implements Coordinator, Handler {
      */
     public void addEventListeners(Collection<? extends GerritEventListener> listeners) {
         synchronized (this) {
-            gerritEventListeners.addAll(listeners);
+            for (GerritEventListener listener : listeners) {
+                if (gerritEventListeners.add(listener)) {
+                    listenerIndex.put(listener, getSubscription(listener));
+                }
+            }
         }
     }
 
@@ -448,6 +1464,11 @@ public class GerritHandler implements Coordinator, Handler {
     public void removeListener(GerritEventListener listener) {
         synchronized (this) {
             gerritEventListeners.remove(listener);
+            listenerIndex.remove(listener);
+            ListenerIsolation isolation = listenerIsolation;
+            if (isolation != null) {
+                isolation.remove(listener);
+            }
         }
     }
 
@@ -460,10 +1481,132 @@ public class GerritHandler implements Coordinator, Handler {
         synchronized (this) {
             HashSet<GerritEventListener> listeners = new HashSet<GerritEventListener>(gerritEventListeners);
             gerritEventListeners.clear();
+            listenerIndex.clear();
+            ListenerIsolation isolation = listenerIsolation;
+            if (isolation != null) {
+                for (GerritEventListener listener : listeners) {
+                    isolation.remove(listener);
+                }
+            }
             return listeners;
         }
     }
 
+    /**
+     * Adds a batch listener with the default batch size and linger time.
+     *
+     * @param listener the listener to add.
+     * @see #addBatchListener(GerritBatchEventListener, int, long)
+     */
+    public void addBatchListener(GerritBatchEventListener listener) {
+        addBatchListener(listener, BATCH_LISTENER_MAX_SIZE, BATCH_LISTENER_MAX_LINGER);
+    }
+
+    /**
+     * Adds a listener that gets the events in batches. A batch is handed over when it has the max number of events
+     * or its oldest event has waited the max linger time. If the listener is already added its batch settings are
+     * replaced after handing over what was collected with the former ones.
+     *
+     * @param listener the listener to add.
+     * @param maxBatchSize the max number of events in a batch.
+     * @param maxLingerMillis how long an event may wait for its batch to fill up, 0 or less to wait until it is full.
+     */
+    public void addBatchListener(GerritBatchEventListener listener, int maxBatchSize, long maxLingerMillis) {
+        synchronized (this) {
+            if (batchScheduler == null) {
+                batchScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Gerrit Batch Listener Flush");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            EventBatcher old = batchers.put(listener,
+                    new EventBatcher(listener, maxBatchSize, maxLingerMillis, batchScheduler));
+            if (old != null) {
+                old.flush();
+            }
+        }
+    }
+
+    /**
+     * Removes a batch listener, handing over the events collected for it first.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeBatchListener(GerritBatchEventListener listener) {
+        EventBatcher batcher = batchers.remove(listener);
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * Hands over the events collected so far to all batch listeners.
+     */
+    public void flushBatchListeners() {
+        for (EventBatcher batcher : batchers.values()) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * Opens a cursor with the default capacity and timeout.
+     *
+     * @return the cursor.
+     * @see #openCursor(int, long)
+     */
+    public GerritEventCursor openCursor() {
+        return openCursor(CURSOR_CAPACITY, CURSOR_TIMEOUT);
+    }
+
+    /**
+     * Opens a cursor to pull the events from, from now on, until it is closed.
+     * Each cursor gets all events independently of the others.
+     *
+     * @param capacity the max number of events waiting to be read, new events are dropped when it is full.
+     * @param timeoutMillis how long to wait for the next event before the iteration ends, 0 or less to wait forever.
+     * @return the cursor.
+     */
+    public GerritEventCursor openCursor(int capacity, long timeoutMillis) {
+        GerritEventCursor cursor = new GerritEventCursor(this, capacity, timeoutMillis);
+        cursors.add(cursor);
+        addListener(cursor);
+        return cursor;
+    }
+
+    /**
+     * A stream of the events from now on, from a cursor with the default capacity and timeout.
+     * Closing the stream closes the cursor.
+     *
+     * @return the stream.
+     * @see GerritEventCursor#stream()
+     */
+    public Stream<GerritEvent> stream() {
+        return openCursor().stream();
+    }
+
+    /**
+     * Stops a closed cursor from getting events.
+     *
+     * @param cursor the cursor.
+     */
+    void removeCursor(GerritEventCursor cursor) {
+        cursors.remove(cursor);
+        removeListener(cursor);
+    }
+
+    /**
+     * Returns an unmodifiable view of the set of {@link GerritBatchEventListener}s.
+     *
+     * @return the registered batch listeners.
+     */
+    public Set<GerritBatchEventListener> getBatchListenersView() {
+        return Collections.unmodifiableSet(batchers.keySet());
+    }
+
     /**
      * The number of added e{@link GerritEventListener}s.
      * @return the size.
@@ -517,7 +1660,9 @@ public class GerritHandler implements Coordinator, Handler {
      */
     public void setThreadKeepAliveTime(int threadKeepAliveTime) {
         this.threadKeepAliveTime = Math.max(MIN_RECEIVE_THREAD_KEEP_ALIVE_TIME, threadKeepAliveTime);
-        executor.setKeepAliveTime(threadKeepAliveTime, TimeUnit.SECONDS);
+        if (executor != null) {
+            executor.setKeepAliveTime(threadKeepAliveTime, TimeUnit.SECONDS);
+        }
     }
 
     /**
@@ -529,7 +1674,13 @@ public class GerritHandler implements Coordinator, Handler {
     public BlockingQueue<Work> getWorkQueue() {
 
         BlockingQueue<Work> queue = new LinkedBlockingQueue<Work>();
-        BlockingQueue<Runnable> workQueue = executor.getQueue();
+        Collection<Runnable> workQueue;
+        WorkRingBuffer ring = ringBuffer;
+        if (ring != null) {
+            workQueue = ring.snapshot();
+        } else {
+            workQueue = executor.getQueue();
+        }
         for (Runnable r: workQueue) {
             if (r instanceof EventWorker) {
                 queue.add(((EventWorker)r).work);
@@ -540,11 +1691,14 @@ public class GerritHandler implements Coordinator, Handler {
     }
 
     /**
-     * Notifies all listeners of a Gerrit event. This method is meant to be called by one of the Worker Threads {@link
-     * com.sonymobile.tools.gerrit.gerritevents.workers.EventThread} and not on this Thread which would
+     * Notifies the listeners that want a Gerrit event. This method is meant to be called by one of the Worker
+     * Threads {@link com.sonymobile.tools.gerrit.gerritevents.workers.EventThread} and not on this Thread which would
      * defeat the purpose of having workers.
+     * When listeners are isolated the event is only handed over to their threads.
+     * The event is also added to the batches of the {@link GerritBatchEventListener}s.
      *
      * @param event the event.
+     * @see #setListenerIsolation(ListenerIsolation)
      */
     @Override
     public void notifyListeners(GerritEvent event) {
@@ -554,7 +1708,23 @@ public class GerritHandler implements Coordinator, Handler {
                 return;
             }
         }
-        for (GerritEventListener listener : gerritEventListeners) {
+        if (!batchers.isEmpty()) {
+            for (EventBatcher batcher : batchers.values()) {
+                batcher.add(event);
+            }
+        }
+        ListenerIsolation isolation = listenerIsolation;
+        ListenerFanOut fanOut = listenerFanOut;
+        List<GerritEventListener> listeners = listenerIndex.getListeners(event);
+        if (isolation == null && fanOut != null && listeners.size() > 1) {
+            fanOut.deliver(listeners, event);
+            return;
+        }
+        for (GerritEventListener listener : listeners) {
+            if (isolation != null) {
+                isolation.submit(listener, event, PendingAcknowledgement.hold());
+                continue;
+            }
             try {
                 notifyListener(listener, event);
             } catch (Exception ex) {
@@ -566,34 +1736,105 @@ public class GerritHandler implements Coordinator, Handler {
 
     /**
      * Sub method of {@link #notifyListeners(com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent) }.
-     * This is where most of the reflection magic in the event notification is done.
+     * Calls the closest gerritEvent method of the listener, as resolved by {@link ListenerDispatchTable}.
      *
      * @param listener the listener to notify
      * @param event    the event.
      */
     private void notifyListener(GerritEventListener listener, GerritEvent event) {
         logger.trace("Notifying listener {} of event {}", listener, event);
-        try {
-            logger.trace("Reflecting closest method");
-            Method method = listener.getClass().getMethod("gerritEvent", event.getClass());
-            method.invoke(listener, event);
-        } catch (IllegalAccessException ex) {
-            logger.debug("Not allowed to invoke the reflected method. Calling default.", ex);
-            listener.gerritEvent(event);
-        } catch (IllegalArgumentException ex) {
-            logger.debug("Not allowed to invoke the reflected method with specified parameter (REFLECTION BUG). "
-               + "Calling default.", ex);
-            listener.gerritEvent(event);
-        } catch (InvocationTargetException ex) {
-            logger.error("When notifying listener: {} about event: {}", listener, event);
-            logger.error("Exception thrown during event handling.", ex);
-        } catch (NoSuchMethodException ex) {
-            logger.debug("No appropriate method found during reflection. Calling default.", ex);
-            listener.gerritEvent(event);
-        } catch (SecurityException ex) {
-            logger.debug("Not allowed to reflect/invoke a method on this listener (DESIGN BUG). Calling default", ex);
-            listener.gerritEvent(event);
+        ListenerDispatchTable.dispatch(listener, event);
+    }
+
+    /**
+     * Decides from the raw stream-events line if it is worth parsing, without parsing it.
+     * Lines of uninteresting or unusable types, from projects that aren't whitelisted
+     * and comments from ignored e-mail addresses are not wanted.
+     * A line that can't be scanned is parsed to decide, so that a line cut short is never let through
+     * on the strength of what was scanned before the cut.
+     *
+     * @param line the line.
+     * @param provider the Gerrit server the line came from, or null.
+     * @return true if the line should be parsed and performed.
+     */
+    boolean isWanted(String line, Provider provider) {
+        StreamEventsLineScanner scanner = StreamEventsLineScanner.forCurrentThread();
+        if (!scanner.scan(line)) {
+            return isWantedParsed(line);
+        }
+        GerritEventType type = scanner.getType();
+        boolean wanted;
+        if (type != null) {
+            wanted = GerritJsonEventRegistry.isInterestingAndUsable(type);
+        } else {
+            wanted = GerritJsonEventRegistry.isInterestingAndUsable(scanner.getTypeValue());
+        }
+        if (!wanted) {
+            logger.trace("Ignoring uninteresting event of type: {}", type);
+            return false;
+        }
+        String project = scanner.getProject();
+        if (!isWhitelisted(project)) {
+            logger.debug("Ignoring event from: {}", project);
+            return false;
         }
+        if (scanner.getType() == GerritEventType.COMMENT_ADDED && provider != null) {
+            String ignoreEMail = ignoreEMails.get(provider.getName());
+            String authorEmail = scanner.getAuthorEmail();
+            if (StringUtils.isNotEmpty(ignoreEMail) && authorEmail != null && authorEmail.endsWith(ignoreEMail)) {
+                logger.debug("Ignoring comment from: {}", authorEmail);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decides from the parsed line if it is wanted, for lines the scanner couldn't make sense of.
+     * Comments from ignored e-mail addresses are filtered out after parsing, when the listeners are notified.
+     *
+     * @param line the line.
+     * @return true if the line is an interesting and usable event from a whitelisted project.
+     */
+    private static boolean isWantedParsed(String line) {
+        JSONObject json = GerritJsonEventFactory.getJsonObjectIfInterestingAndUsable(line);
+        if (json == null) {
+            logger.debug("Ignoring a line that could not be parsed: {}", line);
+            return false;
+        }
+        String project = GerritJsonEventFactory.getString(json, GerritEventKeys.PROJECT, null);
+        JSONObject change = json.optJSONObject(GerritEventKeys.CHANGE);
+        if (project == null && change != null) {
+            project = GerritJsonEventFactory.getString(change, GerritEventKeys.PROJECT, null);
+        }
+        if (!isWhitelisted(project)) {
+            logger.debug("Ignoring event from: {}", project);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the top level folder of the project, or the project itself if it isn't in a folder,
+     * is in the whitelist.
+     * An empty whitelist, either on purpose or because the whitelist file is missing, lets everything through.
+     *
+     * @param project the project name.
+     * @return true if events from the project should be performed.
+     */
+    private static boolean isWhitelisted(String project) {
+        HashMap<String, Object> current = getWhitelist();
+        if (current.isEmpty()) {
+            return true;
+        }
+        if (project == null) {
+            return current.containsKey("");
+        }
+        int separator = project.indexOf('/');
+        if (separator >= 0) {
+            return current.containsKey(project.substring(0, separator));
+        }
+        return current.containsKey(project);
     }
 
     /**
@@ -628,9 +1869,23 @@ public class GerritHandler implements Coordinator, Handler {
      * @param join if the method should wait for the thread to finish before returning.
      */
     public void shutdown(boolean join) {
-        ThreadPoolExecutor pool = executor;
+        setAutoscaler(null);
+        ExecutorService pool = executor;
+        if (ringBuffer != null) {
+            pool = ringBuffer;
+        }
         executor = null;
+        ringBuffer = null;
         pool.shutdown(); // Disable new tasks from being submitted
+        spoolLock.lock();
+        try {
+            if (eventSpool != null) {
+                eventSpool.close();
+                eventSpool = null;
+            }
+        } finally {
+            spoolLock.unlock();
+        }
         if (join) {
             try {
                 // Wait a while for existing tasks to terminate
@@ -648,6 +1903,26 @@ public class GerritHandler implements Coordinator, Handler {
                 Thread.currentThread().interrupt();
             }
         }
+        ListenerIsolation isolation = listenerIsolation;
+        if (isolation != null) {
+            isolation.shutdown();
+        }
+        replaceFanOut(null);
+        flushBatchListeners();
+        synchronized (this) {
+            if (batchScheduler != null) {
+                batchScheduler.shutdown();
+                batchScheduler = null;
+            }
+        }
+        for (GerritEventCursor cursor : cursors) {
+            cursor.close();
+        }
+        EventJournal journal = eventJournal;
+        eventJournal = null;
+        if (journal != null) {
+            journal.close();
+        }
     }
 
     /**
@@ -23,10 +23,16 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonEvent;
-import java.lang.reflect.Constructor;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import net.sf.json.JSONException;
@@ -58,35 +64,11 @@ public final class GerritJsonEventFactory {
      * @return the POJO DTO representation of the jsonObject.
      */
     public static GerritJsonEvent getEvent(JSONObject jsonObject) {
-
-        GerritEventType type = GerritEventType.findByTypeValue(jsonObject.getString("type"));
         //the type has already been verified by the method that gets the JSONObject,
         //so any NullPointerExceptions or similar problems are the caller's own fault.
-        Class<? extends GerritJsonEvent> clazz = type.getEventRepresentative();
-        GerritJsonEvent event = null;
-        try {
-            logger.debug("Interesting event with a class defined. Searching shorthand constructor.");
-            Constructor<? extends GerritJsonEvent> constructor = clazz.getConstructor(JSONObject.class);
-            event = constructor.newInstance(jsonObject);
-            logger.trace("Event created from shorthand constructor.");
-        } catch (NoSuchMethodException ex) {
-            logger.debug("Constructor with JSONObject as parameter missing, trying default constructor.", ex);
-        } catch (Exception ex) {
-            logger.debug("Error when using event constructor with JSONObject, trying default constructor.", ex);
-        }
-        if (event == null) {
-            logger.debug("Trying default constructor.");
-            try {
-                event = clazz.newInstance();
-                event.fromJson(jsonObject);
-                logger.trace("Event created from default constructor");
-            } catch (InstantiationException ex) {
-                logger.error("Could not create an interesting GerritJsonEvent via default constructor "
-                        + "(DESIGN ERROR).", ex);
-            } catch (IllegalAccessException ex) {
-                logger.error("Could not create an interesting GerritJsonEvent via default constructor"
-                        + "(DESIGN ERROR).", ex);
-            }
+        GerritJsonEvent event = GerritJsonEventRegistry.create(jsonObject.getString("type"));
+        if (event != null) {
+            event.fromJson(jsonObject);
         }
         logger.debug("Returning an event: {}", event);
         return event;
@@ -109,11 +91,11 @@ public final class GerritJsonEventFactory {
      * If it is interesting is determined by:
      * <ol>
      *  <li>The object contains a String field named type</li>
-     *  <li>The String returns a non null GerritEventType from
-     *      {@link GerritEventType#findByTypeValue(java.lang.String) }</li>
-     *  <li>The property {@link GerritEventType#isInteresting() } == true</li>
+     *  <li>The String is the type-value of a GerritEventType or of a type registered in
+     *      {@link GerritJsonEventRegistry}</li>
+     *  <li>The property {@link GerritEventType#isInteresting() } == true, for the built-in types</li>
      * </ol>
-     * It is usable if the type's {@link GerritEventType#getEventRepresentative() } is not null.
+     * It is usable if {@link GerritJsonEventRegistry} has a factory for the type.
      * @param jsonString the string to parse.
      * @return an interesting and usable JSONObject, or null if it is not.
      */
@@ -148,11 +130,11 @@ public final class GerritJsonEventFactory {
      * Check if it is interesting and usable. If it is interesting is determined by:
      * <ol>
      *  <li>The object contains a String field named type</li>
-     *  <li>The String returns a non null GerritEventType from
-     *      {@link GerritEventType#findByTypeValue(java.lang.String) }</li>
-     *  <li>The property {@link GerritEventType#isInteresting() } == true</li>
+     *  <li>The String is the type-value of a GerritEventType or of a type registered in
+     *      {@link GerritJsonEventRegistry}</li>
+     *  <li>The property {@link GerritEventType#isInteresting() } == true, for the built-in types</li>
      * </ol>
-     * It is usable if the type's {@link GerritEventType#getEventRepresentative() } is not null.
+     * It is usable if {@link GerritJsonEventRegistry} has a factory for the type.
      * @param json the string to parse.
      * @return true if an interesting and usable JSONObject.
      */
@@ -161,9 +143,9 @@ public final class GerritJsonEventFactory {
             if (json != null) {
                 if (json.get("type") != null) {
                     logger.trace("It has a type");
-                    GerritEventType type = GerritEventType.findByTypeValue(json.getString("type"));
+                    String type = json.getString("type");
                     logger.debug("Type found: {}", type);
-                    if (type != null && type.isInteresting() && type.getEventRepresentative() != null) {
+                    if (GerritJsonEventRegistry.isInterestingAndUsable(type)) {
                         logger.debug("It is interesting and usable.");
                         return true;
                     }
@@ -175,20 +157,55 @@ public final class GerritJsonEventFactory {
         return false;
     }
 
+    /**
+     * Finds the event type of a stream-events line without parsing it.
+     * @param jsonString the JSON formatted string.
+     * @return the event type or null if none was found.
+     * @see StreamEventsLineScanner
+     */
+    public static GerritEventType peekEventType(String jsonString) {
+        StreamEventsLineScanner scanner = StreamEventsLineScanner.forCurrentThread();
+        scanner.scan(jsonString);
+        return scanner.getType();
+    }
+
     /**
      * Tries to parse the provided string into a GerritJsonEvent DTO if it is interesting and usable.
+     * The type is found with {@link StreamEventsLineScanner} and events that are {@link GerritJsonStreamDTO}s
+     * are then filled straight from the JSON tokens in one pass; other events are created through
+     * {@link #getEvent(net.sf.json.JSONObject)} like before.
      * @param jsonString the JSON formatted string.
      * @return the Event.
      * @see #getJsonObjectIfInterestingAndUsable(String)
      */
     public static GerritJsonEvent getEventIfInteresting(String jsonString) {
         logger.trace("finding event for jsonString: {}", jsonString);
+        if (jsonString == null || jsonString.length() <= 0) {
+            return null;
+        }
+        StreamEventsLineScanner scanner = StreamEventsLineScanner.forCurrentThread();
+        scanner.scan(jsonString);
+        GerritJsonEventRegistry.EventCreator creator;
+        if (scanner.getType() != null) {
+            creator = GerritJsonEventRegistry.getCreatorIfInteresting(scanner.getType().getTypeValue());
+        } else {
+            creator = GerritJsonEventRegistry.getCreatorIfInteresting(scanner.getTypeValue());
+        }
+        if (creator == null) {
+            return null;
+        }
         try {
+            GerritJsonEvent event = creator.create();
+            if (event instanceof GerritJsonStreamDTO) {
+                JsonReader reader = new JsonReader(new StringReader(jsonString));
+                reader.setLenient(true);
+                ((GerritJsonStreamDTO)event).fromJson(reader);
+                return event;
+            }
             JSONObject jsonObject = getJsonObjectIfInterestingAndUsable(jsonString);
             if (jsonObject != null) {
                 return getEvent(jsonObject);
             }
-
         } catch (Exception ex) {
             logger.warn("Unanticipated error when creating DTO representation of JSON string.", ex);
         }
@@ -286,4 +303,91 @@ public final class GerritJsonEventFactory {
         }
         return result;
     }
+
+    /**
+     * Reads the next value from the stream as a String, the same way as
+     * {@link #getString(net.sf.json.JSONObject, java.lang.String)} does for a property.
+     * Numbers and booleans are returned as text, null and nested objects or arrays as null.
+     * @param reader the reader.
+     * @return the value.
+     * @throws IOException if the stream is malformed.
+     */
+    public static String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        } else if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        } else if (token == JsonToken.NULL) {
+            reader.nextNull();
+        } else {
+            reader.skipValue();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next value from the stream as a boolean, the same way as
+     * {@link #getBoolean(net.sf.json.JSONObject, java.lang.String, boolean)} does for a property.
+     * @param reader the reader.
+     * @param defaultValue the value to return if the value isn't a boolean.
+     * @return the value.
+     * @throws IOException if the stream is malformed.
+     */
+    public static boolean nextBoolean(JsonReader reader, boolean defaultValue) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        String value = nextString(reader);
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        } else if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Reads the next value from the stream as a Date, the same way as
+     * {@link #getDate(net.sf.json.JSONObject, java.lang.String)} does for a property.
+     * @param reader the reader.
+     * @return the value, or null if it isn't a time stamp.
+     * @throws IOException if the stream is malformed.
+     */
+    public static Date nextDate(JsonReader reader) throws IOException {
+        String secondsString = nextString(reader);
+        if (secondsString == null) {
+            return null;
+        }
+        try {
+            //In gerrit, time is written in seconds, not milliseconds.
+            return new Date(TimeUnit.SECONDS.toMillis(Long.parseLong(secondsString)));
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the next value from the stream as a list of Strings.
+     * @param reader the reader.
+     * @return the non null values of the array, or an empty list if the value isn't an array.
+     * @throws IOException if the stream is malformed.
+     */
+    public static List<String> nextStringList(JsonReader reader) throws IOException {
+        List<String> result = new ArrayList<String>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return result;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String value = nextString(reader);
+            //A lenient reader sees a trailing comma as a null element, the json-lib parser ignores it.
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        reader.endArray();
+        return result;
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * Maps the type-value of stream-events lines to factories for the DTO of the event.
+ * <p>
+ * The factories of the {@link GerritEventType}s are resolved once when the class is loaded, so creating an event
+ * is a map lookup and a direct constructor call instead of a reflective search for each event.
+ * Factories for other event types, like the ones sent by Gerrit plugins, can be added with
+ * {@link #register(String, Class)} or {@link #register(String, EventCreator)}; a registration for the type-value
+ * of a built-in type replaces the built-in factory. Events of built-in types are only created when the type
+ * {@link GerritEventType#isInteresting() is interesting}; registered plugin types always are.
+ */
+public final class GerritJsonEventRegistry {
+
+    private static final Map<String, EventCreator> CREATORS = new ConcurrentHashMap<String, EventCreator>();
+
+    static {
+        for (GerritEventType type : GerritEventType.values()) {
+            if (type.getEventRepresentative() != null) {
+                CREATORS.put(key(type.getTypeValue()), new ConstructorCreator(type.getEventRepresentative()));
+            }
+        }
+    }
+
+    /**
+     * Empty private Constructor to hinder instantiation.
+     */
+    private GerritJsonEventRegistry() {
+        //Empty
+    }
+
+    /**
+     * Creates new, empty events of one type. The event is filled from the JSON afterwards.
+     */
+    public interface EventCreator {
+
+        /**
+         * Creates a new event.
+         *
+         * @return the event.
+         */
+        GerritJsonEvent create();
+    }
+
+    /**
+     * Registers the DTO class for a type-value. The class needs a public no argument constructor,
+     * an IllegalArgumentException is thrown if it hasn't got one.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @param eventClass the DTO class.
+     */
+    public static void register(String typeValue, Class<? extends GerritJsonEvent> eventClass) {
+        register(typeValue, new ConstructorCreator(eventClass));
+    }
+
+    /**
+     * Registers a factory for a type-value.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @param creator the factory.
+     */
+    public static void register(String typeValue, EventCreator creator) {
+        if (typeValue == null || creator == null) {
+            throw new IllegalArgumentException("Type value and creator must not be null");
+        }
+        CREATORS.put(key(typeValue), creator);
+    }
+
+    /**
+     * Removes the factory registered for a type-value.
+     * If the type-value belongs to a built-in type its default factory is restored.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return true if there was a registration to remove.
+     */
+    public static boolean unregister(String typeValue) {
+        if (typeValue == null) {
+            return false;
+        }
+        GerritEventType type = GerritEventType.findByTypeValue(typeValue);
+        if (type != null && type.getEventRepresentative() != null) {
+            CREATORS.put(key(typeValue), new ConstructorCreator(type.getEventRepresentative()));
+            return true;
+        }
+        return CREATORS.remove(key(typeValue)) != null;
+    }
+
+    /**
+     * If there is a factory for the type-value.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return true if so.
+     */
+    public static boolean isRegistered(String typeValue) {
+        return findCreator(typeValue) != null;
+    }
+
+    /**
+     * If events with the type-value should be created, i.e. there is a factory for it and,
+     * if it is a built-in type, the type is interesting.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return true if so.
+     */
+    public static boolean isInterestingAndUsable(String typeValue) {
+        return getCreatorIfInteresting(typeValue) != null;
+    }
+
+    /**
+     * If events of the built-in type should be created, without looking at the type-value.
+     *
+     * @param type the type.
+     * @return true if so.
+     */
+    public static boolean isInterestingAndUsable(GerritEventType type) {
+        return type != null && type.isInteresting() && CREATORS.containsKey(type.getTypeValue());
+    }
+
+    /**
+     * Creates a new, empty event for the type-value, whether its type is interesting or not.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return the event, or null if there is no factory for the type-value.
+     */
+    public static GerritJsonEvent create(String typeValue) {
+        EventCreator creator = findCreator(typeValue);
+        if (creator == null) {
+            return null;
+        }
+        return creator.create();
+    }
+
+    /**
+     * The factory for the type-value if events with it should be created.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return the factory or null.
+     * @see #isInterestingAndUsable(String)
+     */
+    public static EventCreator getCreatorIfInteresting(String typeValue) {
+        EventCreator creator = findCreator(typeValue);
+        if (creator == null) {
+            return null;
+        }
+        GerritEventType type = GerritEventType.findByTypeValue(typeValue);
+        if (type != null && !type.isInteresting()) {
+            return null;
+        }
+        return creator;
+    }
+
+    /**
+     * Looks up the factory for the type-value, trying the value as it is before lower casing it.
+     * Built-in type-values are lower case so the common case needs neither allocation nor a second lookup.
+     *
+     * @param typeValue the value of the type property in the JSON object.
+     * @return the factory or null.
+     */
+    private static EventCreator findCreator(String typeValue) {
+        if (typeValue == null) {
+            return null;
+        }
+        EventCreator creator = CREATORS.get(typeValue);
+        if (creator == null) {
+            creator = CREATORS.get(key(typeValue));
+        }
+        return creator;
+    }
+
+    /**
+     * The map key of a type-value.
+     *
+     * @param typeValue the type-value.
+     * @return the key.
+     */
+    private static String key(String typeValue) {
+        return typeValue.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Creates events by calling the no argument constructor through a method handle resolved up front.
+     */
+    private static final class ConstructorCreator implements EventCreator {
+
+        private final MethodHandle constructor;
+
+        /**
+         * Resolves the constructor, throwing an IllegalArgumentException if there is no public one without arguments.
+         *
+         * @param eventClass the DTO class.
+         */
+        ConstructorCreator(Class<? extends GerritJsonEvent> eventClass) {
+            if (eventClass == null) {
+                throw new IllegalArgumentException("Event class must not be null");
+            }
+            try {
+                constructor = MethodHandles.publicLookup()
+                        .findConstructor(eventClass, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(GerritJsonEvent.class));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(eventClass.getName() + " has no public no argument constructor",
+                        e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(eventClass.getName() + " has no public no argument constructor",
+                        e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The requirement check is ignored as invokeExact is signature polymorphic, so the descriptor of the call
+         * is not one the API signatures know of.
+         */
+        @Override
+        @IgnoreJRERequirement
+        public GerritJsonEvent create() {
+            try {
+                return (GerritJsonEvent)constructor.invokeExact();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Could not create event", t);
+            }
+        }
+    }
+}
@@ -25,9 +25,11 @@
 
 package com.sonymobile.tools.gerrit.gerritevents;
 
+import com.sonymobile.tools.gerrit.gerritevents.ssh.SshConnectionImpl;
 import com.sonymobile.tools.gerrit.gerritevents.workers.GerritWorkersConfig;
 import com.sonymobile.tools.gerrit.gerritevents.workers.cmd.AbstractSendCommandJob;
 import com.sonymobile.tools.gerrit.gerritevents.workers.cmd.AbstractSendCommandJob2;
+import com.sonymobile.tools.gerrit.gerritevents.workers.cmd.SendCommandBatcher;
 import com.sonymobile.tools.gerrit.gerritevents.workers.rest.AbstractRestCommandJob;
 import com.sonymobile.tools.gerrit.gerritevents.workers.rest.AbstractRestCommandJob2;
 
@@ -54,6 +56,7 @@ public final class GerritSendCommandQueue {
     private static final Logger logger = LoggerFactory.getLogger(GerritSendCommandQueue.class);
     private static GerritSendCommandQueue instance;
     private ThreadPoolExecutor executor = null;
+    private SendCommandBatcher batcher = null;
     private static final String THREAD_PREFIX = "Gerrit-send-command-thread-";
     private static final int THREAD_KEEP_ALIVE_TIME = 20;
     /**
@@ -62,6 +65,16 @@ public final class GerritSendCommandQueue {
     public static final int SEND_QUEUE_SIZE_WARNING_THRESHOLD =
             Integer.getInteger("gerritevents.GerritSendCommandQueue.SEND_QUEUE_SIZE_WARNING_THRESHOLD", 20);
     private static final int WAIT_FOR_JOBS_SHUTDOWN_TIMEOUT = 30;
+    /**
+     * How long [msec] a {@link AbstractSendCommandJob2} waits for more jobs to the same server
+     * to be sent together with, pipelined on one session. 0 to send each job on its own.
+     */
+    public static final long BATCH_LINGER = Long.getLong("gerritevents.GerritSendCommandQueue.BATCH_LINGER", 0);
+    /**
+     * The max number of jobs sent together in one batch.
+     */
+    public static final int BATCH_MAX_SIZE = Integer.getInteger("gerritevents.GerritSendCommandQueue.BATCH_MAX_SIZE",
+            SshConnectionImpl.MAX_CHANNELS_PER_SESSION);
 
     /**
      * Private Default constructor.
@@ -126,12 +139,26 @@ public final class GerritSendCommandQueue {
      */
     public static int getQueueSize() {
         if (instance != null && instance.executor != null) {
+            SendCommandBatcher b = instance.batcher;
+            if (b != null) {
+                return instance.executor.getQueue().size() + b.getPendingCount();
+            }
             return instance.executor.getQueue().size();
         } else {
             return 0;
         }
     }
 
+    /**
+     * The batching stage in front of the thread-pool, if jobs are batched.
+     *
+     * @return the batcher or null.
+     * @see #BATCH_LINGER
+     */
+    public SendCommandBatcher getBatcher() {
+        return batcher;
+    }
+
     /**
      * Adds a job to the queue.
      * At the same time tries to update the thread-pool size from the latest config of the job.
@@ -169,6 +196,24 @@ public final class GerritSendCommandQueue {
         return future;
     }
 
+    /**
+     * Adds a job to the queue, or to the batch of its server if jobs are batched.
+     *
+     * @param job the job to do.
+     * @return the future object.
+     * @see #BATCH_LINGER
+     */
+    public Future<String> queueJob(AbstractSendCommandJob2 job) {
+        SendCommandBatcher b = batcher;
+        if (b == null) {
+            return queueJob((Callable<String>)job);
+        }
+        logger.debug("Batching job {}", job);
+        Future<String> future = b.queue(job);
+        checkQueueSize();
+        return future;
+    }
+
     /**
      * Checks queue size.
      */
@@ -211,6 +256,9 @@ public final class GerritSendCommandQueue {
             executor.allowCoreThreadTimeOut(true);
             //Start with one thread, and build it up gradually as it needs.
             executor.prestartCoreThread();
+            if (BATCH_LINGER > 0) {
+                batcher = new SendCommandBatcher(BATCH_LINGER, BATCH_MAX_SIZE, executor);
+            }
             logger.info("SendQueue started! Current pool size: {}", executor.getPoolSize());
         } else {
             if (executor.getCorePoolSize() < config.getNumberOfSendingWorkerThreads()) {
@@ -256,6 +304,10 @@ public final class GerritSendCommandQueue {
      */
     public static void shutdown() {
         if (instance != null && instance.executor != null) {
+            if (instance.batcher != null) {
+                instance.batcher.close();
+                instance.batcher = null;
+            }
             ThreadPoolExecutor pool = instance.executor;
             instance.executor = null;
             pool.shutdown(); // Disable new tasks from being submitted
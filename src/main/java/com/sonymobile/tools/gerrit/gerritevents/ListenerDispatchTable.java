@@ -0,0 +1,184 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls the closest {@code gerritEvent} method of a {@link GerritEventListener} for an event.
+ * <p>
+ * Which method to call is resolved once per listener class and event class, the same way as it used to be done
+ * for every event: a public {@code gerritEvent} method taking exactly the class of the event, or
+ * {@link GerritEventListener#gerritEvent(GerritEvent)} if there is none or it can't be called.
+ * The resolved methods are kept as method handles in a table per listener class that is read without locking.
+ */
+final class ListenerDispatchTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerDispatchTable.class);
+    private static final String METHOD_NAME = "gerritEvent";
+    /**
+     * Has the same access as the reflective calls from this package had, so listeners of package private classes,
+     * like anonymous ones, keep getting their methods called.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType INVOKER_TYPE =
+            MethodType.methodType(void.class, GerritEventListener.class, GerritEvent.class);
+
+    /**
+     * The default method, used when a listener has no method for the class of the event.
+     */
+    private static final Invoker DEFAULT = new Invoker(null);
+
+    /**
+     * The resolved methods per listener class, by event class.
+     */
+    private static final ClassValue<ConcurrentMap<Class<?>, Invoker>> TABLES =
+            new ClassValue<ConcurrentMap<Class<?>, Invoker>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, Invoker> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Class<?>, Invoker>();
+        }
+    };
+
+    /**
+     * Empty private Constructor to hinder instantiation.
+     */
+    private ListenerDispatchTable() {
+        //Empty
+    }
+
+    /**
+     * Calls the closest {@code gerritEvent} method of the listener.
+     * Exceptions thrown by a method for a specific event class are logged,
+     * the ones thrown by the default method are passed on to the caller.
+     *
+     * @param listener the listener.
+     * @param event the event.
+     */
+    static void dispatch(GerritEventListener listener, GerritEvent event) {
+        ConcurrentMap<Class<?>, Invoker> table = TABLES.get(listener.getClass());
+        Invoker invoker = table.get(event.getClass());
+        if (invoker == null) {
+            invoker = resolve(listener.getClass(), event.getClass());
+            table.putIfAbsent(event.getClass(), invoker);
+        }
+        invoker.invoke(listener, event);
+    }
+
+    /**
+     * Calls the closest {@code gerritEvent} method of the listener and logs anything it throws.
+     *
+     * @param listener the listener.
+     * @param event the event.
+     */
+    static void dispatchSafely(GerritEventListener listener, GerritEvent event) {
+        try {
+            dispatch(listener, event);
+        } catch (Exception ex) {
+            logger.error("When notifying listener: {} about event: {}", listener, event);
+            logger.error("Notify-error: ", ex);
+        }
+    }
+
+    /**
+     * Finds the method of the listener class for the event class.
+     *
+     * @param listenerClass the listener class.
+     * @param eventClass the event class.
+     * @return the invoker for the method, or the default one.
+     */
+    static Invoker resolve(Class<?> listenerClass, Class<?> eventClass) {
+        try {
+            Method method = listenerClass.getMethod(METHOD_NAME, eventClass);
+            return new Invoker(LOOKUP.unreflect(method).asType(INVOKER_TYPE));
+        } catch (NoSuchMethodException ex) {
+            logger.debug("No method for {} in {}. Calling default.", eventClass, listenerClass);
+        } catch (IllegalAccessException ex) {
+            logger.debug("Not allowed to call the method for {} in {}. Calling default.", eventClass, listenerClass);
+        } catch (SecurityException ex) {
+            logger.debug("Not allowed to reflect on {} (DESIGN BUG). Calling default.", listenerClass);
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Calls one resolved method.
+     */
+    static final class Invoker {
+
+        private final MethodHandle method;
+
+        /**
+         * Standard constructor.
+         *
+         * @param method the method taking the listener and the event, or null for the default method.
+         */
+        Invoker(MethodHandle method) {
+            this.method = method;
+        }
+
+        /**
+         * If this calls the default method.
+         *
+         * @return true if so.
+         */
+        boolean isDefault() {
+            return method == null;
+        }
+
+        /**
+         * Calls the method.
+         * <p>
+         * The requirement check is ignored as invokeExact is signature polymorphic, so the descriptor of the call
+         * is not one the API signatures know of.
+         *
+         * @param listener the listener.
+         * @param event the event.
+         */
+        @IgnoreJRERequirement
+        void invoke(GerritEventListener listener, GerritEvent event) {
+            if (method == null) {
+                listener.gerritEvent(event);
+                return;
+            }
+            try {
+                method.invokeExact(listener, event);
+            } catch (Throwable t) {
+                logger.error("When notifying listener: {} about event: {}", listener, event);
+                logger.error("Exception thrown during event handling.", t);
+            }
+        }
+    }
+}
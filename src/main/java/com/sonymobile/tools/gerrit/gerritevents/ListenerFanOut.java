@@ -0,0 +1,144 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Delivers one event to several listeners at the same time on a fork-join pool.
+ * <p>
+ * The listeners are split in halves until each one is a task of its own, so idle threads of the pool steal
+ * deliveries from busy ones. With the join barrier on, the thread handing over the event waits until every listener
+ * has been called, so the time to notify all listeners is about the time of the slowest one instead of the sum.
+ *
+ * @see GerritHandler#setFanOut(ForkJoinPool, boolean)
+ */
+final class ListenerFanOut {
+
+    private final ForkJoinPool pool;
+    private final boolean join;
+    private final boolean ownPool;
+
+    /**
+     * Standard constructor.
+     *
+     * @param pool the pool to deliver on.
+     * @param join if {@link #deliver(List, GerritEvent)} should wait for the delivery to finish.
+     * @param ownPool if the pool should be shut down with the fan-out.
+     */
+    ListenerFanOut(ForkJoinPool pool, boolean join, boolean ownPool) {
+        this.pool = pool;
+        this.join = join;
+        this.ownPool = ownPool;
+    }
+
+    /**
+     * The pool.
+     *
+     * @return the pool.
+     */
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * If delivery waits for all listeners.
+     *
+     * @return true if so.
+     */
+    boolean isJoin() {
+        return join;
+    }
+
+    /**
+     * Delivers the event to the listeners. A single listener is called directly.
+     *
+     * @param listeners the listeners.
+     * @param event the event.
+     * @return the task doing the delivery, done if the join barrier is on.
+     */
+    ForkJoinTask<Void> deliver(List<GerritEventListener> listeners, GerritEvent event) {
+        Delivery delivery = new Delivery(listeners, event, 0, listeners.size());
+        if (listeners.size() <= 1) {
+            delivery.invoke();
+        } else if (join) {
+            pool.invoke(delivery);
+        } else {
+            pool.execute(delivery);
+        }
+        return delivery;
+    }
+
+    /**
+     * Shuts the pool down if it was created for the fan-out, letting running deliveries finish.
+     */
+    void shutdown() {
+        if (ownPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Delivers an event to a range of the listeners.
+     */
+    private static final class Delivery extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient List<GerritEventListener> listeners;
+        private final transient GerritEvent event;
+        private final int from;
+        private final int to;
+
+        /**
+         * Standard constructor.
+         *
+         * @param listeners the listeners.
+         * @param event the event.
+         * @param from the index of the first listener.
+         * @param to the index after the last listener.
+         */
+        Delivery(List<GerritEventListener> listeners, GerritEvent event, int from, int to) {
+            this.listeners = listeners;
+            this.event = event;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    ListenerDispatchTable.dispatchSafely(listeners.get(from), event);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Delivery(listeners, event, from, middle), new Delivery(listeners, event, middle, to));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.RepositoryModifiedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeBasedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the listeners to notify about an event without asking all of them.
+ * <p>
+ * Listeners without a {@link GerritEventSubscription} are notified about all events. The others are indexed
+ * by event type, and within a type by project name when they subscribe to exact project names only.
+ * Finding the listeners for an event then touches only those indexed under its type and project,
+ * plus the ones that have to be matched one by one because they subscribe to project patterns or any project.
+ * <p>
+ * The index is rebuilt when listeners are added or removed, which is rare, and published as an immutable snapshot
+ * so that finding listeners takes no locks.
+ */
+final class ListenerIndex {
+
+    private final Map<GerritEventListener, GerritEventSubscription> listeners =
+            new LinkedHashMap<GerritEventListener, GerritEventSubscription>();
+    private volatile Snapshot snapshot = new Snapshot(listeners);
+
+    /**
+     * Adds a listener or replaces its subscription.
+     *
+     * @param listener the listener.
+     * @param subscription the events it wants, null for all.
+     */
+    synchronized void put(GerritEventListener listener, GerritEventSubscription subscription) {
+        GerritEventSubscription copy = null;
+        if (subscription != null) {
+            copy = new GerritEventSubscription(subscription);
+        }
+        listeners.put(listener, copy);
+        snapshot = new Snapshot(listeners);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener.
+     */
+    synchronized void remove(GerritEventListener listener) {
+        if (listeners.containsKey(listener)) {
+            listeners.remove(listener);
+            snapshot = new Snapshot(listeners);
+        }
+    }
+
+    /**
+     * Removes all listeners.
+     */
+    synchronized void clear() {
+        listeners.clear();
+        snapshot = new Snapshot(listeners);
+    }
+
+    /**
+     * The subscription of a listener.
+     *
+     * @param listener the listener.
+     * @return the subscription, or null if the listener wants all events or isn't added.
+     */
+    synchronized GerritEventSubscription getSubscription(GerritEventListener listener) {
+        return listeners.get(listener);
+    }
+
+    /**
+     * Finds the listeners that want an event. Those without subscriptions come first, in the order they were added,
+     * the order of the subscribed ones is not defined.
+     *
+     * @param event the event.
+     * @return the listeners, the list must not be modified.
+     */
+    List<GerritEventListener> getListeners(GerritEvent event) {
+        return snapshot.getListeners(event);
+    }
+
+    /**
+     * The project of an event.
+     *
+     * @param event the event.
+     * @return the project name or null.
+     */
+    static String getProject(GerritEvent event) {
+        if (event instanceof ChangeBasedEvent) {
+            Change change = ((ChangeBasedEvent)event).getChange();
+            if (change != null && change.getProject() != null) {
+                return change.getProject();
+            }
+        }
+        if (event instanceof RepositoryModifiedEvent) {
+            return ((RepositoryModifiedEvent)event).getModifiedProject();
+        }
+        return null;
+    }
+
+    /**
+     * The branch of an event.
+     *
+     * @param event the event.
+     * @return the branch or ref name, or null.
+     */
+    static String getBranch(GerritEvent event) {
+        if (event instanceof ChangeBasedEvent) {
+            Change change = ((ChangeBasedEvent)event).getChange();
+            if (change != null && change.getBranch() != null) {
+                return change.getBranch();
+            }
+        }
+        if (event instanceof RepositoryModifiedEvent) {
+            return ((RepositoryModifiedEvent)event).getModifiedRef();
+        }
+        return null;
+    }
+
+    /**
+     * The immutable index at one point in time.
+     */
+    private static final class Snapshot {
+        private final List<GerritEventListener> unfiltered;
+        private final Map<GerritEventType, Bucket> byType = new EnumMap<GerritEventType, Bucket>(GerritEventType.class);
+        private final Bucket anyType = new Bucket();
+
+        /**
+         * Builds the index.
+         *
+         * @param listeners the listeners and their subscriptions.
+         */
+        Snapshot(Map<GerritEventListener, GerritEventSubscription> listeners) {
+            List<GerritEventListener> all = new ArrayList<GerritEventListener>();
+            for (Map.Entry<GerritEventListener, GerritEventSubscription> entry : listeners.entrySet()) {
+                GerritEventSubscription subscription = entry.getValue();
+                if (subscription == null) {
+                    all.add(entry.getKey());
+                } else if (subscription.getTypes().isEmpty()) {
+                    anyType.add(entry.getKey(), subscription);
+                } else {
+                    for (GerritEventType type : subscription.getTypes()) {
+                        Bucket bucket = byType.get(type);
+                        if (bucket == null) {
+                            bucket = new Bucket();
+                            byType.put(type, bucket);
+                        }
+                        bucket.add(entry.getKey(), subscription);
+                    }
+                }
+            }
+            unfiltered = Collections.unmodifiableList(all);
+        }
+
+        /**
+         * Finds the listeners that want an event.
+         * The listeners without subscriptions are returned as they are when no subscription matches,
+         * so that the common case of no subscriptions at all doesn't copy anything.
+         *
+         * @param event the event.
+         * @return the listeners.
+         */
+        List<GerritEventListener> getListeners(GerritEvent event) {
+            Bucket bucket = null;
+            if (event.getEventType() != null) {
+                bucket = byType.get(event.getEventType());
+            }
+            if (bucket == null && anyType.isEmpty()) {
+                return unfiltered;
+            }
+            String project = getProject(event);
+            String branch = getBranch(event);
+            List<GerritEventListener> subscribed = new ArrayList<GerritEventListener>();
+            if (bucket != null) {
+                bucket.collect(project, branch, subscribed);
+            }
+            anyType.collect(project, branch, subscribed);
+            if (subscribed.isEmpty()) {
+                return unfiltered;
+            }
+            List<GerritEventListener> found = new ArrayList<GerritEventListener>(unfiltered.size() + subscribed.size());
+            found.addAll(unfiltered);
+            found.addAll(subscribed);
+            return found;
+        }
+    }
+
+    /**
+     * The subscribed listeners of one event type.
+     */
+    private static final class Bucket {
+        private final Map<String, List<Subscribed>> byProject = new HashMap<String, List<Subscribed>>();
+        private final List<Subscribed> anyProject = new ArrayList<Subscribed>();
+
+        /**
+         * Adds a listener.
+         *
+         * @param listener the listener.
+         * @param subscription its subscription.
+         */
+        void add(GerritEventListener listener, GerritEventSubscription subscription) {
+            Subscribed subscribed = new Subscribed(listener, subscription);
+            if (!subscription.isByProjectName()) {
+                anyProject.add(subscribed);
+                return;
+            }
+            for (String project : subscription.getProjects()) {
+                List<Subscribed> list = byProject.get(project);
+                if (list == null) {
+                    list = new ArrayList<Subscribed>();
+                    byProject.put(project, list);
+                }
+                list.add(subscribed);
+            }
+        }
+
+        /**
+         * If there are no listeners in the bucket.
+         *
+         * @return true if so.
+         */
+        boolean isEmpty() {
+            return byProject.isEmpty() && anyProject.isEmpty();
+        }
+
+        /**
+         * Adds the listeners wanting events in the project and on the branch.
+         *
+         * @param project the project or null.
+         * @param branch the branch or null.
+         * @param found where to add them.
+         */
+        void collect(String project, String branch, List<GerritEventListener> found) {
+            if (project != null) {
+                List<Subscribed> list = byProject.get(project);
+                if (list != null) {
+                    collect(list, project, branch, found);
+                }
+            }
+            collect(anyProject, project, branch, found);
+        }
+
+        /**
+         * Adds the listeners of the list that want events in the project and on the branch.
+         *
+         * @param list the listeners to check.
+         * @param project the project or null.
+         * @param branch the branch or null.
+         * @param found where to add them.
+         */
+        private static void collect(List<Subscribed> list, String project, String branch,
+                                    List<GerritEventListener> found) {
+            for (Subscribed subscribed : list) {
+                if (subscribed.subscription.matches(project, branch)) {
+                    found.add(subscribed.listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener with its subscription.
+     */
+    private static final class Subscribed {
+        private final GerritEventListener listener;
+        private final GerritEventSubscription subscription;
+
+        /**
+         * Standard constructor.
+         *
+         * @param listener the listener.
+         * @param subscription its subscription.
+         */
+        Subscribed(GerritEventListener listener, GerritEventSubscription subscription) {
+            this.listener = listener;
+            this.subscription = subscription;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs each listener, or each group of listeners, on its own thread with its own bounded queue,
+ * so that a slow listener doesn't hold up the others or the receiving worker threads.
+ * <p>
+ * Each listener, or group, gets the events in the order they were handed over. When its queue is full further
+ * events for it are dropped and counted. A call that takes longer than the time budget is an overrun;
+ * after the configured number of overruns in a row the listener is quarantined, which means its events are dropped
+ * until the quarantine time has passed or it is {@link #release(GerritEventListener) released}.
+ * A watchdog thread looks at the calls in progress, so a listener that is stuck, e.g. on I/O, is counted as overrun
+ * and quarantined without having to return first. Each listener may have a time budget of its own.
+ *
+ * @see GerritHandler#setListenerIsolation(ListenerIsolation)
+ */
+public class ListenerIsolation {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerIsolation.class);
+    private static final String THREAD_PREFIX = "Gerrit Listener Thread_";
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final String WATCHDOG_THREAD_NAME = "Gerrit Listener Watchdog";
+    /**
+     * How often the watchdog looks at the calls in progress [msec].
+     */
+    private static final long WATCHDOG_INTERVAL = 100;
+
+    private final int queueCapacity;
+    private final long timeBudgetNanos;
+    private final int maxOverruns;
+    private final long quarantineNanos;
+    private final Map<GerritEventListener, String> groups = new ConcurrentHashMap<GerritEventListener, String>();
+    private final Map<GerritEventListener, Long> budgets = new ConcurrentHashMap<GerritEventListener, Long>();
+    private final Map<Object, Mailbox> mailboxes = new ConcurrentHashMap<Object, Mailbox>();
+    private volatile boolean shutdown = false;
+    private ScheduledExecutorService watchdog = null;
+
+    /**
+     * Standard constructor.
+     *
+     * @param queueCapacity the max number of events waiting for each listener or group.
+     * @param timeBudgetMillis how long a listener may take for one event before it is an overrun.
+     * @param maxOverruns the number of overruns in a row that quarantines a listener, 0 or less to never quarantine.
+     * @param quarantineMillis how long a quarantine lasts, 0 or less until the listener is released.
+     */
+    public ListenerIsolation(int queueCapacity, long timeBudgetMillis, int maxOverruns, long quarantineMillis) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        this.maxOverruns = maxOverruns;
+        if (quarantineMillis > 0) {
+            this.quarantineNanos = TimeUnit.MILLISECONDS.toNanos(quarantineMillis);
+        } else {
+            this.quarantineNanos = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Puts a listener in a group. The listeners of a group share a queue and a thread,
+     * and are quarantined together. Has to be done before the listener gets its first event.
+     *
+     * @param listener the listener.
+     * @param group the name of the group, null for the listener to be on its own.
+     */
+    public void setGroup(GerritEventListener listener, String group) {
+        if (group == null) {
+            groups.remove(listener);
+        } else {
+            groups.put(listener, group);
+        }
+    }
+
+    /**
+     * Gives a listener a time budget of its own, instead of the one of the isolation.
+     *
+     * @param listener the listener.
+     * @param timeBudgetMillis how long the listener may take for one event before it is an overrun,
+     *                         or less than 0 for the budget of the isolation.
+     */
+    public void setTimeBudget(GerritEventListener listener, long timeBudgetMillis) {
+        if (timeBudgetMillis < 0) {
+            budgets.remove(listener);
+        } else {
+            budgets.put(listener, TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis));
+        }
+    }
+
+    /**
+     * The time budget of a listener.
+     *
+     * @param listener the listener.
+     * @return the budget in nanoseconds.
+     */
+    private long getTimeBudgetNanos(GerritEventListener listener) {
+        Long budget = budgets.get(listener);
+        if (budget == null) {
+            return timeBudgetNanos;
+        }
+        return budget;
+    }
+
+    /**
+     * Hands an event over to the thread of a listener.
+     *
+     * @param listener the listener.
+     * @param event the event.
+     * @return true if the event was queued, false if it was dropped.
+     */
+    public boolean submit(GerritEventListener listener, GerritEvent event) {
+        return submit(listener, event, null);
+    }
+
+    /**
+     * Hands an event over to the thread of a listener, and runs a callback on that thread
+     * once the listener has been called. The callback is not run if the event is dropped.
+     *
+     * @param listener the listener.
+     * @param event the event.
+     * @param onDelivered the callback, or null.
+     * @return true if the event was queued, false if it was dropped.
+     */
+    public boolean submit(GerritEventListener listener, GerritEvent event, Runnable onDelivered) {
+        if (shutdown) {
+            return false;
+        }
+        Mailbox mailbox = getMailbox(listener, true);
+        return mailbox.submit(listener, event, onDelivered);
+    }
+
+    /**
+     * If a listener is quarantined.
+     *
+     * @param listener the listener.
+     * @return true if so.
+     */
+    public boolean isQuarantined(GerritEventListener listener) {
+        Mailbox mailbox = getMailbox(listener, false);
+        return mailbox != null && mailbox.isQuarantined(System.nanoTime());
+    }
+
+    /**
+     * Ends the quarantine of a listener, and of its group.
+     *
+     * @param listener the listener.
+     */
+    public void release(GerritEventListener listener) {
+        Mailbox mailbox = getMailbox(listener, false);
+        if (mailbox != null) {
+            mailbox.release();
+        }
+    }
+
+    /**
+     * The statistics of a listener, or of its group.
+     *
+     * @param listener the listener.
+     * @return the statistics, or null if the listener hasn't got any events yet.
+     */
+    public Statistics getStatistics(GerritEventListener listener) {
+        Mailbox mailbox = getMailbox(listener, false);
+        if (mailbox == null) {
+            return null;
+        }
+        return mailbox.getStatistics();
+    }
+
+    /**
+     * Stops the thread of a listener that has been removed, after the events already queued for it.
+     * The thread of a group is kept while other listeners are in the group.
+     *
+     * @param listener the listener.
+     */
+    public void remove(GerritEventListener listener) {
+        budgets.remove(listener);
+        String group = groups.remove(listener);
+        if (group != null) {
+            if (groups.containsValue(group)) {
+                return;
+            }
+            Mailbox mailbox = mailboxes.remove(group);
+            if (mailbox != null) {
+                mailbox.shutdown();
+            }
+        } else {
+            Mailbox mailbox = mailboxes.remove(listener);
+            if (mailbox != null) {
+                mailbox.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Stops all threads after the events already queued.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Mailbox mailbox : mailboxes.values()) {
+            mailbox.shutdown();
+        }
+        mailboxes.clear();
+        synchronized (this) {
+            if (watchdog != null) {
+                watchdog.shutdownNow();
+                watchdog = null;
+            }
+        }
+    }
+
+    /**
+     * Starts the watchdog thread, if it isn't running.
+     */
+    private synchronized void startWatchdog() {
+        if (watchdog != null || shutdown) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, WATCHDOG_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        watchdog.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    checkCalls();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to check the listener calls in progress.", e);
+                }
+            }
+        }, WATCHDOG_INTERVAL, WATCHDOG_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts the calls in progress that have gone over their time budget as overruns.
+     */
+    void checkCalls() {
+        long now = System.nanoTime();
+        for (Mailbox mailbox : mailboxes.values()) {
+            mailbox.checkCall(now);
+        }
+    }
+
+    /**
+     * Finds the mailbox of a listener.
+     *
+     * @param listener the listener.
+     * @param create if it should be created when missing.
+     * @return the mailbox, or null if there is none and it shouldn't be created.
+     */
+    private Mailbox getMailbox(GerritEventListener listener, boolean create) {
+        Object key = groups.get(listener);
+        String name = (String)key;
+        if (key == null) {
+            key = listener;
+        }
+        Mailbox mailbox = mailboxes.get(key);
+        if (mailbox == null && create) {
+            synchronized (mailboxes) {
+                mailbox = mailboxes.get(key);
+                if (mailbox == null) {
+                    if (name == null) {
+                        name = listener.getClass().getName();
+                    }
+                    mailbox = new Mailbox(name);
+                    mailboxes.put(key, mailbox);
+                }
+            }
+            startWatchdog();
+        }
+        return mailbox;
+    }
+
+    /**
+     * What has happened with the events of a listener or group.
+     */
+    public static final class Statistics {
+        private final long delivered;
+        private final long dropped;
+        private final long overruns;
+        private final int queued;
+        private final boolean quarantined;
+
+        /**
+         * Standard constructor.
+         *
+         * @param delivered the number of events the listeners have been called with.
+         * @param dropped the number of events dropped because the queue was full or of quarantine.
+         * @param overruns the number of calls that went over the time budget.
+         * @param queued the number of events waiting.
+         * @param quarantined if the listener is quarantined.
+         */
+        Statistics(long delivered, long dropped, long overruns, int queued, boolean quarantined) {
+            this.delivered = delivered;
+            this.dropped = dropped;
+            this.overruns = overruns;
+            this.queued = queued;
+            this.quarantined = quarantined;
+        }
+
+        /**
+         * The number of events the listeners have been called with.
+         *
+         * @return the number.
+         */
+        public long getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * The number of events dropped because the queue was full or because of quarantine.
+         *
+         * @return the number.
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * The number of calls that went over the time budget.
+         *
+         * @return the number.
+         */
+        public long getOverruns() {
+            return overruns;
+        }
+
+        /**
+         * The number of events waiting.
+         *
+         * @return the number.
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * If the listener is quarantined.
+         *
+         * @return true if so.
+         */
+        public boolean isQuarantined() {
+            return quarantined;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{delivered=" + delivered + ", dropped=" + dropped + ", overruns=" + overruns
+                    + ", queued=" + queued + ", quarantined=" + quarantined + "}";
+        }
+    }
+
+    /**
+     * The queue and thread of a listener or group.
+     */
+    private final class Mailbox {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong overruns = new AtomicLong();
+        private volatile long quarantinedSince = 0;
+        private volatile boolean quarantined = false;
+        private int overrunsInRow = 0;
+        private long callStart = 0;
+        private long callBudget = 0;
+        private boolean calling = false;
+        private boolean callOverrun = false;
+
+        /**
+         * Standard constructor.
+         *
+         * @param name the name of the listener or group.
+         */
+        Mailbox(final String name) {
+            this.name = name;
+            executor = new ThreadPoolExecutor(1, 1, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, THREAD_PREFIX + name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * Queues an event for a listener.
+         *
+         * @param listener the listener.
+         * @param event the event.
+         * @param onDelivered run once the listener has been called, or null.
+         * @return true if queued.
+         */
+        boolean submit(final GerritEventListener listener, final GerritEvent event, final Runnable onDelivered) {
+            if (isQuarantined(System.nanoTime())) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(listener, event);
+                        if (onDelivered != null) {
+                            onDelivered.run();
+                        }
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (dropped.getAndIncrement() == 0) {
+                    logger.warn("The queue of listener {} is full, its events are dropped.", name);
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Calls the listener on the thread of the mailbox and keeps track of overruns.
+         *
+         * @param listener the listener.
+         * @param event the event.
+         */
+        private void deliver(GerritEventListener listener, GerritEvent event) {
+            delivered.incrementAndGet();
+            long start = System.nanoTime();
+            synchronized (this) {
+                callStart = start;
+                callBudget = getTimeBudgetNanos(listener);
+                calling = true;
+                callOverrun = false;
+            }
+            try {
+                ListenerDispatchTable.dispatchSafely(listener, event);
+            } finally {
+                long end = System.nanoTime();
+                synchronized (this) {
+                    calling = false;
+                    if (!callOverrun) {
+                        if (end - start <= callBudget) {
+                            overrunsInRow = 0;
+                        } else {
+                            overrun(end - start, end);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Counts the call in progress as an overrun, once, if it has gone over its time budget.
+         * Called by the watchdog, so that a listener that doesn't return is noticed.
+         *
+         * @param now the current {@link System#nanoTime()}.
+         */
+        synchronized void checkCall(long now) {
+            if (calling && !callOverrun && now - callStart > callBudget) {
+                callOverrun = true;
+                overrun(now - callStart, now);
+            }
+        }
+
+        /**
+         * Counts an overrun and quarantines the mailbox after too many in a row. The caller holds the lock.
+         *
+         * @param took how long the call has taken, in nanoseconds.
+         * @param now the current {@link System#nanoTime()}.
+         */
+        private void overrun(long took, long now) {
+            overruns.incrementAndGet();
+            overrunsInRow++;
+            logger.warn("Listener {} has taken {} ms for an event, more than its time budget.",
+                    name, TimeUnit.NANOSECONDS.toMillis(took));
+            if (maxOverruns > 0 && overrunsInRow >= maxOverruns) {
+                overrunsInRow = 0;
+                quarantinedSince = now;
+                quarantined = true;
+                logger.warn("Listener {} is quarantined after {} overruns in a row.", name, maxOverruns);
+            }
+        }
+
+        /**
+         * If the mailbox is quarantined.
+         *
+         * @param now the current {@link System#nanoTime()}.
+         * @return true if so.
+         */
+        boolean isQuarantined(long now) {
+            if (!quarantined) {
+                return false;
+            }
+            if (now - quarantinedSince >= quarantineNanos) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Ends the quarantine.
+         */
+        void release() {
+            if (quarantined) {
+                quarantined = false;
+                logger.info("Listener {} is out of quarantine.", name);
+            }
+        }
+
+        /**
+         * The statistics of the mailbox.
+         *
+         * @return the statistics.
+         */
+        Statistics getStatistics() {
+            return new Statistics(delivered.get(), dropped.get(), overruns.get(), executor.getQueue().size(),
+                    isQuarantined(System.nanoTime()));
+        }
+
+        /**
+         * Stops the thread after the queued events.
+         */
+        void shutdown() {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritHandler.EventWorker;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.RepositoryModifiedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeBasedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.workers.GerritEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.JSONEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsStringWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.Work;
+
+import net.sf.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.CHANGE;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NUMBER;
+
+/**
+ * Keeps the order of events that belong together while letting unrelated events run in parallel.
+ * <p>
+ * Work is partitioned by a key: the change number, or the project if there is no change,
+ * or the ref if there is neither. Each key hashes to one of a fixed number of lanes. Work gets a ticket
+ * in its lane when it is queued, and a lane performs its work strictly in ticket order, one at a time.
+ * When a worker thread takes work from the queue that isn't next in its lane it parks it there and goes on
+ * with other work; the thread performing the lane picks the parked work up when its turn comes.
+ * Work without a key is not ordered.
+ */
+class OrderedDispatcher {
+
+    private final Lane[] lanes;
+
+    /**
+     * Standard constructor.
+     *
+     * @param laneCount the number of lanes.
+     */
+    OrderedDispatcher(int laneCount) {
+        lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * The number of lanes.
+     *
+     * @return the number of lanes.
+     */
+    int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Gives the worker the next ticket in the lane of its key.
+     * Must be called in the order the work is posted, before the worker is queued.
+     *
+     * @param worker the worker.
+     */
+    void assign(EventWorker worker) {
+        String key = getPartitionKey(worker.getWork());
+        if (key != null) {
+            Lane lane = lanes[(key.hashCode() & Integer.MAX_VALUE) % lanes.length];
+            worker.setLane(lane, lane.takeTicket());
+        }
+    }
+
+    /**
+     * The key that decides which work must be performed in order.
+     *
+     * @param work the work.
+     * @return the key, or null if the work doesn't need to be ordered.
+     */
+    static String getPartitionKey(Work work) {
+        if (work instanceof StreamEventsStringWork) {
+            return getPartitionKey(((StreamEventsStringWork)work).getLine());
+        } else if (work instanceof JSONEventWork) {
+            return getPartitionKey(((JSONEventWork)work).getJson());
+        } else if (work instanceof GerritEventWork) {
+            return getPartitionKey(((GerritEventWork)work).getEvent());
+        }
+        return null;
+    }
+
+    /**
+     * The partition key of a raw stream-events line.
+     *
+     * @param line the line.
+     * @return the key or null.
+     */
+    static String getPartitionKey(String line) {
+        StreamEventsLineScanner scanner = StreamEventsLineScanner.forCurrentThread();
+        scanner.scan(line);
+        String change = scanner.getChangeNumber();
+        if (change != null) {
+            return key("change", change);
+        }
+        String project = scanner.getProject();
+        if (project != null) {
+            return key("project", project);
+        }
+        return key("ref", scanner.getRef());
+    }
+
+    /**
+     * The partition key of a parsed stream-events line.
+     *
+     * @param json the JSON object.
+     * @return the key or null.
+     */
+    static String getPartitionKey(JSONObject json) {
+        if (json == null) {
+            return null;
+        }
+        JSONObject change = json.optJSONObject(CHANGE);
+        if (change != null && change.has(NUMBER)) {
+            return key("change", change.getString(NUMBER));
+        }
+        return getPartitionKey(json.toString());
+    }
+
+    /**
+     * The partition key of an event.
+     *
+     * @param event the event.
+     * @return the key or null.
+     */
+    static String getPartitionKey(GerritEvent event) {
+        if (event instanceof ChangeBasedEvent) {
+            Change change = ((ChangeBasedEvent)event).getChange();
+            if (change != null && change.getNumber() != null) {
+                return key("change", change.getNumber());
+            } else if (change != null && change.getProject() != null) {
+                return key("project", change.getProject());
+            }
+        }
+        if (event instanceof RepositoryModifiedEvent) {
+            RepositoryModifiedEvent modified = (RepositoryModifiedEvent)event;
+            if (modified.getModifiedProject() != null) {
+                return key("project", modified.getModifiedProject());
+            }
+            return key("ref", modified.getModifiedRef());
+        }
+        return null;
+    }
+
+    /**
+     * Builds a key.
+     *
+     * @param kind what kind of key it is.
+     * @param value the value, may be null.
+     * @return the key, or null if the value is null.
+     */
+    private static String key(String kind, String value) {
+        if (value == null) {
+            return null;
+        }
+        return kind + ":" + value;
+    }
+
+    /**
+     * A lane of work that is performed one at a time in ticket order.
+     */
+    static final class Lane {
+        private long nextTicket = 0;
+        private long nextToRun = 0;
+        private boolean running = false;
+        private final Map<Long, EventWorker> arrived = new HashMap<Long, EventWorker>();
+
+        /**
+         * Hands out the next ticket.
+         *
+         * @return the ticket.
+         */
+        synchronized long takeTicket() {
+            return nextTicket++;
+        }
+
+        /**
+         * The number of workers waiting for their turn.
+         *
+         * @return the number of parked workers.
+         */
+        synchronized int getParkedCount() {
+            return arrived.size();
+        }
+
+        /**
+         * Called when the worker with the ticket has been taken from the queue.
+         * Performs it and any parked work after it if it is its turn, otherwise parks it.
+         *
+         * @param ticket the ticket.
+         * @param worker the worker, or null if the work was shed and its turn should be skipped.
+         */
+        void arrive(long ticket, EventWorker worker) {
+            synchronized (this) {
+                arrived.put(ticket, worker);
+                if (running) {
+                    return;
+                }
+                running = true;
+            }
+            boolean stopped = false;
+            try {
+                while (!stopped) {
+                    EventWorker next = null;
+                    synchronized (this) {
+                        if (arrived.containsKey(nextToRun)) {
+                            next = arrived.remove(nextToRun);
+                            nextToRun++;
+                        } else {
+                            running = false;
+                            stopped = true;
+                        }
+                    }
+                    if (next != null) {
+                        next.perform();
+                    }
+                }
+            } finally {
+                if (!stopped) {
+                    synchronized (this) {
+                        running = false;
+                    }
+                }
+            }
+        }
+    }
+}
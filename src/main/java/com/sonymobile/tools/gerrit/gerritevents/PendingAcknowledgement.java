@@ -0,0 +1,105 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds off acknowledging the journaled and spooled lines of a piece of work while its event is still
+ * on its way to isolated listeners.
+ * <p>
+ * The worker thread holds the lines while it performs the work, and every event handed over to the thread
+ * of an isolated listener adds a hold that is let go once the listener has been called. The lines are
+ * acknowledged when the last hold is gone, so an event that was dropped on its way keeps its lines
+ * unacknowledged, and they are replayed after a restart.
+ *
+ * @see ListenerIsolation#submit(GerritEventListener, com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent,
+ * Runnable)
+ */
+final class PendingAcknowledgement implements Runnable {
+
+    private static final ThreadLocal<PendingAcknowledgement> CURRENT = new ThreadLocal<PendingAcknowledgement>();
+
+    private final GerritHandler.EventWorker worker;
+    private final AtomicInteger holds = new AtomicInteger(1);
+
+    /**
+     * Standard constructor.
+     *
+     * @param worker the worker whose lines to acknowledge.
+     */
+    private PendingAcknowledgement(GerritHandler.EventWorker worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Starts holding the lines of a worker on the calling thread, if it has any.
+     *
+     * @param worker the worker about to perform its work.
+     */
+    static void begin(GerritHandler.EventWorker worker) {
+        if (worker.journalOffsets != null || worker.spooled != null) {
+            CURRENT.set(new PendingAcknowledgement(worker));
+        }
+    }
+
+    /**
+     * Adds a hold on the lines of the work performed by the calling thread.
+     *
+     * @return the callback letting go of the hold, or null if there are no lines to hold.
+     */
+    static Runnable hold() {
+        PendingAcknowledgement pending = CURRENT.get();
+        if (pending == null) {
+            return null;
+        }
+        pending.holds.incrementAndGet();
+        return pending;
+    }
+
+    /**
+     * Lets go of the hold of the calling thread, the worker is done with its work.
+     *
+     * @param worker the worker that performed its work.
+     */
+    static void end(GerritHandler.EventWorker worker) {
+        PendingAcknowledgement pending = CURRENT.get();
+        if (pending == null) {
+            worker.acknowledge();
+        } else {
+            CURRENT.remove();
+            pending.run();
+        }
+    }
+
+    /**
+     * Lets go of one hold, the lines are acknowledged when the last one is gone.
+     */
+    @Override
+    public void run() {
+        if (holds.decrementAndGet() == 0) {
+            worker.acknowledge();
+        }
+    }
+}
@@ -0,0 +1,643 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritHandler.EventWorker;
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority;
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority.Priority;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A receive queue with one lane per {@link Priority}, that worker threads take work from
+ * with weighted-fair scheduling, so that a flood of low priority events can't hold up the important ones
+ * and the low priority events still get through.
+ * <p>
+ * Work goes into the lane of the highest priority among its events. The lanes are served in turn,
+ * from high to low, and each lane may hand out as many pieces of work in a row as its weight before
+ * the next lane gets its turn. A lane that is empty forfeits its turn.
+ * <p>
+ * The capacity bounds all lanes together, the overflow policy of the handler decides what happens when it is full.
+ * Each lane counts what has gone through it and how long it waited.
+ *
+ * @see GerritHandler#createReceiveQueue()
+ */
+public class PriorityLaneQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    /**
+     * The default weight of each lane.
+     */
+    private static final int[] DEFAULT_WEIGHTS = {1, 4, 16};
+
+    private final Map<GerritEventType, Priority> priorities;
+    private final Lane[] lanes;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int count = 0;
+    private int current;
+    private int credit;
+
+    /**
+     * Creates a queue with the default priorities and weights.
+     *
+     * @param capacity the max number of pieces of work in all lanes, 0 or less means unbounded.
+     */
+    public PriorityLaneQueue(int capacity) {
+        this(capacity, DropByPriority.getDefaultPriorities(), getDefaultWeights());
+    }
+
+    /**
+     * Standard constructor.
+     *
+     * @param capacity the max number of pieces of work in all lanes, 0 or less means unbounded.
+     * @param priorities the priority of each event type, types that aren't in the map have {@link Priority#LOW}.
+     * @param weights the weight of each lane, lanes that aren't in the map have weight 1.
+     */
+    public PriorityLaneQueue(int capacity, Map<GerritEventType, Priority> priorities, Map<Priority, Integer> weights) {
+        if (capacity > 0) {
+            this.capacity = capacity;
+        } else {
+            this.capacity = Integer.MAX_VALUE;
+        }
+        this.priorities = new EnumMap<GerritEventType, Priority>(GerritEventType.class);
+        this.priorities.putAll(priorities);
+        Priority[] values = Priority.values();
+        this.lanes = new Lane[values.length];
+        for (int i = 0; i < values.length; i++) {
+            //Highest priority first.
+            Priority priority = values[values.length - 1 - i];
+            Integer weight = weights.get(priority);
+            int laneWeight = 1;
+            if (weight != null) {
+                laneWeight = Math.max(1, weight);
+            }
+            lanes[i] = new Lane(priority, laneWeight);
+        }
+        this.current = 0;
+        this.credit = lanes[0].weight;
+    }
+
+    /**
+     * The default weight of each lane; high is 16, normal 4 and low 1.
+     *
+     * @return the weights.
+     */
+    public static Map<Priority, Integer> getDefaultWeights() {
+        Map<Priority, Integer> weights = new EnumMap<Priority, Integer>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            weights.put(priority, DEFAULT_WEIGHTS[priority.ordinal()]);
+        }
+        return weights;
+    }
+
+    /**
+     * Parses lane weights as used in system properties, like high=16,normal=4,low=1.
+     * Lanes that aren't mentioned get their default weight,
+     * an IllegalArgumentException is thrown if the string can't be parsed.
+     *
+     * @param value the string.
+     * @return the weights.
+     */
+    public static Map<Priority, Integer> parseWeights(String value) {
+        Map<Priority, Integer> weights = getDefaultWeights();
+        if (value == null || value.trim().isEmpty()) {
+            return weights;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad lane weight: " + entry);
+            }
+            try {
+                weights.put(Priority.valueOf(parts[0].trim().toUpperCase(Locale.ENGLISH)),
+                        Integer.valueOf(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad lane weight: " + entry, e);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * The priority of the lane that a piece of work goes into: the highest priority among its events.
+     * Tasks that aren't from a {@link GerritHandler} go into the normal lane.
+     * Worked out before taking the lock, the work keeps it so its lines are only scanned once.
+     *
+     * @param task the task.
+     * @return the priority.
+     */
+    private Priority getPriority(Runnable task) {
+        if (task instanceof EventWorker) {
+            return ((EventWorker)task).getPriority(priorities);
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * The lane of a priority.
+     *
+     * @param priority the priority.
+     * @return the lane.
+     */
+    private Lane getLane(Priority priority) {
+        return lanes[lanes.length - 1 - priority.ordinal()];
+    }
+
+    /**
+     * Puts the task in its lane, the caller holds the lock and has checked that there is room.
+     *
+     * @param task the task.
+     * @param priority the priority of the task.
+     */
+    private void enqueue(Runnable task, Priority priority) {
+        Lane lane = getLane(priority);
+        lane.tasks.addLast(task);
+        lane.enqueued++;
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * Takes the next task by the weighted-fair schedule, the caller holds the lock and has checked
+     * that there is one.
+     *
+     * @return the task.
+     */
+    private Runnable dequeue() {
+        while (true) {
+            Lane lane = lanes[current];
+            if (credit > 0 && !lane.tasks.isEmpty()) {
+                credit--;
+                Runnable task = lane.tasks.pollFirst();
+                lane.taken(task);
+                count--;
+                notFull.signal();
+                return task;
+            }
+            current = (current + 1) % lanes.length;
+            credit = lanes[current].weight;
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        Priority priority = getPriority(task);
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            enqueue(task, priority);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        Priority priority = getPriority(task);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(task, priority);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        Priority priority = getPriority(task);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(task, priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest task of the lowest priority lane that isn't empty, for an overflow policy
+     * that sheds work. Unlike {@link #poll()} it doesn't go by the weighted-fair schedule,
+     * which would shed the high priority work that the lanes are there to protect.
+     *
+     * @return the task, or null if the queue is empty.
+     */
+    public Runnable pollLowest() {
+        return pollLowerThan(null);
+    }
+
+    /**
+     * Removes the oldest task of the lowest priority lane that isn't empty,
+     * if that lane has a lower priority than the given one.
+     *
+     * @param priority the priority, or null for any.
+     * @return the task, or null if there is none of lower priority.
+     * @see #pollLowest()
+     */
+    public Runnable pollLowerThan(Priority priority) {
+        lock.lock();
+        try {
+            for (int i = lanes.length - 1; i >= 0; i--) {
+                Lane lane = lanes[i];
+                if (priority != null && lane.priority.compareTo(priority) >= 0) {
+                    return null;
+                }
+                Runnable task = lane.tasks.pollFirst();
+                if (task != null) {
+                    lane.removed++;
+                    count--;
+                    notFull.signal();
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                Runnable task = lane.tasks.peekFirst();
+                if (task != null) {
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                if (lane.tasks.removeFirstOccurrence(o)) {
+                    lane.removed++;
+                    count--;
+                    notFull.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("Can't drain a queue to itself");
+        }
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count > 0) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a copy of the queue, lane by lane from the highest priority.
+     * Removing through the iterator removes from the queue.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        final List<Runnable> copy = new ArrayList<Runnable>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                copy.addAll(lane.tasks);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+            private final Iterator<Runnable> it = copy.iterator();
+            private Runnable last = null;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException("next() has not been called");
+                }
+                PriorityLaneQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * The statistics of a lane.
+     *
+     * @param priority the priority of the lane.
+     * @return the statistics.
+     */
+    public LaneStatistics getStatistics(Priority priority) {
+        lock.lock();
+        try {
+            Lane lane = getLane(priority);
+            return new LaneStatistics(lane.tasks.size(), lane.enqueued, lane.dequeued, lane.removed,
+                    lane.waitNanos, lane.maxWaitNanos, lane.weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The work waiting for one priority and what has gone through it, guarded by the lock of the queue.
+     */
+    private static final class Lane {
+        private final Priority priority;
+        private final int weight;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+        private long enqueued = 0;
+        private long dequeued = 0;
+        private long removed = 0;
+        private long waitNanos = 0;
+        private long maxWaitNanos = 0;
+
+        /**
+         * Standard constructor.
+         *
+         * @param priority the priority.
+         * @param weight the number of tasks handed out in a row.
+         */
+        Lane(Priority priority, int weight) {
+            this.priority = priority;
+            this.weight = weight;
+        }
+
+        /**
+         * Counts a task taken out of the lane by a worker thread, and how long it waited.
+         *
+         * @param task the task.
+         */
+        void taken(Runnable task) {
+            dequeued++;
+            if (task instanceof EventWorker) {
+                long wait = System.nanoTime() - ((EventWorker)task).queuedAt;
+                waitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Lane " + priority;
+        }
+    }
+
+    /**
+     * What has gone through a lane.
+     */
+    public static final class LaneStatistics {
+        private final int depth;
+        private final long enqueued;
+        private final long dequeued;
+        private final long removed;
+        private final long waitNanos;
+        private final long maxWaitNanos;
+        private final int weight;
+
+        /**
+         * Standard constructor.
+         *
+         * @param depth the number of tasks waiting.
+         * @param enqueued the number of tasks put in the lane.
+         * @param dequeued the number of tasks taken by worker threads.
+         * @param removed the number of tasks removed, e.g. shed.
+         * @param waitNanos the total time taken tasks waited.
+         * @param maxWaitNanos the longest time a task waited.
+         * @param weight the weight of the lane.
+         */
+        LaneStatistics(int depth, long enqueued, long dequeued, long removed, long waitNanos, long maxWaitNanos,
+                       int weight) {
+            this.depth = depth;
+            this.enqueued = enqueued;
+            this.dequeued = dequeued;
+            this.removed = removed;
+            this.waitNanos = waitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.weight = weight;
+        }
+
+        /**
+         * The number of tasks waiting in the lane.
+         *
+         * @return the number.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * The number of tasks that have been put in the lane.
+         *
+         * @return the number.
+         */
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        /**
+         * The number of tasks worker threads have taken from the lane.
+         *
+         * @return the number.
+         */
+        public long getDequeued() {
+            return dequeued;
+        }
+
+        /**
+         * The number of tasks removed from the lane without being taken, e.g. shed by the overflow policy.
+         *
+         * @return the number.
+         */
+        public long getRemoved() {
+            return removed;
+        }
+
+        /**
+         * The average time a taken task waited in the lane.
+         *
+         * @return the time in milliseconds.
+         */
+        public long getAverageWaitMillis() {
+            if (dequeued == 0) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos / dequeued);
+        }
+
+        /**
+         * The longest time a taken task waited in the lane.
+         *
+         * @return the time in milliseconds.
+         */
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+        }
+
+        /**
+         * The number of tasks the lane hands out in a row.
+         *
+         * @return the weight.
+         */
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grows and shrinks the number of worker threads of a {@link GerritHandler} between two bounds,
+ * from how long work waits in the receive queue and how long it takes to perform.
+ * <p>
+ * Every interval the average queue wait is compared to the target. The wait of work that is still queued is
+ * estimated from the queue size and the average service time, so that a pool where every thread is stuck grows too.
+ * Work that is still being performed counts as well: its time so far is a lower bound of the service time,
+ * and the threads performing it are busy, since a stuck pool may not complete anything during an interval.
+ * Above the target the pool grows by half its size at once. It only shrinks, one thread at a time, after the wait
+ * has been below a quarter of the target and the threads have been less than half busy for several intervals
+ * in a row, so that it doesn't flap around the target.
+ * <p>
+ * The decisions are counted and the measurements of the last interval are kept, for monitoring.
+ *
+ * @see GerritHandler#setAutoscaler(ReceivePoolAutoscaler)
+ */
+public class ReceivePoolAutoscaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceivePoolAutoscaler.class);
+    private static final String THREAD_NAME = "Gerrit Receive Pool Autoscaler";
+    /**
+     * The default number of quiet intervals in a row before the pool shrinks.
+     */
+    private static final int DEFAULT_SHRINK_AFTER = 3;
+    /**
+     * The wait below which an interval is quiet is the target divided by this.
+     */
+    private static final int SHRINK_WAIT_DIVISOR = 4;
+    /**
+     * The share of the time the threads may be busy in a quiet interval.
+     */
+    private static final double SHRINK_UTILIZATION = 0.5;
+
+    /**
+     * What the autoscaler did at the end of an interval.
+     */
+    public enum Decision {
+        /**
+         * Added threads.
+         */
+        GROW,
+        /**
+         * Removed a thread.
+         */
+        SHRINK,
+        /**
+         * Kept the size.
+         */
+        HOLD
+    }
+
+    private final int minThreads;
+    private final int maxThreads;
+    private final long targetWaitNanos;
+    private final long intervalMillis;
+    private int shrinkAfter = DEFAULT_SHRINK_AFTER;
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder serviceCount = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    private final Map<Long, Long> busySince = new ConcurrentHashMap<Long, Long>();
+    private final AtomicLong nextStart = new AtomicLong();
+    private final AtomicLong growCount = new AtomicLong();
+    private final AtomicLong shrinkCount = new AtomicLong();
+    private int quietIntervals = 0;
+    private long lastTick;
+    private volatile long lastQueueWaitNanos = 0;
+    private volatile long lastServiceNanos = 0;
+    private volatile double lastUtilization = 0;
+    private volatile Decision lastDecision = Decision.HOLD;
+    private GerritHandler handler = null;
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * Standard constructor.
+     *
+     * @param minThreads the least number of worker threads.
+     * @param maxThreads the most number of worker threads.
+     * @param targetWaitMillis the longest average time work should wait in the queue.
+     * @param intervalMillis how often to measure and decide.
+     */
+    public ReceivePoolAutoscaler(int minThreads, int maxThreads, long targetWaitMillis, long intervalMillis) {
+        if (minThreads <= 0 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("Bad autoscaling bounds: " + minThreads + " to " + maxThreads);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetWaitMillis));
+        this.intervalMillis = Math.max(1, intervalMillis);
+    }
+
+    /**
+     * Sets the number of quiet intervals in a row before the pool shrinks.
+     *
+     * @param intervals the number of intervals, at least 1.
+     * @return this instance for convenience.
+     */
+    public synchronized ReceivePoolAutoscaler setShrinkAfter(int intervals) {
+        this.shrinkAfter = Math.max(1, intervals);
+        return this;
+    }
+
+    /**
+     * Records how long a piece of work waited in the queue before a worker thread took it.
+     *
+     * @param nanos the wait in nanoseconds.
+     */
+    void recordWait(long nanos) {
+        waitCount.increment();
+        waitNanos.add(nanos);
+    }
+
+    /**
+     * Records that a worker thread started to perform a piece of work.
+     *
+     * @param startNanos when it started, from {@link System#nanoTime()}.
+     * @return the id to give {@link #recordEnd(long)} when the work is done.
+     */
+    long recordStart(long startNanos) {
+        long id = nextStart.incrementAndGet();
+        busySince.put(id, startNanos);
+        return id;
+    }
+
+    /**
+     * Records that a worker thread is done with a piece of work.
+     *
+     * @param id the id returned by {@link #recordStart(long)}.
+     */
+    void recordEnd(long id) {
+        busySince.remove(id);
+    }
+
+    /**
+     * Records how long a piece of work took to perform, including notifying the listeners.
+     *
+     * @param nanos the time in nanoseconds.
+     */
+    void recordService(long nanos) {
+        serviceCount.increment();
+        serviceNanos.add(nanos);
+    }
+
+    /**
+     * Starts scaling the worker threads of the handler, bringing them within the bounds right away.
+     *
+     * @param gerritHandler the handler.
+     */
+    synchronized void start(GerritHandler gerritHandler) {
+        if (handler != null) {
+            throw new IllegalStateException("The autoscaler is already in use by a handler.");
+        }
+        handler = gerritHandler;
+        int threads = gerritHandler.getNumberOfWorkerThreads();
+        if (threads < minThreads || threads > maxThreads) {
+            gerritHandler.setNumberOfWorkerThreads(Math.min(maxThreads, Math.max(minThreads, threads)));
+        }
+        lastTick = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to autoscale the receive pool.", e);
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops scaling, the handler keeps its current number of worker threads.
+     */
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        handler = null;
+    }
+
+    /**
+     * Measures the interval since the last tick and decides.
+     */
+    private synchronized void tick() {
+        long now = System.nanoTime();
+        long elapsed = now - lastTick;
+        lastTick = now;
+        adjust(elapsed);
+    }
+
+    /**
+     * Measures the interval that just ended and grows, shrinks or keeps the pool.
+     *
+     * @param elapsedNanos the length of the interval.
+     * @return the decision.
+     */
+    synchronized Decision adjust(long elapsedNanos) {
+        GerritHandler gerritHandler = handler;
+        if (gerritHandler == null) {
+            return Decision.HOLD;
+        }
+        long waits = waitCount.sumThenReset();
+        long waited = waitNanos.sumThenReset();
+        long services = serviceCount.sumThenReset();
+        long served = serviceNanos.sumThenReset();
+        long busy = 0;
+        long busyNanos = 0;
+        long now = System.nanoTime();
+        for (long since : busySince.values()) {
+            busy++;
+            busyNanos += Math.max(0, now - since);
+        }
+        int threads = gerritHandler.getNumberOfWorkerThreads();
+        long serviceTime = 0;
+        if (services > 0) {
+            serviceTime = served / services;
+        }
+        if (busy > 0) {
+            serviceTime = Math.max(serviceTime, busyNanos / busy);
+        }
+        long queueWait = 0;
+        if (waits > 0) {
+            queueWait = waited / waits;
+        }
+        long backlogWait = gerritHandler.getQueueSize() * serviceTime / Math.max(1, threads);
+        queueWait = Math.max(queueWait, backlogWait);
+        double utilization = 0;
+        if (elapsedNanos > 0) {
+            utilization = (double)served / ((double)elapsedNanos * Math.max(1, threads));
+        }
+        //The work in flight is read while workers change it, so the same thread may have been counted twice.
+        utilization = Math.max(utilization, (double)Math.min(busy, threads) / Math.max(1, threads));
+        lastQueueWaitNanos = queueWait;
+        lastServiceNanos = serviceTime;
+        lastUtilization = utilization;
+
+        Decision decision = Decision.HOLD;
+        int target = threads;
+        if (queueWait > targetWaitNanos) {
+            quietIntervals = 0;
+            target = Math.min(maxThreads, threads + Math.max(1, threads / 2));
+        } else if (queueWait < targetWaitNanos / SHRINK_WAIT_DIVISOR && utilization < SHRINK_UTILIZATION) {
+            quietIntervals++;
+            if (quietIntervals >= shrinkAfter) {
+                quietIntervals = 0;
+                target = Math.max(minThreads, threads - 1);
+            }
+        } else {
+            quietIntervals = 0;
+        }
+        if (target > threads) {
+            decision = Decision.GROW;
+            growCount.incrementAndGet();
+        } else if (target < threads) {
+            decision = Decision.SHRINK;
+            shrinkCount.incrementAndGet();
+        }
+        if (decision != Decision.HOLD) {
+            logger.info("Autoscaling the receive pool from {} to {} threads, queue wait {} ms, service time {} ms",
+                    new Object[] {threads, target, TimeUnit.NANOSECONDS.toMillis(queueWait),
+                            TimeUnit.NANOSECONDS.toMillis(serviceTime), });
+            gerritHandler.setNumberOfWorkerThreads(target);
+        }
+        lastDecision = decision;
+        return decision;
+    }
+
+    /**
+     * The least number of worker threads.
+     *
+     * @return the number.
+     */
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    /**
+     * The most number of worker threads.
+     *
+     * @return the number.
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * The number of times the pool has been grown.
+     *
+     * @return the number.
+     */
+    public long getGrowCount() {
+        return growCount.get();
+    }
+
+    /**
+     * The number of times the pool has been shrunk.
+     *
+     * @return the number.
+     */
+    public long getShrinkCount() {
+        return shrinkCount.get();
+    }
+
+    /**
+     * The decision at the end of the last interval.
+     *
+     * @return the decision.
+     */
+    public Decision getLastDecision() {
+        return lastDecision;
+    }
+
+    /**
+     * The average time work waited in the queue during the last interval, or the estimated wait
+     * of the work still queued if that was longer.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getLastQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastQueueWaitNanos);
+    }
+
+    /**
+     * The average time it took to perform a piece of work during the last interval,
+     * or the average time so far of the work being performed if that was longer.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getLastServiceTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastServiceNanos);
+    }
+
+    /**
+     * The share of the time the worker threads were busy during the last interval,
+     * or the share of them busy at its end if that was larger.
+     *
+     * @return the share, 1 means all threads were busy all the time.
+     */
+    public double getLastUtilization() {
+        return lastUtilization;
+    }
+}
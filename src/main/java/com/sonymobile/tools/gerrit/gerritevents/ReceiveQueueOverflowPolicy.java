@@ -0,0 +1,529 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritHandler.EventWorker;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.workers.AbstractJsonObjectWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.GerritEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.JSONEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsBatchWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsStringWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.Work;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides what happens when the bounded receive queue of a {@link GerritHandler} is full.
+ * <p>
+ * Every policy counts what it has shed, in total and per {@link GerritEventType}.
+ * A batch of stream-events lines counts as one event per line.
+ *
+ * @see GerritHandler#GerritHandler(int, int, int, ReceiveQueueOverflowPolicy)
+ */
+public abstract class ReceiveQueueOverflowPolicy implements RejectedExecutionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiveQueueOverflowPolicy.class);
+    /**
+     * A warning is logged for the first shed event and then for every this many.
+     */
+    private static final long SHED_WARNING_INTERVAL = 1000;
+
+    private final AtomicLong shedCount = new AtomicLong();
+    private final AtomicLong unknownShedCount = new AtomicLong();
+    private final Map<GerritEventType, AtomicLong> shedCountByType =
+            new EnumMap<GerritEventType, AtomicLong>(GerritEventType.class);
+
+    /**
+     * Standard constructor.
+     */
+    protected ReceiveQueueOverflowPolicy() {
+        for (GerritEventType type : GerritEventType.values()) {
+            shedCountByType.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Creates a policy from its name, as used in system properties.
+     * The names are block, drop-oldest, drop-priority and max-age,
+     * an IllegalArgumentException is thrown for anything else.
+     *
+     * @param name the name of the policy.
+     * @param maxAgeMillis the max age in milliseconds, only used by max-age.
+     * @return the policy.
+     */
+    public static ReceiveQueueOverflowPolicy forName(String name, long maxAgeMillis) {
+        if ("block".equalsIgnoreCase(name)) {
+            return new Block();
+        } else if ("drop-oldest".equalsIgnoreCase(name)) {
+            return new DropOldest();
+        } else if ("drop-priority".equalsIgnoreCase(name)) {
+            return new DropByPriority();
+        } else if ("max-age".equalsIgnoreCase(name)) {
+            return new MaxAge(maxAgeMillis);
+        }
+        throw new IllegalArgumentException("Unknown receive queue overflow policy: " + name);
+    }
+
+    /**
+     * The total number of events shed by this policy.
+     *
+     * @return the number of events.
+     */
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    /**
+     * The number of events of the given type shed by this policy.
+     *
+     * @param type the type.
+     * @return the number of events.
+     */
+    public long getShedCount(GerritEventType type) {
+        return shedCountByType.get(type).get();
+    }
+
+    /**
+     * The number of shed events whose type could not be determined.
+     *
+     * @return the number of events.
+     */
+    public long getUnknownShedCount() {
+        return unknownShedCount.get();
+    }
+
+    /**
+     * Tells if queued work should be shed instead of performed, when a worker thread gets to it.
+     * Default is to perform everything that made it into the queue.
+     *
+     * @param work the work about to be performed.
+     * @return true if it should be shed.
+     */
+    public boolean isExpired(Work work) {
+        return false;
+    }
+
+    /**
+     * Rejects work when the executor is shut down, the same way as the default policy of the executor.
+     *
+     * @param executor the executor.
+     */
+    protected void checkShutdown(ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("The receiving thread pool is shut down.");
+        }
+    }
+
+    /**
+     * Counts the events in the work as shed.
+     *
+     * @param work the shed work.
+     */
+    protected void recordShed(Work work) {
+        for (GerritEventType type : getEventTypes(work)) {
+            if (type != null) {
+                shedCountByType.get(type).incrementAndGet();
+            } else {
+                unknownShedCount.incrementAndGet();
+            }
+            long count = shedCount.incrementAndGet();
+            if (count % SHED_WARNING_INTERVAL == 1) {
+                logger.warn("The Gerrit incoming events queue is full, {} events have been shed by {}",
+                        count, getClass().getSimpleName());
+            }
+        }
+        logger.debug("Shed work {}", work);
+    }
+
+    /**
+     * Counts a task from the receive queue as shed.
+     * Its lines are acknowledged in the event journal and spool, so they are not replayed.
+     *
+     * @param task the task.
+     */
+    protected void shed(Runnable task) {
+        if (task instanceof EventWorker) {
+            EventWorker worker = (EventWorker)task;
+            recordShed(worker.getWork());
+            worker.acknowledge();
+            worker.skipLane();
+        }
+    }
+
+    /**
+     * The work that a task in the receive queue performs.
+     *
+     * @param task the task.
+     * @return the work, or null if the task isn't from a {@link GerritHandler}.
+     */
+    protected static Work getWork(Runnable task) {
+        if (task instanceof EventWorker) {
+            return ((EventWorker)task).getWork();
+        }
+        return null;
+    }
+
+    /**
+     * The types of the events in the work, one per event.
+     * A type is null if it could not be determined.
+     *
+     * @param work the work.
+     * @return the types.
+     */
+    protected static List<GerritEventType> getEventTypes(Work work) {
+        if (work instanceof StreamEventsStringWork) {
+            return Collections.singletonList(
+                    GerritJsonEventFactory.peekEventType(((StreamEventsStringWork)work).getLine()));
+        } else if (work instanceof StreamEventsBatchWork) {
+            List<GerritEventType> types = new ArrayList<GerritEventType>();
+            for (String line : ((StreamEventsBatchWork)work).getLines()) {
+                types.add(GerritJsonEventFactory.peekEventType(line));
+            }
+            return types;
+        } else if (work instanceof JSONEventWork) {
+            return Collections.singletonList(GerritEventType.findByTypeValue(
+                    GerritJsonEventFactory.getString(((JSONEventWork)work).getJson(), "type")));
+        } else if (work instanceof GerritEventWork) {
+            GerritEvent event = ((GerritEventWork)work).getEvent();
+            if (event != null) {
+                return Collections.singletonList(event.getEventType());
+            }
+        }
+        return Collections.singletonList(null);
+    }
+
+    /**
+     * The priority of the work, the highest among its events.
+     * Events of unknown type, and work without events, have the lowest priority.
+     *
+     * @param work the work.
+     * @param priorities the priority of each event type, types that aren't in the map have
+     *                   {@link DropByPriority.Priority#LOW}.
+     * @return the priority.
+     */
+    static DropByPriority.Priority getPriority(Work work,
+                                               Map<GerritEventType, DropByPriority.Priority> priorities) {
+        DropByPriority.Priority highest = DropByPriority.Priority.LOW;
+        if (work == null) {
+            return highest;
+        }
+        for (GerritEventType type : getEventTypes(work)) {
+            DropByPriority.Priority priority = priorities.get(type);
+            if (priority != null && priority.compareTo(highest) > 0) {
+                highest = priority;
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Blocks the posting thread until there is room in the queue.
+     * When that thread is the one reading the stream-events stream it stops reading,
+     * and Gerrit will eventually have to hold on to the events because the SSH window is full.
+     * Nothing is shed, instead the number of times and total time the posting thread has been blocked are counted.
+     */
+    public static class Block extends ReceiveQueueOverflowPolicy {
+
+        /**
+         * How often a blocked thread checks if the executor has been shut down.
+         */
+        private static final long SHUTDOWN_CHECK_INTERVAL_MILLIS = 500;
+
+        private final AtomicLong blockedCount = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            checkShutdown(executor);
+            blockedCount.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                BlockingQueue<Runnable> queue = executor.getQueue();
+                while (!queue.offer(task, SHUTDOWN_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkShutdown(executor);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for room in the queue.", e);
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * The number of times a posting thread has been blocked.
+         *
+         * @return the count.
+         */
+        public long getBlockedCount() {
+            return blockedCount.get();
+        }
+
+        /**
+         * The total time posting threads have been blocked.
+         *
+         * @return the time in milliseconds.
+         */
+        public long getBlockedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+        }
+    }
+
+    /**
+     * Sheds the oldest work in the queue to make room for the new.
+     * With a {@link PriorityLaneQueue} it is the oldest work of the lowest priority lane that isn't empty.
+     */
+    public static class DropOldest extends ReceiveQueueOverflowPolicy {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            checkShutdown(executor);
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            Runnable oldest;
+            if (queue instanceof PriorityLaneQueue) {
+                oldest = ((PriorityLaneQueue)queue).pollLowest();
+            } else {
+                oldest = queue.poll();
+            }
+            if (oldest != null) {
+                shed(oldest);
+            }
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Sheds the work with the lowest priority, the oldest one if there are several,
+     * unless the new work has an even lower priority in which case it is the one shed.
+     * The priority of a batch is that of its most important event.
+     * Events of unknown type have the lowest priority.
+     * With a {@link PriorityLaneQueue} the lanes are already sorted by priority, so the work shed is the oldest
+     * of the lowest priority lane that isn't empty.
+     */
+    public static class DropByPriority extends ReceiveQueueOverflowPolicy {
+
+        /**
+         * The priority of an event type.
+         */
+        public enum Priority {
+            /**
+             * Informational events that don't cause anything to be built.
+             */
+            LOW,
+            /**
+             * Events that change the state of a change.
+             */
+            NORMAL,
+            /**
+             * Events that start or stop builds.
+             */
+            HIGH
+        }
+
+        private final Map<GerritEventType, Priority> priorities;
+
+        /**
+         * Creates the policy with the default priorities.
+         */
+        public DropByPriority() {
+            this(getDefaultPriorities());
+        }
+
+        /**
+         * Creates the policy with the given priorities.
+         *
+         * @param priorities the priority of each event type, types that aren't in the map have {@link Priority#LOW}.
+         */
+        public DropByPriority(Map<GerritEventType, Priority> priorities) {
+            this.priorities = new EnumMap<GerritEventType, Priority>(GerritEventType.class);
+            this.priorities.putAll(priorities);
+        }
+
+        /**
+         * The default priorities.
+         * Events that trigger or abort builds have high priority and replication and
+         * reviewer bookkeeping low.
+         *
+         * @return the priority of each event type.
+         */
+        public static Map<GerritEventType, Priority> getDefaultPriorities() {
+            Map<GerritEventType, Priority> map = new EnumMap<GerritEventType, Priority>(GerritEventType.class);
+            for (GerritEventType type : GerritEventType.values()) {
+                map.put(type, Priority.NORMAL);
+            }
+            map.put(GerritEventType.PATCHSET_CREATED, Priority.HIGH);
+            map.put(GerritEventType.DRAFT_PUBLISHED, Priority.HIGH);
+            map.put(GerritEventType.CHANGE_ABANDONED, Priority.HIGH);
+            map.put(GerritEventType.CHANGE_MERGED, Priority.HIGH);
+            map.put(GerritEventType.CHANGE_RESTORED, Priority.HIGH);
+            map.put(GerritEventType.COMMENT_ADDED, Priority.HIGH);
+            map.put(GerritEventType.REF_UPDATED, Priority.HIGH);
+            map.put(GerritEventType.RERUN_CHECK, Priority.HIGH);
+            map.put(GerritEventType.REF_REPLICATED, Priority.LOW);
+            map.put(GerritEventType.REF_REPLICATION_DONE, Priority.LOW);
+            map.put(GerritEventType.REVIEWER_ADDED, Priority.LOW);
+            map.put(GerritEventType.HASHTAGS_CHANGED, Priority.LOW);
+            return map;
+        }
+
+        /**
+         * The priority of each event type.
+         *
+         * @return the priorities.
+         */
+        Map<GerritEventType, Priority> getPriorities() {
+            return priorities;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            checkShutdown(executor);
+            Priority priority = getPriority(task);
+            if (executor.getQueue() instanceof PriorityLaneQueue) {
+                Runnable victim = ((PriorityLaneQueue)executor.getQueue()).pollLowerThan(priority);
+                if (victim == null) {
+                    shed(task);
+                    return;
+                }
+                shed(victim);
+                executor.execute(task);
+                return;
+            }
+            Runnable victim = null;
+            Priority victimPriority = null;
+            for (Runnable queued : executor.getQueue()) {
+                Priority queuedPriority = getPriority(queued);
+                if (victimPriority == null || queuedPriority.compareTo(victimPriority) < 0) {
+                    victim = queued;
+                    victimPriority = queuedPriority;
+                }
+            }
+            if (victim == null || priority.compareTo(victimPriority) <= 0) {
+                shed(task);
+                return;
+            }
+            if (executor.getQueue().remove(victim)) {
+                shed(victim);
+            }
+            executor.execute(task);
+        }
+
+        /**
+         * The priority of the work, the highest among its events.
+         *
+         * @param work the work.
+         * @return the priority.
+         */
+        Priority getPriority(Work work) {
+            return ReceiveQueueOverflowPolicy.getPriority(work, priorities);
+        }
+
+        /**
+         * The priority of a task, as worked out when it was queued.
+         *
+         * @param task the task.
+         * @return the priority.
+         */
+        Priority getPriority(Runnable task) {
+            if (task instanceof EventWorker) {
+                return ((EventWorker)task).getPriority(priorities);
+            }
+            return getPriority(getWork(task));
+        }
+    }
+
+    /**
+     * Sheds events that have waited longer than the max age, based on {@link AbstractJsonObjectWork#createdOn()}.
+     * When the queue is full every expired entry is removed from it,
+     * and if that didn't make room the new work is shed right away, the posting thread never waits.
+     * Expired work that is still in the queue is shed when a worker thread gets to it.
+     * Work without a creation time, like internally triggered events, never expires.
+     */
+    public static class MaxAge extends ReceiveQueueOverflowPolicy {
+
+        private final long maxAgeMillis;
+
+        /**
+         * Standard constructor.
+         *
+         * @param maxAgeMillis the max age in milliseconds.
+         */
+        public MaxAge(long maxAgeMillis) {
+            if (maxAgeMillis <= 0) {
+                throw new IllegalArgumentException("The max age must be positive: " + maxAgeMillis);
+            }
+            this.maxAgeMillis = maxAgeMillis;
+        }
+
+        /**
+         * The max age.
+         *
+         * @return the max age in milliseconds.
+         */
+        public long getMaxAgeMillis() {
+            return maxAgeMillis;
+        }
+
+        @Override
+        public boolean isExpired(Work work) {
+            if (work instanceof AbstractJsonObjectWork) {
+                long age = System.currentTimeMillis() - ((AbstractJsonObjectWork)work).createdOn();
+                return age > maxAgeMillis;
+            }
+            return false;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            checkShutdown(executor);
+            Iterator<Runnable> queued = executor.getQueue().iterator();
+            while (queued.hasNext()) {
+                Runnable next = queued.next();
+                if (isExpired(getWork(next))) {
+                    queued.remove();
+                    shed(next);
+                }
+            }
+            if (!executor.getQueue().offer(task)) {
+                shed(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the raw byte stream from stream-events into lines.
+ * <p>
+ * Bytes are read straight into a byte buffer and the newline search continues from where the previous
+ * search stopped, so data is never rescanned. A line is decoded to a String only once it is complete,
+ * which also means that multi-byte UTF-8 characters split between two reads are decoded correctly.
+ * <p>
+ * The buffer starts out at the initial capacity and doubles when an event does not fit into it.
+ * Once the oversized event has been consumed the buffer goes back to its initial capacity,
+ * so a single huge event doesn't keep the memory for the rest of the connection.
+ * <p>
+ * The framer is not thread safe, it is meant to be used by the reading thread only.
+ */
+public class StreamEventsLineFramer {
+
+    /**
+     * The charset used by stream-events.
+     */
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+    private static final byte LF = '\n';
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * Some VMs reserve header words in arrays, so stay a bit below the theoretical max.
+     */
+    private static final int ARRAY_HEADER_RESERVE = 8;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - ARRAY_HEADER_RESERVE;
+    /**
+     * The smallest window handed to the stream on each read, to avoid lots of tiny reads when
+     * the end of the buffer is reached.
+     */
+    private static final int MIN_READ_SIZE = 4096;
+
+    private final int initialCapacity;
+    private byte[] buffer;
+    /**
+     * Start of the first not yet returned line.
+     */
+    private int start = 0;
+    /**
+     * Where the next newline search begins, everything between start and scan is known to be newline free.
+     */
+    private int scan = 0;
+    /**
+     * End of the valid data in the buffer.
+     */
+    private int end = 0;
+
+    /**
+     * Standard constructor.
+     *
+     * @param initialCapacity the initial size of the buffer in bytes.
+     */
+    public StreamEventsLineFramer(int initialCapacity) {
+        this.initialCapacity = Math.max(MIN_CAPACITY, initialCapacity);
+        this.buffer = new byte[this.initialCapacity];
+    }
+
+    /**
+     * Reads as much as the stream will give in one call into the buffer.
+     * Blocks the same way as {@link InputStream#read(byte[], int, int)}.
+     *
+     * @param in the stream to read from.
+     * @return the number of bytes read, or -1 if the end of the stream has been reached.
+     * @throws IOException if the stream does so.
+     */
+    public int read(InputStream in) throws IOException {
+        ensureSpace(Math.min(MIN_READ_SIZE, initialCapacity / 2));
+        int count = in.read(buffer, end, buffer.length - end);
+        if (count > 0) {
+            end += count;
+        }
+        return count;
+    }
+
+    /**
+     * Appends bytes received by other means than {@link #read(InputStream)}.
+     *
+     * @param data the data.
+     * @param offset offset in data.
+     * @param length the number of bytes to append.
+     */
+    public void feed(byte[] data, int offset, int length) {
+        ensureSpace(length);
+        System.arraycopy(data, offset, buffer, end, length);
+        end += length;
+    }
+
+    /**
+     * Returns the next complete line in the buffer, without the line terminator.
+     *
+     * @return the line, or null if there is no complete line in the buffer yet.
+     */
+    public String nextLine() {
+        for (int i = scan; i < end; i++) {
+            if (buffer[i] == LF) {
+                String line = new String(buffer, start, i - start, CHARSET);
+                start = i + 1;
+                scan = start;
+                if (start == end) {
+                    reset();
+                }
+                return line;
+            }
+        }
+        scan = end;
+        return null;
+    }
+
+    /**
+     * The number of buffered bytes that doesn't belong to a complete line yet.
+     *
+     * @return the number of pending bytes.
+     */
+    public int getPendingBytes() {
+        return end - start;
+    }
+
+    /**
+     * The current size of the buffer.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Empties the buffer and lets go of any grown buffer.
+     */
+    private void reset() {
+        start = 0;
+        scan = 0;
+        end = 0;
+        if (buffer.length > initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+    }
+
+    /**
+     * Makes sure there is room for at least the given number of bytes after the valid data,
+     * first by compacting away consumed lines and then by growing the buffer.
+     *
+     * @param needed the number of free bytes needed.
+     */
+    private void ensureSpace(int needed) {
+        if (buffer.length - end >= needed) {
+            return;
+        }
+        int pending = end - start;
+        if (pending > MAX_CAPACITY - needed) {
+            throw new IllegalStateException("Event too large to buffer: " + pending + " bytes");
+        }
+        int required = pending + needed;
+        if (buffer.length > initialCapacity && required <= initialCapacity) {
+            byte[] shrunk = new byte[initialCapacity];
+            System.arraycopy(buffer, start, shrunk, 0, pending);
+            buffer = shrunk;
+        } else if (required <= buffer.length) {
+            System.arraycopy(buffer, start, buffer, 0, pending);
+        } else {
+            int capacity = buffer.length;
+            while (capacity < required) {
+                capacity = (int)Math.min((long)capacity * 2, MAX_CAPACITY);
+            }
+            byte[] grown = new byte[capacity];
+            System.arraycopy(buffer, start, grown, 0, pending);
+            buffer = grown;
+        }
+        scan -= start;
+        end = pending;
+        start = 0;
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.AUTHOR;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.CHANGE;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.EMAIL;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NUMBER;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT_NAME;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REF;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REFNAME;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REFUPDATE;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.TYPE;
+
+/**
+ * Picks the few properties needed to decide if a stream-events line is worth parsing out of the raw line,
+ * without building any JSON object tree.
+ * <p>
+ * The scanner walks the structure of the line once and only remembers where the values it looks for are:
+ * the event type, the project, the change number, the ref and the e-mail of the author.
+ * Only the top level and the objects directly below it are looked at, so properties with the same name
+ * further down, like the type of an approval, are not mistaken for them.
+ * Nothing is allocated while scanning; a String is only created when a value is asked for.
+ * <p>
+ * A scanner is reused line after line and is not thread safe, use {@link #forCurrentThread()}
+ * to get the one belonging to the calling thread.
+ */
+public final class StreamEventsLineScanner {
+
+    /**
+     * The deepest nesting the scanner can keep track of.
+     */
+    private static final int MAX_DEPTH = 63;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int HEX_RADIX = 16;
+    private static final GerritEventType[] TYPES = GerritEventType.values();
+    private static final ThreadLocal<StreamEventsLineScanner> SCANNERS = new ThreadLocal<StreamEventsLineScanner>() {
+        @Override
+        protected StreamEventsLineScanner initialValue() {
+            return new StreamEventsLineScanner();
+        }
+    };
+
+    private String line;
+    private GerritEventType type;
+    private final Value typeValue = new Value();
+    private final Value project = new Value();
+    private final Value projectName = new Value();
+    private final Value changeNumber = new Value();
+    private final Value ref = new Value();
+    private final Value authorEmail = new Value();
+
+    /**
+     * The scanner of the calling thread.
+     *
+     * @return the scanner.
+     */
+    public static StreamEventsLineScanner forCurrentThread() {
+        return SCANNERS.get();
+    }
+
+    /**
+     * Scans a line, forgetting about the previous one.
+     *
+     * @param jsonLine the line.
+     * @return true if the line looks like a JSON object, false if it is malformed, in which case the values
+     *         found before the error are kept.
+     */
+    public boolean scan(String jsonLine) {
+        line = jsonLine;
+        type = null;
+        typeValue.clear();
+        project.clear();
+        projectName.clear();
+        changeNumber.clear();
+        ref.clear();
+        authorEmail.clear();
+        if (jsonLine == null) {
+            return false;
+        }
+        int pos = skipWhitespace(0);
+        if (pos >= line.length() || line.charAt(pos) != '{') {
+            return false;
+        }
+        return scanStructure(pos);
+    }
+
+    /**
+     * The event type.
+     *
+     * @return the type, or null if the line has no known top level type.
+     */
+    public GerritEventType getType() {
+        return type;
+    }
+
+    /**
+     * The raw value of the top level type property, for types that are not in {@link GerritEventType}.
+     *
+     * @return the type value, or null if not found.
+     */
+    public String getTypeValue() {
+        return typeValue.get(line);
+    }
+
+    /**
+     * The name of the project the event is about.
+     *
+     * @return the project, or null if not found.
+     */
+    public String getProject() {
+        if (project.isSet()) {
+            return project.get(line);
+        }
+        return projectName.get(line);
+    }
+
+    /**
+     * The number of the change the event is about.
+     *
+     * @return the change number, or null if not found.
+     */
+    public String getChangeNumber() {
+        return changeNumber.get(line);
+    }
+
+    /**
+     * The ref the event is about.
+     *
+     * @return the ref, or null if not found.
+     */
+    public String getRef() {
+        return ref.get(line);
+    }
+
+    /**
+     * The e-mail of the author, e.g. of a comment.
+     *
+     * @return the e-mail, or null if not found.
+     */
+    public String getAuthorEmail() {
+        return authorEmail.get(line);
+    }
+
+    /**
+     * Walks the structure from the opening brace of the top level object.
+     *
+     * @param start the position of the opening brace.
+     * @return true if the structure was well formed.
+     */
+    private boolean scanStructure(int start) {
+        int depth = 0;
+        long objects = 0;
+        int keyStart = -1;
+        int keyEnd = -1;
+        int parentStart = -1;
+        int parentEnd = -1;
+        boolean expectKey = false;
+        int pos = start;
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c == '{' || c == '[') {
+                depth++;
+                if (depth > MAX_DEPTH) {
+                    return false;
+                }
+                if (c == '{') {
+                    objects |= 1L << depth;
+                } else {
+                    objects &= ~(1L << depth);
+                }
+                if (depth == 2) {
+                    parentStart = keyStart;
+                    parentEnd = keyEnd;
+                }
+                expectKey = c == '{';
+                pos++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return true;
+                } else if (depth < 0) {
+                    return false;
+                }
+                pos++;
+            } else if (c == ',') {
+                expectKey = (objects & (1L << depth)) != 0;
+                pos++;
+            } else if (c == '"' && expectKey) {
+                keyStart = pos + 1;
+                keyEnd = endOfString(pos);
+                if (keyEnd < 0) {
+                    return false;
+                }
+                pos = skipWhitespace(keyEnd + 1);
+                if (pos >= line.length() || line.charAt(pos) != ':') {
+                    return false;
+                }
+                pos = skipWhitespace(pos + 1);
+                expectKey = false;
+                if (pos < line.length() && line.charAt(pos) != '{' && line.charAt(pos) != '[') {
+                    pos = scanValue(pos, depth, keyStart, keyEnd, parentStart, parentEnd);
+                    if (pos < 0) {
+                        return false;
+                    }
+                }
+            } else if (c == '"') {
+                pos = endOfString(pos);
+                if (pos < 0) {
+                    return false;
+                }
+                pos++;
+            } else {
+                pos++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a string or literal value and remembers it if it is one of the wanted ones.
+     *
+     * @param start where the value starts.
+     * @param depth the depth of the object the value is in.
+     * @param keyStart start of the key.
+     * @param keyEnd end of the key.
+     * @param parentStart start of the key of the object at depth 2.
+     * @param parentEnd end of the key of the object at depth 2.
+     * @return the position after the value, or -1 if the value is malformed.
+     */
+    private int scanValue(int start, int depth, int keyStart, int keyEnd, int parentStart, int parentEnd) {
+        int valueStart;
+        int valueEnd;
+        int next;
+        if (line.charAt(start) == '"') {
+            valueStart = start + 1;
+            valueEnd = endOfString(start);
+            if (valueEnd < 0) {
+                return -1;
+            }
+            next = valueEnd + 1;
+        } else {
+            valueStart = start;
+            valueEnd = start;
+            while (valueEnd < line.length() && !isDelimiter(line.charAt(valueEnd))) {
+                valueEnd++;
+            }
+            next = valueEnd;
+        }
+        Value value = null;
+        if (depth == 1) {
+            if (is(keyStart, keyEnd, TYPE)) {
+                type = findType(valueStart, valueEnd);
+                value = typeValue;
+            } else if (is(keyStart, keyEnd, PROJECT)) {
+                value = project;
+            } else if (is(keyStart, keyEnd, PROJECT_NAME)) {
+                value = projectName;
+            } else if (is(keyStart, keyEnd, REF)) {
+                value = ref;
+            }
+        } else if (depth == 2) {
+            if (is(parentStart, parentEnd, CHANGE)) {
+                if (is(keyStart, keyEnd, PROJECT)) {
+                    value = project;
+                } else if (is(keyStart, keyEnd, NUMBER)) {
+                    value = changeNumber;
+                }
+            } else if (is(parentStart, parentEnd, REFUPDATE)) {
+                if (is(keyStart, keyEnd, PROJECT)) {
+                    value = project;
+                } else if (is(keyStart, keyEnd, REFNAME)) {
+                    value = ref;
+                }
+            } else if (is(parentStart, parentEnd, AUTHOR) && is(keyStart, keyEnd, EMAIL)) {
+                value = authorEmail;
+            }
+        }
+        if (value != null && !value.isSet()) {
+            value.set(valueStart, valueEnd);
+        }
+        return next;
+    }
+
+    /**
+     * Finds the event type with the type value between the positions.
+     *
+     * @param start start of the value.
+     * @param end end of the value.
+     * @return the type or null.
+     */
+    private GerritEventType findType(int start, int end) {
+        int length = end - start;
+        for (GerritEventType candidate : TYPES) {
+            String value = candidate.getTypeValue();
+            if (value.length() == length && line.regionMatches(true, start, value, 0, length)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * If the text between the positions is the given name.
+     *
+     * @param start the start.
+     * @param end the end.
+     * @param name the name.
+     * @return true if so.
+     */
+    private boolean is(int start, int end, String name) {
+        return start >= 0 && end - start == name.length() && line.startsWith(name, start);
+    }
+
+    /**
+     * Finds the closing quote of the string starting at the given opening quote.
+     *
+     * @param quote the position of the opening quote.
+     * @return the position of the closing quote, or -1 if there is none.
+     */
+    private int endOfString(int quote) {
+        int pos = quote + 1;
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '"') {
+                return pos;
+            } else {
+                pos++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first position at or after the given one that isn't whitespace.
+     *
+     * @param pos the position to start from.
+     * @return the position, or the length of the line if there is only whitespace left.
+     */
+    private int skipWhitespace(int pos) {
+        int i = pos;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * If the character ends a literal value.
+     *
+     * @param c the character.
+     * @return true if so.
+     */
+    private static boolean isDelimiter(char c) {
+        return c == ',' || c == '}' || c == ']' || Character.isWhitespace(c);
+    }
+
+    /**
+     * Where a value is in the line.
+     */
+    private static final class Value {
+        private int start = -1;
+        private int end = -1;
+
+        /**
+         * Forgets the value.
+         */
+        void clear() {
+            start = -1;
+            end = -1;
+        }
+
+        /**
+         * If the value was found.
+         *
+         * @return true if so.
+         */
+        boolean isSet() {
+            return start >= 0;
+        }
+
+        /**
+         * Remembers where the value is.
+         *
+         * @param valueStart the start.
+         * @param valueEnd the end.
+         */
+        void set(int valueStart, int valueEnd) {
+            start = valueStart;
+            end = valueEnd;
+        }
+
+        /**
+         * The value, with any escapes resolved.
+         *
+         * @param line the line the value is in.
+         * @return the value, or null if it wasn't found.
+         */
+        String get(String line) {
+            if (!isSet()) {
+                return null;
+            }
+            if (line.indexOf('\\', start) < 0 || line.indexOf('\\', start) >= end) {
+                return line.substring(start, end);
+            }
+            StringBuilder str = new StringBuilder(end - start);
+            int pos = start;
+            while (pos < end) {
+                char c = line.charAt(pos);
+                if (c != '\\' || pos + 1 >= end) {
+                    str.append(c);
+                    pos++;
+                    continue;
+                }
+                char escaped = line.charAt(pos + 1);
+                pos += 2;
+                switch (escaped) {
+                    case 'b':
+                        str.append('\b');
+                        break;
+                    case 'f':
+                        str.append('\f');
+                        break;
+                    case 'n':
+                        str.append('\n');
+                        break;
+                    case 'r':
+                        str.append('\r');
+                        break;
+                    case 't':
+                        str.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + UNICODE_ESCAPE_LENGTH <= end) {
+                            try {
+                                str.append((char)Integer.parseInt(
+                                        line.substring(pos, pos + UNICODE_ESCAPE_LENGTH), HEX_RADIX));
+                                pos += UNICODE_ESCAPE_LENGTH;
+                            } catch (NumberFormatException e) {
+                                str.append(escaped);
+                            }
+                        }
+                        break;
+                    default:
+                        str.append(escaped);
+                }
+            }
+            return str.toString();
+        }
+    }
+}
@@ -0,0 +1,623 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands work from the threads posting it to the worker threads through a preallocated ring of slots,
+ * in the style of the Disruptor, instead of through the linked queue of a thread pool.
+ * <p>
+ * Any number of threads may post. A poster claims the next slot with a compare-and-set on the tail sequence and
+ * publishes the task by setting the sequence of the slot, so no locks are taken and no queue nodes are allocated.
+ * The worker threads claim all published tasks in a row at the head of the ring, up to the batch size,
+ * with one compare-and-set, free their slots and then run them.
+ * <p>
+ * A thread that finds nothing to do, a worker with an empty ring or a poster with a full one,
+ * waits according to the {@link WaitStrategy}. Nothing is shed when the ring is full, the poster waits for room.
+ * The worker threads are started right away and stay alive until the ring is shut down.
+ *
+ * @see GerritHandler#GerritHandler(int, int, WorkRingBuffer.WaitStrategy)
+ */
+public class WorkRingBuffer extends AbstractExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkRingBuffer.class);
+
+    private final Runnable[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final ThreadFactory threadFactory;
+    private final Runnable afterBatch;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicInteger liveConsumers = new AtomicInteger();
+    private final AtomicInteger posting = new AtomicInteger();
+    private final Set<Thread> threads = new CopyOnWriteArraySet<Thread>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong posterWaitCount = new AtomicLong();
+    private volatile int targetConsumers;
+    private volatile int largestConsumerCount;
+    private volatile boolean shutdown = false;
+    private volatile boolean stopped = false;
+    private final WaitStrategy.Gate workAvailable = new WaitStrategy.Gate() {
+        @Override
+        public boolean isOpen() {
+            return stopped || liveConsumers.get() > targetConsumers || isPublished(head.get()) || isDrained();
+        }
+    };
+    private final WaitStrategy.Gate roomAvailable = new WaitStrategy.Gate() {
+        @Override
+        public boolean isOpen() {
+            return shutdown || isFree(tail.get());
+        }
+    };
+
+    /**
+     * Standard constructor, starts the worker threads.
+     *
+     * @param capacity the number of slots, rounded up to a power of two.
+     * @param consumers the number of worker threads.
+     * @param batchSize the max number of tasks a worker thread claims at once.
+     * @param waitStrategy how threads with nothing to do wait.
+     * @param threadFactory creates the worker threads.
+     * @param afterBatch run by a worker thread after each batch, or null.
+     */
+    public WorkRingBuffer(int capacity, int consumers, int batchSize, WaitStrategy waitStrategy,
+                          ThreadFactory threadFactory, Runnable afterBatch) {
+        if (capacity <= 0 || capacity > (1 << (Integer.SIZE - 2))) {
+            throw new IllegalArgumentException("Bad ring buffer capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size = size << 1;
+        }
+        this.slots = new Runnable[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.batchSize = Math.max(1, batchSize);
+        this.waitStrategy = waitStrategy;
+        this.threadFactory = threadFactory;
+        this.afterBatch = afterBatch;
+        setConsumerCount(consumers);
+    }
+
+    /**
+     * Posts a task, waiting for a free slot if the ring is full.
+     *
+     * @param task the task.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        posting.incrementAndGet();
+        try {
+            long sequence = claim();
+            int index = (int)sequence & mask;
+            slots[index] = task;
+            sequences.set(index, sequence + 1);
+        } finally {
+            posting.decrementAndGet();
+            waitStrategy.signalAll();
+        }
+    }
+
+    /**
+     * Claims the slot at the tail of the ring.
+     * A RejectedExecutionException is thrown if the ring is shut down, also while waiting for room.
+     *
+     * @return the sequence of the slot.
+     */
+    private long claim() {
+        boolean waited = false;
+        while (true) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The ring buffer is shut down.");
+            }
+            long sequence = tail.get();
+            long difference = sequences.get((int)sequence & mask) - sequence;
+            if (difference == 0) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+            } else if (difference < 0) {
+                if (!waited) {
+                    waited = true;
+                    posterWaitCount.incrementAndGet();
+                }
+                try {
+                    waitStrategy.waitUntil(roomAvailable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for room in the ring buffer.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * If the task with the given sequence is published and not yet claimed by a worker thread.
+     *
+     * @param sequence the sequence.
+     * @return true if so.
+     */
+    private boolean isPublished(long sequence) {
+        return sequences.get((int)sequence & mask) == sequence + 1;
+    }
+
+    /**
+     * If the slot for the given sequence is free to post to.
+     *
+     * @param sequence the sequence.
+     * @return true if so.
+     */
+    private boolean isFree(long sequence) {
+        return sequences.get((int)sequence & mask) - sequence >= 0;
+    }
+
+    /**
+     * Claims the published tasks in a row at the head of the ring, up to the batch size,
+     * and frees their slots.
+     *
+     * @param batch where the tasks are put.
+     * @return the number of tasks claimed.
+     */
+    private int claimBatch(Runnable[] batch) {
+        while (true) {
+            long first = head.get();
+            int count = 0;
+            while (count < batchSize && isPublished(first + count)) {
+                count++;
+            }
+            if (count == 0) {
+                if (head.get() == first) {
+                    return 0;
+                }
+            } else if (head.compareAndSet(first, first + count)) {
+                int capacity = slots.length;
+                for (int i = 0; i < count; i++) {
+                    long sequence = first + i;
+                    int index = (int)sequence & mask;
+                    batch[i] = slots[index];
+                    slots[index] = null;
+                    sequences.set(index, sequence + capacity);
+                }
+                waitStrategy.signalAll();
+                return count;
+            }
+        }
+    }
+
+    /**
+     * The number of tasks waiting in the ring.
+     *
+     * @return the number.
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        if (size <= 0) {
+            return 0;
+        }
+        return (int)Math.min(size, slots.length);
+    }
+
+    /**
+     * If there are no tasks waiting in the ring.
+     *
+     * @return true if so.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * If the ring is shut down and all tasks have been claimed, so that no more will come.
+     * A thread that was posting when the ring was shut down may still publish its task.
+     *
+     * @return true if so.
+     */
+    private boolean isDrained() {
+        return shutdown && posting.get() == 0 && isEmpty();
+    }
+
+    /**
+     * The number of slots.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * The tasks waiting in the ring, oldest first, as they were at about the time of the call.
+     *
+     * @return a copy of the tasks.
+     */
+    public List<Runnable> snapshot() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        long end = tail.get();
+        for (long sequence = head.get(); sequence < end; sequence++) {
+            int index = (int)sequence & mask;
+            Runnable task = slots[index];
+            if (task != null && sequences.get(index) == sequence + 1) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Changes the number of worker threads. Surplus threads stop after their current batch.
+     *
+     * @param consumers the number of threads.
+     */
+    public synchronized void setConsumerCount(int consumers) {
+        targetConsumers = Math.max(1, consumers);
+        if (!shutdown) {
+            while (liveConsumers.get() < targetConsumers) {
+                startConsumer();
+            }
+        }
+        largestConsumerCount = Math.max(largestConsumerCount, liveConsumers.get());
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * The number of worker threads running.
+     *
+     * @return the number.
+     */
+    public int getConsumerCount() {
+        return liveConsumers.get();
+    }
+
+    /**
+     * The largest number of worker threads that have been running at the same time.
+     *
+     * @return the number.
+     */
+    public int getLargestConsumerCount() {
+        return largestConsumerCount;
+    }
+
+    /**
+     * The number of tasks the worker threads have run.
+     *
+     * @return the number.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * The number of batches the worker threads have claimed, the average batch size is
+     * the executed count divided by this.
+     *
+     * @return the number.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * The number of times a posting thread has had to wait because the ring was full.
+     *
+     * @return the number.
+     */
+    public long getPosterWaitCount() {
+        return posterWaitCount.get();
+    }
+
+    /**
+     * Starts a worker thread.
+     */
+    private void startConsumer() {
+        liveConsumers.incrementAndGet();
+        Thread thread = threadFactory.newThread(new Consumer());
+        threads.add(thread);
+        thread.start();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        waitStrategy.signalAll();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        stopped = true;
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        Runnable[] batch = new Runnable[batchSize];
+        int count = claimBatch(batch);
+        while (count > 0) {
+            for (int i = 0; i < count; i++) {
+                tasks.add(batch[i]);
+            }
+            count = claimBatch(batch);
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        waitStrategy.signalAll();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return isTerminated();
+            }
+            TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+        }
+        return isTerminated();
+    }
+
+    /**
+     * A worker thread, runs batches of tasks until the ring is shut down and empty, or the thread is surplus.
+     */
+    private final class Consumer implements Runnable {
+        private final Runnable[] batch = new Runnable[batchSize];
+
+        @Override
+        public void run() {
+            boolean retired = false;
+            try {
+                while (!stopped) {
+                    int live = liveConsumers.get();
+                    if (live > targetConsumers) {
+                        if (liveConsumers.compareAndSet(live, live - 1)) {
+                            retired = true;
+                            return;
+                        }
+                        continue;
+                    }
+                    int count = claimBatch(batch);
+                    if (count > 0) {
+                        runBatch(count);
+                    } else if (isDrained()) {
+                        return;
+                    } else {
+                        try {
+                            waitStrategy.waitUntil(workAvailable);
+                        } catch (InterruptedException e) {
+                            logger.trace("Interrupted while waiting for work.");
+                        }
+                    }
+                }
+            } finally {
+                if (!retired) {
+                    liveConsumers.decrementAndGet();
+                }
+                threads.remove(Thread.currentThread());
+            }
+        }
+
+        /**
+         * Runs the claimed tasks and then the after-batch task.
+         *
+         * @param count the number of claimed tasks.
+         */
+        private void runBatch(int count) {
+            batchCount.incrementAndGet();
+            for (int i = 0; i < count; i++) {
+                Runnable task = batch[i];
+                batch[i] = null;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to run task " + task, e);
+                } finally {
+                    executedCount.incrementAndGet();
+                }
+            }
+            if (afterBatch != null) {
+                try {
+                    afterBatch.run();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to run the after-batch task.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides how a thread waits when it has nothing to do: a worker thread when the ring is empty
+     * or a posting thread when it is full.
+     */
+    public abstract static class WaitStrategy {
+
+        /**
+         * What a waiting thread waits for.
+         */
+        public interface Gate {
+            /**
+             * If the thread can go on.
+             *
+             * @return true if so.
+             */
+            boolean isOpen();
+        }
+
+        /**
+         * Creates a strategy from its name, as used in system properties.
+         * The names are blocking, yielding and busy-spin,
+         * an IllegalArgumentException is thrown for anything else.
+         *
+         * @param name the name of the strategy.
+         * @return the strategy.
+         */
+        public static WaitStrategy forName(String name) {
+            if ("blocking".equalsIgnoreCase(name)) {
+                return new Blocking();
+            } else if ("yielding".equalsIgnoreCase(name)) {
+                return new Yielding();
+            } else if ("busy-spin".equalsIgnoreCase(name)) {
+                return new BusySpin();
+            }
+            throw new IllegalArgumentException("Unknown ring buffer wait strategy: " + name);
+        }
+
+        /**
+         * Waits until the gate is open. May return early, the caller checks again.
+         *
+         * @param gate the gate.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         */
+        public abstract void waitUntil(Gate gate) throws InterruptedException;
+
+        /**
+         * Wakes the waiting threads, called whenever a gate may have opened.
+         */
+        public abstract void signalAll();
+    }
+
+    /**
+     * Parks waiting threads on a lock condition. Uses no CPU while idle, at the price of the latency of waking up.
+     * Posting threads only take the lock when some thread is waiting.
+     */
+    public static class Blocking extends WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition opened = lock.newCondition();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        @Override
+        public void waitUntil(Gate gate) throws InterruptedException {
+            if (gate.isOpen()) {
+                return;
+            }
+            lock.lock();
+            waiting.incrementAndGet();
+            try {
+                while (!gate.isOpen()) {
+                    opened.await();
+                }
+            } finally {
+                waiting.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiting.get() > 0) {
+                lock.lock();
+                try {
+                    opened.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Spins for a while and then yields the CPU between checks.
+     * Low latency without holding on to a core when other threads need it.
+     */
+    public static class Yielding extends WaitStrategy {
+        /**
+         * The number of checks before starting to yield.
+         */
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public void waitUntil(Gate gate) throws InterruptedException {
+            int tries = SPIN_TRIES;
+            while (!gate.isOpen()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (tries > 0) {
+                    tries--;
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            //Waiting threads check the gate by themselves.
+        }
+    }
+
+    /**
+     * Checks again and again without giving up the CPU. The lowest latency,
+     * but every idle worker thread keeps a core busy, so only use it with cores to spare.
+     */
+    public static class BusySpin extends WaitStrategy {
+
+        @Override
+        public void waitUntil(Gate gate) throws InterruptedException {
+            while (!gate.isOpen()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            //Waiting threads check the gate by themselves.
+        }
+    }
+}
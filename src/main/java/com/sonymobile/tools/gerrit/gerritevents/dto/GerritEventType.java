@@ -43,8 +43,11 @@ import com.sonymobile.tools.gerrit.gerritevents.dto.events.HashtagsChanged;
 import com.sonymobile.tools.gerrit.gerritevents.dto.events.VoteDeleted;
 import com.sonymobile.tools.gerrit.gerritevents.dto.events.RerunCheck;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Representation of the type of event, if they are interesting and what class to use to parse the JSON string.
@@ -151,6 +154,17 @@ public enum GerritEventType {
         this.eventRepresentative = eventRepresentative;
     }
 
+    /**
+     * Lookup table for {@link #findByTypeValue(String)}, keyed by the lower case type-value.
+     */
+    private static final Map<String, GerritEventType> BY_TYPE_VALUE = new HashMap<String, GerritEventType>();
+
+    static {
+        for (GerritEventType type : values()) {
+            BY_TYPE_VALUE.put(type.getTypeValue().toLowerCase(Locale.ENGLISH), type);
+        }
+    }
+
     /**
      * The value of the type property in the JSON object.
      * @return the type-value.
@@ -189,12 +203,14 @@ public enum GerritEventType {
      * @return the event type or null if nothing was found.
      */
     public static GerritEventType findByTypeValue(String typeValue) {
-        for (GerritEventType type : values()) {
-            if (type.getTypeValue().equalsIgnoreCase(typeValue)) {
-                return type;
-            }
+        if (typeValue == null) {
+            return null;
+        }
+        GerritEventType type = BY_TYPE_VALUE.get(typeValue);
+        if (type == null) {
+            type = BY_TYPE_VALUE.get(typeValue.toLowerCase(Locale.ENGLISH));
         }
-        return null;
+        return type;
     }
 
     /**
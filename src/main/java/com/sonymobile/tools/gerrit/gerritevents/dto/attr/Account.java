@@ -24,9 +24,13 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.EMAIL;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NAME;
@@ -38,7 +42,7 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.USERN
  *
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
  */
-public class Account implements GerritJsonDTO {
+public class Account implements GerritJsonStreamDTO {
 
     /**
      * Account user's full name.
@@ -69,6 +73,17 @@ public class Account implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public Account(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     /**
      * For easier testing.
      * @param name the name.
@@ -86,6 +101,27 @@ public class Account implements GerritJsonDTO {
         username = getString(json, USERNAME);
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case NAME:
+                    name = nextString(reader);
+                    break;
+                case EMAIL:
+                    email = nextString(reader);
+                    break;
+                case USERNAME:
+                    username = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Account user's preferred email.
      *
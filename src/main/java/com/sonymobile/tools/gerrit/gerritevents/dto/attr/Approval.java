@@ -23,11 +23,16 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextBoolean;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getBoolean;
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.BY;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.TYPE;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.VALUE;
@@ -39,7 +44,7 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.OLD_V
  *
  * @author James E. Blair &lt;jeblair@hp.com&gt;
  */
-public class Approval implements GerritJsonDTO {
+public class Approval implements GerritJsonStreamDTO {
 
     /**
      * The approval category.
@@ -87,6 +92,17 @@ public class Approval implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public Approval(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     @Override
     public void fromJson(JSONObject json) {
         if (json.containsKey(TYPE) && json.containsKey(VALUE)) {
@@ -104,6 +120,43 @@ public class Approval implements GerritJsonDTO {
         }
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        String newType = null;
+        String newValue = null;
+        boolean hasType = false;
+        boolean hasValue = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case TYPE:
+                    newType = nextString(reader);
+                    hasType = true;
+                    break;
+                case VALUE:
+                    newValue = nextString(reader);
+                    hasValue = true;
+                    break;
+                case BY:
+                    by = new Account(reader);
+                    break;
+                case UPDATED:
+                    updated = nextBoolean(reader, false);
+                    break;
+                case OLD_VALUE:
+                    oldValue = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (hasType && hasValue) {
+            type = newType;
+            value = newValue;
+        }
+    }
+
     /**
      * The approval user.
      *
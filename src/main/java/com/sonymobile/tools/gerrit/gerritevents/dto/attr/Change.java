@@ -25,7 +25,8 @@ package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
 import com.sonymobile.tools.gerrit.gerritevents.GerritQueryHandler;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritChangeStatus;
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 
 import com.sonymobile.tools.gerrit.gerritevents.dto.rest.Topic;
 import com.sonymobile.tools.gerrit.gerritevents.helpers.FileHelper;
@@ -33,11 +34,16 @@ import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextBoolean;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextDate;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextStringList;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getBoolean;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getDate;
@@ -65,7 +71,7 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PRIVA
  * The Gerrit change the event is related to.
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
  */
-public class Change implements GerritJsonDTO {
+public class Change implements GerritJsonStreamDTO {
 
     /**
      * Project path in Gerrit.
@@ -179,6 +185,17 @@ public class Change implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public Change(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     @Override
     public void fromJson(JSONObject json) {
         project = getString(json, PROJECT);
@@ -224,6 +241,78 @@ public class Change implements GerritJsonDTO {
         _private = getBoolean(json, PRIVATE, false);
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        hashtags = Collections.emptyList();
+        status = GerritChangeStatus.fromString(null);
+        wip = false;
+        _private = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case PROJECT:
+                    project = nextString(reader);
+                    break;
+                case BRANCH:
+                    branch = nextString(reader);
+                    break;
+                case ID:
+                    id = nextString(reader);
+                    break;
+                case NUMBER:
+                    number = nextString(reader);
+                    break;
+                case SUBJECT:
+                    subject = nextString(reader);
+                    break;
+                case CREATED_ON:
+                    createdOn = nextDate(reader);
+                    break;
+                case LAST_UPDATED:
+                    lastUpdated = nextDate(reader);
+                    break;
+                case OWNER:
+                    owner = new Account(reader);
+                    break;
+                case COMMENTS:
+                    comments = new ArrayList<Comment>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        comments.add(new Comment(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case COMMIT_MESSAGE:
+                    commitMessage = nextString(reader);
+                    break;
+                case TOPIC:
+                    String topicName = nextString(reader);
+                    if (StringUtils.isNotEmpty(topicName)) {
+                        topicObject = new Topic(topicName);
+                    }
+                    break;
+                case HASHTAGS:
+                    hashtags = nextStringList(reader);
+                    break;
+                case URL:
+                    url = nextString(reader);
+                    break;
+                case STATUS:
+                    status = GerritChangeStatus.fromString(nextString(reader));
+                    break;
+                case WIP:
+                    wip = nextBoolean(reader, false);
+                    break;
+                case PRIVATE:
+                    _private = nextBoolean(reader, false);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Branch name within project.
      * @return the branch.
@@ -24,16 +24,20 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.MESSAGE;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REVIEWER;
 
 /**
  */
-public class Comment implements GerritJsonDTO {
+public class Comment implements GerritJsonStreamDTO {
 
     private Account reviewer;
     private String message;
@@ -54,6 +58,17 @@ public class Comment implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public Comment(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     @Override
     public void fromJson(JSONObject json) {
         message = getString(json, MESSAGE);
@@ -62,6 +77,24 @@ public class Comment implements GerritJsonDTO {
         }
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case MESSAGE:
+                    message = nextString(reader);
+                    break;
+                case REVIEWER:
+                    reviewer = new Account(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * The message.
      *
@@ -24,14 +24,20 @@
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritChangeKind;
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextBoolean;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextDate;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextStringList;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getDate;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getBoolean;
@@ -52,7 +58,7 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.CREAT
  * Refers to a specific patchset within a change.
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
  */
-public class PatchSet implements GerritJsonDTO {
+public class PatchSet implements GerritJsonStreamDTO {
 
     /**
      * The patchset number.
@@ -108,6 +114,17 @@ public class PatchSet implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public PatchSet(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     @Override
     public void fromJson(JSONObject json) {
         number = getString(json, NUMBER);
@@ -140,6 +157,53 @@ public class PatchSet implements GerritJsonDTO {
         }
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case NUMBER:
+                    number = nextString(reader);
+                    break;
+                case REVISION:
+                    revision = nextString(reader);
+                    break;
+                case IS_DRAFT:
+                    draft = nextBoolean(reader, false);
+                    break;
+                case CREATED_ON:
+                    createdOn = nextDate(reader);
+                    break;
+                case KIND:
+                    kind = GerritChangeKind.fromString(nextString(reader));
+                    break;
+                case REF:
+                    ref = nextString(reader);
+                    break;
+                case UPLOADER:
+                    uploader = new Account(reader);
+                    break;
+                case AUTHOR:
+                    author = new Account(reader);
+                    break;
+                case APPROVALS:
+                    approvals = new ArrayList<Approval>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        approvals.add(new Approval(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case PARENTS:
+                    parents = nextStringList(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * @return the List of parent dependency hashes
      */
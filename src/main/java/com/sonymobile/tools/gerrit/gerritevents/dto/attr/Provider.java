@@ -24,6 +24,7 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NAME;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.HOST;
@@ -36,7 +37,10 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.VERSI
 import com.sonymobile.tools.gerrit.gerritevents.GerritConnection;
 import net.sf.json.JSONObject;
 
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 
 /**
  * Represents a Gerrit JSON Provider DTO.
@@ -44,7 +48,7 @@ import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
  *
  * @author rinrinne &lt;rinrin.ne@gmail.com&gt;
  */
-public class Provider implements GerritJsonDTO {
+public class Provider implements GerritJsonStreamDTO {
 
     /**
      * The name of the Gerrit instance.
@@ -86,6 +90,17 @@ public class Provider implements GerritJsonDTO {
         fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public Provider(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     /**
      * For easier testing.
      * @param name the name.
@@ -119,6 +134,47 @@ public class Provider implements GerritJsonDTO {
         version = getString(json, VERSION);
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        String protocol = null;
+        String schemeValue = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case NAME:
+                    name = nextString(reader);
+                    break;
+                case HOST:
+                    host = nextString(reader);
+                    break;
+                case PORT:
+                    port = nextString(reader);
+                    break;
+                case PROTOCOL:
+                    protocol = nextString(reader);
+                    break;
+                case SCHEME:
+                    schemeValue = nextString(reader);
+                    break;
+                case URL:
+                    url = nextString(reader);
+                    break;
+                case VERSION:
+                    version = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // For backwards compatibility `proto` is used before `scheme`.
+        if (protocol != null) {
+            scheme = protocol;
+        } else {
+            scheme = schemeValue;
+        }
+    }
+
     /**
      * Get name.
      *
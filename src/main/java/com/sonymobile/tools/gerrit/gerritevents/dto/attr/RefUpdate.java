@@ -23,10 +23,14 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.attr;
 
-import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonDTO;
+import com.google.gson.stream.JsonReader;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REFNAME;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.OLDREV;
@@ -36,7 +40,7 @@ import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NEWRE
  * Represents a Gerrit JSON Reference Updated DTO.
  * @author James E. Blair &lt;jeblair@hp.com&gt;
  */
-public class RefUpdate implements GerritJsonDTO {
+public class RefUpdate implements GerritJsonStreamDTO {
 
     private static final String REFS_HEADS = "refs/heads/";
     /**
@@ -71,6 +75,17 @@ public class RefUpdate implements GerritJsonDTO {
         this.fromJson(json);
     }
 
+    /**
+     * Constructor that fills with data directly from a JSON stream.
+     *
+     * @param reader the JSON stream, positioned at the start of the object.
+     * @throws IOException if the JSON is malformed.
+     * @see #fromJson(com.google.gson.stream.JsonReader)
+     */
+    public RefUpdate(JsonReader reader) throws IOException {
+        this.fromJson(reader);
+    }
+
     @Override
     public void fromJson(JSONObject json) {
         project = getString(json, PROJECT);
@@ -79,6 +94,30 @@ public class RefUpdate implements GerritJsonDTO {
         newRev = getString(json, NEWREV);
     }
 
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case PROJECT:
+                    project = nextString(reader);
+                    break;
+                case REFNAME:
+                    refName = nextString(reader);
+                    break;
+                case OLDREV:
+                    oldRev = nextString(reader);
+                    break;
+                case NEWREV:
+                    newRev = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Name of project.
      * @return the project.
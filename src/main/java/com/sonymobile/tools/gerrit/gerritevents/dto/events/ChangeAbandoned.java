@@ -25,10 +25,13 @@
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.ABANDONER;
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the change-abandoned Gerrit Event.
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
@@ -90,4 +93,15 @@ public class ChangeAbandoned extends ChangeBasedEvent {
             abandoner = new Account(json.getJSONObject(ABANDONER));
         }
     }
+
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case ABANDONER:
+                abandoner = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
 }
@@ -23,11 +23,13 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.GerritQueryHandler;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.PatchSet;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -141,6 +143,26 @@ public abstract class ChangeBasedEvent extends GerritTriggeredEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case CHANGE:
+                change = new Change(reader);
+                return true;
+            case PATCH_SET:
+                patchSet = new PatchSet(reader);
+                return true;
+            case PATCHSET:
+                PatchSet read = new PatchSet(reader);
+                if (patchSet == null) {
+                    patchSet = read;
+                }
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     //CS IGNORE MagicNumber FOR NEXT 15 LINES. REASON: Semi-autogenerated code.
     @Override
     public int hashCode() {
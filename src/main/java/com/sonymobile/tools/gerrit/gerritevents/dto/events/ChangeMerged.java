@@ -24,15 +24,19 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.RepositoryModifiedEvent;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 
 import net.sf.json.JSONObject;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.SUBMITTER;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NEWREV;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the change-merged Gerrit Event.
  *
@@ -98,6 +102,20 @@ public class ChangeMerged extends ChangeBasedEvent implements RepositoryModified
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case SUBMITTER:
+                account = new Account(reader);
+                return true;
+            case NEWREV:
+                this.newRev = nextString(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     /**
      * Rev of the merge-commit.
      * @return the new Rev
@@ -24,10 +24,13 @@
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.RESTORER;
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the change-restored Gerrit Event.
  */
@@ -89,4 +92,15 @@ public class ChangeRestored extends ChangeBasedEvent {
             this.restorer = new Account(json.getJSONObject(RESTORER));
         }
     }
+
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case RESTORER:
+                this.restorer = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
 }
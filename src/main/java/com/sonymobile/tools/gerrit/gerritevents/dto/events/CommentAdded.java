@@ -23,6 +23,8 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,6 +34,7 @@ import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Approval;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONArray;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.AUTHOR;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.APPROVALS;
@@ -106,6 +109,27 @@ public class CommentAdded extends ChangeBasedEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case COMMENT:
+                comment = nextString(reader);
+                return true;
+            case AUTHOR:
+                account = new Account(reader);
+                return true;
+            case APPROVALS:
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    approvals.add(new Approval(reader));
+                }
+                reader.endArray();
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     @Override
     public int hashCode() {
         int a = 0;
@@ -25,14 +25,18 @@
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getDate;
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextDate;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.EVENTCREATED_ON;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROVIDER;
 import net.sf.json.JSONObject;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonStreamDTO;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
@@ -42,7 +46,7 @@ import java.util.concurrent.TimeUnit;
  *
  * @author David Pursehouse &lt;david.pursehouse@sonyericsson.com&gt;
  */
-public abstract class GerritTriggeredEvent implements GerritJsonEvent {
+public abstract class GerritTriggeredEvent implements GerritJsonEvent, GerritJsonStreamDTO {
 
 
 
@@ -152,4 +156,37 @@ public abstract class GerritTriggeredEvent implements GerritJsonEvent {
             eventCreatedOn = getDate(json, EVENTCREATED_ON);
         }
     }
+
+    @Override
+    public void fromJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!readProperty(reader.nextName(), reader)) {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads the value of a property of the event from a JSON stream.
+     * Subclasses read their own properties and hand the rest to the super class.
+     *
+     * @param name the name of the property.
+     * @param reader the stream, positioned at the value.
+     * @return true if the value was read, false if the property is unknown and the value is left in the stream.
+     * @throws IOException if the JSON is malformed.
+     */
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case PROVIDER:
+                provider = new Provider(reader);
+                return true;
+            case EVENTCREATED_ON:
+                eventCreatedOn = nextDate(reader);
+                return true;
+            default:
+                return false;
+        }
+    }
 }
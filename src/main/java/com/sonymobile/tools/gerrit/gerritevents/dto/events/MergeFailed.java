@@ -24,14 +24,18 @@
 
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REASON;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.SUBMITTER;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the merge-failed Gerrit Event.
  * @author David Pursehouse &lt;david.pursehouse@sonymobile.com&gt;
@@ -69,6 +73,20 @@ public class MergeFailed extends ChangeBasedEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case SUBMITTER:
+                this.submitter = new Account(reader);
+                return true;
+            case REASON:
+                this.reason = nextString(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     /**
      * Get the submitter.
      * @return the submitter.
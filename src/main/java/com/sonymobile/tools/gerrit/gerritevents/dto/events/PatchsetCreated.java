@@ -24,6 +24,7 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.RepositoryModifiedEvent;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
@@ -31,6 +32,8 @@ import net.sf.json.JSONObject;
 
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.UPLOADER;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the patchset-created Gerrit Event.
  *
@@ -61,6 +64,17 @@ public class PatchsetCreated extends ChangeBasedEvent implements RepositoryModif
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case UPLOADER:
+                this.account = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     @Override
     public String toString() {
         return "PatchsetCreated: " + change + " " + patchSet;
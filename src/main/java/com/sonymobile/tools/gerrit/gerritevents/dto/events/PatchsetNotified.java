@@ -23,12 +23,15 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 import net.sf.json.JSONObject;
 
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NOTIFIER;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the patchset-notified Gerrit Event.
  *
@@ -57,6 +60,17 @@ public class PatchsetNotified extends ChangeBasedEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case NOTIFIER:
+                this.account = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     @Override
     public String toString() {
         return "PatchsetNotified: " + change + " " + patchSet;
@@ -23,15 +23,19 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REF;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.STATUS;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.TARGET_NODE;
+import com.google.gson.stream.JsonReader;
 import net.sf.json.JSONObject;
 
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the ref-replicated Gerrit Event.
  *
@@ -84,6 +88,26 @@ public class RefReplicated extends GerritTriggeredEvent {
         super.fromJson(json);
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case PROJECT:
+                project = nextString(reader);
+                return true;
+            case REF:
+                ref = nextString(reader);
+                return true;
+            case STATUS:
+                status = nextString(reader);
+                return true;
+            case TARGET_NODE:
+                targetNode = nextString(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     /**
      * Project name.
      * @return the project
@@ -23,6 +23,7 @@
  */
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.RepositoryModifiedEvent;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
@@ -32,6 +33,8 @@ import net.sf.json.JSONObject;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REFUPDATE;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.SUBMITTER;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the ref-updated Gerrit Event.
  * @author jeblair
@@ -81,6 +84,20 @@ public class RefUpdated extends GerritTriggeredEvent implements RepositoryModifi
             this.account = new Account(json.getJSONObject(SUBMITTER));
         }
     }
+
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case REFUPDATE:
+                refUpdate = new RefUpdate(reader);
+                return true;
+            case SUBMITTER:
+                this.account = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
     //CS IGNORE MagicNumber FOR NEXT 12 LINES. REASON: Semi-autogenerated code.
     @Override
     public int hashCode() {
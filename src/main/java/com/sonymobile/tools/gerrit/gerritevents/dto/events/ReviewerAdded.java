@@ -26,11 +26,14 @@ package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REVIEWER;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 
 import net.sf.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the reviewer-added Gerrit Event.
  * @author David Pursehouse &lt;david.pursehouse@sonymobile.com&gt;
@@ -60,6 +63,17 @@ public class ReviewerAdded extends ChangeBasedEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case REVIEWER:
+                this.reviewer = new Account(reader);
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
     /**
      * Set the reviewer.
      * @param reviewer the reviewer.
@@ -24,9 +24,11 @@
 
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.CHANGER;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.OLD_TOPIC;
 
+import com.google.gson.stream.JsonReader;
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Account;
 
@@ -34,6 +36,8 @@ import com.sonymobile.tools.gerrit.gerritevents.dto.rest.Topic;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.IOException;
+
 /**
  * A DTO representation of the topic-changed Gerrit Event.
  * @author David Pursehouse &lt;david.pursehouse@sonymobile.com&gt;
@@ -138,4 +142,18 @@ public class TopicChanged  extends ChangeBasedEvent {
         }
     }
 
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case CHANGER:
+                this.changer = new Account(reader);
+                return true;
+            case OLD_TOPIC:
+                this.oldTopicObject = new Topic(nextString(reader));
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
+
 }
@@ -1,5 +1,7 @@
 package com.sonymobile.tools.gerrit.gerritevents.dto.events;
 
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,6 +11,7 @@ import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Approval;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONArray;
 
+import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.nextString;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory.getString;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REVIEWER;
 import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.APPROVALS;
@@ -126,4 +129,28 @@ public class VoteDeleted extends ChangeBasedEvent {
             }
         }
     }
+
+    @Override
+    protected boolean readProperty(String name, JsonReader reader) throws IOException {
+        switch (name) {
+            case COMMENT:
+                comment = nextString(reader);
+                return true;
+            case REVIEWER:
+                this.reviewer = new Account(reader);
+                return true;
+            case REMOVER:
+                this.remover = new Account(reader);
+                return true;
+            case APPROVALS:
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    approvals.add(new Approval(reader));
+                }
+                reader.endArray();
+                return true;
+            default:
+                return super.readProperty(name, reader);
+        }
+    }
 }
@@ -0,0 +1,721 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An append-only journal of received stream-events lines, so that lines that were received
+ * but never performed can be replayed after a crash or a shutdown that didn't finish the work.
+ * <p>
+ * Every line gets an offset when it is appended. Once the line has been performed, the offset is acknowledged.
+ * Everything before the lowest offset that hasn't been acknowledged yet is done, that offset is kept in
+ * a small memory mapped file and is where {@link #replay(Replayer)} starts. Offsets that were acknowledged
+ * out of order after it can be replayed again, so a line is performed at least once.
+ * <p>
+ * Appending only copies the record into memory. A committer thread writes what has been appended
+ * and forces it to disk in one go, at most one commit interval later, so the cost of forcing
+ * the file to disk is shared by all lines that arrived in that interval.
+ * <p>
+ * The journal is split into segment files named by the offset of their first record.
+ * A segment is deleted once everything in it has been acknowledged.
+ */
+public class EventJournal implements Closeable {
+
+    /**
+     * The default size at which a new segment file is started.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /**
+     * The default time in milliseconds that appended lines are gathered before they are written to disk.
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL = 10;
+    private static final Logger logger = LoggerFactory.getLogger(EventJournal.class);
+    /**
+     * Commit right away when this many bytes are waiting.
+     */
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+    /**
+     * The number of times a batch is written before the journal gives up.
+     */
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACKNOWLEDGED_FILE = "acknowledged";
+    private static final int LENGTH_SIZE = Integer.SIZE / Byte.SIZE;
+    private static final int LONG_SIZE = Long.SIZE / Byte.SIZE;
+
+    private final File directory;
+    private final long segmentSize;
+    private final long commitInterval;
+    private final Object lock = new Object();
+    private final MappedByteBuffer acknowledgedFile;
+    private final TreeSet<Long> unacknowledged = new TreeSet<Long>();
+    private final TreeMap<Long, File> segments = new TreeMap<Long, File>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final Thread committer;
+    private long endOffset;
+    private long committedOffset;
+    private long acknowledgedOffset;
+    private boolean flushRequested = false;
+    private boolean closed = false;
+    private boolean replayed = false;
+    private final long openedOffset;
+    private IOException failure = null;
+    private FileChannel channel;
+    private long channelStart;
+
+    /**
+     * Opens or creates a journal with the default segment size and commit interval.
+     *
+     * @param directory the directory to keep the files in, it is created if it doesn't exist.
+     * @throws IOException if the files can't be created or read.
+     */
+    public EventJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens or creates a journal.
+     *
+     * @param directory the directory to keep the files in, it is created if it doesn't exist.
+     * @param segmentSize the size in bytes at which a new segment file is started.
+     * @param commitInterval the time in milliseconds that appended lines are gathered before they are written.
+     * @throws IOException if the files can't be created or read.
+     */
+    public EventJournal(File directory, long segmentSize, long commitInterval) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitInterval = Math.max(1, commitInterval);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the journal directory " + directory);
+        }
+        acknowledgedFile = mapAcknowledgedFile(new File(directory, ACKNOWLEDGED_FILE));
+        acknowledgedOffset = acknowledgedFile.getLong(0);
+        listSegments();
+        endOffset = acknowledgedOffset;
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, File> last = segments.lastEntry();
+            endOffset = last.getKey();
+            RecordReader reader = new RecordReader(last.getValue(), last.getKey());
+            try {
+                while (reader.next()) {
+                    endOffset = reader.getEnd();
+                }
+            } finally {
+                reader.close();
+            }
+            truncate(last.getValue(), endOffset - last.getKey());
+        }
+        if (segments.isEmpty() || endOffset < acknowledgedOffset) {
+            endOffset = acknowledgedOffset;
+            File file = segmentFile(endOffset);
+            if (!file.exists() && !file.createNewFile()) {
+                throw new IOException("Could not create the journal segment " + file);
+            }
+            segments.put(endOffset, file);
+        }
+        deleteAcknowledgedSegments();
+        findUnacknowledged();
+        committedOffset = endOffset;
+        openedOffset = endOffset;
+        channelStart = segments.lastKey();
+        channel = new RandomAccessFile(segments.lastEntry().getValue(), "rw").getChannel();
+        channel.position(channel.size());
+        committer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                commitLoop();
+            }
+        }, "Gerrit event journal " + directory.getName());
+        committer.setDaemon(true);
+        committer.start();
+        logger.info("Opened event journal {} with {} unacknowledged records", directory, unacknowledged.size());
+    }
+
+    /**
+     * Appends a record to the journal. The record is written to disk within the commit interval,
+     * use {@link #flush()} to wait for it.
+     *
+     * @param record the record.
+     * @return the offset of the record, to {@link #acknowledge(long)} when it has been performed.
+     * @throws IOException if the journal is closed or has failed to write to disk.
+     */
+    public long append(EventRecord record) throws IOException {
+        byte[] data = record.toBytes();
+        synchronized (lock) {
+            checkUsable();
+            long offset = endOffset;
+            boolean wasEmpty = pending.size() == 0;
+            pendingOut.writeInt(data.length);
+            pendingOut.write(data);
+            endOffset += LENGTH_SIZE + data.length;
+            unacknowledged.add(offset);
+            if (wasEmpty || pending.size() >= MAX_PENDING_BYTES) {
+                lock.notifyAll();
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Marks the record at the offset as performed, so it won't be replayed.
+     *
+     * @param offset the offset returned by {@link #append(EventRecord)}.
+     */
+    public void acknowledge(long offset) {
+        synchronized (lock) {
+            if (!unacknowledged.remove(offset)) {
+                return;
+            }
+            long lowest = endOffset;
+            if (!unacknowledged.isEmpty()) {
+                lowest = unacknowledged.first();
+            }
+            if (lowest > acknowledgedOffset) {
+                acknowledgedOffset = lowest;
+                acknowledgedFile.putLong(0, lowest);
+            }
+        }
+    }
+
+    /**
+     * Waits until everything appended so far has been written to disk.
+     *
+     * @throws IOException if the committer has stopped, the journal has failed to write to disk
+     *                     or the thread is interrupted.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = endOffset;
+            flushRequested = true;
+            lock.notifyAll();
+            while (committedOffset < target) {
+                if (failure != null) {
+                    throw new IOException("The event journal has failed: " + directory, failure);
+                }
+                if (!committer.isAlive()) {
+                    throw new IOException("The event journal committer has stopped: " + directory);
+                }
+                try {
+                    lock.wait(commitInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing the event journal");
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands every record that wasn't acknowledged when the journal was opened to the replayer,
+     * in the order they were appended. The records stay unacknowledged, the replayer acknowledges
+     * each offset once its record has been performed. Records are only replayed once per opened journal,
+     * calling this again does nothing.
+     *
+     * @param replayer the replayer.
+     * @return the number of replayed records.
+     * @throws IOException if the journal can't be read.
+     */
+    public int replay(Replayer replayer) throws IOException {
+        long from;
+        long to = openedOffset;
+        List<Map.Entry<Long, File>> toRead = new ArrayList<Map.Entry<Long, File>>();
+        synchronized (lock) {
+            if (replayed) {
+                return 0;
+            }
+            replayed = true;
+            from = acknowledgedOffset;
+            Long first = segments.floorKey(from);
+            if (first == null) {
+                first = from;
+            }
+            toRead.addAll(segments.tailMap(first, true).entrySet());
+        }
+        int count = 0;
+        for (Map.Entry<Long, File> segment : toRead) {
+            if (segment.getKey() >= to) {
+                break;
+            }
+            RecordReader reader = new RecordReader(segment.getValue(), segment.getKey());
+            try {
+                while (reader.next() && reader.getOffset() < to) {
+                    if (reader.getOffset() >= from && isUnacknowledged(reader.getOffset())) {
+                        replayer.replay(reader.getRecord(), reader.getOffset());
+                        count++;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        logger.info("Replayed {} events from the journal {}", count, directory);
+        return count;
+    }
+
+    /**
+     * Everything before this offset has been acknowledged.
+     *
+     * @return the offset.
+     */
+    public long getAcknowledgedOffset() {
+        synchronized (lock) {
+            return acknowledgedOffset;
+        }
+    }
+
+    /**
+     * The offset the next record will get.
+     *
+     * @return the offset.
+     */
+    public long getEndOffset() {
+        synchronized (lock) {
+            return endOffset;
+        }
+    }
+
+    /**
+     * Everything before this offset has been written to disk.
+     *
+     * @return the offset.
+     */
+    public long getCommittedOffset() {
+        synchronized (lock) {
+            return committedOffset;
+        }
+    }
+
+    /**
+     * The number of records that haven't been acknowledged.
+     *
+     * @return the number of records.
+     */
+    public int getUnacknowledgedCount() {
+        synchronized (lock) {
+            return unacknowledged.size();
+        }
+    }
+
+    /**
+     * If the journal has failed to write to disk and no longer takes records.
+     *
+     * @return true if so.
+     */
+    public boolean isFailed() {
+        synchronized (lock) {
+            return failure != null;
+        }
+    }
+
+    /**
+     * Throws if the journal is closed or has failed. Must be called with the lock held.
+     *
+     * @throws IOException if so.
+     */
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("The event journal has failed: " + directory, failure);
+        }
+        if (closed) {
+            throw new IOException("The event journal is closed: " + directory);
+        }
+    }
+
+    /**
+     * Tells if the record at the offset is still to be acknowledged.
+     *
+     * @param offset the offset.
+     * @return true if so.
+     */
+    private boolean isUnacknowledged(long offset) {
+        synchronized (lock) {
+            return unacknowledged.contains(offset);
+        }
+    }
+
+    /**
+     * Writes what has been appended and closes the journal.
+     * Records that haven't been acknowledged are replayed the next time the journal is opened.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the event journal " + directory, e);
+        }
+        acknowledgedFile.force();
+    }
+
+    /**
+     * The committer thread, writes what has been appended once per commit interval until closed.
+     * A batch that can't be written is tried again a few times, after that the journal is marked as failed
+     * and the committer stops, so that the committed offset never runs ahead of what is in the files.
+     */
+    private void commitLoop() {
+        while (true) {
+            byte[] batch;
+            long batchStart;
+            long batchEnd;
+            synchronized (lock) {
+                try {
+                    while (pending.size() == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (!closed && !flushRequested && pending.size() < MAX_PENDING_BYTES) {
+                        lock.wait(commitInterval);
+                    }
+                } catch (InterruptedException e) {
+                    logger.warn("The event journal committer was interrupted.");
+                    closed = true;
+                }
+                if (pending.size() == 0) {
+                    if (closed) {
+                        lock.notifyAll();
+                        return;
+                    }
+                    continue;
+                }
+                batch = pending.toByteArray();
+                pending.reset();
+                batchStart = committedOffset;
+                batchEnd = endOffset;
+                flushRequested = false;
+            }
+            IOException error = writeWithRetry(batch, batchStart);
+            synchronized (lock) {
+                if (error != null) {
+                    logger.error("Failed to write " + batch.length + " bytes to the event journal " + directory
+                            + ", it takes no more records.", error);
+                    failure = error;
+                    lock.notifyAll();
+                    return;
+                }
+                committedOffset = batchEnd;
+                deleteAcknowledgedSegments();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, trying again a commit interval later if it fails.
+     *
+     * @param batch the records.
+     * @param batchStart the offset of the first record in the batch.
+     * @return null if the batch was written, otherwise the error of the last attempt.
+     */
+    private IOException writeWithRetry(byte[] batch, long batchStart) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                write(batch, batchStart);
+                return null;
+            } catch (IOException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    return e;
+                }
+                logger.warn("Failed to write to the event journal {}, trying again: {}", directory, e.getMessage());
+            }
+            try {
+                Thread.sleep(commitInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new InterruptedIOException("Interrupted while writing the event journal");
+            }
+        }
+    }
+
+    /**
+     * Writes and forces a batch of records to the current segment, or to a new one if the current is full.
+     * Whatever a failed attempt left after the previous batch is cut off first,
+     * so the batch always ends up at the file position of its offset.
+     *
+     * @param batch the records.
+     * @param batchStart the offset of the first record in the batch.
+     * @throws IOException if so.
+     */
+    private void write(byte[] batch, long batchStart) throws IOException {
+        long position = batchStart - channelStart;
+        if (channel.size() > position) {
+            channel.truncate(position);
+        }
+        channel.position(position);
+        if (position > 0 && position + batch.length > segmentSize) {
+            File file = segmentFile(batchStart);
+            FileChannel next = new RandomAccessFile(file, "rw").getChannel();
+            next.truncate(0);
+            channel.force(false);
+            channel.close();
+            channel = next;
+            channelStart = batchStart;
+            synchronized (lock) {
+                segments.put(batchStart, file);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Deletes the segments that only contain acknowledged records. Must be called with the lock held.
+     */
+    private void deleteAcknowledgedSegments() {
+        while (segments.size() > 1) {
+            Long next = segments.higherKey(segments.firstKey());
+            if (next > acknowledgedOffset) {
+                return;
+            }
+            File file = segments.pollFirstEntry().getValue();
+            if (!file.delete()) {
+                logger.warn("Could not delete the journal segment {}", file);
+            }
+        }
+    }
+
+    /**
+     * Adds the offsets of all records after the acknowledged offset to the set of unacknowledged ones.
+     *
+     * @throws IOException if so.
+     */
+    private void findUnacknowledged() throws IOException {
+        for (Map.Entry<Long, File> segment : segments.entrySet()) {
+            RecordReader reader = new RecordReader(segment.getValue(), segment.getKey());
+            try {
+                while (reader.next()) {
+                    if (reader.getOffset() >= acknowledgedOffset) {
+                        unacknowledged.add(reader.getOffset());
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Finds the segment files in the directory.
+     */
+    private void listSegments() {
+        String[] names = directory.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            try {
+                long start = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(start, new File(directory, name));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring unknown file in the journal directory: {}", name);
+            }
+        }
+    }
+
+    /**
+     * The file of the segment starting at the offset.
+     *
+     * @param start the offset.
+     * @return the file.
+     */
+    private File segmentFile(long start) {
+        return new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Cuts off a partly written record at the end of a segment.
+     *
+     * @param file the segment file.
+     * @param length the length of the complete records.
+     * @throws IOException if so.
+     */
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() > length) {
+                logger.warn("Truncating a partly written record at the end of {}", file);
+                raf.setLength(length);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps the file with the acknowledged offset.
+     *
+     * @param file the file.
+     * @return the mapped file.
+     * @throws IOException if so.
+     */
+    private static MappedByteBuffer mapAcknowledgedFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, LONG_SIZE);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads the records of a segment one by one, stopping at a partly written record.
+     */
+    private static final class RecordReader implements Closeable {
+        private final DataInputStream in;
+        private final long fileEnd;
+        private long position;
+        private long offset;
+        private byte[] data;
+
+        /**
+         * Standard constructor.
+         *
+         * @param file the segment file.
+         * @param start the offset of the first record in the file.
+         * @throws IOException if so.
+         */
+        private RecordReader(File file, long start) throws IOException {
+            this.fileEnd = start + file.length();
+            this.position = start;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return false if there are no more complete records.
+         * @throws IOException if so.
+         */
+        boolean next() throws IOException {
+            if (position + LENGTH_SIZE > fileEnd) {
+                return false;
+            }
+            try {
+                int length = in.readInt();
+                if (length < 0 || position + LENGTH_SIZE + length > fileEnd) {
+                    return false;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                data = bytes;
+                offset = position;
+                position += LENGTH_SIZE + length;
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        /**
+         * The offset of the current record.
+         *
+         * @return the offset.
+         */
+        long getOffset() {
+            return offset;
+        }
+
+        /**
+         * The offset after the current record.
+         *
+         * @return the offset.
+         */
+        long getEnd() {
+            return position;
+        }
+
+        /**
+         * The current record.
+         *
+         * @return the record.
+         * @throws IOException if it is corrupt.
+         */
+        EventRecord getRecord() throws IOException {
+            return EventRecord.fromBytes(data);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Takes the records that {@link #replay(Replayer)} reads back.
+     */
+    public interface Replayer {
+
+        /**
+         * Called with each record that wasn't acknowledged.
+         *
+         * @param record the record.
+         * @param offset the offset of the record, to {@link EventJournal#acknowledge(long)} once it has been performed.
+         */
+        void replay(EventRecord record, long offset);
+    }
+}
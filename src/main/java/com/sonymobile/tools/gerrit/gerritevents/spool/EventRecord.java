@@ -0,0 +1,222 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.spool;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A raw stream-events line together with the Gerrit server it came from and when it was received,
+ * in the form it is stored on disk.
+ */
+public final class EventRecord {
+
+    private final String line;
+    private final Provider provider;
+    private final long receivedOn;
+    private final long journalOffset;
+    private final long spoolSequence;
+
+    /**
+     * Standard constructor.
+     *
+     * @param line the line of text from the stream-events stream of events.
+     * @param provider the Gerrit server info, may be null.
+     * @param receivedOn the time the line was received, in milliseconds since the epoch.
+     */
+    public EventRecord(String line, Provider provider, long receivedOn) {
+        this(line, provider, receivedOn, -1);
+    }
+
+    /**
+     * Constructor for a line that has been written to an {@link EventJournal}.
+     *
+     * @param line the line of text from the stream-events stream of events.
+     * @param provider the Gerrit server info, may be null.
+     * @param receivedOn the time the line was received, in milliseconds since the epoch.
+     * @param journalOffset the offset of the line in the journal, or -1 if it isn't journaled.
+     */
+    public EventRecord(String line, Provider provider, long receivedOn, long journalOffset) {
+        this(line, provider, receivedOn, journalOffset, -1);
+    }
+
+    /**
+     * Constructor for a record that has been polled from an {@link EventSpool}.
+     *
+     * @param line the line of text from the stream-events stream of events.
+     * @param provider the Gerrit server info, may be null.
+     * @param receivedOn the time the line was received, in milliseconds since the epoch.
+     * @param journalOffset the offset of the line in the journal, or -1 if it isn't journaled.
+     * @param spoolSequence the number the spool gave the record when it was polled, or -1.
+     */
+    private EventRecord(String line, Provider provider, long receivedOn, long journalOffset, long spoolSequence) {
+        this.line = line;
+        this.provider = provider;
+        this.receivedOn = receivedOn;
+        this.journalOffset = journalOffset;
+        this.spoolSequence = spoolSequence;
+    }
+
+    /**
+     * The line of text from the stream-events stream of events.
+     *
+     * @return the line.
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * The Gerrit server the line came from.
+     *
+     * @return the provider, or null.
+     */
+    public Provider getProvider() {
+        return provider;
+    }
+
+    /**
+     * The time the line was received.
+     *
+     * @return milliseconds since the epoch.
+     */
+    public long getReceivedOn() {
+        return receivedOn;
+    }
+
+    /**
+     * The offset of the line in the {@link EventJournal}, to acknowledge once it has been performed.
+     *
+     * @return the offset, or -1 if the line isn't journaled.
+     */
+    public long getJournalOffset() {
+        return journalOffset;
+    }
+
+    /**
+     * The number the {@link EventSpool} gave the record when it was polled, to acknowledge it by.
+     *
+     * @return the number, or -1 if the record wasn't polled from a spool.
+     */
+    long getSpoolSequence() {
+        return spoolSequence;
+    }
+
+    /**
+     * A copy of the record as polled from a spool.
+     *
+     * @param sequence the number the spool gave the record.
+     * @return the copy.
+     */
+    EventRecord polled(long sequence) {
+        return new EventRecord(line, provider, receivedOn, journalOffset, sequence);
+    }
+
+    /**
+     * Serializes the record.
+     *
+     * @return the bytes.
+     */
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(line.length() + Long.SIZE);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(receivedOn);
+            out.writeLong(journalOffset);
+            out.writeBoolean(provider != null);
+            if (provider != null) {
+                writeString(out, provider.getName());
+                writeString(out, provider.getHost());
+                writeString(out, provider.getPort());
+                writeString(out, provider.getScheme());
+                writeString(out, provider.getUrl());
+                writeString(out, provider.getVersion());
+            }
+            writeString(out, line);
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to memory", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a record.
+     *
+     * @param data the bytes from {@link #toBytes()}.
+     * @return the record.
+     * @throws IOException if the data is corrupt.
+     */
+    static EventRecord fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        long receivedOn = in.readLong();
+        long journalOffset = in.readLong();
+        Provider provider = null;
+        if (in.readBoolean()) {
+            provider = new Provider(readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in));
+        }
+        return new EventRecord(readString(in), provider, receivedOn, journalOffset);
+    }
+
+    /**
+     * Writes a string that may be null.
+     *
+     * @param out the output.
+     * @param str the string.
+     * @throws IOException if so.
+     */
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in the input.
+     * @return the string or null.
+     * @throws IOException if so.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
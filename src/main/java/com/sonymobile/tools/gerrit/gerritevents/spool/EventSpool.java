@@ -0,0 +1,463 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A first in first out queue of {@link EventRecord}s kept on disk.
+ * <p>
+ * Records are appended to memory mapped segment files of a fixed size. When a segment is full a new one is started,
+ * and a segment is deleted once every record in it has been polled and acknowledged. The position of the first
+ * record that hasn't been acknowledged is kept in a small memory mapped file of its own, so a spool that is opened
+ * again after a restart continues with the records that were not done with, even if they had been polled.
+ * Since the files are memory mapped, what has been written survives the process dying;
+ * {@link #force()} also makes it survive the machine going down.
+ * <p>
+ * Each record is stored as its length followed by its bytes. A length is only written after the bytes of
+ * the record, so a record that was half written when the process died is never read.
+ */
+public class EventSpool implements Closeable {
+
+    /**
+     * The default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final Logger logger = LoggerFactory.getLogger(EventSpool.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String POSITION_FILE = "position";
+    private static final int LENGTH_SIZE = Integer.SIZE / Byte.SIZE;
+    private static final int LONG_SIZE = Long.SIZE / Byte.SIZE;
+    private static final int POSITION_SEGMENT = 0;
+    private static final int POSITION_OFFSET = LONG_SIZE;
+
+    private final File directory;
+    private final int segmentSize;
+    private final MappedByteBuffer position;
+    private final TreeSet<Long> segments = new TreeSet<Long>();
+    private final TreeMap<Long, Polled> polled = new TreeMap<Long, Polled>();
+    private long nextSequence = 0;
+    private int unacknowledged = 0;
+    private long savedSegment;
+    private int savedOffset;
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writeOffset;
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readOffset;
+    private long size;
+    private boolean closed = false;
+
+    /**
+     * Opens or creates a spool with the default segment size.
+     *
+     * @param directory the directory to keep the files in, it is created if it doesn't exist.
+     * @throws IOException if the files can't be created or read.
+     */
+    public EventSpool(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens or creates a spool.
+     * Records that are too large for a segment get a segment of their own.
+     *
+     * @param directory the directory to keep the files in, it is created if it doesn't exist.
+     * @param segmentSize the size of new segment files in bytes.
+     * @throws IOException if the files can't be created or read.
+     */
+    public EventSpool(File directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(LENGTH_SIZE, segmentSize);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the spool directory " + directory);
+        }
+        position = map(new File(directory, POSITION_FILE), POSITION_OFFSET + LONG_SIZE);
+        readSegment = position.getLong(POSITION_SEGMENT);
+        readOffset = (int)position.getLong(POSITION_OFFSET);
+        savedSegment = readSegment;
+        savedOffset = readOffset;
+        for (Long segment : listSegments()) {
+            if (segment < readSegment) {
+                deleteSegment(segment);
+            } else {
+                segments.add(segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            writeSegment = readSegment;
+            writeBuffer = map(segmentFile(writeSegment), this.segmentSize);
+            segments.add(writeSegment);
+            readOffset = 0;
+            savePosition(readSegment, readOffset);
+        } else {
+            writeSegment = segments.last();
+            writeBuffer = map(segmentFile(writeSegment), 0);
+        }
+        if (segments.first() != readSegment) {
+            readSegment = segments.first();
+            readOffset = 0;
+            savePosition(readSegment, readOffset);
+        }
+        readBuffer = mapForRead(readSegment);
+        size = 0;
+        for (Long segment : segments) {
+            int offset = 0;
+            MappedByteBuffer buffer = mapForRead(segment);
+            if (segment == readSegment) {
+                offset = readOffset;
+            }
+            while (recordLength(buffer, offset) > 0) {
+                offset += LENGTH_SIZE + recordLength(buffer, offset);
+                size++;
+            }
+            if (segment == writeSegment) {
+                writeOffset = offset;
+            }
+        }
+        logger.info("Opened event spool {} with {} records", directory, size);
+    }
+
+    /**
+     * Appends a record to the end of the spool.
+     *
+     * @param record the record.
+     * @throws IOException if a new segment can't be created or the spool is closed.
+     */
+    public synchronized void append(EventRecord record) throws IOException {
+        checkOpen();
+        byte[] data = record.toBytes();
+        int needed = LENGTH_SIZE + data.length;
+        if (writeBuffer.capacity() - writeOffset < needed) {
+            writeSegment++;
+            writeBuffer = map(segmentFile(writeSegment), Math.max(segmentSize, needed));
+            writeOffset = 0;
+            segments.add(writeSegment);
+        }
+        ByteBuffer buffer = writeBuffer.duplicate();
+        buffer.position(writeOffset + LENGTH_SIZE);
+        buffer.put(data);
+        writeBuffer.putInt(writeOffset, data.length);
+        writeOffset += needed;
+        size++;
+    }
+
+    /**
+     * Takes the first record from the spool.
+     * The record stays in the files until it is {@link #acknowledge(EventRecord) acknowledged},
+     * so a spool that is opened again before that gives it out again.
+     *
+     * @return the record, or null if the spool is empty.
+     * @throws IOException if the record can't be read or the spool is closed.
+     */
+    public synchronized EventRecord poll() throws IOException {
+        checkOpen();
+        while (size > 0) {
+            int length = recordLength(readBuffer, readOffset);
+            if (length > 0) {
+                byte[] data = new byte[length];
+                ByteBuffer buffer = readBuffer.duplicate();
+                buffer.position(readOffset + LENGTH_SIZE);
+                buffer.get(data);
+                EventRecord record = EventRecord.fromBytes(data).polled(nextSequence);
+                polled.put(nextSequence, new Polled(readSegment, readOffset));
+                nextSequence++;
+                unacknowledged++;
+                readOffset += LENGTH_SIZE + length;
+                size--;
+                return record;
+            } else if (readSegment == writeSegment) {
+                throw new IOException("The spool is corrupt, " + size + " records are missing");
+            }
+            readSegment = segments.higher(readSegment);
+            readOffset = 0;
+            readBuffer = mapForRead(readSegment);
+            saveAcknowledged();
+        }
+        return null;
+    }
+
+    /**
+     * Marks a polled record as done with, so it isn't given out again after a restart.
+     * Records can be acknowledged in any order, the stored position moves past a record
+     * once it and every record polled before it have been acknowledged.
+     *
+     * @param record the record from {@link #poll()}.
+     */
+    public synchronized void acknowledge(EventRecord record) {
+        Polled entry = polled.get(record.getSpoolSequence());
+        if (closed || entry == null || entry.done) {
+            return;
+        }
+        entry.done = true;
+        unacknowledged--;
+        while (!polled.isEmpty() && polled.firstEntry().getValue().done) {
+            polled.pollFirstEntry();
+        }
+        saveAcknowledged();
+    }
+
+    /**
+     * The number of records that have been polled but not acknowledged.
+     *
+     * @return the number of records.
+     */
+    public synchronized int getUnacknowledgedCount() {
+        return unacknowledged;
+    }
+
+    /**
+     * The number of records in the spool.
+     *
+     * @return the number of records.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * If there are no records in the spool.
+     *
+     * @return true if so.
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The directory the spool is kept in.
+     *
+     * @return the directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes everything to the storage device, so that it survives the machine going down.
+     */
+    public synchronized void force() {
+        if (!closed) {
+            writeBuffer.force();
+            position.force();
+        }
+    }
+
+    /**
+     * Forces everything to disk and closes the spool, records that haven't been polled stay in the files.
+     */
+    @Override
+    public synchronized void close() {
+        force();
+        closed = true;
+    }
+
+    /**
+     * Throws if the spool has been closed.
+     *
+     * @throws IOException if so.
+     */
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The event spool is closed: " + directory);
+        }
+    }
+
+    /**
+     * Stores the position of the first record that hasn't been acknowledged,
+     * which is the read position if every polled record has been, and deletes the segments before it.
+     */
+    private void saveAcknowledged() {
+        long segment = readSegment;
+        int offset = readOffset;
+        if (!polled.isEmpty()) {
+            Polled first = polled.firstEntry().getValue();
+            segment = first.segment;
+            offset = first.offset;
+        }
+        if (segment == savedSegment && offset == savedOffset) {
+            return;
+        }
+        savePosition(segment, offset);
+        while (segments.first() < segment) {
+            deleteSegment(segments.pollFirst());
+        }
+    }
+
+    /**
+     * Stores the position that a spool opened again starts reading from.
+     * The offset is reset before the segment is changed, so dying in between means reading
+     * records again rather than skipping them.
+     *
+     * @param segment the segment number.
+     * @param offset the offset in the segment.
+     */
+    private void savePosition(long segment, int offset) {
+        if (segment != savedSegment) {
+            position.putLong(POSITION_OFFSET, 0);
+            position.putLong(POSITION_SEGMENT, segment);
+        }
+        position.putLong(POSITION_OFFSET, offset);
+        savedSegment = segment;
+        savedOffset = offset;
+    }
+
+    /**
+     * The length of the record at the offset.
+     *
+     * @param buffer the segment.
+     * @param offset the offset.
+     * @return the length, or 0 if there is no record there.
+     */
+    private static int recordLength(ByteBuffer buffer, int offset) {
+        if (offset + LENGTH_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(offset);
+        if (length < 0 || offset + LENGTH_SIZE + length > buffer.capacity()) {
+            return 0;
+        }
+        return length;
+    }
+
+    /**
+     * Maps a segment for reading, the segment being written to is shared with the writer.
+     *
+     * @param segment the segment number.
+     * @return the mapped segment.
+     * @throws IOException if so.
+     */
+    private MappedByteBuffer mapForRead(long segment) throws IOException {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        return map(segmentFile(segment), 0);
+    }
+
+    /**
+     * The file of a segment.
+     *
+     * @param segment the segment number.
+     * @return the file.
+     */
+    private File segmentFile(long segment) {
+        return new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Deletes the file of a segment.
+     *
+     * @param segment the segment number.
+     */
+    private void deleteSegment(long segment) {
+        File file = segmentFile(segment);
+        if (!file.delete()) {
+            logger.warn("Could not delete the spool segment {}, it will be deleted the next time.", file);
+        }
+    }
+
+    /**
+     * The numbers of the segments in the directory, in order.
+     *
+     * @return the segment numbers.
+     */
+    private List<Long> listSegments() {
+        List<Long> list = new ArrayList<Long>();
+        String[] names = directory.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (names != null) {
+            for (String name : names) {
+                try {
+                    list.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unknown file in the spool directory: {}", name);
+                }
+            }
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * Maps a file into memory, creating it with the given size if it's smaller.
+     *
+     * @param file the file.
+     * @param minSize the minimum size of the file, 0 to map the file as it is.
+     * @return the mapped file.
+     * @throws IOException if so.
+     */
+    private static MappedByteBuffer map(File file, int minSize) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() < minSize) {
+                raf.setLength(minSize);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Where a polled record is stored, and if it has been acknowledged.
+     */
+    private static final class Polled {
+        private final long segment;
+        private final int offset;
+        private boolean done = false;
+
+        /**
+         * Standard constructor.
+         *
+         * @param segment the segment number.
+         * @param offset the offset of the record in the segment.
+         */
+        private Polled(long segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+}
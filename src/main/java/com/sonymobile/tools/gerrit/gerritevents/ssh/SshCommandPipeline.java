@@ -0,0 +1,244 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several commands on one connection with their exec channels open at the same time.
+ * <p>
+ * Up to a window of commands are started before the output of the first one is read, so the server works on
+ * them in parallel while the calling thread drains their output, and checks their exit status, as they finish.
+ * A slow command doesn't hold up the results of the quicker ones started after it.
+ * Meant for commands with little output like {@code gerrit review}, since JSch buffers the output
+ * of the channels not being read yet.
+ */
+public final class SshCommandPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(SshCommandPipeline.class);
+    /**
+     * How often the running commands are looked at while waiting for one to finish [msec]
+     */
+    private static final long CLOSURE_CHECK_INTERVAL = 100;
+
+    /**
+     * Default hidden constructor.
+     */
+    private SshCommandPipeline() {
+    }
+
+    /**
+     * Runs the commands on the connection.
+     * The window must not be larger than the max number of channels of the connection,
+     * see {@link SshConnectionImpl#getMaxChannels()}.
+     *
+     * @param connection the connected connection.
+     * @param commands the commands to run.
+     * @param window the max number of commands running at the same time.
+     * @return the output of each command, in the same order, all completed by the time this returns.
+     * @see #execute(SshConnection, List, List, int)
+     */
+    public static List<CompletableFuture<String>> execute(SshConnection connection, List<String> commands,
+                                                          int window) {
+        List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            results.add(new CompletableFuture<String>());
+        }
+        execute(connection, commands, results, window);
+        return results;
+    }
+
+    /**
+     * Runs the commands on the connection, completing the result of each command as soon as that command
+     * is done, so a caller waiting for one command doesn't wait for the slower ones after it.
+     * The window must not be larger than the max number of channels of the connection,
+     * see {@link SshConnectionImpl#getMaxChannels()}.
+     *
+     * @param connection the connected connection.
+     * @param commands the commands to run.
+     * @param results where the output of each command goes, in the same order as the commands.
+     * @param window the max number of commands running at the same time.
+     */
+    public static void execute(SshConnection connection, List<String> commands,
+                               List<? extends CompletableFuture<String>> results, int window) {
+        if (results.size() != commands.size()) {
+            throw new IllegalArgumentException("One result per command is needed: "
+                    + results.size() + " != " + commands.size());
+        }
+        int size = Math.max(1, window);
+        Deque<Running> running = new ArrayDeque<Running>(size);
+        Semaphore closures = new Semaphore(0);
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                CompletableFuture<String> result = results.get(i);
+                if (running.size() >= size) {
+                    finishNext(running, closures);
+                }
+                try {
+                    running.addLast(start(connection, commands.get(i), result, closures));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+            while (!running.isEmpty()) {
+                finishNext(running, closures);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Pipelined commands failed", e);
+            for (CompletableFuture<String> result : results) {
+                result.completeExceptionally(e);
+            }
+            for (Running r : running) {
+                r.channel.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Waits for one of the running commands to finish, and completes its result.
+     * If the thread is interrupted it stops waiting and reads the oldest command to the end instead.
+     *
+     * @param running the running commands.
+     * @param closures released each time the channel of a running command closes.
+     */
+    private static void finishNext(Deque<Running> running, Semaphore closures) {
+        try {
+            while (true) {
+                Iterator<Running> it = running.iterator();
+                while (it.hasNext()) {
+                    Running r = it.next();
+                    if (r.isClosed()) {
+                        it.remove();
+                        r.finish();
+                        return;
+                    }
+                }
+                closures.tryAcquire(CLOSURE_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.removeFirst().finish();
+        }
+    }
+
+    /**
+     * Opens a channel for the command and starts it.
+     *
+     * @param connection the connection.
+     * @param command the command.
+     * @param result where the output of the command goes.
+     * @param closures to release when the channel closes.
+     * @return the running command.
+     * @throws IOException if the channel can't be opened.
+     */
+    private static Running start(SshConnection connection, String command, CompletableFuture<String> result,
+                                 final Semaphore closures) throws IOException {
+        ChannelExec channel = connection.executeCommandChannel(command, false);
+        try {
+            SshConnectionImpl.ClosureSignallingStream errOut = new SshConnectionImpl.ClosureSignallingStream() {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    closures.release();
+                }
+            };
+            channel.setExtOutputStream(errOut);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(channel.getInputStream()));
+            channel.connect();
+            logger.trace("Started {}", command);
+            return new Running(channel, reader, errOut, result);
+        } catch (JSchException e) {
+            channel.disconnect();
+            throw new SshException(e);
+        } catch (IOException e) {
+            channel.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * A command that has been started and whose output is not read yet.
+     */
+    private static final class Running {
+        private final ChannelExec channel;
+        private final BufferedReader reader;
+        private final SshConnectionImpl.ClosureSignallingStream errOut;
+        private final CompletableFuture<String> result;
+
+        /**
+         * Standard constructor.
+         *
+         * @param channel the channel of the command.
+         * @param reader the reader of the standard output of the channel.
+         * @param errOut the extended output stream of the channel.
+         * @param result where the output of the command goes.
+         */
+        private Running(ChannelExec channel, BufferedReader reader,
+                        SshConnectionImpl.ClosureSignallingStream errOut, CompletableFuture<String> result) {
+            this.channel = channel;
+            this.reader = reader;
+            this.errOut = errOut;
+            this.result = result;
+        }
+
+        /**
+         * If the command is done, the server has closed its channel.
+         *
+         * @return true if so.
+         */
+        private boolean isClosed() {
+            return errOut.isClosed() || channel.isClosed();
+        }
+
+        /**
+         * Reads the output of the command, completes its result and closes the channel.
+         */
+        private void finish() {
+            try {
+                result.complete(SshConnectionImpl.readCommandOutput(channel, reader, errOut));
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            } finally {
+                channel.disconnect();
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ package com.sonymobile.tools.gerrit.gerritevents.ssh;
 import com.sonymobile.tools.gerrit.gerritevents.GerritDefaultValues;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory class for {@link SshConnection}s.
@@ -35,6 +36,25 @@ import java.io.IOException;
  */
 public abstract class SshConnectionFactory {
 
+    /**
+     * If send-command jobs should use pooled sessions by default.
+     *
+     * @see #getPooledConnection(String, int, String, Authentication)
+     */
+    private static final boolean POOLED = Boolean.getBoolean("gerritevents.SshConnectionFactory.POOLED");
+    /**
+     * The max number of idle sessions pooled per host, port, user and proxy.
+     */
+    private static final int POOL_MAX_IDLE =
+            Integer.getInteger("gerritevents.SshConnectionFactory.POOL_MAX_IDLE", 4);
+    /**
+     * How many milliseconds a pooled session may stay idle before it is closed.
+     */
+    private static final long POOL_IDLE_TIMEOUT =
+            Long.getLong("gerritevents.SshConnectionFactory.POOL_IDLE_TIMEOUT", TimeUnit.MINUTES.toMillis(5));
+    private static volatile boolean pooling = POOLED;
+    private static SshSessionPool pool = null;
+
     /**
      * Private constructor to hinder instantiation.
      */
@@ -140,4 +160,62 @@ public abstract class SshConnectionFactory {
         connection.connect();
         return connection;
     }
+
+    /**
+     * Lends out a connected session from the pool, or connects a new one.
+     * Disconnecting the returned connection gives the session back to the pool instead of closing it,
+     * so it is meant for short commands and not for streams that stay open.
+     *
+     * @param host           the host name
+     * @param port           the port
+     * @param proxy          the proxy url
+     * @param authentication the credentials
+     * @return a pooled connection.
+     *
+     * @throws IOException if so.
+     * @see SshSessionPool
+     */
+    public static SshConnection getPooledConnection(String host, int port, String proxy,
+                                                    Authentication authentication) throws IOException {
+        return getSessionPool().borrow(host, port, proxy, authentication);
+    }
+
+    /**
+     * The pool of sessions, created the first time it is needed.
+     *
+     * @return the pool.
+     */
+    public static synchronized SshSessionPool getSessionPool() {
+        if (pool == null) {
+            pool = new SshSessionPool(POOL_MAX_IDLE, POOL_IDLE_TIMEOUT);
+        }
+        return pool;
+    }
+
+    /**
+     * If send-command jobs use pooled sessions.
+     *
+     * @return true if so.
+     */
+    public static boolean isPooling() {
+        return pooling;
+    }
+
+    /**
+     * Turns the use of pooled sessions by send-command jobs on or off.
+     * Turning it off closes the pooled sessions.
+     *
+     * @param pooled true to reuse sessions.
+     */
+    public static void setPooling(boolean pooled) {
+        pooling = pooled;
+        if (!pooled) {
+            synchronized (SshConnectionFactory.class) {
+                if (pool != null) {
+                    pool.close();
+                    pool = null;
+                }
+            }
+        }
+    }
 }
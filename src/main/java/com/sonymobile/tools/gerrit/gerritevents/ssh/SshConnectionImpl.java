@@ -31,6 +31,12 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.MalformedURLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +55,10 @@ import com.sonymobile.tools.gerrit.gerritevents.GerritDefaultValues;
 
 /**
  * A simple ssh client connection with private key.
+ * <p>
+ * Only the session lifecycle, {@link #connect()} and {@link #disconnect()}, is serialized.
+ * Commands may be executed from several threads at once, each on its own exec channel
+ * of the shared session, up to {@link #getMaxChannels()} channels at a time.
  *
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
  */
@@ -60,13 +70,13 @@ public class SshConnectionImpl implements SshConnection {
      */
     private static final int ALIVE_INTERVAL = 30 * 1000;
     /**
-     * Time to wait for the channel to close [msec]
+     * Max time to wait for the channel to close [msec]
      */
     private static final int CLOSURE_WAIT_TIMEOUT = 200;
     /**
-     * Time to check for channel to close [msec]
+     * How often a thread waiting for a free channel looks for channels that have been closed [msec]
      */
-    private static final int CLOSURE_WAIT_INTERVAL = 50;
+    private static final int CHANNEL_CHECK_INTERVAL = 100;
     /**
      * SSH Command to open an "exec channel".
      */
@@ -75,8 +85,21 @@ public class SshConnectionImpl implements SshConnection {
      * The str length of "://" used for proxy parsing.
      */
     protected static final int PROTO_HOST_DELIM_LENGTH = 3;
-    private JSch client;
-    private Session connectSession;
+    /**
+     * The default max number of channels open at the same time on one session.
+     * Should match the per session limit of the server, 10 is the OpenSSH and MINA default.
+     */
+    public static final int MAX_CHANNELS_PER_SESSION =
+            Integer.getInteger("gerritevents.SshConnectionImpl.MAX_CHANNELS_PER_SESSION", 10);
+    /**
+     * Set on the clients shared through the {@link SshIdentityCache}, so the same instance every time.
+     */
+    private static final HostKeyRepository BLIND_HOST_KEY_REPOSITORY = new BlindHostKeyRepository();
+    private volatile JSch client;
+    private volatile Session connectSession;
+    private volatile int maxChannels = MAX_CHANNELS_PER_SESSION;
+    private volatile Semaphore channelPermits = new Semaphore(maxChannels, true);
+    private final Map<Channel, Semaphore> openChannels = new ConcurrentHashMap<Channel, Semaphore>();
     private String host;
     private int port;
     private String proxy;
@@ -163,15 +186,9 @@ public class SshConnectionImpl implements SshConnection {
             }
         }
         try {
-            client = new JSch();
-            if (auth.getPrivateKeyPhrase() == null) {
-                client.addIdentity(auth.getPrivateKeyFile().getAbsolutePath(),
-                        auth.getPrivateKeyFilePassword());
-            } else {
-                client.addIdentity(auth.getUsername(), auth.getPrivateKeyPhrase(), null,
-                        auth.getPrivateKeyFilePassword().getBytes("UTF-8"));
-            }
-            client.setHostKeyRepository(new BlindHostKeyRepository());
+            client = SshIdentityCache.getDefault().getClient(auth);
+            client.setHostKeyRepository(BLIND_HOST_KEY_REPOSITORY);
+            resetChannels();
             connectSession = client.getSession(auth.getUsername(), host, port);
             connectSession.setConfig("PreferredAuthentications", "publickey");
             if (proxy != null && !proxy.isEmpty()) {
@@ -207,7 +224,7 @@ public class SshConnectionImpl implements SshConnection {
         * @return true if it is so.
         */
     @Override
-    public synchronized boolean isConnected() {
+    public boolean isConnected() {
         //Cannot distinguish connected or authenticated with the "new" API
         return isAuthenticated();
     }
@@ -218,8 +235,149 @@ public class SshConnectionImpl implements SshConnection {
         * @return true if it is so.
         */
     @Override
-    public synchronized boolean isAuthenticated() {
-        return client != null && connectSession != null && connectSession.isConnected();
+    public boolean isAuthenticated() {
+        return getConnectedSession() != null;
+    }
+
+    /**
+     * The current session if it is connected.
+     * Read once per command so that a concurrent {@link #disconnect()} can't swap it underneath.
+     *
+     * @return the session or null if not connected.
+     */
+    private Session getConnectedSession() {
+        Session session = connectSession;
+        if (client == null || session == null || !session.isConnected()) {
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * The max number of channels that can be open at the same time on the session.
+     *
+     * @return the max number of channels.
+     */
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    /**
+     * Sets the max number of channels that can be open at the same time on the session.
+     * Set it to the per session limit of the server.
+     * Channels already open keep counting against the previous limit until they are closed.
+     *
+     * @param channels the max number of channels, at least one.
+     * @return this instance for convenience.
+     * @see #MAX_CHANNELS_PER_SESSION
+     */
+    public synchronized SshConnectionImpl setMaxChannels(int channels) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("The max number of channels must be at least 1: " + channels);
+        }
+        this.maxChannels = channels;
+        this.channelPermits = new Semaphore(channels, true);
+        return this;
+    }
+
+    /**
+     * The number of channels currently open on the session.
+     *
+     * @return the number of channels.
+     */
+    public int getActiveChannelCount() {
+        releaseClosedChannels();
+        return maxChannels - channelPermits.availablePermits();
+    }
+
+    /**
+     * Forgets all channels of the previous session since they went away together with it.
+     */
+    private void resetChannels() {
+        openChannels.clear();
+        channelPermits = new Semaphore(maxChannels, true);
+    }
+
+    /**
+     * Gives back the permits of channels handed out to the caller that have been closed since.
+     */
+    private void releaseClosedChannels() {
+        Iterator<Map.Entry<Channel, Semaphore>> it = openChannels.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Channel, Semaphore> entry = it.next();
+            if (entry.getKey().isClosed()) {
+                it.remove();
+                entry.getValue().release();
+            }
+        }
+    }
+
+    /**
+     * Waits for a free channel on the session.
+     * Waits at most the connection timeout, or indefinitely if there is none.
+     * Channels handed out to callers don't say when they close, so while waiting the closed ones are looked for
+     * every {@link #CHANNEL_CHECK_INTERVAL} ms and their permits given back.
+     *
+     * @return the semaphore the permit was taken from, to release it to.
+     * @throws SshException if no channel became free in time or the thread was interrupted.
+     */
+    private Semaphore acquireChannel() throws SshException {
+        long deadline = System.currentTimeMillis() + connectionTimeout;
+        try {
+            while (true) {
+                releaseClosedChannels();
+                Semaphore permits = channelPermits;
+                long wait = CHANNEL_CHECK_INTERVAL;
+                if (connectionTimeout > 0) {
+                    wait = Math.max(0, Math.min(wait, deadline - System.currentTimeMillis()));
+                }
+                if (permits.tryAcquire(wait, TimeUnit.MILLISECONDS)) {
+                    return permits;
+                }
+                if (connectionTimeout > 0 && System.currentTimeMillis() >= deadline) {
+                    throw new SshException("No free channel on the session within "
+                            + connectionTimeout + " ms (max " + maxChannels + ")");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SshException("Interrupted while waiting for a free channel", e);
+        }
+    }
+
+    /**
+     * Opens an exec channel on the session, counting it against the channel limit
+     * until it is closed.
+     *
+     * @param session the session to open the channel on.
+     * @param command the command to execute.
+     * @return the channel.
+     * @throws SshException if no channel is available.
+     */
+    private ChannelExec openTrackedChannel(Session session, String command) throws SshException {
+        Semaphore permits = acquireChannel();
+        try {
+            ChannelExec channel = (ChannelExec)session.openChannel(CMD_EXEC);
+            channel.setCommand(command);
+            openChannels.put(channel, permits);
+            return channel;
+        } catch (JSchException ex) {
+            permits.release();
+            throw new SshException(ex);
+        }
+    }
+
+    /**
+     * Disconnects a channel that never made it to the caller and gives back its permit.
+     *
+     * @param channel the channel.
+     */
+    private void abandonChannel(Channel channel) {
+        channel.disconnect();
+        Semaphore permits = openChannels.remove(channel);
+        if (permits != null) {
+            permits.release();
+        }
     }
 
     /**
@@ -231,52 +389,27 @@ public class SshConnectionImpl implements SshConnection {
          * @throws SshException if so.
          */
     @Override
-    public synchronized String executeCommand(String command) throws SshException {
-        if (!isConnected()) {
+    public String executeCommand(String command) throws SshException {
+        Session session = getConnectedSession();
+        if (session == null) {
             throw new IllegalStateException("Not connected!");
         }
 
+        Semaphore permits = acquireChannel();
         Channel channel = null;
         try {
             logger.debug("Opening channel");
-            channel = connectSession.openChannel(CMD_EXEC);
+            channel = session.openChannel(CMD_EXEC);
             ((ChannelExec)channel).setCommand(command);
 
-            ByteArrayOutputStream errOut = new ByteArrayOutputStream();
+            ClosureSignallingStream errOut = new ClosureSignallingStream();
             channel.setExtOutputStream(errOut);
 
             BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(channel.getInputStream()));
             logger.debug("connecting channel.");
             channel.connect();
 
-            // Seems like Gerrit does not like when you disconnect directly after the command has been sent.
-            // For instance, we have seen effects of mails not being sent out. This is the reason for
-            // receiving all the incoming data.
-            String incomingLine = null;
-            StringBuilder commandOutput = new StringBuilder();
-            while ((incomingLine = bufferedReader.readLine()) != null) {
-                commandOutput.append(incomingLine);
-                commandOutput.append('\n');
-                logger.trace("Incoming line: {}", incomingLine);
-            }
-            logger.trace("Closing reader.");
-            bufferedReader.close();
-
-            // Exit code is only available if channel is closed, so wait a bit for it.
-            // Channel.disconnect(), however, must not have been called yet.
-            // See http://stackoverflow.com/questions/3154940/jsch-error-return-codes-not-consistent.
-            waitForChannelClosure(channel, CLOSURE_WAIT_TIMEOUT);
-            int exitCode = channel.getExitStatus();
-            if (exitCode > 0) {
-               String error = errOut.toString();
-               if (error != null && error.trim().length() > 0) {
-                   throw new SshException(error.trim() + " (" + String.valueOf(exitCode) + ")");
-               } else {
-                   throw new SshException(String.valueOf(exitCode));
-               }
-            }
-
-            return commandOutput.toString();
+            return readCommandOutput(channel, bufferedReader, errOut);
         } catch (SshException ex) {
             throw ex;
         } catch (JSchException ex) {
@@ -288,30 +421,79 @@ public class SshConnectionImpl implements SshConnection {
                 logger.trace("disconnecting channel.");
                 channel.disconnect();
             }
+            permits.release();
+        }
+    }
+
+    //CS IGNORE RedundantThrows FOR NEXT 16 LINES. REASON: Informative.
+
+    /**
+     * Reads all output of a connected exec channel and checks its exit status once the channel has closed.
+     * The channel is left for the caller to disconnect.
+     *
+     * @param channel the channel.
+     * @param bufferedReader the reader of the standard output of the channel.
+     * @param errOut the extended output stream of the channel.
+     * @return the output of the command.
+     * @throws SshException if the command exits with an error.
+     * @throws IOException if the output can't be read.
+     */
+    static String readCommandOutput(Channel channel, BufferedReader bufferedReader, ClosureSignallingStream errOut)
+            throws SshException, IOException {
+        // Seems like Gerrit does not like when you disconnect directly after the command has been sent.
+        // For instance, we have seen effects of mails not being sent out. This is the reason for
+        // receiving all the incoming data.
+        String incomingLine = null;
+        StringBuilder commandOutput = new StringBuilder();
+        while ((incomingLine = bufferedReader.readLine()) != null) {
+            commandOutput.append(incomingLine);
+            commandOutput.append('\n');
+            logger.trace("Incoming line: {}", incomingLine);
+        }
+        logger.trace("Closing reader.");
+        bufferedReader.close();
+
+        // Exit code is only available if channel is closed, so wait a bit for it.
+        // Channel.disconnect(), however, must not have been called yet.
+        // See http://stackoverflow.com/questions/3154940/jsch-error-return-codes-not-consistent.
+        waitForChannelClosure(channel, errOut, CLOSURE_WAIT_TIMEOUT);
+        int exitCode = channel.getExitStatus();
+        if (exitCode > 0) {
+           String error = errOut.toString();
+           if (error != null && error.trim().length() > 0) {
+               throw new SshException(error.trim() + " (" + String.valueOf(exitCode) + ")");
+           } else {
+               throw new SshException(String.valueOf(exitCode));
+           }
         }
+
+        return commandOutput.toString();
     }
 
     /**
-     * Blocks until the given channel is close or the timout is reached
+     * Blocks until the given channel is closed or the timeout is reached.
+     * Returns as soon as the server closes the channel, which it does right after sending the exit status.
      *
      * @param channel the channel to wait for
-     * @param timoutInMs the timeout
+     * @param errOut the extended output stream of the channel, closed together with it
+     * @param timeoutInMs the timeout
      */
-    private static void waitForChannelClosure(Channel channel, long timoutInMs) {
-        final long start = System.currentTimeMillis();
-        final long until = start + timoutInMs;
+    private static void waitForChannelClosure(Channel channel, ClosureSignallingStream errOut, long timeoutInMs) {
+        final long start = System.nanoTime();
         try {
-            while (!channel.isClosed() && System.currentTimeMillis() < until) {
-                Thread.sleep(CLOSURE_WAIT_INTERVAL);
+            if (!channel.isClosed()) {
+                errOut.awaitClosed(timeoutInMs);
             }
-            logger.trace("Time waited for channel closure: " + (System.currentTimeMillis() - start));
+            logger.trace("Time waited for channel closure: {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             logger.trace("Interrupted", e);
         }
         if (!channel.isClosed()) {
             logger.trace("Channel not closed in timely manner!");
         }
-    };
+    }
 
     //CS IGNORE RedundantThrows FOR NEXT 14 LINES. REASON: Informative.
 
@@ -325,18 +507,24 @@ public class SshConnectionImpl implements SshConnection {
      * @throws SshException if there are any ssh problems.
      */
     @Override
-    public synchronized Reader executeCommandReader(String command) throws SshException, IOException {
-        if (!isConnected()) {
+    public Reader executeCommandReader(String command) throws SshException, IOException {
+        Session session = getConnectedSession();
+        if (session == null) {
             throw new IllegalStateException("Not connected!");
         }
+        ChannelExec channel = openTrackedChannel(session, command);
+        boolean handedOut = false;
         try {
-            Channel channel = connectSession.openChannel("exec");
-            ((ChannelExec)channel).setCommand(command);
             InputStreamReader reader = new InputStreamReader(channel.getInputStream(), "utf-8");
             channel.connect();
+            handedOut = true;
             return reader;
         } catch (JSchException ex) {
             throw new SshException(ex);
+        } finally {
+            if (!handedOut) {
+                abandonChannel(channel);
+            }
         }
     }
 
@@ -374,20 +562,26 @@ public class SshConnectionImpl implements SshConnection {
      * @see #executeCommandReader(String)
      */
     @Override
-    public synchronized ChannelExec executeCommandChannel(String command, Boolean establishConnection)
+    public ChannelExec executeCommandChannel(String command, Boolean establishConnection)
             throws SshException, IOException {
-        if (!isConnected()) {
+        Session session = getConnectedSession();
+        if (session == null) {
             throw new IOException("Not connected!");
         }
+        ChannelExec channel = openTrackedChannel(session, command);
+        boolean handedOut = false;
         try {
-            ChannelExec channel = (ChannelExec)connectSession.openChannel("exec");
-            channel.setCommand(command);
             if (establishConnection) {
                 channel.connect();
             }
+            handedOut = true;
             return channel;
         } catch (JSchException ex) {
             throw new SshException(ex);
+        } finally {
+            if (!handedOut) {
+                abandonChannel(channel);
+            }
         }
     }
 
@@ -400,6 +594,42 @@ public class SshConnectionImpl implements SshConnection {
             logger.debug("Disconnecting client connection.");
             connectSession.disconnect();
             connectSession = null;
+            resetChannels();
+        }
+    }
+
+    /**
+     * Collects the error output of a command and signals when the channel closes it.
+     * JSch closes the extended output stream when the channel is closed by the server,
+     * after the exit status has been received, so that is the event to wait for.
+     */
+    static class ClosureSignallingStream extends ByteArrayOutputStream {
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            closed.countDown();
+        }
+
+        /**
+         * Blocks until the stream is closed or the timeout is reached.
+         *
+         * @param timeoutInMs the timeout
+         * @return true if the stream was closed.
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        boolean awaitClosed(long timeoutInMs) throws InterruptedException {
+            return closed.await(timeoutInMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * If the stream has been closed.
+         *
+         * @return true if so.
+         */
+        boolean isClosed() {
+            return closed.getCount() == 0;
         }
     }
 
@@ -0,0 +1,334 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps parsed, and decrypted, private keys around between connections.
+ * <p>
+ * Each key is held by its own {@link JSch} client with only that identity added,
+ * which every connection using the same key shares to create its sessions.
+ * Key files are cached by path, modification time, size and passphrase, so a changed file or passphrase
+ * is parsed again, and keys given as bytes by their content and passphrase.
+ * The least recently used keys are dropped when the cache is full.
+ *
+ * @see SshConnectionImpl#connect()
+ */
+public class SshIdentityCache {
+
+    /**
+     * The max number of keys held by the default cache.
+     */
+    public static final int MAX_ENTRIES = Integer.getInteger("gerritevents.SshIdentityCache.MAX_ENTRIES", 16);
+    private static final Logger logger = LoggerFactory.getLogger(SshIdentityCache.class);
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final SshIdentityCache DEFAULT = new SshIdentityCache(MAX_ENTRIES);
+
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Standard constructor.
+     *
+     * @param maxEntries the max number of keys to hold.
+     */
+    public SshIdentityCache(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        entries = new LinkedHashMap<String, Entry>(maxEntries, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cache shared by all connections.
+     *
+     * @return the default cache.
+     * @see #MAX_ENTRIES
+     */
+    public static SshIdentityCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gives the client holding the private key of the authentication,
+     * parsing the key only if it isn't cached or has changed since.
+     * The key is parsed without holding the lock of the cache, so one slow key doesn't hold up other connections.
+     *
+     * @param authentication the authentication-info
+     * @return the client to create sessions from.
+     * @throws JSchException if the key can't be parsed or decrypted.
+     */
+    public JSch getClient(Authentication authentication) throws JSchException {
+        String stamp = getStamp(authentication);
+        String source = getSource(authentication, stamp);
+        String fingerprint = getFingerprint(authentication, stamp);
+        synchronized (this) {
+            Entry entry = entries.get(source);
+            if (entry != null) {
+                if (entry.fingerprint.equals(fingerprint)) {
+                    hits.incrementAndGet();
+                    return entry.client;
+                }
+                logger.debug("Private key {} has changed, parsing it again.", source);
+                entries.remove(source);
+                invalidations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        JSch client = createClient(authentication);
+        synchronized (this) {
+            Entry entry = entries.get(source);
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                return entry.client;
+            }
+            entries.put(source, new Entry(stamp, fingerprint, client));
+        }
+        return client;
+    }
+
+    /**
+     * Identifies the private key and passphrase of the authentication, without giving away the passphrase
+     * or the key itself. It changes when the key file or passphrase changes, e.g. when the key is rotated,
+     * so that sessions and connections authenticated with one key aren't used for another.
+     *
+     * @param authentication the authentication-info
+     * @return the id of the key.
+     */
+    public static String getKeyId(Authentication authentication) {
+        String stamp = getStamp(authentication);
+        return getSource(authentication, stamp) + "#" + getFingerprint(authentication, stamp);
+    }
+
+    /**
+     * Creates a client with the private key of the authentication added.
+     *
+     * @param authentication the authentication-info
+     * @return the client.
+     * @throws JSchException if the key can't be parsed or decrypted.
+     */
+    protected JSch createClient(Authentication authentication) throws JSchException {
+        JSch client = new JSch();
+        if (authentication.getPrivateKeyPhrase() == null) {
+            client.addIdentity(authentication.getPrivateKeyFile().getAbsolutePath(),
+                    authentication.getPrivateKeyFilePassword());
+        } else {
+            client.addIdentity(authentication.getUsername(), authentication.getPrivateKeyPhrase(), null,
+                    toBytes(authentication.getPrivateKeyFilePassword()));
+        }
+        return client;
+    }
+
+    /**
+     * If the given key file is cached as it is on disk now, with any passphrase.
+     *
+     * @param keyFile the private key file.
+     * @return true if so.
+     */
+    public synchronized boolean isLoaded(File keyFile) {
+        Entry entry = entries.get(getSource(keyFile));
+        return entry != null && entry.stamp.equals(getStamp(keyFile));
+    }
+
+    /**
+     * Drops all cached keys.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * The number of cached keys.
+     *
+     * @return the number of keys.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The number of times a cached key was used.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The number of times a key had to be parsed.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The number of times a cached key was dropped because its file or passphrase changed.
+     *
+     * @return the number of invalidations.
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * Where the key of the authentication comes from.
+     *
+     * @param authentication the authentication-info
+     * @param stamp the stamp of the key.
+     * @return the key file path, or the digest of the key for keys given as bytes.
+     */
+    private static String getSource(Authentication authentication, String stamp) {
+        if (authentication.getPrivateKeyPhrase() == null) {
+            return getSource(authentication.getPrivateKeyFile());
+        }
+        return "key:" + stamp;
+    }
+
+    /**
+     * Where the key in the file comes from.
+     *
+     * @param keyFile the private key file.
+     * @return the key file path.
+     */
+    private static String getSource(File keyFile) {
+        return "file:" + keyFile.getAbsolutePath();
+    }
+
+    /**
+     * What changes when the key is replaced.
+     *
+     * @param authentication the authentication-info
+     * @return the modification time and size of the file, or a digest of the key bytes.
+     */
+    private static String getStamp(Authentication authentication) {
+        if (authentication.getPrivateKeyPhrase() == null) {
+            return getStamp(authentication.getPrivateKeyFile());
+        }
+        return digest(authentication.getPrivateKeyPhrase());
+    }
+
+    /**
+     * What changes when the key file is replaced.
+     *
+     * @param keyFile the private key file.
+     * @return the modification time and size of the file.
+     */
+    private static String getStamp(File keyFile) {
+        return keyFile.lastModified() + ":" + keyFile.length();
+    }
+
+    /**
+     * Identifies the key and passphrase without keeping the passphrase itself around.
+     *
+     * @param authentication the authentication-info
+     * @param stamp the stamp of the key.
+     * @return a digest of the stamp and passphrase.
+     */
+    private static String getFingerprint(Authentication authentication, String stamp) {
+        String password = authentication.getPrivateKeyFilePassword();
+        if (password == null) {
+            return stamp;
+        }
+        return stamp + ":" + digest(toBytes(password));
+    }
+
+    /**
+     * Encodes the string as UTF-8.
+     *
+     * @param string the string.
+     * @return the bytes or null if the string is null.
+     */
+    private static byte[] toBytes(String string) {
+        if (string == null) {
+            return null;
+        }
+        try {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * A SHA-256 digest of the bytes.
+     *
+     * @param bytes the bytes.
+     * @return the Base64 encoded digest.
+     */
+    private static String digest(byte[] bytes) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * A cached key.
+     */
+    private static final class Entry {
+        private final String stamp;
+        private final String fingerprint;
+        private final JSch client;
+
+        /**
+         * Standard constructor.
+         *
+         * @param stamp what changes when the key is replaced.
+         * @param fingerprint the stamp together with the passphrase.
+         * @param client the client holding the key.
+         */
+        private Entry(String stamp, String fingerprint, JSch client) {
+            this.stamp = stamp;
+            this.fingerprint = fingerprint;
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps connected and authenticated SSH sessions around between commands, so that each command
+ * only costs an exec channel instead of a TCP connect, key exchange and authentication.
+ * <p>
+ * Sessions are pooled by host, port, user name, private key and proxy. A session is lent out to one user at a time
+ * through a {@link SshConnection} whose {@link SshConnection#disconnect()} gives it back to the pool.
+ * Sessions found disconnected, or idle for longer than the idle timeout, are closed instead of lent out,
+ * and a background thread evicts them from the pool as well.
+ * A session may look connected and still be dead, e.g. when the server went away without closing it,
+ * so if no channel can be opened on a reused session its first command is tried once more on a new one.
+ * The pool counts hits, misses and evictions.
+ *
+ * @see SshConnectionFactory#getPooledConnection(String, int, String, Authentication)
+ */
+public class SshSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SshSessionPool.class);
+    private static final String THREAD_NAME = "Gerrit SSH Session Evictor";
+    /**
+     * The least time between two eviction runs [msec].
+     */
+    private static final long MIN_EVICTION_INTERVAL = 1000;
+
+    private final int maxIdlePerKey;
+    private final long idleTimeoutNanos;
+    private final long evictionIntervalMillis;
+    private final ConcurrentHashMap<Key, Deque<Idle>> idle = new ConcurrentHashMap<Key, Deque<Idle>>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile boolean closed = false;
+    private ScheduledExecutorService evictor = null;
+
+    /**
+     * Standard constructor.
+     *
+     * @param maxIdlePerKey the max number of idle sessions kept per host, port, user, key and proxy.
+     * @param idleTimeoutMillis how long a session may stay idle before it is closed.
+     */
+    public SshSessionPool(int maxIdlePerKey, long idleTimeoutMillis) {
+        this.maxIdlePerKey = Math.max(1, maxIdlePerKey);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleTimeoutMillis));
+        this.evictionIntervalMillis = Math.max(MIN_EVICTION_INTERVAL, idleTimeoutMillis / 2);
+    }
+
+    /**
+     * Lends out an idle session to the server, or connects a new one if there is none.
+     *
+     * @param host           the host name
+     * @param port           the port
+     * @param proxy          the proxy url
+     * @param authentication the credentials
+     * @return the connection, disconnect it to give it back.
+     * @throws IOException if a new session could not be connected.
+     */
+    public SshConnection borrow(String host, int port, String proxy, Authentication authentication)
+            throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The SSH session pool is closed.");
+        }
+        Key key = new Key(host, port, authentication.getUsername(), SshIdentityCache.getKeyId(authentication), proxy);
+        Deque<Idle> sessions = idle.get(key);
+        if (sessions != null) {
+            long now = System.nanoTime();
+            Idle session = sessions.pollFirst();
+            while (session != null) {
+                if (isHealthy(session, now)) {
+                    hits.incrementAndGet();
+                    return new Lease(key, session.connection, true, proxy, authentication);
+                }
+                evict(session);
+                session = sessions.pollFirst();
+            }
+        }
+        misses.incrementAndGet();
+        return new Lease(key, open(host, port, proxy, authentication), false, proxy, authentication);
+    }
+
+    /**
+     * Connects a new session.
+     *
+     * @param host           the host name
+     * @param port           the port
+     * @param proxy          the proxy url
+     * @param authentication the credentials
+     * @return the connection.
+     * @throws IOException if so.
+     */
+    protected SshConnection open(String host, int port, String proxy, Authentication authentication)
+            throws IOException {
+        return SshConnectionFactory.getConnection(host, port, proxy, authentication);
+    }
+
+    /**
+     * Takes back a lent out session, it is closed if it is broken or there are enough idle sessions already.
+     *
+     * @param key the key of the session.
+     * @param connection the session.
+     */
+    private void release(Key key, SshConnection connection) {
+        if (closed || !connection.isConnected()) {
+            connection.disconnect();
+            return;
+        }
+        Deque<Idle> sessions = idle.get(key);
+        if (sessions == null) {
+            sessions = new ConcurrentLinkedDeque<Idle>();
+            Deque<Idle> existing = idle.putIfAbsent(key, sessions);
+            if (existing != null) {
+                sessions = existing;
+            }
+        }
+        if (sessions.size() >= maxIdlePerKey) {
+            connection.disconnect();
+            return;
+        }
+        Idle session = new Idle(connection, System.nanoTime());
+        sessions.offerFirst(session);
+        startEvictor();
+        if (closed && sessions.remove(session)) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * If an idle session may be lent out.
+     *
+     * @param session the session.
+     * @param now the current time, in nanoseconds.
+     * @return true if it is connected and hasn't been idle too long.
+     */
+    private boolean isHealthy(Idle session, long now) {
+        return now - session.since < idleTimeoutNanos && session.connection.isConnected();
+    }
+
+    /**
+     * Closes a session taken out of the pool.
+     *
+     * @param session the session.
+     */
+    private void evict(Idle session) {
+        evictions.incrementAndGet();
+        logger.debug("Evicting an idle SSH session.");
+        session.connection.disconnect();
+    }
+
+    /**
+     * Closes the idle sessions that are broken or have been idle too long.
+     */
+    void evictIdle() {
+        long now = System.nanoTime();
+        for (Deque<Idle> sessions : idle.values()) {
+            Iterator<Idle> it = sessions.iterator();
+            while (it.hasNext()) {
+                Idle session = it.next();
+                if (!isHealthy(session, now) && sessions.remove(session)) {
+                    evict(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the thread evicting idle sessions, if it isn't running.
+     */
+    private synchronized void startEvictor() {
+        if (evictor != null || closed) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evictIdle();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to evict idle SSH sessions.", e);
+                }
+            }
+        }, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes all idle sessions and the sessions lent out when they are given back.
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+        for (Deque<Idle> sessions : idle.values()) {
+            Idle session = sessions.pollFirst();
+            while (session != null) {
+                session.connection.disconnect();
+                session = sessions.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * The number of times an idle session was lent out.
+     *
+     * @return the number.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The number of times a new session had to be connected.
+     *
+     * @return the number.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The share of borrowed sessions that were reused.
+     *
+     * @return the share between 0 and 1, 0 if nothing has been borrowed.
+     */
+    public double getHitRate() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double)hit / total;
+    }
+
+    /**
+     * The number of idle sessions closed because they were broken or had been idle too long.
+     *
+     * @return the number.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * The number of idle sessions in the pool.
+     *
+     * @return the number.
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<Idle> sessions : idle.values()) {
+            count += sessions.size();
+        }
+        return count;
+    }
+
+    /**
+     * What sessions are pooled by.
+     */
+    private static final class Key {
+        private final String host;
+        private final int port;
+        private final String user;
+        private final String keyId;
+        private final String proxy;
+
+        /**
+         * Standard constructor.
+         *
+         * @param host the host.
+         * @param port the port.
+         * @param user the user name.
+         * @param keyId the id of the private key.
+         * @param proxy the proxy url.
+         * @see SshIdentityCache#getKeyId(Authentication)
+         */
+        Key(String host, int port, String user, String keyId, String proxy) {
+            this.host = host;
+            this.port = port;
+            this.user = user;
+            this.keyId = keyId;
+            if (proxy == null) {
+                this.proxy = "";
+            } else {
+                this.proxy = proxy;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return port == other.port && equal(host, other.host) && equal(user, other.user)
+                    && keyId.equals(other.keyId) && proxy.equals(other.proxy);
+        }
+
+        /**
+         * Null-safe equals.
+         *
+         * @param a one.
+         * @param b the other.
+         * @return true if equal.
+         */
+        private static boolean equal(String a, String b) {
+            if (a == null) {
+                return b == null;
+            }
+            return a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new Object[] {host, port, user, keyId, proxy});
+        }
+    }
+
+    /**
+     * An idle session and since when it has been idle.
+     */
+    private static final class Idle {
+        private final SshConnection connection;
+        private final long since;
+
+        /**
+         * Standard constructor.
+         *
+         * @param connection the session.
+         * @param since when it was given back, in nanoseconds.
+         */
+        Idle(SshConnection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    /**
+     * A session lent out from the pool, disconnecting gives it back.
+     * Channels opened through it should be done with before that.
+     */
+    private final class Lease implements SshConnection {
+        private final Key key;
+        private final String proxy;
+        private final Authentication authentication;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile SshConnection connection;
+        private volatile boolean unproven;
+
+        /**
+         * Standard constructor.
+         *
+         * @param key the key of the session.
+         * @param connection the session.
+         * @param reused if the session has been idle in the pool, and may have died since.
+         * @param proxy the proxy url, to connect a new session with.
+         * @param authentication the credentials, to connect a new session with.
+         */
+        Lease(Key key, SshConnection connection, boolean reused, String proxy, Authentication authentication) {
+            this.key = key;
+            this.connection = connection;
+            this.unproven = reused;
+            this.proxy = proxy;
+            this.authentication = authentication;
+        }
+
+        /**
+         * Replaces a reused session on which no channel could be opened with a new one,
+         * the first time that happens and before any command has succeeded on it.
+         *
+         * @param failed the session the command failed on.
+         * @param e what the command failed with.
+         * @return true if the command should be tried again on the new session.
+         * @throws SshException if the new session could not be connected.
+         */
+        private synchronized boolean renew(SshConnection failed, SshException e) throws SshException {
+            if (!(e.getCause() instanceof JSchException)) {
+                return false;
+            }
+            if (connection != failed) {
+                return true;
+            }
+            if (!unproven || released.get()) {
+                return false;
+            }
+            unproven = false;
+            logger.debug("Could not open a channel on a reused SSH session, connecting a new one.", e);
+            evictions.incrementAndGet();
+            failed.disconnect();
+            misses.incrementAndGet();
+            try {
+                connection = open(key.host, key.port, proxy, authentication);
+            } catch (SshException ex) {
+                throw ex;
+            } catch (IOException ex) {
+                throw new SshException(ex);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return !released.get() && connection.isConnected();
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return !released.get() && connection.isAuthenticated();
+        }
+
+        @Override
+        public String executeCommand(String command) throws SshException {
+            SshConnection current = connection;
+            try {
+                String output = current.executeCommand(command);
+                unproven = false;
+                return output;
+            } catch (SshException e) {
+                if (!renew(current, e)) {
+                    throw e;
+                }
+            }
+            return connection.executeCommand(command);
+        }
+
+        //CS IGNORE RedundantThrows FOR NEXT 50 LINES. REASON: Informative.
+
+        @Override
+        public Reader executeCommandReader(String command) throws SshException, IOException {
+            SshConnection current = connection;
+            try {
+                Reader reader = current.executeCommandReader(command);
+                unproven = false;
+                return reader;
+            } catch (SshException e) {
+                if (!renew(current, e)) {
+                    throw e;
+                }
+            }
+            return connection.executeCommandReader(command);
+        }
+
+        @Override
+        public ChannelExec executeCommandChannel(String command) throws SshException, IOException {
+            return executeCommandChannel(command, true);
+        }
+
+        @Override
+        public ChannelExec executeCommandChannel(String command, Boolean establishConnection)
+                throws SshException, IOException {
+            SshConnection current = connection;
+            try {
+                ChannelExec channel = current.executeCommandChannel(command, establishConnection);
+                unproven = false;
+                return channel;
+            } catch (SshException e) {
+                if (!renew(current, e)) {
+                    throw e;
+                }
+            }
+            return connection.executeCommandChannel(command, establishConnection);
+        }
+
+        @Override
+        public void connect() throws IOException {
+            if (!connection.isConnected()) {
+                connection.connect();
+            }
+        }
+
+        @Override
+        public void disconnect() {
+            if (released.compareAndSet(false, true)) {
+                release(key, connection);
+            }
+        }
+    }
+}
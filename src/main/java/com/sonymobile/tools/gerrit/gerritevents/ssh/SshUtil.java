@@ -44,10 +44,14 @@ public final class SshUtil {
 
     /**
      * Does a series of checks in the file to see if it is a valid private key file.
+     * A file that is already in use by a connection, unchanged, is not parsed again.
      * @param keyFile the file
      * @return true if valid.
      */
     public static boolean isPrivateKeyFileValid(File keyFile) {
+        if (keyFile != null && SshIdentityCache.getDefault().isLoaded(keyFile)) {
+            return true;
+        }
         return parsePrivateKeyFile(keyFile) != null;
     }
 
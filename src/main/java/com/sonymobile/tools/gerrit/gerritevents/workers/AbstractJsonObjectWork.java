@@ -50,6 +50,15 @@ public abstract class AbstractJsonObjectWork extends AbstractGerritEventWork {
         this.createdOn = System.currentTimeMillis();
     }
 
+    /**
+     * Constructor for work that was received earlier, e.g. read back from disk.
+     *
+     * @param createdOn when the work was received, in milliseconds since the epoch.
+     */
+    public AbstractJsonObjectWork(long createdOn) {
+        this.createdOn = createdOn;
+    }
+
     /**
      * Time stamp when the work was created.
      * @return the createdOn time stamp
@@ -66,7 +75,29 @@ public abstract class AbstractJsonObjectWork extends AbstractGerritEventWork {
      */
     protected void perform(JSONObject json, Coordinator coordinator, Provider provider) {
         logger.trace("Extracting event from JSON.");
-        GerritEvent event = GerritJsonEventFactory.getEvent(json);
+        performEvent(GerritJsonEventFactory.getEvent(json), coordinator, provider);
+    }
+
+    /**
+     * Decodes a stream-events line straight into a Java bean, if it is interesting and usable,
+     * and sends the {@link GerritEvent} down the inheritance chain.
+     * @param line the line to work on.
+     * @param coordinator the coordinator.
+     * @param provider the Gerrit server info
+     * @see GerritJsonEventFactory#getEventIfInteresting(String)
+     */
+    protected void perform(String line, Coordinator coordinator, Provider provider) {
+        logger.trace("Extracting event from line.");
+        performEvent(GerritJsonEventFactory.getEventIfInteresting(line), coordinator, provider);
+    }
+
+    /**
+     * Stamps the event with the provider and receive time and sends it down the inheritance chain.
+     * @param event the event, or null if none could be extracted.
+     * @param coordinator the coordinator.
+     * @param provider the Gerrit server info
+     */
+    private void performEvent(GerritEvent event, Coordinator coordinator, Provider provider) {
         if (event != null) {
             if (event instanceof GerritTriggeredEvent) {
                 GerritTriggeredEvent gerritTriggeredEvent = (GerritTriggeredEvent)event;
@@ -65,6 +65,15 @@ public class JSONEventWork extends AbstractJsonObjectWork {
         this.provider = provider;
     }
 
+    /**
+     * The Gerrit server the event came from.
+     *
+     * @return the provider, or null if unknown.
+     */
+    public Provider getProvider() {
+        return provider;
+    }
+
     @Override
     public void perform(Coordinator coordinator) {
         if (GerritJsonEventFactory.isInterestingAndUsable(getJson())) {
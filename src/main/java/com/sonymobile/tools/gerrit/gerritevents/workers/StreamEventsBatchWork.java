@@ -0,0 +1,109 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.workers;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * A chunk of lines from the stream-events stream of events that is handled as one piece of work.
+ * The lines are performed one after the other in the order they were received,
+ * each one the same way as a {@link StreamEventsStringWork}.
+ */
+public class StreamEventsBatchWork extends AbstractJsonObjectWork {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamEventsBatchWork.class);
+
+    private final List<String> lines;
+    private final Provider provider;
+
+    /**
+     * Default constructor.
+     *
+     * @param lines    lines of text from the stream-events stream of events, in the order they were received.
+     * @param provider the Gerrit server info.
+     */
+    public StreamEventsBatchWork(List<String> lines, Provider provider) {
+        this.lines = lines;
+        this.provider = provider;
+    }
+
+    /**
+     * The lines in this batch.
+     *
+     * @return the lines.
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * The Gerrit server the lines came from.
+     *
+     * @return the provider.
+     */
+    public Provider getProvider() {
+        return provider;
+    }
+
+    @Override
+    public void perform(Coordinator coordinator) {
+        for (String line : lines) {
+            performLine(line, coordinator);
+        }
+    }
+
+    /**
+     * Performs the work for one of the lines in the batch.
+     * Errors are logged so that one bad line doesn't stop the rest of the batch.
+     *
+     * @param line        the line.
+     * @param coordinator the coordinator.
+     */
+    public void performLine(String line, Coordinator coordinator) {
+        try {
+            perform(line, coordinator, provider);
+        } catch (RuntimeException ex) {
+            logger.error("Failed to perform work for line: " + line, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("[");
+        str.append(getClass().getSimpleName());
+        str.append(": ");
+        str.append(lines.size());
+        str.append(" lines");
+        if (provider != null) {
+            str.append(", " + provider.toString());
+        }
+        str.append("]");
+        return str.toString();
+    }
+}
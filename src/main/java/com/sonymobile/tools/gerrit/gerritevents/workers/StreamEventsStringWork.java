@@ -25,12 +25,10 @@
 
 package com.sonymobile.tools.gerrit.gerritevents.workers;
 
-import com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory;
 import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
-import net.sf.json.JSONObject;
 
 /**
- * Top of the hierarchies of work, converts the string to JSON if it is interesting and usable.
+ * Top of the hierarchies of work, decodes the string into an event if it is interesting and usable.
  * And then hands the work over to {@link AbstractJsonObjectWork}.
  *
  * @author Robert Sandell &lt;robert.sandell@sonyericsson.com&gt;
@@ -67,12 +65,31 @@ public class StreamEventsStringWork extends AbstractJsonObjectWork {
         this.provider = provider;
     }
 
+    /**
+     * Constructor for a line that was received earlier, e.g. read back from disk.
+     *
+     * @param line      a line of text from the stream-events stream of events.
+     * @param provider  the Gerrit server info.
+     * @param createdOn when the line was received, in milliseconds since the epoch.
+     */
+    public StreamEventsStringWork(String line, Provider provider, long createdOn) {
+        super(createdOn);
+        this.line = line;
+        this.provider = provider;
+    }
+
+    /**
+     * The Gerrit server the event came from.
+     *
+     * @return the provider, or null if unknown.
+     */
+    public Provider getProvider() {
+        return provider;
+    }
+
     @Override
     public void perform(Coordinator coordinator) {
-        JSONObject obj = GerritJsonEventFactory.getJsonObjectIfInterestingAndUsable(getLine());
-        if (obj != null) {
-            perform(obj, coordinator, provider);
-        }
+        perform(getLine(), coordinator, provider);
     }
 
     @Override
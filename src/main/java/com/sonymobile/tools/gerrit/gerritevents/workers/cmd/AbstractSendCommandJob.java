@@ -111,8 +111,13 @@ public abstract class AbstractSendCommandJob implements Runnable, GerritCmdRunne
         String str = null;
         SshConnection ssh = null;
         try {
-            ssh = SshConnectionFactory.getConnection(config.getGerritHostName(),
-                    config.getGerritSshPort(), config.getGerritProxy(), config.getGerritAuthentication());
+            if (SshConnectionFactory.isPooling()) {
+                ssh = SshConnectionFactory.getPooledConnection(config.getGerritHostName(),
+                        config.getGerritSshPort(), config.getGerritProxy(), config.getGerritAuthentication());
+            } else {
+                ssh = SshConnectionFactory.getConnection(config.getGerritHostName(),
+                        config.getGerritSshPort(), config.getGerritProxy(), config.getGerritAuthentication());
+            }
             str = ssh.executeCommand(command);
         } catch (Exception ex) {
             throw new IOException("Error during sending command", ex);
@@ -82,12 +82,27 @@ public abstract class AbstractSendCommandJob2 implements Callable<String> {
      */
     protected abstract String createGerritCommand();
 
+    /**
+     * Opens a connection to the Gerrit server of this job, from the session pool if pooling is on.
+     *
+     * @return the connection.
+     * @throws IOException if the connection can't be opened.
+     * @see SshConnectionFactory#isPooling()
+     */
+    SshConnection openConnection() throws IOException {
+        if (SshConnectionFactory.isPooling()) {
+            return SshConnectionFactory.getPooledConnection(host, port, proxy, auth);
+        } else {
+            return SshConnectionFactory.getConnection(host, port, proxy, auth);
+        }
+    }
+
     @Override
     public String call() throws IOException {
         String str = null;
         SshConnection ssh = null;
         try {
-            ssh = SshConnectionFactory.getConnection(host, port, proxy, auth);
+            ssh = openConnection();
             str = ssh.executeCommand(createGerritCommand());
         } catch (Exception ex) {
             throw new IOException("Error during sending command", ex);
@@ -0,0 +1,396 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.workers.cmd;
+
+import com.sonymobile.tools.gerrit.gerritevents.ssh.SshCommandPipeline;
+import com.sonymobile.tools.gerrit.gerritevents.ssh.SshConnection;
+import com.sonymobile.tools.gerrit.gerritevents.ssh.SshConnectionImpl;
+import com.sonymobile.tools.gerrit.gerritevents.ssh.SshIdentityCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects {@link AbstractSendCommandJob2}s to the same Gerrit server for a short linger time
+ * and sends them together, pipelined on concurrent channels of one session.
+ * <p>
+ * Jobs are batched by host, port, user name, private key and proxy. A batch is handed to the executor when it is full,
+ * or when its first job has waited the linger time. Each job gets its own future, completed as soon as its command
+ * is done with its output or the error it failed with, just as if the job had been run on its own.
+ * A batch of a single job simply runs the job.
+ *
+ * @see SshCommandPipeline
+ */
+public class SendCommandBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendCommandBatcher.class);
+    private static final String THREAD_NAME = "Gerrit-send-command-batcher";
+
+    private final long lingerMillis;
+    private final int maxBatchSize;
+    private final int window;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final Map<Key, List<Pending>> pending = new HashMap<Key, List<Pending>>();
+    private final AtomicLong jobs = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private boolean closed = false;
+
+    /**
+     * Standard constructor.
+     *
+     * @param lingerMillis how long the first job of a batch waits for more jobs.
+     * @param maxBatchSize the max number of jobs in a batch.
+     * @param executor runs the batches.
+     */
+    public SendCommandBatcher(long lingerMillis, int maxBatchSize, Executor executor) {
+        this.lingerMillis = Math.max(0, lingerMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = Math.min(this.maxBatchSize, SshConnectionImpl.MAX_CHANNELS_PER_SESSION);
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Adds a job to the batch of its server.
+     *
+     * @param job the job.
+     * @return the future output of the job's command.
+     */
+    public Future<String> queue(AbstractSendCommandJob2 job) {
+        jobs.incrementAndGet();
+        Pending entry = new Pending(job);
+        List<Pending> full = null;
+        synchronized (this) {
+            if (closed) {
+                full = Collections.singletonList(entry);
+            } else {
+                final Key key = new Key(job);
+                List<Pending> batch = pending.get(key);
+                if (batch == null) {
+                    batch = new ArrayList<Pending>();
+                    pending.put(key, batch);
+                    scheduleFlush(key, batch);
+                }
+                batch.add(entry);
+                if (batch.size() >= maxBatchSize) {
+                    full = pending.remove(key);
+                }
+            }
+        }
+        if (full != null) {
+            handOver(full);
+        }
+        return entry.future;
+    }
+
+    /**
+     * Hands over the batch when it has waited the linger time, unless it has been handed over already.
+     *
+     * @param key the server of the batch.
+     * @param batch the batch.
+     */
+    private void scheduleFlush(final Key key, final List<Pending> batch) {
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (SendCommandBatcher.this) {
+                    if (pending.get(key) != batch) {
+                        return;
+                    }
+                    pending.remove(key);
+                }
+                handOver(batch);
+            }
+        }, lingerMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands over all waiting batches to the executor right away.
+     */
+    public void flush() {
+        List<List<Pending>> waiting;
+        synchronized (this) {
+            waiting = new ArrayList<List<Pending>>(pending.values());
+            pending.clear();
+        }
+        for (List<Pending> batch : waiting) {
+            handOver(batch);
+        }
+    }
+
+    /**
+     * Hands over all waiting batches and stops batching.
+     * Jobs queued after this are handed over one by one.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    /**
+     * The number of jobs waiting for their batch to be handed over.
+     *
+     * @return the number of jobs.
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (List<Pending> batch : pending.values()) {
+            count += batch.size();
+        }
+        return count;
+    }
+
+    /**
+     * The number of jobs queued.
+     *
+     * @return the number of jobs.
+     */
+    public long getJobCount() {
+        return jobs.get();
+    }
+
+    /**
+     * The number of batches handed over to the executor.
+     *
+     * @return the number of batches.
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Gives the batch to the executor.
+     *
+     * @param batch the batch.
+     */
+    private void handOver(final List<Pending> batch) {
+        batches.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    send(batch);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.error("Unable to queue a batch of send-command-jobs! ", e);
+            for (Pending entry : batch) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Sends the commands of the batch on one connection.
+     *
+     * @param batch the batch.
+     */
+    private void send(List<Pending> batch) {
+        if (batch.size() == 1) {
+            batch.get(0).runAlone();
+            return;
+        }
+        List<Pending> sending = new ArrayList<Pending>(batch.size());
+        List<String> commands = new ArrayList<String>(batch.size());
+        for (Pending entry : batch) {
+            try {
+                commands.add(entry.job.createGerritCommand());
+                sending.add(entry);
+            } catch (RuntimeException e) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+        logger.debug("Sending a batch of {} commands", commands.size());
+        List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>(sending.size());
+        for (Pending entry : sending) {
+            results.add(entry.result());
+        }
+        SshConnection ssh = null;
+        try {
+            ssh = batch.get(0).job.openConnection();
+            SshCommandPipeline.execute(ssh, commands, results, window);
+        } catch (Exception ex) {
+            for (Pending entry : sending) {
+                entry.fail(ex);
+            }
+        } finally {
+            if (ssh != null) {
+                ssh.disconnect();
+            }
+        }
+    }
+
+    /**
+     * A job waiting for its batch.
+     */
+    private static final class Pending {
+        private final AbstractSendCommandJob2 job;
+        private final CompletableFuture<String> future = new CompletableFuture<String>();
+
+        /**
+         * Standard constructor.
+         *
+         * @param job the job.
+         */
+        private Pending(AbstractSendCommandJob2 job) {
+            this.job = job;
+        }
+
+        /**
+         * Runs the job on its own.
+         */
+        private void runAlone() {
+            try {
+                future.complete(job.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Where the pipeline puts the output of the command,
+         * it completes the future of the job as soon as the command is done.
+         *
+         * @return the result.
+         */
+        private CompletableFuture<String> result() {
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            result.whenComplete(new BiConsumer<String, Throwable>() {
+                @Override
+                public void accept(String output, Throwable error) {
+                    if (error == null) {
+                        future.complete(output);
+                    } else {
+                        fail(error);
+                    }
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Fails the job the same way {@link AbstractSendCommandJob2#call()} would, unless it is done already.
+         *
+         * @param cause the cause.
+         */
+        private void fail(Throwable cause) {
+            future.completeExceptionally(new IOException("Error during sending command", cause));
+        }
+    }
+
+    /**
+     * The server of a job.
+     */
+    private static final class Key {
+        private final String host;
+        private final int port;
+        private final String user;
+        private final String keyId;
+        private final String proxy;
+
+        /**
+         * Standard constructor.
+         *
+         * @param job the job.
+         */
+        private Key(AbstractSendCommandJob2 job) {
+            this.host = job.host;
+            this.port = job.port;
+            if (job.auth != null) {
+                this.user = job.auth.getUsername();
+                this.keyId = SshIdentityCache.getKeyId(job.auth);
+            } else {
+                this.user = null;
+                this.keyId = null;
+            }
+            if (job.proxy != null && !job.proxy.isEmpty()) {
+                this.proxy = job.proxy;
+            } else {
+                this.proxy = null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return port == other.port && equal(host, other.host) && equal(user, other.user)
+                    && equal(keyId, other.keyId) && equal(proxy, other.proxy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new Object[]{host, port, user, keyId, proxy});
+        }
+
+        /**
+         * Null safe equals.
+         *
+         * @param a the one.
+         * @param b the other.
+         * @return true if they are equal.
+         */
+        private static boolean equal(Object a, Object b) {
+            if (a == null) {
+                return b == null;
+            }
+            return a.equals(b);
+        }
+    }
+}
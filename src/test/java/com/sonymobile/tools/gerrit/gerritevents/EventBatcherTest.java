@@ -0,0 +1,153 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeMerged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link EventBatcher} through {@link GerritHandler#addBatchListener(GerritBatchEventListener, int, long)}.
+ */
+public class EventBatcherTest {
+
+    private static final int BATCH_SIZE = 3;
+    private static final long WAIT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private GerritHandler handler;
+    private BatchRecorder recorder;
+
+    /**
+     * Creates the handler and listener.
+     */
+    @Before
+    public void setUp() {
+        handler = new GerritHandler();
+        recorder = new BatchRecorder();
+    }
+
+    /**
+     * Shuts the handler down.
+     */
+    @After
+    public void tearDown() {
+        handler.shutdown(false);
+    }
+
+    /**
+     * Tests that full batches are handed over at once, in order, and the rest on flush.
+     */
+    @Test
+    public void testFlushBySize() {
+        handler.addBatchListener(recorder, BATCH_SIZE, 0);
+        //CS IGNORE MagicNumber FOR NEXT 15 LINES. REASON: Test data.
+        List<GerritEvent> events = new ArrayList<GerritEvent>();
+        for (int i = 0; i < 7; i++) {
+            events.add(new PatchsetCreated());
+            handler.notifyListeners(events.get(i));
+        }
+        assertEquals(2, recorder.batches.size());
+        assertEquals(events.subList(0, 3), recorder.batches.get(0));
+        assertEquals(events.subList(3, 6), recorder.batches.get(1));
+        handler.removeBatchListener(recorder);
+        assertEquals(3, recorder.batches.size());
+        assertEquals(events.subList(6, 7), recorder.batches.get(2));
+        handler.notifyListeners(new ChangeMerged());
+        assertEquals(3, recorder.batches.size());
+    }
+
+    /**
+     * Tests that a batch that doesn't fill up is handed over after the linger time,
+     * alongside the normal notification of listeners.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testFlushByLinger() throws Exception {
+        final int[] notified = new int[1];
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                notified[0]++;
+            }
+        });
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        handler.addBatchListener(recorder, 100, 50);
+        handler.notifyListeners(new PatchsetCreated());
+        handler.notifyListeners(new ChangeMerged());
+        assertEquals(2, notified[0]);
+        assertTrue(recorder.await(1));
+        assertEquals(2, recorder.batches.get(0).size());
+    }
+
+    /**
+     * Tests that shutting down the handler hands over what is collected, and turning fan-out off doesn't.
+     */
+    @Test
+    public void testFlushOnShutdown() {
+        handler.addBatchListener(recorder, BATCH_SIZE, 0);
+        handler.notifyListeners(new PatchsetCreated());
+        handler.setFanOut(null, false);
+        assertEquals(0, recorder.batches.size());
+        handler.shutdown(false);
+        assertEquals(1, recorder.batches.size());
+        handler = new GerritHandler();
+    }
+
+    /**
+     * Records the batches.
+     */
+    private static final class BatchRecorder implements GerritBatchEventListener {
+        private final List<List<GerritEvent>> batches = new ArrayList<List<GerritEvent>>();
+
+        @Override
+        public synchronized void gerritEvents(List<GerritEvent> events) {
+            batches.add(events);
+            notifyAll();
+        }
+
+        /**
+         * Waits for a number of batches.
+         *
+         * @param count the number of batches.
+         * @return true if they came in time.
+         * @throws InterruptedException if so.
+         */
+        synchronized boolean await(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + WAIT_MILLIS;
+            while (batches.size() < count && System.currentTimeMillis() < end) {
+                wait(end - System.currentTimeMillis());
+            }
+            return batches.size() >= count;
+        }
+    }
+}
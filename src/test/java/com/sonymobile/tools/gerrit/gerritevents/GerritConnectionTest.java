@@ -30,6 +30,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doCallRealMethod;
@@ -45,6 +46,7 @@ import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.AfterClass;
@@ -210,6 +212,7 @@ public class GerritConnectionTest {
     @Test
     public void testReceiveEvent() throws Exception {
         doCallRealMethod().when(handlerMock).post(any(String.class), any(Provider.class));
+        doCallRealMethod().when(handlerMock).post(anyListOf(String.class), any(Provider.class));
         //CS IGNORE LineLength FOR NEXT 1 LINES. REASON: TestData
         String aVeryLongMessage = "This is a very long line.                                             It stands for a commit that contains a very huge commit message. It should be long enough to fill the buffer several times.";
 
@@ -273,6 +276,13 @@ public class GerritConnectionTest {
                 finishLatch.countDown();
             }
         }
+
+        @Override
+        public void post(List<String> lines, Provider provider) {
+            for (String line : lines) {
+                post(line, provider);
+            }
+        }
     }
 
     /**
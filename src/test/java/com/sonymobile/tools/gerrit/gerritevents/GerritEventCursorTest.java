@@ -0,0 +1,179 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeMerged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GerritEventCursor}.
+ */
+public class GerritEventCursorTest {
+
+    private static final int CAPACITY = 3;
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+    private GerritHandler handler;
+    private ExecutorService executor;
+
+    /**
+     * Creates the handler.
+     */
+    @Before
+    public void setUp() {
+        handler = new GerritHandler();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Shuts down.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        handler.shutdown(false);
+    }
+
+    /**
+     * Tests that cursors read the events independently, with their own lag and drops.
+     */
+    @Test
+    public void testIndependentCursors() {
+        GerritEventCursor first = handler.openCursor(CAPACITY, 1);
+        GerritEventCursor second = handler.openCursor(CAPACITY, 1);
+        GerritEvent event = new PatchsetCreated();
+        handler.notifyListeners(event);
+        assertSame(event, first.next());
+        assertEquals(0, first.getLag());
+        assertEquals(1, second.getLag());
+        //CS IGNORE MagicNumber FOR NEXT 8 LINES. REASON: Test data.
+        for (int i = 0; i < 3; i++) {
+            handler.notifyListeners(new PatchsetCreated());
+        }
+        assertEquals(3, first.getLag());
+        assertEquals(3, second.getLag());
+        assertEquals(1, second.getDroppedCount());
+        assertEquals(4, second.getReceivedCount());
+        assertEquals(3, second.getConsumedCount() + countRemaining(second));
+        assertFalse(second.hasNext());
+        first.close();
+        assertFalse(first.hasNext());
+        assertNull(first.poll(1, TimeUnit.MILLISECONDS));
+        handler.notifyListeners(new PatchsetCreated());
+        assertEquals(0, first.getLag());
+    }
+
+    /**
+     * Tests a stream that filters events posted from another thread while it waits.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testStream() throws Exception {
+        final GerritEventCursor cursor = handler.openCursor(CAPACITY + 1, TIMEOUT);
+        Future<List<GerritEvent>> merged = executor.submit(new Callable<List<GerritEvent>>() {
+            @Override
+            public List<GerritEvent> call() {
+                Stream<GerritEvent> stream = cursor.stream();
+                try {
+                    return stream.filter(new Predicate<GerritEvent>() {
+                        @Override
+                        public boolean test(GerritEvent event) {
+                            return event instanceof ChangeMerged;
+                        }
+                    }).limit(2).collect(Collectors.<GerritEvent>toList());
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+        GerritEvent firstMerged = new ChangeMerged();
+        GerritEvent secondMerged = new ChangeMerged();
+        handler.notifyListeners(new PatchsetCreated());
+        handler.notifyListeners(firstMerged);
+        handler.notifyListeners(new PatchsetCreated());
+        handler.notifyListeners(secondMerged);
+        List<GerritEvent> result = merged.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertEquals(2, result.size());
+        assertSame(firstMerged, result.get(0));
+        assertSame(secondMerged, result.get(1));
+        assertTrue(cursor.isClosed());
+        assertFalse(handler.getGerritEventListenersView().contains(cursor));
+    }
+
+    /**
+     * Tests that closing the cursor, or shutting down the handler, ends a wait for the next event.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testCloseWhileWaiting() throws Exception {
+        final GerritEventCursor cursor = handler.openCursor(CAPACITY, 0);
+        Future<Boolean> hasNext = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return cursor.hasNext();
+            }
+        });
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        Thread.sleep(50);
+        assertFalse(hasNext.isDone());
+        handler.shutdown(false);
+        handler = new GerritHandler();
+        assertFalse(hasNext.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(cursor.isClosed());
+    }
+
+    /**
+     * Reads the events left in a cursor without waiting.
+     *
+     * @param cursor the cursor.
+     * @return the number of events read.
+     */
+    private static int countRemaining(GerritEventCursor cursor) {
+        int count = 0;
+        while (cursor.poll(0, TimeUnit.MILLISECONDS) != null) {
+            count++;
+        }
+        return count;
+    }
+}
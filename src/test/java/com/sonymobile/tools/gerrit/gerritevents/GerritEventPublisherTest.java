@@ -0,0 +1,186 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Tests for {@link GerritEventPublisher}.
+ */
+public class GerritEventPublisherTest {
+
+    private static final int BUFFER_SIZE = 2;
+    private GerritHandler handler;
+    private List<GerritEvent> events;
+
+    /**
+     * Creates the handler and events.
+     */
+    @Before
+    public void setUp() {
+        handler = new GerritHandler();
+        events = new ArrayList<GerritEvent>();
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        for (int i = 0; i < 5; i++) {
+            events.add(new PatchsetCreated());
+        }
+    }
+
+    /**
+     * Tests that events are only passed on as far as requested, and that the buffer drops the oldest ones.
+     */
+    @Test
+    //CS IGNORE MagicNumber FOR NEXT 25 LINES. REASON: Test data.
+    public void testDemandAndDropOldest() {
+        GerritEventPublisher publisher = new GerritEventPublisher(handler, BUFFER_SIZE,
+                GerritEventPublisher.Overflow.DROP_OLDEST);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        assertEquals(1, handler.getEventListenersCount());
+        subscriber.subscription.request(1);
+        post(0, 1, 2, 3);
+        assertEquals(events.subList(0, 1), subscriber.received);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(3, subscriber.received.size());
+        assertSame(events.get(2), subscriber.received.get(1));
+        assertSame(events.get(3), subscriber.received.get(2));
+        assertEquals(1, publisher.getDroppedCount());
+        post(4);
+        assertEquals(4, subscriber.received.size());
+
+        publisher.close();
+        assertTrue(subscriber.completed);
+        assertEquals(0, handler.getEventListenersCount());
+    }
+
+    /**
+     * Tests that a full buffer with the error strategy ends the subscription after the buffered events,
+     * and that closing waits for the buffer to be requested.
+     */
+    @Test
+    //CS IGNORE MagicNumber FOR NEXT 25 LINES. REASON: Test data.
+    public void testErrorAndClose() {
+        GerritEventPublisher publisher = new GerritEventPublisher(handler, BUFFER_SIZE,
+                GerritEventPublisher.Overflow.ERROR);
+        RecordingSubscriber failing = new RecordingSubscriber();
+        publisher.subscribe(failing);
+        post(0, 1, 2);
+        assertEquals(0, handler.getEventListenersCount());
+        assertNull(failing.error);
+        failing.subscription.request(BUFFER_SIZE);
+        assertEquals(events.subList(0, 2), failing.received);
+        assertTrue(failing.error instanceof GerritEventPublisher.BufferOverflowException);
+
+        RecordingSubscriber closing = new RecordingSubscriber();
+        publisher.subscribe(closing);
+        post(3);
+        publisher.close();
+        assertFalse(closing.completed);
+        closing.subscription.request(1);
+        assertEquals(events.subList(3, 4), closing.received);
+        assertTrue(closing.completed);
+
+        RecordingSubscriber late = new RecordingSubscriber();
+        publisher.subscribe(late);
+        assertTrue(late.completed);
+    }
+
+    /**
+     * Tests that a cancelled subscriber gets nothing more and that requesting nothing is an error.
+     */
+    @Test
+    public void testCancelAndBadRequest() {
+        GerritEventPublisher publisher = new GerritEventPublisher(handler, BUFFER_SIZE,
+                GerritEventPublisher.Overflow.DROP_LATEST);
+        RecordingSubscriber cancelling = new RecordingSubscriber();
+        publisher.subscribe(cancelling);
+        cancelling.subscription.request(1);
+        cancelling.subscription.cancel();
+        post(0);
+        assertTrue(cancelling.received.isEmpty());
+        assertEquals(0, publisher.getSubscriberCount());
+
+        RecordingSubscriber bad = new RecordingSubscriber();
+        publisher.subscribe(bad);
+        post(1);
+        bad.subscription.request(0);
+        assertTrue(bad.error instanceof IllegalArgumentException);
+        assertTrue(bad.received.isEmpty());
+        assertEquals(0, handler.getEventListenersCount());
+    }
+
+    /**
+     * Notifies the handler's listeners about the events with the indexes.
+     *
+     * @param indexes the indexes.
+     */
+    private void post(int... indexes) {
+        for (int index : indexes) {
+            handler.notifyListeners(events.get(index));
+        }
+    }
+
+    /**
+     * Records the signals.
+     */
+    private static final class RecordingSubscriber implements Subscriber<GerritEvent> {
+        private final List<GerritEvent> received = new ArrayList<GerritEvent>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(GerritEvent event) {
+            received.add(event);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
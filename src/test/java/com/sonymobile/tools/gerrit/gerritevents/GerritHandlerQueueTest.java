@@ -3,9 +3,15 @@ package com.sonymobile.tools.gerrit.gerritevents;
 import static com.sonymobile.tools.gerrit.gerritevents.GerritDefaultValues.DEFAULT_NR_OF_RECEIVING_WORKER_THREADS;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertThat;
 
-
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
@@ -14,6 +20,8 @@ import org.junit.Test;
 
 import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
 import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefUpdated;
+import com.sonymobile.tools.gerrit.gerritevents.spool.EventRecord;
+import com.sonymobile.tools.gerrit.gerritevents.spool.EventSpool;
 
 //CS IGNORE MagicNumber FOR NEXT 600 LINES. REASON: Test data.
 
@@ -137,6 +145,125 @@ public class GerritHandlerQueueTest {
         assertThat(listener.maxParallel, equalTo(3));
     }
 
+    /**
+     * Lines posted while the work queue is over the high-water mark should go to the spool,
+     * and still reach the listener in the order they were posted.
+     *
+     * @throws Exception if occurred
+     */
+    @Test
+    public void testSpillToEventSpool() throws Exception {
+        handler = new GerritHandler(1);
+        File dir = Files.createTempDirectory("spool").toFile();
+        handler.setEventSpool(new EventSpool(dir), 2);
+        final List<String> received = new CopyOnWriteArrayList<String>();
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                received.add(((RefUpdated)event).getRefUpdate().getNewRev());
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            expected.add("rev" + i);
+            handler.post("{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"p\","
+                    + "\"refName\":\"refs/heads/master\",\"oldRev\":\"old\",\"newRev\":\"rev" + i + "\"}}");
+        }
+        assertThat(handler.getEventSpool().size(), greaterThan(0L));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (received.size() < expected.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(received, equalTo(expected));
+    }
+
+    /**
+     * Lines left in the spool by a handler that died, including ones it had taken out but not performed,
+     * should stay in the spool until the next handler drains it, and then reach its listener in order.
+     *
+     * @throws Exception if occurred
+     */
+    @Test
+    public void testEventSpoolAfterRestart() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        EventSpool spool = new EventSpool(dir);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            expected.add("rev" + i);
+            spool.append(new EventRecord("{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"p\","
+                    + "\"refName\":\"refs/heads/master\",\"oldRev\":\"old\",\"newRev\":\"rev" + i + "\"}}",
+                    null, System.currentTimeMillis()));
+        }
+        spool.poll();
+        spool.poll();
+        spool.close();
+
+        handler = new GerritHandler(1);
+        handler.setEventSpool(new EventSpool(dir), 2);
+        handler.post("{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"p\","
+                + "\"refName\":\"refs/heads/master\",\"oldRev\":\"old\",\"newRev\":\"rev5\"}}");
+        expected.add("rev5");
+        Thread.sleep(100);
+        assertThat(handler.getEventSpool().size(), equalTo(6L));
+        final List<String> received = new CopyOnWriteArrayList<String>();
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                received.add(((RefUpdated)event).getRefUpdate().getNewRev());
+            }
+        });
+        handler.drainEventSpool();
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((received.size() < expected.size() || handler.getEventSpool().getUnacknowledgedCount() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(received, equalTo(expected));
+        handler.shutdown(true);
+        handler = null;
+
+        spool = new EventSpool(dir);
+        assertThat(spool.size(), equalTo(0L));
+        spool.close();
+    }
+
+    /**
+     * Events from spooled lines should keep the time the line was received, not the time it left the spool.
+     *
+     * @throws Exception if occurred
+     */
+    @Test
+    public void testReceivedOnSurvivesSpool() throws Exception {
+        final long receivedOn = 1234567890L;
+        File dir = Files.createTempDirectory("spool").toFile();
+        EventSpool spool = new EventSpool(dir);
+        spool.append(new EventRecord("{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"p\","
+                + "\"refName\":\"refs/heads/master\",\"oldRev\":\"old\",\"newRev\":\"rev\"}}",
+                null, receivedOn));
+        spool.close();
+
+        handler = new GerritHandler(1);
+        handler.setEventSpool(new EventSpool(dir), 2);
+        final List<Long> received = new CopyOnWriteArrayList<Long>();
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                received.add(((RefUpdated)event).getReceivedOn());
+            }
+        });
+        handler.drainEventSpool();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(received, equalTo(Collections.singletonList(receivedOn)));
+    }
+
     /**
      * Wait that all events have been processed.
      *
@@ -291,6 +291,37 @@ public class GerritHandlerTest {
         assertEquals(null, handler.getIgnoreEMail(server));
     }
 
+    /**
+     * Tests that raw lines of unknown types and comments from ignored e-mails are filtered out before parsing.
+     * The project is in the test whitelist since other tests may have loaded it.
+     */
+    @Test
+    public void testIsWantedBeforeParsing() {
+        String server = "testserver";
+        handler.setIgnoreEMail(server, "ignore-mail.com");
+        Provider provider = new Provider();
+        provider.setName(server);
+        String comment = "{\"type\":\"comment-added\",\"change\":{\"project\":\"Foo/p\",\"number\":\"1\"},"
+                + "\"author\":{\"email\":\"%s\"}}";
+        assertFalse(handler.isWanted(String.format(comment, "e@ignore-mail.com"), provider));
+        assertTrue(handler.isWanted(String.format(comment, "e@mail.com"), provider));
+        assertTrue(handler.isWanted(String.format(comment, "e@ignore-mail.com"), null));
+        assertFalse(handler.isWanted("{\"type\":\"no-such-event\",\"project\":\"Foo/p\"}", provider));
+        assertTrue(handler.isWanted("{\"type\":\"ref-replicated\",\"project\":\"Foo/p\"}", provider));
+    }
+
+    /**
+     * Tests that a line the scanner can't make sense of is decided by parsing it,
+     * so a line that was cut short is not let through on what was scanned before the cut.
+     */
+    @Test
+    public void testIsWantedTruncatedLine() {
+        String line = "{\"type\":\"ref-replicated\",\"project\":\"Foo/p\",\"ref\":\"refs/heads/master\"}";
+        assertTrue(handler.isWanted(line, null));
+        assertFalse(handler.isWanted(line.substring(0, line.length() - 1), null));
+        assertFalse(handler.isWanted(line.substring(0, line.indexOf(",\"ref\"")), null));
+    }
+
     /**
      * Tests that CommentAdded events are ignored correctly.
      * @throws Exception if so.
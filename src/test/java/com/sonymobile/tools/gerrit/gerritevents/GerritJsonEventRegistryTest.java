@@ -0,0 +1,165 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritJsonEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.GerritTriggeredEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GerritJsonEventRegistry}.
+ */
+public class GerritJsonEventRegistryTest {
+
+    private static final String PLUGIN_TYPE = "plugin-checked";
+    //CS IGNORE LineLength FOR NEXT 2 LINES. REASON: Test data.
+    private static final String PLUGIN_LINE = "{\"type\":\"plugin-checked\",\"eventCreatedOn\":1400000000,"
+            + "\"provider\":{\"name\":\"gerrit1\",\"host\":\"gerrit.example.com\",\"port\":\"29418\"}}";
+
+    /**
+     * Removes the registrations made by the tests.
+     */
+    @After
+    public void tearDown() {
+        GerritJsonEventRegistry.unregister(PLUGIN_TYPE);
+        GerritJsonEventRegistry.unregister(GerritEventType.COMMENT_ADDED.getTypeValue());
+        GerritEventType.COMMENT_ADDED.setInteresting(true);
+    }
+
+    /**
+     * Tests that the built-in types are found by their type-value in any case.
+     */
+    @Test
+    public void testBuiltInTypes() {
+        for (GerritEventType type : GerritEventType.values()) {
+            assertSame(type, GerritEventType.findByTypeValue(type.getTypeValue()));
+            assertSame(type, GerritEventType.findByTypeValue(type.getTypeValue().toUpperCase()));
+            if (type.getEventRepresentative() != null) {
+                assertEquals(type.getEventRepresentative(),
+                        GerritJsonEventRegistry.create(type.getTypeValue()).getClass());
+            }
+        }
+        assertNull(GerritEventType.findByTypeValue("no-such-event"));
+        assertNull(GerritEventType.findByTypeValue(null));
+        assertNull(GerritJsonEventRegistry.create("no-such-event"));
+    }
+
+    /**
+     * Tests that built-in types are only created when they are interesting.
+     */
+    @Test
+    public void testUninterestingBuiltInType() {
+        assertTrue(GerritJsonEventRegistry.isInterestingAndUsable("comment-added"));
+        GerritEventType.COMMENT_ADDED.setInteresting(false);
+        assertFalse(GerritJsonEventRegistry.isInterestingAndUsable("comment-added"));
+        assertFalse(GerritJsonEventRegistry.isInterestingAndUsable(GerritEventType.COMMENT_ADDED));
+        assertNotNull(GerritJsonEventRegistry.create("comment-added"));
+    }
+
+    /**
+     * Tests that a plugin event type can be registered by class and is then parsed from stream-events lines.
+     */
+    @Test
+    public void testRegisterPluginClass() {
+        assertNull(GerritJsonEventFactory.getEventIfInteresting(PLUGIN_LINE));
+        GerritJsonEventRegistry.register(PLUGIN_TYPE, PluginChecked.class);
+        assertTrue(GerritJsonEventRegistry.isRegistered("Plugin-Checked"));
+
+        GerritJsonEvent event = GerritJsonEventFactory.getEventIfInteresting(PLUGIN_LINE);
+        assertTrue(event instanceof PluginChecked);
+        assertEquals("gerrit1", ((PluginChecked)event).getProvider().getName());
+        assertTrue(GerritJsonEventFactory.getEvent(GerritJsonEventFactory.getJsonObjectIfInterestingAndUsable(
+                PLUGIN_LINE)) instanceof PluginChecked);
+
+        assertTrue(GerritJsonEventRegistry.unregister(PLUGIN_TYPE));
+        assertFalse(GerritJsonEventRegistry.isRegistered(PLUGIN_TYPE));
+        assertFalse(GerritJsonEventRegistry.unregister(PLUGIN_TYPE));
+    }
+
+    /**
+     * Tests that a factory can replace the one of a built-in type, and that unregistering restores it.
+     */
+    @Test
+    public void testReplaceBuiltIn() {
+        GerritJsonEventRegistry.register("comment-added", new GerritJsonEventRegistry.EventCreator() {
+            @Override
+            public GerritJsonEvent create() {
+                return new PatchsetCreated();
+            }
+        });
+        assertTrue(GerritJsonEventRegistry.create("comment-added") instanceof PatchsetCreated);
+        GerritJsonEventRegistry.unregister("comment-added");
+        assertTrue(GerritJsonEventRegistry.create("comment-added") instanceof CommentAdded);
+    }
+
+    /**
+     * Tests that classes without a public no argument constructor are refused up front.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterWithoutConstructor() {
+        GerritJsonEventRegistry.register(PLUGIN_TYPE, NoConstructor.class);
+    }
+
+    /**
+     * An event sent by a plugin.
+     */
+    public static class PluginChecked extends GerritTriggeredEvent {
+
+        @Override
+        public GerritEventType getEventType() {
+            return null;
+        }
+
+        @Override
+        public boolean isScorable() {
+            return false;
+        }
+    }
+
+    /**
+     * An event that can't be created by the registry.
+     */
+    public static final class NoConstructor extends PluginChecked {
+
+        /**
+         * Constructor.
+         *
+         * @param name a name.
+         */
+        public NoConstructor(String name) {
+            super();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeMerged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ListenerDispatchTable}.
+ */
+public class ListenerDispatchTableTest {
+
+    /**
+     * Tests that the method for the event class is called, and the default method when there is none.
+     */
+    @Test
+    public void testDispatch() {
+        TypedListener listener = new TypedListener();
+        for (int i = 0; i < 2; i++) {
+            ListenerDispatchTable.dispatch(listener, new PatchsetCreated());
+            ListenerDispatchTable.dispatch(listener, new ChangeMerged());
+            ListenerDispatchTable.dispatch(listener, new CommentAdded());
+        }
+        assertEquals(2, listener.patchsetCreated);
+        assertEquals(2, listener.changeMerged);
+        assertEquals(2, listener.other);
+        assertFalse(ListenerDispatchTable.resolve(TypedListener.class, PatchsetCreated.class).isDefault());
+        assertTrue(ListenerDispatchTable.resolve(TypedListener.class, CommentAdded.class).isDefault());
+    }
+
+    /**
+     * Tests that the methods of listeners in classes that aren't public are called, like before the table.
+     */
+    @Test
+    public void testNotPublicListener() {
+        HiddenListener listener = new HiddenListener();
+        ListenerDispatchTable.dispatch(listener, new PatchsetCreated());
+        assertEquals(1, listener.patchsetCreated);
+        assertEquals(0, listener.other);
+    }
+
+    /**
+     * Tests that an exception from a method for a specific event is logged
+     * while one from the default method reaches the caller.
+     */
+    @Test
+    public void testExceptions() {
+        ThrowingListener listener = new ThrowingListener();
+        ListenerDispatchTable.dispatch(listener, new PatchsetCreated());
+        try {
+            ListenerDispatchTable.dispatch(listener, new ChangeMerged());
+            throw new AssertionError("Expected an exception from the default method");
+        } catch (IllegalStateException expected) {
+            assertEquals("default", expected.getMessage());
+        }
+    }
+
+    /**
+     * A listener with methods for some event classes.
+     */
+    public static class TypedListener implements GerritEventListener {
+        private int patchsetCreated;
+        private int changeMerged;
+        private int other;
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            other++;
+        }
+
+        /**
+         * Called for patchset-created events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(PatchsetCreated event) {
+            patchsetCreated++;
+        }
+
+        /**
+         * Called for change-merged events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(ChangeMerged event) {
+            changeMerged++;
+        }
+    }
+
+    /**
+     * A listener with a method for patchset-created in a class that isn't public.
+     */
+    private static class HiddenListener implements GerritEventListener {
+        private int patchsetCreated;
+        private int other;
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            other++;
+        }
+
+        /**
+         * Called for patchset-created events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(PatchsetCreated event) {
+            patchsetCreated++;
+        }
+    }
+
+    /**
+     * A listener that throws from all its methods.
+     */
+    public static class ThrowingListener implements GerritEventListener {
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            throw new IllegalStateException("default");
+        }
+
+        /**
+         * Called for patchset-created events.
+         *
+         * @param event the event.
+         */
+        public void gerritEvent(PatchsetCreated event) {
+            throw new IllegalStateException("specific");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ListenerFanOut} through {@link GerritHandler#setFanOut(ForkJoinPool, boolean)}.
+ */
+public class ListenerFanOutTest {
+
+    private static final int LISTENERS = 4;
+    private final ForkJoinPool pool = new ForkJoinPool(LISTENERS);
+
+    /**
+     * Stops the pool.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Tests that the listeners are called at the same time and that the join barrier waits for all of them,
+     * even when one of them throws.
+     */
+    @Test
+    public void testJoin() {
+        GerritHandler handler = new GerritHandler();
+        handler.setFanOut(pool, true);
+        assertSame(pool, handler.getFanOutPool());
+        assertTrue(handler.isFanOutJoin());
+        CountDownLatch together = new CountDownLatch(LISTENERS);
+        AtomicInteger done = new AtomicInteger();
+        for (int i = 0; i < LISTENERS; i++) {
+            handler.addListener(new MeetingListener(together, done, i == 0));
+        }
+        handler.notifyListeners(new PatchsetCreated());
+        assertEquals(0, together.getCount());
+        assertEquals(LISTENERS, done.get());
+        handler.setFanOut(null, true);
+        assertNull(handler.getFanOutPool());
+        assertFalse(pool.isShutdown());
+    }
+
+    /**
+     * Tests that without the join barrier the notifying thread goes on before the listeners are done.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testWithoutJoin() throws Exception {
+        GerritHandler handler = new GerritHandler();
+        handler.setFanOut(pool, false);
+        CountDownLatch release = new CountDownLatch(LISTENERS + 1);
+        AtomicInteger done = new AtomicInteger();
+        for (int i = 0; i < LISTENERS; i++) {
+            handler.addListener(new MeetingListener(release, done, false));
+        }
+        handler.notifyListeners(new PatchsetCreated());
+        assertEquals(0, done.get());
+        release.countDown();
+        assertTrue(pool.awaitQuiescence(1, TimeUnit.MINUTES));
+        assertEquals(LISTENERS, done.get());
+    }
+
+    /**
+     * Waits on a latch, so that all listeners have to be called at the same time to get past it.
+     */
+    private static final class MeetingListener implements GerritEventListener {
+        private final CountDownLatch latch;
+        private final AtomicInteger done;
+        private final boolean fail;
+
+        /**
+         * Constructor.
+         *
+         * @param latch the latch to count down and wait for.
+         * @param done counts the listeners that are done.
+         * @param fail if the listener should throw when done.
+         */
+        MeetingListener(CountDownLatch latch, AtomicInteger done, boolean fail) {
+            this.latch = latch;
+            this.done = done;
+            this.fail = fail;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            latch.countDown();
+            try {
+                latch.await(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("failing listener");
+            }
+        }
+    }
+}
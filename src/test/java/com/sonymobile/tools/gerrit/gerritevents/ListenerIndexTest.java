@@ -0,0 +1,230 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.RefUpdate;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeMerged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeBasedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefUpdated;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ListenerIndex} and {@link GerritEventSubscription}.
+ */
+public class ListenerIndexTest {
+
+    private final GerritEventListener all = new NamedListener("all");
+    private final GerritEventListener created = new NamedListener("created");
+    private final GerritEventListener fooMaster = new NamedListener("fooMaster");
+    private final GerritEventListener pattern = new NamedListener("pattern");
+    private final GerritEventListener anyType = new NamedListener("anyType");
+
+    /**
+     * Tests that only the listeners whose subscriptions match an event are found.
+     * The order of the subscribed listeners is not defined.
+     */
+    @Test
+    public void testGetListeners() {
+        ListenerIndex index = createIndex();
+        assertThat(index.getListeners(change(new PatchsetCreated(), "foo", "master")),
+                containsInAnyOrder(all, created, fooMaster, anyType));
+        assertThat(index.getListeners(change(new PatchsetCreated(), "foo", "dev")),
+                containsInAnyOrder(all, created, anyType));
+        assertThat(index.getListeners(change(new ChangeMerged(), "lib/a", "master")),
+                contains(all, pattern));
+        assertThat(index.getListeners(change(new ChangeMerged(), "bar", "master")),
+                contains(all));
+        assertThat(index.getListeners(refUpdated("foo", "refs/heads/master")),
+                containsInAnyOrder(all, fooMaster, anyType));
+        assertThat(index.getListeners(refUpdated("foo", "refs/meta/config")),
+                contains(all, anyType));
+        assertThat(index.getListeners(refUpdated("bar", "refs/heads/master")),
+                contains(all));
+    }
+
+    /**
+     * Tests that the listeners without subscriptions are not copied for every event
+     * when no subscription matches it.
+     */
+    @Test
+    public void testUnfilteredNotCopied() {
+        ListenerIndex index = new ListenerIndex();
+        index.put(all, null);
+        index.put(fooMaster, new GerritEventSubscription(GerritEventType.PATCHSET_CREATED).addProject("foo"));
+        List<GerritEventListener> first = index.getListeners(refUpdated("foo", "refs/heads/master"));
+        assertThat(first, contains(all));
+        assertSame(first, index.getListeners(change(new ChangeMerged(), "foo", "master")));
+        assertSame(first, index.getListeners(change(new PatchsetCreated(), "bar", "master")));
+        assertThat(index.getListeners(change(new PatchsetCreated(), "foo", "master")), contains(all, fooMaster));
+    }
+
+    /**
+     * Tests that removed listeners are not found and that adding a listener again replaces its subscription.
+     */
+    @Test
+    public void testRemoveAndReplace() {
+        ListenerIndex index = createIndex();
+        index.remove(all);
+        index.remove(anyType);
+        index.put(created, new GerritEventSubscription(GerritEventType.CHANGE_MERGED));
+        assertThat(index.getListeners(change(new PatchsetCreated(), "foo", "dev")), empty());
+        assertThat(index.getListeners(change(new ChangeMerged(), "foo", "dev")), contains(created));
+        index.clear();
+        assertThat(index.getListeners(change(new ChangeMerged(), "lib/a", "master")), empty());
+    }
+
+    /**
+     * Tests that the handler asks {@link GerritEventSubscriber}s for their subscriptions
+     * and only notifies them about matching events.
+     */
+    @Test
+    public void testSubscriberInHandler() {
+        GerritHandler handler = new GerritHandler();
+        CountingSubscriber subscriber = new CountingSubscriber(
+                new GerritEventSubscription(GerritEventType.PATCHSET_CREATED).addProject("foo"));
+        handler.addListener(subscriber);
+        handler.notifyListeners(change(new PatchsetCreated(), "foo", "master"));
+        handler.notifyListeners(change(new PatchsetCreated(), "bar", "master"));
+        handler.notifyListeners(change(new ChangeMerged(), "foo", "master"));
+        assertEquals(1, subscriber.count);
+        assertEquals(1, handler.getEventListenersCount());
+        handler.removeListener(subscriber);
+        handler.notifyListeners(change(new PatchsetCreated(), "foo", "master"));
+        assertEquals(1, subscriber.count);
+    }
+
+    /**
+     * Creates an index with the listeners of the test.
+     *
+     * @return the index.
+     */
+    private ListenerIndex createIndex() {
+        ListenerIndex index = new ListenerIndex();
+        index.put(all, null);
+        index.put(created, new GerritEventSubscription(GerritEventType.PATCHSET_CREATED));
+        index.put(fooMaster, new GerritEventSubscription(GerritEventType.PATCHSET_CREATED,
+                GerritEventType.REF_UPDATED).addProject("foo").addBranch("refs/heads/master"));
+        index.put(pattern, new GerritEventSubscription(GerritEventType.CHANGE_MERGED)
+                .addProjectPattern(Pattern.compile("lib/.*")));
+        index.put(anyType, new GerritEventSubscription().addProject("foo").addProject("baz"));
+        return index;
+    }
+
+    /**
+     * Sets the change of an event.
+     *
+     * @param event the event.
+     * @param project the project.
+     * @param branch the branch.
+     * @return the event.
+     */
+    private static GerritEvent change(ChangeBasedEvent event, String project, String branch) {
+        Change change = new Change();
+        change.setProject(project);
+        change.setBranch(branch);
+        event.setChange(change);
+        return event;
+    }
+
+    /**
+     * Creates a ref-updated event.
+     *
+     * @param project the project.
+     * @param ref the ref.
+     * @return the event.
+     */
+    private static GerritEvent refUpdated(String project, String ref) {
+        RefUpdated event = new RefUpdated();
+        RefUpdate refUpdate = new RefUpdate();
+        refUpdate.setProject(project);
+        refUpdate.setRefName(ref);
+        event.setRefUpdate(refUpdate);
+        return event;
+    }
+
+    /**
+     * A listener with a name to tell it apart in assertions.
+     */
+    private static final class NamedListener implements GerritEventListener {
+        private final String name;
+
+        /**
+         * Constructor.
+         *
+         * @param name the name.
+         */
+        NamedListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Counts the events it is notified about.
+     */
+    private static final class CountingSubscriber implements GerritEventSubscriber {
+        private final GerritEventSubscription subscription;
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param subscription the subscription.
+         */
+        CountingSubscriber(GerritEventSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public GerritEventSubscription getSubscription() {
+            return subscription;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ListenerIsolation}.
+ */
+public class ListenerIsolationTest {
+
+    private static final int WAIT_SECONDS = 10;
+    private static final int QUEUE_CAPACITY = 10;
+    private ListenerIsolation isolation;
+
+    /**
+     * Stops the threads of the test.
+     */
+    @After
+    public void tearDown() {
+        if (isolation != null) {
+            isolation.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a blocked listener neither holds up another listener nor the notifying thread,
+     * and that its events are dropped when its queue is full.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testBlockedListener() throws Exception {
+        //CS IGNORE MagicNumber FOR NEXT 19 LINES. REASON: Test data.
+        isolation = new ListenerIsolation(3, TimeUnit.MINUTES.toMillis(1), 0, 0);
+        GerritHandler handler = new GerritHandler();
+        handler.setListenerIsolation(isolation);
+        RecordingListener blocked = new RecordingListener(new CountDownLatch(1), 0);
+        RecordingListener fast = new RecordingListener(null, 0);
+        handler.addListener(blocked);
+        handler.addListener(fast);
+        for (int i = 0; i < 3; i++) {
+            handler.notifyListeners(new PatchsetCreated());
+        }
+        assertTrue(fast.await(3));
+        assertTrue(isolation.submit(blocked, new PatchsetCreated()));
+        assertFalse(isolation.submit(blocked, new PatchsetCreated()));
+        assertFalse(isolation.submit(blocked, new PatchsetCreated()));
+        assertEquals(2, isolation.getStatistics(blocked).getDropped());
+        assertEquals(0, isolation.getStatistics(fast).getDropped());
+        blocked.unblock.countDown();
+        assertTrue(blocked.await(4));
+        handler.shutdown(true);
+    }
+
+    /**
+     * Tests that a listener is quarantined after overrunning its budget too many times in a row,
+     * and gets events again when released.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testQuarantine() throws Exception {
+        isolation = new ListenerIsolation(QUEUE_CAPACITY, 1, 2, 0);
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        RecordingListener slow = new RecordingListener(null, 20);
+        assertTrue(isolation.submit(slow, new PatchsetCreated()));
+        assertTrue(isolation.submit(slow, new PatchsetCreated()));
+        assertTrue(slow.await(2));
+        waitFor(slow, true);
+        assertFalse(isolation.submit(slow, new PatchsetCreated()));
+        ListenerIsolation.Statistics statistics = isolation.getStatistics(slow);
+        assertEquals(2, statistics.getDelivered());
+        assertEquals(2, statistics.getOverruns());
+        assertEquals(1, statistics.getDropped());
+
+        isolation.release(slow);
+        assertFalse(isolation.isQuarantined(slow));
+        assertTrue(isolation.submit(slow, new PatchsetCreated()));
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        assertTrue(slow.await(3));
+    }
+
+    /**
+     * Tests that a listener stuck in a call is counted as overrun and quarantined by the watchdog
+     * without having to return first, and that the call isn't counted again when it does return.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testStuckListener() throws Exception {
+        //CS IGNORE MagicNumber FOR NEXT 1 LINES. REASON: Test data.
+        isolation = new ListenerIsolation(QUEUE_CAPACITY, 50, 1, 0);
+        RecordingListener stuck = new RecordingListener(new CountDownLatch(1), 0);
+        assertTrue(isolation.submit(stuck, new PatchsetCreated()));
+        waitFor(stuck, true);
+        assertFalse(isolation.submit(stuck, new PatchsetCreated()));
+        assertEquals(1, isolation.getStatistics(stuck).getOverruns());
+        stuck.unblock.countDown();
+        assertTrue(stuck.await(1));
+        isolation.release(stuck);
+        assertEquals(1, isolation.getStatistics(stuck).getOverruns());
+    }
+
+    /**
+     * Tests that a listener with a time budget of its own is held to that budget instead of the default one.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testTimeBudgetPerListener() throws Exception {
+        isolation = new ListenerIsolation(QUEUE_CAPACITY, 1, 0, 0);
+        //CS IGNORE MagicNumber FOR NEXT 3 LINES. REASON: Test data.
+        RecordingListener patient = new RecordingListener(null, 20);
+        RecordingListener strict = new RecordingListener(null, 20);
+        isolation.setTimeBudget(patient, TimeUnit.MINUTES.toMillis(1));
+        isolation.submit(patient, new PatchsetCreated());
+        isolation.submit(strict, new PatchsetCreated());
+        assertTrue(patient.await(1));
+        assertTrue(strict.await(1));
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+        while (isolation.getStatistics(strict).getOverruns() == 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, isolation.getStatistics(strict).getOverruns());
+        assertEquals(0, isolation.getStatistics(patient).getOverruns());
+    }
+
+    /**
+     * Tests that the listeners of a group share a thread and are called in order.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testGroup() throws Exception {
+        isolation = new ListenerIsolation(QUEUE_CAPACITY, TimeUnit.MINUTES.toMillis(1), 0, 0);
+        RecordingListener first = new RecordingListener(null, 0);
+        RecordingListener second = new RecordingListener(null, 0);
+        isolation.setGroup(first, "group");
+        isolation.setGroup(second, "group");
+        isolation.submit(first, new PatchsetCreated());
+        isolation.submit(second, new PatchsetCreated());
+        assertTrue(first.await(1));
+        assertTrue(second.await(1));
+        assertEquals(first.threads, second.threads);
+        assertNotEquals(Thread.currentThread().getName(), first.threads.get(0));
+        assertEquals(2, isolation.getStatistics(first).getDelivered());
+    }
+
+    /**
+     * Waits for the quarantine of a listener to start.
+     *
+     * @param listener the listener.
+     * @param quarantined the state to wait for.
+     * @throws InterruptedException if so.
+     */
+    private void waitFor(GerritEventListener listener, boolean quarantined) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+        while (isolation.isQuarantined(listener) != quarantined && System.currentTimeMillis() < end) {
+            Thread.sleep(1);
+        }
+        assertEquals(quarantined, isolation.isQuarantined(listener));
+    }
+
+    /**
+     * Records the threads it is called on, and can block or be slow.
+     */
+    private static final class RecordingListener implements GerritEventListener {
+        private final CountDownLatch unblock;
+        private final long sleepMillis;
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * Constructor.
+         *
+         * @param unblock what to wait for before returning, or null.
+         * @param sleepMillis how long to sleep for each event.
+         */
+        RecordingListener(CountDownLatch unblock, long sleepMillis) {
+            this.unblock = unblock;
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            try {
+                if (unblock != null) {
+                    unblock.await();
+                }
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                threads.add(Thread.currentThread().getName());
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits for the listener to have got a number of events.
+         *
+         * @param count the number of events.
+         * @return true if it got them in time.
+         * @throws InterruptedException if so.
+         */
+        synchronized boolean await(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+            while (threads.size() < count && System.currentTimeMillis() < end) {
+                wait(end - System.currentTimeMillis());
+            }
+            return threads.size() >= count;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Change;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.PatchSet;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeBasedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+//CS IGNORE MagicNumber FOR NEXT 200 LINES. REASON: Test data.
+
+/**
+ * Tests for {@link OrderedDispatcher}.
+ */
+public class OrderedDispatcherTest {
+
+    private GerritHandler handler;
+
+    /**
+     * Shuts down the handler.
+     */
+    @After
+    public void shutDown() {
+        if (handler != null) {
+            handler.shutdown(true);
+        }
+        handler = null;
+    }
+
+    /**
+     * Tests that the partition key is found in raw stream-events lines.
+     */
+    @Test
+    public void testPartitionKeyOfLine() {
+        assertThat(OrderedDispatcher.getPartitionKey(
+                "{\"type\":\"patchset-created\",\"change\":{\"project\":\"p\",\"number\":\"42\"},"
+                        + "\"patchSet\":{\"number\":\"3\"}}"), equalTo("change:42"));
+        assertThat(OrderedDispatcher.getPartitionKey(
+                "{\"type\":\"change-merged\",\"change\": {\"project\":\"p\", \"number\": 7}}"), equalTo("change:7"));
+        assertThat(OrderedDispatcher.getPartitionKey(
+                "{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"a/b\",\"refName\":\"master\"}}"),
+                equalTo("project:a/b"));
+        assertThat(OrderedDispatcher.getPartitionKey("{\"type\":\"ref-replicated\",\"ref\":\"refs/heads/x\"}"),
+                equalTo("ref:refs/heads/x"));
+        assertThat(OrderedDispatcher.getPartitionKey("{\"type\":\"dropped-output\"}"), nullValue());
+    }
+
+    /**
+     * Tests that events about the same change are performed in the order they were posted
+     * even though there are several worker threads.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testOrderKeptPerChange() throws Exception {
+        final int changes = 4;
+        final int perChange = 50;
+        handler = new GerritHandler(8);
+        handler.setOrderedDispatch(true);
+        RecordingListener listener = new RecordingListener(changes * perChange, 1);
+        handler.addListener(listener);
+        for (int i = 0; i < perChange; i++) {
+            for (int c = 0; c < changes; c++) {
+                handler.post(createEvent(c, i));
+            }
+        }
+        assertTrue(listener.await(30));
+        for (int c = 0; c < changes; c++) {
+            List<Integer> received = listener.getReceived(String.valueOf(c));
+            assertThat(received.size(), equalTo(perChange));
+            for (int i = 0; i < perChange; i++) {
+                assertThat(received.get(i), equalTo(i));
+            }
+        }
+        assertTrue(listener.getMaxParallel() > 1);
+    }
+
+    /**
+     * Creates a patchset-created event.
+     *
+     * @param change the change number.
+     * @param patchSet the patch set number.
+     * @return the event.
+     */
+    private static GerritEvent createEvent(int change, int patchSet) {
+        PatchsetCreated event = new PatchsetCreated();
+        Change c = new Change();
+        c.setNumber(String.valueOf(change));
+        c.setProject("project");
+        event.setChange(c);
+        PatchSet p = new PatchSet();
+        p.setNumber(String.valueOf(patchSet));
+        event.setPatchset(p);
+        return event;
+    }
+
+    /**
+     * Records the patch set numbers received per change.
+     */
+    static class RecordingListener implements GerritEventListener {
+        private final Map<String, List<Integer>> received = new HashMap<String, List<Integer>>();
+        private final CountDownLatch latch;
+        private final long sleepMillis;
+        private int parallel = 0;
+        private int maxParallel = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param expected the number of events to wait for.
+         * @param sleepMillis how long each event takes.
+         */
+        RecordingListener(int expected, long sleepMillis) {
+            this.latch = new CountDownLatch(expected);
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            ChangeBasedEvent changeEvent = (ChangeBasedEvent)event;
+            synchronized (this) {
+                parallel++;
+                maxParallel = Math.max(maxParallel, parallel);
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                parallel--;
+                String number = changeEvent.getChange().getNumber();
+                List<Integer> list = received.get(number);
+                if (list == null) {
+                    list = new ArrayList<Integer>();
+                    received.put(number, list);
+                }
+                list.add(Integer.valueOf(changeEvent.getPatchSet().getNumber()));
+            }
+            latch.countDown();
+        }
+
+        /**
+         * Waits for all expected events.
+         *
+         * @param seconds max time to wait.
+         * @return true if all events were received.
+         * @throws InterruptedException if interrupted.
+         */
+        boolean await(int seconds) throws InterruptedException {
+            return latch.await(seconds, TimeUnit.SECONDS);
+        }
+
+        /**
+         * The patch set numbers received for a change.
+         *
+         * @param change the change number.
+         * @return the patch set numbers in the order received.
+         */
+        synchronized List<Integer> getReceived(String change) {
+            return new ArrayList<Integer>(received.get(change));
+        }
+
+        /**
+         * The highest number of events performed at the same time.
+         *
+         * @return max parallel.
+         */
+        synchronized int getMaxParallel() {
+            return maxParallel;
+        }
+    }
+}
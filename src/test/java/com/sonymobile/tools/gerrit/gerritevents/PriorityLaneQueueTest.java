@@ -0,0 +1,271 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritHandler.EventWorker;
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority;
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority.Priority;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefReplicated;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.TopicChanged;
+import com.sonymobile.tools.gerrit.gerritevents.workers.GerritEventWork;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PriorityLaneQueue}.
+ */
+//CS IGNORE MagicNumber FOR NEXT 200 LINES. REASON: test data.
+public class PriorityLaneQueueTest {
+
+    private final GerritHandler handler = new GerritHandler();
+
+    /**
+     * Shuts down the handler.
+     */
+    @After
+    public void tearDown() {
+        handler.shutdown(false);
+    }
+
+    /**
+     * A task like the ones the handler queues.
+     *
+     * @param event the event of the task.
+     * @return the task.
+     */
+    private EventWorker task(GerritEvent event) {
+        return new EventWorker(new GerritEventWork(event), handler, null, null, null);
+    }
+
+    /**
+     * The priority of the event of a task.
+     *
+     * @param task the task.
+     * @return the priority.
+     */
+    private static Priority priorityOf(Runnable task) {
+        return DropByPriority.getDefaultPriorities().get(
+                ((GerritEventWork)((EventWorker)task).getWork()).getEvent().getEventType());
+    }
+
+    /**
+     * Tests that the weights are parsed the same whatever the default locale is.
+     */
+    @Test
+    public void testParseWeightsInTurkish() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(Integer.valueOf(5), PriorityLaneQueue.parseWeights("high=5").get(Priority.HIGH));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Tests that the lanes are served by weight, and that a flood in the low lane doesn't hold up the others.
+     */
+    @Test
+    public void testWeightedFair() {
+        Map<Priority, Integer> weights = PriorityLaneQueue.parseWeights("high=2, normal=1");
+        assertEquals(Integer.valueOf(1), weights.get(Priority.LOW));
+        PriorityLaneQueue queue = new PriorityLaneQueue(0, DropByPriority.getDefaultPriorities(), weights);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(task(new RefReplicated()));
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.offer(task(new CommentAdded()));
+        }
+        queue.offer(task(new TopicChanged()));
+        List<Priority> order = new ArrayList<Priority>();
+        Runnable next = queue.poll();
+        while (next != null) {
+            order.add(priorityOf(next));
+            next = queue.poll();
+        }
+        assertEquals(15, order.size());
+        assertEquals(Priority.HIGH, order.get(0));
+        assertEquals(Priority.HIGH, order.get(1));
+        assertEquals(Priority.NORMAL, order.get(2));
+        assertEquals(Priority.LOW, order.get(3));
+        assertEquals(Priority.HIGH, order.get(4));
+        assertEquals(Priority.HIGH, order.get(5));
+        for (int i = 6; i < order.size(); i++) {
+            assertEquals(Priority.LOW, order.get(i));
+        }
+        PriorityLaneQueue.LaneStatistics low = queue.getStatistics(Priority.LOW);
+        assertEquals(10, low.getEnqueued());
+        assertEquals(10, low.getDequeued());
+        assertEquals(0, low.getDepth());
+        assertEquals(1, low.getWeight());
+        assertEquals(2, queue.getStatistics(Priority.HIGH).getWeight());
+    }
+
+    /**
+     * Tests the capacity, removal, iteration and the statistics of the lanes.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testCapacityAndStatistics() throws Exception {
+        PriorityLaneQueue queue = new PriorityLaneQueue(3);
+        Runnable replicated = task(new RefReplicated());
+        Runnable comment = task(new CommentAdded());
+        Runnable other = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        assertTrue(queue.offer(replicated));
+        assertTrue(queue.offer(comment));
+        assertTrue(queue.offer(other));
+        assertFalse(queue.offer(task(new CommentAdded())));
+        assertFalse(queue.offer(task(new CommentAdded()), 10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.remainingCapacity());
+        Iterator<Runnable> it = queue.iterator();
+        assertSame(comment, it.next());
+        assertSame(other, it.next());
+        assertSame(replicated, it.next());
+        it.remove();
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getStatistics(Priority.LOW).getRemoved());
+        assertEquals(1, queue.getStatistics(Priority.NORMAL).getDepth());
+        Thread.sleep(20);
+        assertSame(comment, queue.take());
+        assertTrue(queue.getStatistics(Priority.HIGH).getMaxWaitMillis() >= 20);
+        List<Runnable> drained = new ArrayList<Runnable>();
+        assertEquals(1, queue.drainTo(drained));
+        assertSame(other, drained.get(0));
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that the shedding policies take the oldest task of the lowest lane,
+     * not the next one by the weighted-fair schedule, and count it as removed.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testShedLowest() throws Exception {
+        PriorityLaneQueue queue = new PriorityLaneQueue(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+                new ReceiveQueueOverflowPolicy.DropOldest());
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Runnable comment = task(new CommentAdded());
+            Runnable replicated1 = task(new RefReplicated());
+            Runnable replicated2 = task(new RefReplicated());
+            Runnable topic = task(new TopicChanged());
+            executor.execute(comment);
+            executor.execute(replicated1);
+            executor.execute(replicated2);
+            executor.execute(topic);
+            Iterator<Runnable> it = queue.iterator();
+            assertSame(comment, it.next());
+            assertSame(topic, it.next());
+            assertSame(replicated2, it.next());
+            assertEquals(1, queue.getStatistics(Priority.LOW).getRemoved());
+            assertEquals(0, queue.getStatistics(Priority.HIGH).getDequeued());
+
+            executor.setRejectedExecutionHandler(new ReceiveQueueOverflowPolicy.DropByPriority());
+            Runnable replicated3 = task(new RefReplicated());
+            executor.execute(replicated3);
+            assertEquals(3, queue.size());
+            assertFalse(queue.contains(replicated3));
+            Runnable comment2 = task(new CommentAdded());
+            executor.execute(comment2);
+            assertTrue(queue.contains(comment2));
+            assertFalse(queue.contains(replicated2));
+            assertEquals(2, queue.getStatistics(Priority.LOW).getRemoved());
+            assertNull(queue.pollLowerThan(Priority.NORMAL));
+            assertSame(topic, queue.pollLowest());
+            assertSame(comment, queue.pollLowerThan(null));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that a handler can use the lanes as its receive queue.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testHandlerWithLanes() throws Exception {
+        GerritHandler lanesHandler = new GerritHandler(1) {
+            @Override
+            protected BlockingQueue<Runnable> createReceiveQueue() {
+                return new PriorityLaneQueue(0);
+            }
+        };
+        try {
+            PriorityLaneQueue lanes = lanesHandler.getPriorityLanes();
+            assertNotNull(lanes);
+            final CountDownLatch received = new CountDownLatch(2);
+            lanesHandler.addListener(new GerritEventListener() {
+                @Override
+                public void gerritEvent(GerritEvent event) {
+                    received.countDown();
+                }
+            });
+            lanesHandler.post(new CommentAdded());
+            lanesHandler.post(new RefReplicated());
+            assertTrue(received.await(1, TimeUnit.MINUTES));
+            assertEquals(1, lanes.getStatistics(Priority.HIGH).getDequeued());
+            assertEquals(1, lanes.getStatistics(Priority.LOW).getDequeued());
+            assertNull(handler.getPriorityLanes());
+        } finally {
+            lanesHandler.shutdown(false);
+        }
+    }
+}
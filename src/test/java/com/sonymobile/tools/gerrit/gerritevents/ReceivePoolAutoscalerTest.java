@@ -0,0 +1,251 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.ReceivePoolAutoscaler.Decision;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ReceivePoolAutoscaler}.
+ */
+//CS IGNORE MagicNumber FOR NEXT 300 LINES. REASON: test data.
+public class ReceivePoolAutoscalerTest {
+
+    private static final long TARGET_WAIT_MILLIS = 10;
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private GerritHandler handler;
+
+    /**
+     * Shuts down the handler.
+     */
+    @After
+    public void tearDown() {
+        if (handler != null) {
+            handler.shutdown(false);
+        }
+    }
+
+    /**
+     * Tests that the pool grows when work waits longer than the target, up to the max.
+     */
+    @Test
+    public void testGrowsWhenWorkWaits() {
+        handler = new GerritHandler(2);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 8, TARGET_WAIT_MILLIS, NEVER);
+        handler.setAutoscaler(scaler);
+        assertSame(scaler, handler.getAutoscaler());
+        scaler.recordWait(TimeUnit.MILLISECONDS.toNanos(50));
+        scaler.recordService(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        assertEquals(3, handler.getNumberOfWorkerThreads());
+        assertEquals(50, scaler.getLastQueueWaitMillis());
+        assertEquals(1, scaler.getLastServiceTimeMillis());
+        for (int i = 0; i < 5; i++) {
+            scaler.recordWait(TimeUnit.MILLISECONDS.toNanos(50));
+            scaler.adjust(INTERVAL_NANOS);
+        }
+        assertEquals(8, handler.getNumberOfWorkerThreads());
+        assertEquals(Decision.HOLD, scaler.getLastDecision());
+        assertEquals(4, scaler.getGrowCount());
+    }
+
+    /**
+     * Tests that the pool only shrinks after enough quiet intervals in a row, and not below the min.
+     */
+    @Test
+    public void testShrinksAfterQuietIntervals() {
+        handler = new GerritHandler(4);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(3, 8, TARGET_WAIT_MILLIS, NEVER).setShrinkAfter(2);
+        handler.setAutoscaler(scaler);
+        assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        scaler.recordWait(TimeUnit.MILLISECONDS.toNanos(5));
+        assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        assertEquals(Decision.SHRINK, scaler.adjust(INTERVAL_NANOS));
+        assertEquals(3, handler.getNumberOfWorkerThreads());
+        scaler.adjust(INTERVAL_NANOS);
+        scaler.adjust(INTERVAL_NANOS);
+        scaler.adjust(INTERVAL_NANOS);
+        assertEquals(3, handler.getNumberOfWorkerThreads());
+        assertEquals(1, scaler.getShrinkCount());
+    }
+
+    /**
+     * Tests that busy threads keep the pool from shrinking even when nothing waits.
+     */
+    @Test
+    public void testBusyPoolDoesNotShrink() {
+        handler = new GerritHandler(2);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 8, TARGET_WAIT_MILLIS, NEVER).setShrinkAfter(1);
+        handler.setAutoscaler(scaler);
+        for (int i = 0; i < 3; i++) {
+            scaler.recordService(INTERVAL_NANOS);
+            assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        }
+        assertEquals(0.5, scaler.getLastUtilization(), 0.01);
+        assertEquals(2, handler.getNumberOfWorkerThreads());
+    }
+
+    /**
+     * Tests that a pool where every thread is stuck in a listener grows instead of shrinking,
+     * even though no work completes during the interval.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 60000)
+    public void testStuckPoolGrows() throws Exception {
+        handler = new GerritHandler(2);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 8, TARGET_WAIT_MILLIS, NEVER).setShrinkAfter(1);
+        handler.setAutoscaler(scaler);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 10; i++) {
+                handler.post(new PatchsetCreated());
+            }
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            Thread.sleep(50);
+            assertEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+            assertEquals(3, handler.getNumberOfWorkerThreads());
+            assertEquals(1.0, scaler.getLastUtilization(), 0.01);
+            assertTrue(scaler.getLastServiceTimeMillis() >= 50);
+            assertTrue(scaler.getLastQueueWaitMillis() > TARGET_WAIT_MILLIS);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Tests that the work in flight is measured consistently while workers start and end it,
+     * so no interval sees a negative or huge service time.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 60000)
+    public void testMeasureWhileWorkStartsAndEnds() throws Exception {
+        handler = new GerritHandler(2);
+        final ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 8, TARGET_WAIT_MILLIS, NEVER);
+        handler.setAutoscaler(scaler);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] workers = new Thread[2];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (running.get()) {
+                        scaler.recordEnd(scaler.recordStart(System.nanoTime()));
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        try {
+            for (int i = 0; i < 10000; i++) {
+                assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+                assertTrue(scaler.getLastServiceTimeMillis() >= 0);
+                assertTrue(scaler.getLastServiceTimeMillis() < 1000);
+                assertTrue(scaler.getLastUtilization() <= 1.0);
+            }
+        } finally {
+            running.set(false);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        assertEquals(0, scaler.getGrowCount());
+    }
+
+    /**
+     * Tests that the pool is brought within the bounds when autoscaling starts, and that stopping it
+     * keeps the size.
+     */
+    @Test
+    public void testBoundsAtStart() {
+        handler = new GerritHandler(20);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 4, TARGET_WAIT_MILLIS, NEVER);
+        handler.setAutoscaler(scaler);
+        assertEquals(4, handler.getNumberOfWorkerThreads());
+        handler.setAutoscaler(null);
+        assertNull(handler.getAutoscaler());
+        scaler.recordWait(TimeUnit.SECONDS.toNanos(1));
+        assertNotEquals(Decision.GROW, scaler.adjust(INTERVAL_NANOS));
+        assertEquals(4, handler.getNumberOfWorkerThreads());
+    }
+
+    /**
+     * Tests that the handler measures the queue wait and the service time of its work.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testMeasuresHandlerWork() throws Exception {
+        handler = new GerritHandler(1);
+        ReceivePoolAutoscaler scaler = new ReceivePoolAutoscaler(1, 1, TARGET_WAIT_MILLIS, NEVER);
+        handler.setAutoscaler(scaler);
+        final CountDownLatch done = new CountDownLatch(3);
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            handler.post(new PatchsetCreated());
+        }
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        Thread.sleep(100);
+        scaler.adjust(INTERVAL_NANOS);
+        assertTrue(scaler.getLastServiceTimeMillis() >= 20);
+        assertTrue(scaler.getLastQueueWaitMillis() >= 20);
+    }
+}
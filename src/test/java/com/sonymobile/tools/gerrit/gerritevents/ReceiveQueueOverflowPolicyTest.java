@@ -0,0 +1,292 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import com.sonymobile.tools.gerrit.gerritevents.ReceiveQueueOverflowPolicy.DropByPriority.Priority;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefUpdated;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ReviewerAdded;
+import com.sonymobile.tools.gerrit.gerritevents.workers.GerritEventWork;
+import com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsStringWork;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ReceiveQueueOverflowPolicy}.
+ */
+public class ReceiveQueueOverflowPolicyTest {
+
+    private static final int KEEP_ALIVE = 60;
+    private static final int WAIT_SECONDS = 10;
+    private static final long MAX_AGE = 200;
+    private static final long POLL_INTERVAL = 10;
+
+    private GerritHandler handler;
+    private BlockingListener listener = new BlockingListener();
+
+    /**
+     * Shuts down the GerritHandler.
+     */
+    @After
+    public void shutDown() {
+        listener.release.countDown();
+        if (handler != null) {
+            handler.shutdown(true);
+        }
+    }
+
+    /**
+     * Creates the handler with one worker thread and blocks that thread with a first event.
+     *
+     * @param capacity the queue capacity.
+     * @param policy the policy.
+     * @throws Exception if so.
+     */
+    private void startBlockedHandler(int capacity, ReceiveQueueOverflowPolicy policy) throws Exception {
+        handler = new GerritHandler(1, KEEP_ALIVE, capacity, policy);
+        handler.addListener(listener);
+        handler.post(new PatchsetCreated());
+        assertTrue(listener.started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Releases the listener and waits for the queue to be drained.
+     *
+     * @throws Exception if so.
+     */
+    private void releaseAndWait() throws Exception {
+        listener.release.countDown();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+        while ((handler.getQueueSize() > 0 || handler.getWorkQueue().size() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+        handler.shutdown(true);
+        handler = null;
+    }
+
+    /**
+     * Tests {@link ReceiveQueueOverflowPolicy.DropOldest}.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testDropOldest() throws Exception {
+        ReceiveQueueOverflowPolicy policy = new ReceiveQueueOverflowPolicy.DropOldest();
+        startBlockedHandler(2, policy);
+        GerritEvent dropped = new RefUpdated();
+        GerritEvent kept1 = new ReviewerAdded();
+        GerritEvent kept2 = new RefUpdated();
+        handler.post(dropped);
+        handler.post(kept1);
+        handler.post(kept2);
+        releaseAndWait();
+
+        assertEquals(Arrays.asList(kept1, kept2), listener.events.subList(1, listener.events.size()));
+        assertEquals(1, policy.getShedCount());
+        assertEquals(1, policy.getShedCount(GerritEventType.REF_UPDATED));
+    }
+
+    /**
+     * Tests {@link ReceiveQueueOverflowPolicy.DropByPriority}.
+     * A low priority event is shed to make room for a high one,
+     * and a new low priority event is shed when there is nothing lower in the queue.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testDropByPriority() throws Exception {
+        ReceiveQueueOverflowPolicy policy = new ReceiveQueueOverflowPolicy.DropByPriority();
+        startBlockedHandler(2, policy);
+        GerritEvent low = new ReviewerAdded();
+        GerritEvent high1 = new PatchsetCreated();
+        GerritEvent high2 = new RefUpdated();
+        handler.post(low);
+        handler.post(high1);
+        handler.post(high2);
+        handler.post(new ReviewerAdded());
+        releaseAndWait();
+
+        assertEquals(Arrays.asList(high1, high2), listener.events.subList(1, listener.events.size()));
+        assertEquals(2, policy.getShedCount());
+        assertEquals(2, policy.getShedCount(GerritEventType.REVIEWER_ADDED));
+    }
+
+    /**
+     * Tests {@link ReceiveQueueOverflowPolicy.Block}.
+     * The posting thread should wait until there is room, and nothing should be shed.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testBlock() throws Exception {
+        ReceiveQueueOverflowPolicy.Block policy = new ReceiveQueueOverflowPolicy.Block();
+        startBlockedHandler(1, policy);
+        final GerritEvent queued = new RefUpdated();
+        final GerritEvent blocked = new ReviewerAdded();
+        handler.post(queued);
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                handler.post(blocked);
+            }
+        });
+        poster.start();
+        poster.join(MAX_AGE);
+        assertTrue(poster.isAlive());
+        listener.release.countDown();
+        poster.join(TimeUnit.SECONDS.toMillis(WAIT_SECONDS));
+        assertFalse(poster.isAlive());
+        releaseAndWait();
+
+        assertEquals(Arrays.asList(queued, blocked), listener.events.subList(1, listener.events.size()));
+        assertEquals(0, policy.getShedCount());
+        assertEquals(1, policy.getBlockedCount());
+    }
+
+    /**
+     * Tests {@link ReceiveQueueOverflowPolicy.MaxAge}.
+     * Expired work is purged from a full queue to make room for new work.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testMaxAge() throws Exception {
+        ReceiveQueueOverflowPolicy policy = new ReceiveQueueOverflowPolicy.MaxAge(MAX_AGE);
+        startBlockedHandler(1, policy);
+        handler.post("{\"type\":\"patchset-created\"}");
+        Thread.sleep(MAX_AGE * 2);
+        handler.post("{\"type\":\"ref-updated\"}");
+        assertEquals(1, handler.getQueueSize());
+        releaseAndWait();
+
+        assertEquals(1, policy.getShedCount());
+        assertEquals(1, policy.getShedCount(GerritEventType.PATCHSET_CREATED));
+        assertEquals(0, policy.getShedCount(GerritEventType.REF_UPDATED));
+    }
+
+    /**
+     * Tests that {@link ReceiveQueueOverflowPolicy.MaxAge} sheds the new work right away
+     * when nothing in the full queue has expired, instead of making the posting thread wait.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testMaxAgeDoesNotWait() throws Exception {
+        ReceiveQueueOverflowPolicy policy = new ReceiveQueueOverflowPolicy.MaxAge(TimeUnit.MINUTES.toMillis(1));
+        startBlockedHandler(1, policy);
+        handler.post("{\"type\":\"patchset-created\"}");
+        long start = System.currentTimeMillis();
+        handler.post("{\"type\":\"ref-updated\"}");
+        assertTrue(System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(WAIT_SECONDS));
+        assertEquals(1, handler.getQueueSize());
+        releaseAndWait();
+
+        assertEquals(1, policy.getShedCount());
+        assertEquals(0, policy.getShedCount(GerritEventType.PATCHSET_CREATED));
+        assertEquals(1, policy.getShedCount(GerritEventType.REF_UPDATED));
+    }
+
+    /**
+     * Tests {@link ReceiveQueueOverflowPolicy.MaxAge#isExpired(com.sonymobile.tools.gerrit.gerritevents.workers.Work)}.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testMaxAgeIsExpired() throws Exception {
+        ReceiveQueueOverflowPolicy policy = new ReceiveQueueOverflowPolicy.MaxAge(MAX_AGE);
+        StreamEventsStringWork work = new StreamEventsStringWork("{\"type\":\"patchset-created\"}");
+        GerritEventWork internal = new GerritEventWork(new PatchsetCreated());
+        assertFalse(policy.isExpired(work));
+        Thread.sleep(MAX_AGE * 2);
+        assertTrue(policy.isExpired(work));
+        assertFalse(policy.isExpired(internal));
+    }
+
+    /**
+     * Tests that the priority of queued work is worked out once, not every time the queue overflows.
+     */
+    @Test
+    public void testPriorityIsWorkedOutOnce() {
+        ReceiveQueueOverflowPolicy.DropByPriority policy = new ReceiveQueueOverflowPolicy.DropByPriority();
+        StreamEventsStringWork work = mock(StreamEventsStringWork.class);
+        when(work.getLine()).thenReturn("{\"type\":\"patchset-created\"}");
+        GerritHandler.EventWorker worker = new GerritHandler.EventWorker(work, new GerritHandler(), policy, null, null);
+
+        assertEquals(Priority.HIGH, policy.getPriority(worker));
+        assertEquals(Priority.HIGH, policy.getPriority(worker));
+        assertEquals(Priority.HIGH,
+                worker.getPriority(ReceiveQueueOverflowPolicy.DropByPriority.getDefaultPriorities()));
+        verify(work, times(1)).getLine();
+    }
+
+    /**
+     * Tests {@link GerritJsonEventFactory#peekEventType(String)} with type properties in nested objects.
+     */
+    @Test
+    public void testPeekEventType() {
+        assertEquals(GerritEventType.COMMENT_ADDED, GerritJsonEventFactory.peekEventType(
+                "{\"approvals\":[{\"type\":\"Code-Review\",\"value\":\"1\"}],\"type\" : \"comment-added\"}"));
+        assertNull(GerritJsonEventFactory.peekEventType("{\"type\":\"Code-Review\"}"));
+        assertNull(GerritJsonEventFactory.peekEventType("not json"));
+    }
+
+    /**
+     * A listener that blocks on the first event until released.
+     */
+    static class BlockingListener implements GerritEventListener {
+        final List<GerritEvent> events = new CopyOnWriteArrayList<GerritEvent>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void gerritEvent(GerritEvent event) {
+            events.add(event);
+            started.countDown();
+            try {
+                release.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
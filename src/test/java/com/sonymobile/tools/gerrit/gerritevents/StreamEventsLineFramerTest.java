@@ -0,0 +1,232 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+//CS IGNORE MagicNumber FOR NEXT 300 LINES. REASON: Test data.
+
+/**
+ * Tests for {@link StreamEventsLineFramer}.
+ */
+public class StreamEventsLineFramerTest {
+
+    private static final int BIG_EVENT_SIZE = 600 * 1024;
+
+    /**
+     * Tests that several lines in one chunk are returned in order.
+     */
+    @Test
+    public void testSeveralLinesInOneChunk() {
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(64);
+        feed(framer, "{\"a\":1}\n{\"b\":2}\n\n{\"c\":3}\n");
+        assertEquals("{\"a\":1}", framer.nextLine());
+        assertEquals("{\"b\":2}", framer.nextLine());
+        assertEquals("", framer.nextLine());
+        assertEquals("{\"c\":3}", framer.nextLine());
+        assertNull(framer.nextLine());
+        assertEquals(0, framer.getPendingBytes());
+    }
+
+    /**
+     * Tests that a line split across several chunks is returned once it is complete.
+     */
+    @Test
+    public void testLineSplitAcrossChunks() {
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(64);
+        feed(framer, "Thank ");
+        assertNull(framer.nextLine());
+        feed(framer, "You");
+        assertNull(framer.nextLine());
+        feed(framer, "!\nNext");
+        assertEquals("Thank You!", framer.nextLine());
+        assertNull(framer.nextLine());
+        assertEquals(4, framer.getPendingBytes());
+        feed(framer, "\n");
+        assertEquals("Next", framer.nextLine());
+    }
+
+    /**
+     * Tests that a multi byte character split between two chunks is decoded correctly.
+     */
+    @Test
+    public void testMultiByteCharacterSplitAcrossChunks() {
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(64);
+        byte[] data = "{\"subject\":\"Räksmörgås €\"}\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < data.length; i++) {
+            framer.feed(data, i, 1);
+        }
+        assertEquals("{\"subject\":\"Räksmörgås €\"}", framer.nextLine());
+    }
+
+    /**
+     * Tests that a line bigger than the initial buffer grows the buffer,
+     * and that the buffer shrinks back once the line is consumed.
+     */
+    @Test
+    public void testLineBiggerThanBuffer() {
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(16);
+        String longLine = "This is a very long line that does not fit into the buffer.";
+        feed(framer, longLine + "\nshort\n");
+        assertTrue(framer.getCapacity() > 16);
+        assertEquals(longLine, framer.nextLine());
+        assertEquals("short", framer.nextLine());
+        assertNull(framer.nextLine());
+        assertEquals(16, framer.getCapacity());
+    }
+
+    /**
+     * Tests an event larger than 256KB received in small reads with a small initial buffer.
+     *
+     * @throws IOException if so.
+     */
+    @Test
+    public void testEventLargerThan256KbInSmallReads() throws IOException {
+        String bigEvent = createBigEvent(BIG_EVENT_SIZE);
+        String data = "{\"before\":true}\n" + bigEvent + "\n{\"after\":true}\n";
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(13);
+        List<String> lines = readAll(framer, new ChunkedInputStream(data.getBytes(StandardCharsets.UTF_8), 1000));
+        assertEquals(Arrays.asList("{\"before\":true}", bigEvent, "{\"after\":true}"), lines);
+        assertEquals(16, framer.getCapacity());
+    }
+
+    /**
+     * Tests an event larger than 256KB with the default buffer size of the connection,
+     * i.e. where the old implementation had to fall back on a StringBuilder.
+     *
+     * @throws IOException if so.
+     */
+    @Test
+    public void testEventLargerThan256KbWithDefaultBuffer() throws IOException {
+        String bigEvent = createBigEvent(BIG_EVENT_SIZE);
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            data.append(bigEvent).append('\n');
+        }
+        StreamEventsLineFramer framer = new StreamEventsLineFramer(262400);
+        List<String> lines = readAll(framer,
+                new ChunkedInputStream(data.toString().getBytes(StandardCharsets.UTF_8), 32 * 1024));
+        assertEquals(Arrays.asList(bigEvent, bigEvent, bigEvent), lines);
+        assertEquals(262400, framer.getCapacity());
+    }
+
+    /**
+     * Tests that lines split at every possible position are framed correctly.
+     *
+     * @throws IOException if so.
+     */
+    @Test
+    public void testAllChunkSizes() throws IOException {
+        String data = "{\"type\":\"patchset-created\"}\n\n{\"type\":\"ref-updated\",\"x\":\"åäö\"}\nlast\n";
+        List<String> expected = Arrays.asList("{\"type\":\"patchset-created\"}", "",
+                "{\"type\":\"ref-updated\",\"x\":\"åäö\"}", "last");
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            StreamEventsLineFramer framer = new StreamEventsLineFramer(16);
+            assertEquals("chunk size " + chunk, expected, readAll(framer, new ChunkedInputStream(bytes, chunk)));
+        }
+    }
+
+    /**
+     * Feeds the string as UTF-8 into the framer.
+     *
+     * @param framer the framer.
+     * @param data the data.
+     */
+    private static void feed(StreamEventsLineFramer framer, String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        framer.feed(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the stream to the end and collects all lines.
+     *
+     * @param framer the framer.
+     * @param in the stream.
+     * @return the lines.
+     * @throws IOException if so.
+     */
+    private static List<String> readAll(StreamEventsLineFramer framer, InputStream in) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        while (framer.read(in) != -1) {
+            String line = framer.nextLine();
+            while (line != null) {
+                lines.add(line);
+                line = framer.nextLine();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Creates a JSON looking line of approximately the given size.
+     *
+     * @param size the size.
+     * @return the line.
+     */
+    private static String createBigEvent(int size) {
+        StringBuilder str = new StringBuilder("{\"type\":\"comment-added\",\"comment\":\"");
+        int i = 0;
+        while (str.length() < size) {
+            str.append("line ").append(i++).append(" of a huge commit message åäö\\n");
+        }
+        str.append("\"}");
+        return str.toString();
+    }
+
+    /**
+     * A stream that never returns more than a given number of bytes per read.
+     */
+    private static class ChunkedInputStream extends ByteArrayInputStream {
+        private final int chunkSize;
+
+        /**
+         * Constructor.
+         *
+         * @param data the data.
+         * @param chunkSize max bytes per read.
+         */
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            super(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+}
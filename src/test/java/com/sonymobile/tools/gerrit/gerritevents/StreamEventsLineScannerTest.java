@@ -0,0 +1,100 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StreamEventsLineScanner}.
+ */
+public class StreamEventsLineScannerTest {
+
+    //CS IGNORE LineLength FOR NEXT 9 LINES. REASON: Test data.
+    private static final String COMMENT_ADDED = "{\"type\":\"comment-added\",\"change\":{\"project\":\"a/b\","
+            + "\"branch\":\"master\",\"number\":\"1234\",\"owner\":{\"email\":\"owner@x.com\"}},"
+            + "\"patchSet\":{\"number\":\"2\",\"author\":{\"email\":\"patch@x.com\"}},"
+            + "\"approvals\":[{\"type\":\"Code-Review\",\"value\":\"1\"}],"
+            + "\"author\":{\"name\":\"Bot\",\"email\":\"bot@ci.com\"},\"comment\":\"Build \\\"ok\\\" \\u00e5\","
+            + "\"project\":\"a/b\",\"refName\":\"refs/heads/master\"}";
+    private static final String REF_UPDATED = "{ \"submitter\" : {\"name\":\"x\"} , \"refUpdate\" : "
+            + "{ \"oldRev\" : \"0\", \"refName\" : \"refs/heads/master\", \"project\" : \"p\\/q\" }, "
+            + "\"type\" : \"ref-updated\" }";
+
+    /**
+     * Tests that the values are found in a comment-added line,
+     * and that nested properties with the same names are not mistaken for them.
+     */
+    @Test
+    public void testCommentAdded() {
+        StreamEventsLineScanner scanner = new StreamEventsLineScanner();
+        assertTrue(scanner.scan(COMMENT_ADDED));
+        assertEquals(GerritEventType.COMMENT_ADDED, scanner.getType());
+        assertEquals("comment-added", scanner.getTypeValue());
+        assertEquals("a/b", scanner.getProject());
+        assertEquals("1234", scanner.getChangeNumber());
+        assertEquals("bot@ci.com", scanner.getAuthorEmail());
+        assertNull(scanner.getRef());
+    }
+
+    /**
+     * Tests a ref-updated line with whitespace, escapes and the type last.
+     */
+    @Test
+    public void testRefUpdated() {
+        StreamEventsLineScanner scanner = new StreamEventsLineScanner();
+        assertTrue(scanner.scan(REF_UPDATED));
+        assertEquals(GerritEventType.REF_UPDATED, scanner.getType());
+        assertEquals("p/q", scanner.getProject());
+        assertEquals("refs/heads/master", scanner.getRef());
+        assertNull(scanner.getChangeNumber());
+        assertNull(scanner.getAuthorEmail());
+    }
+
+    /**
+     * Tests that values of the previous line are forgotten and that bad lines are reported.
+     */
+    @Test
+    public void testReuseAndMalformed() {
+        StreamEventsLineScanner scanner = new StreamEventsLineScanner();
+        assertTrue(scanner.scan(COMMENT_ADDED));
+        assertTrue(scanner.scan("{\"type\":\"project-created\",\"projectName\":\"new\",\"headName\":\"x\"}"));
+        assertEquals(GerritEventType.PROJECT_CREATED, scanner.getType());
+        assertEquals("new", scanner.getProject());
+        assertNull(scanner.getChangeNumber());
+        assertTrue(scanner.scan("{\"type\":\"no-such-type\",\"change\":{\"number\":77}}"));
+        assertNull(scanner.getType());
+        assertEquals("77", scanner.getChangeNumber());
+        assertFalse(scanner.scan("{\"type\":\"ref-updated\",\"refUpdate\":{\"project\":\"p\""));
+        assertEquals(GerritEventType.REF_UPDATED, scanner.getType());
+        assertFalse(scanner.scan("not json"));
+        assertFalse(scanner.scan(null));
+        assertNull(scanner.getType());
+    }
+}
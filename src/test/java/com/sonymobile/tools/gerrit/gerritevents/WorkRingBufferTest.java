@@ -0,0 +1,303 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link WorkRingBuffer}.
+ */
+public class WorkRingBufferTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final int BATCH_SIZE = 4;
+    private final ThreadFactory threadFactory = Executors.defaultThreadFactory();
+    private final ExecutorService posters = Executors.newCachedThreadPool();
+    private WorkRingBuffer ring;
+
+    /**
+     * Stops the threads.
+     */
+    @After
+    public void tearDown() {
+        posters.shutdownNow();
+        if (ring != null) {
+            ring.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that every task posted by several threads at once is run exactly once, with each wait strategy,
+     * also when the ring fills up.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 40 LINES. REASON: test data.
+    @Test
+    public void testManyPostersWithEachWaitStrategy() throws Exception {
+        final int postersCount = 4;
+        final int tasksPerPoster = 500;
+        for (String name : Arrays.asList("blocking", "yielding", "busy-spin")) {
+            ring = new WorkRingBuffer(16, 2, BATCH_SIZE, WorkRingBuffer.WaitStrategy.forName(name),
+                    threadFactory, null);
+            final AtomicInteger[] runs = new AtomicInteger[postersCount * tasksPerPoster];
+            for (int i = 0; i < runs.length; i++) {
+                runs[i] = new AtomicInteger();
+            }
+            final CountDownLatch done = new CountDownLatch(runs.length);
+            for (int p = 0; p < postersCount; p++) {
+                final int first = p * tasksPerPoster;
+                posters.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = first; i < first + tasksPerPoster; i++) {
+                            ring.execute(new CountingTask(runs[i], done));
+                        }
+                    }
+                });
+            }
+            assertTrue(name, done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            for (AtomicInteger count : runs) {
+                assertEquals(name, 1, count.get());
+            }
+            ring.shutdown();
+            assertTrue(name, ring.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(name, runs.length, ring.getExecutedCount());
+            assertEquals(name, 0, ring.size());
+        }
+    }
+
+    /**
+     * Tests that a worker thread claims the tasks that have piled up in batches.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 25 LINES. REASON: test data.
+    @Test
+    public void testBatchClaim() throws Exception {
+        final int tasks = 10;
+        ring = new WorkRingBuffer(64, 1, BATCH_SIZE, new WorkRingBuffer.Blocking(), threadFactory, null);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        ring.execute(new BlockingTask(started, release));
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            ring.execute(new CountingTask(new AtomicInteger(), done));
+        }
+        assertEquals(tasks, ring.size());
+        assertEquals(tasks, ring.snapshot().size());
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1 + (tasks + BATCH_SIZE - 1) / BATCH_SIZE, ring.getBatchCount());
+    }
+
+    /**
+     * Tests that a posting thread waits while the ring is full.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 35 LINES. REASON: test data.
+    @Test
+    public void testPosterWaitsWhenFull() throws Exception {
+        ring = new WorkRingBuffer(2, 1, BATCH_SIZE, new WorkRingBuffer.Blocking(), threadFactory, null);
+        assertEquals(2, ring.getCapacity());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        ring.execute(new BlockingTask(started, release));
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        final CountDownLatch done = new CountDownLatch(3);
+        ring.execute(new CountingTask(new AtomicInteger(), done));
+        ring.execute(new CountingTask(new AtomicInteger(), done));
+        Future<?> third = posters.submit(new Runnable() {
+            @Override
+            public void run() {
+                ring.execute(new CountingTask(new AtomicInteger(), done));
+            }
+        });
+        try {
+            third.get(100, TimeUnit.MILLISECONDS);
+            fail("The poster should wait for room in the ring.");
+        } catch (TimeoutException e) {
+            assertEquals(1, ring.getPosterWaitCount());
+        }
+        release.countDown();
+        third.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that shutting down rejects new tasks but runs those already in the ring.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 30 LINES. REASON: test data.
+    @Test
+    public void testShutdownRunsQueuedTasks() throws Exception {
+        ring = new WorkRingBuffer(8, 1, BATCH_SIZE, new WorkRingBuffer.Blocking(), threadFactory, null);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        ring.execute(new BlockingTask(started, release));
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            ring.execute(new CountingTask(new AtomicInteger(), done));
+        }
+        ring.shutdown();
+        try {
+            ring.execute(new CountingTask(new AtomicInteger(), done));
+            fail("A shut down ring should reject tasks.");
+        } catch (RejectedExecutionException e) {
+            assertTrue(ring.isShutdown());
+        }
+        assertFalse(ring.isTerminated());
+        release.countDown();
+        assertTrue(ring.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, done.getCount());
+        assertEquals(0, ring.getConsumerCount());
+    }
+
+    /**
+     * Tests that the number of worker threads can be changed.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 20 LINES. REASON: test data.
+    @Test
+    public void testConsumerCount() throws Exception {
+        ring = new WorkRingBuffer(8, 1, BATCH_SIZE, new WorkRingBuffer.Blocking(), threadFactory, null);
+        assertEquals(1, ring.getConsumerCount());
+        ring.setConsumerCount(3);
+        assertEquals(3, ring.getConsumerCount());
+        ring.setConsumerCount(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (ring.getConsumerCount() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, ring.getConsumerCount());
+        assertEquals(3, ring.getLargestConsumerCount());
+    }
+
+    /**
+     * Tests that a handler built on a ring buffer gets events to its listeners.
+     *
+     * @throws Exception if so.
+     */
+    //CS IGNORE MagicNumber FOR NEXT 25 LINES. REASON: test data.
+    @Test
+    public void testHandlerWithRingBuffer() throws Exception {
+        GerritHandler handler = new GerritHandler(2, 16, new WorkRingBuffer.Yielding());
+        WorkRingBuffer handlerRing = handler.getRingBuffer();
+        assertNotNull(handlerRing);
+        final CountDownLatch received = new CountDownLatch(1);
+        final GerritEvent event = new PatchsetCreated();
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent e) {
+                if (e == event) {
+                    received.countDown();
+                }
+            }
+        });
+        handler.post(event);
+        assertTrue(received.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertSame(handlerRing, handler.getRingBuffer());
+        handler.shutdown(true);
+        assertTrue(handlerRing.isTerminated());
+    }
+
+    /**
+     * Counts its runs.
+     */
+    private static final class CountingTask implements Runnable {
+        private final AtomicInteger count;
+        private final CountDownLatch done;
+
+        /**
+         * Constructor.
+         *
+         * @param count counts the runs.
+         * @param done counted down when run.
+         */
+        CountingTask(AtomicInteger count, CountDownLatch done) {
+            this.count = count;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            count.incrementAndGet();
+            done.countDown();
+        }
+    }
+
+    /**
+     * Holds up its worker thread until released.
+     */
+    private static final class BlockingTask implements Runnable {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        /**
+         * Constructor.
+         *
+         * @param started counted down when the task starts.
+         * @param release waited for.
+         */
+        BlockingTask(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
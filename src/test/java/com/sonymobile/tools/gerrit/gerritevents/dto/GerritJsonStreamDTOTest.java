@@ -0,0 +1,200 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.dto;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritJsonEventFactory;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.ChangeBasedEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.CommentAdded;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.GerritTriggeredEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.HashtagsChanged;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefReplicationDone;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefUpdated;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.VoteDeleted;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+//CS IGNORE MagicNumber FOR NEXT 300 LINES. REASON: Test data.
+
+/**
+ * Tests that events decoded straight from the JSON stream are the same as those decoded through json-lib.
+ */
+public class GerritJsonStreamDTOTest {
+
+    //CS IGNORE LineLength FOR NEXT 12 LINES. REASON: Test data.
+    private static final String PATCHSET_CREATED = "{\"uploader\":{\"name\":\"Foo, Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"patchSet\":{\"number\":\"1\",\"revision\":\"8bd741fd\",\"parents\":[\"8bd741fe\"],\"ref\":\"refs/changes/1/1234567/1\",\"uploader\":{\"name\":\"Foo Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"createdOn\":1527883364,\"author\":{\"name\":\"Foo Bar\",\"email\":\"Foo@Bar.com\",\"username\":\"foobar\"},\"isDraft\":false,\"kind\":\"REWORK\",\"sizeInsertions\":2,\"sizeDeletions\":-2},\"change\":{\"project\":\"Foo/Bar\",\"branch\":\"Foo\",\"topic\":\"t\",\"hashtags\":[\"a\",\"b\"],\"id\":\"I8bd741fd\",\"number\":\"351587\",\"subject\":\"Foo Bar\",\"owner\":{\"name\":\"Foo Bar\",\"email\":\"foo@bar.com\",\"username\":\"foobar\"},\"url\":\"https://Foo.bar/com/gerrit/351587\",\"commitMessage\":\"Foo Changes\\n\\nChange-Id: I4a0ca0dd\\n\",\"status\":\"NEW\",\"wip\":true},\"project\":\"Foo/Bar\",\"refName\":\"refs/heads/FOOMAIN\",\"changeKey\":{\"id\":\"I4a0ca0dd\"},\"type\":\"patchset-created\",\"eventCreatedOn\":1527883364,\"provider\":{\"name\":\"gerrit\",\"host\":\"example.com\",\"port\":\"29418\",\"scheme\":\"ssh\",\"url\":\"https://example.com\",\"version\":\"3.1\"}}";
+    private static final String COMMENT_ADDED = "{\"type\":\"comment-added\",\"change\":{\"project\":\"p\",\"number\":7,\"id\":\"I7\"},\"patchSet\":{\"number\":3,\"approvals\":[{\"type\":\"Code-Review\",\"value\":\"2\",\"by\":{\"name\":\"R\"}}]},\"author\":{\"name\":\"C\",\"email\":\"c@x.com\"},\"approvals\":[{\"type\":\"Verified\",\"value\":\"1\",\"oldValue\":\"0\"},{\"type\":\"Code-Review\"}],\"comment\":\"Looks \\\"good\\\"\",\"unknown\":{\"nested\":[1,2,{\"x\":null}]}}";
+    private static final String REF_UPDATED = "{\"type\":\"ref-updated\",\"submitter\":{\"name\":\"S\"},\"refUpdate\":{\"oldRev\":\"0\",\"newRev\":\"1\",\"refName\":\"refs/heads/master\",\"project\":\"p\"}}";
+    private static final String REF_REPLICATION_DONE = "{\"type\":\"ref-replication-done\",\"project\":\"p\",\"ref\":\"refs/heads/master\",\"nodesCount\":3}";
+
+    /**
+     * Tests a patchset-created event with most of the change and patch set attributes.
+     */
+    @Test
+    public void testPatchsetCreated() {
+        ChangeBasedEvent tree = (ChangeBasedEvent)viaJsonObject(PATCHSET_CREATED);
+        ChangeBasedEvent stream = (ChangeBasedEvent)viaStream(PATCHSET_CREATED);
+        assertEquals(tree, stream);
+        assertEquals(tree.getAccount(), stream.getAccount());
+        assertEquals(tree.getEventCreatedOn(), stream.getEventCreatedOn());
+        assertEquals(tree.getProvider(), stream.getProvider());
+        assertEquals("ssh", stream.getProvider().getScheme());
+        assertEquals(tree.getChange(), stream.getChange());
+        assertEquals(tree.getChange().getProject(), stream.getChange().getProject());
+        assertEquals(tree.getChange().getOwner(), stream.getChange().getOwner());
+        assertEquals(tree.getChange().getTopicObject(), stream.getChange().getTopicObject());
+        assertEquals(tree.getChange().getHashtags(), stream.getChange().getHashtags());
+        assertEquals(tree.getChange().getCommitMessage(), stream.getChange().getCommitMessage());
+        assertEquals(tree.getChange().getStatus(), stream.getChange().getStatus());
+        assertEquals(tree.getChange().isWip(), stream.getChange().isWip());
+        assertEquals(tree.getPatchSet(), stream.getPatchSet());
+        assertEquals(tree.getPatchSet().getCreatedOn(), stream.getPatchSet().getCreatedOn());
+        assertEquals(tree.getPatchSet().getKind(), stream.getPatchSet().getKind());
+        assertEquals(tree.getPatchSet().getParents(), stream.getPatchSet().getParents());
+        assertEquals(tree.getPatchSet().getAuthor(), stream.getPatchSet().getAuthor());
+    }
+
+    /**
+     * Tests a comment-added event with approvals, numbers instead of strings and unknown nested properties.
+     */
+    @Test
+    public void testCommentAdded() {
+        CommentAdded tree = (CommentAdded)viaJsonObject(COMMENT_ADDED);
+        CommentAdded stream = (CommentAdded)viaStream(COMMENT_ADDED);
+        assertEquals(tree, stream);
+        assertEquals("7", stream.getChange().getNumber());
+        assertEquals("Looks \"good\"", stream.getComment());
+        assertEquals(tree.getAccount(), stream.getAccount());
+        assertEquals(tree.getApprovals(), stream.getApprovals());
+        assertNull(stream.getApprovals().get(1).getType());
+        assertEquals(tree.getPatchSet().getApprovals(), stream.getPatchSet().getApprovals());
+    }
+
+    /**
+     * Tests the events that aren't about a change.
+     */
+    @Test
+    public void testRefEvents() {
+        RefUpdated tree = (RefUpdated)viaJsonObject(REF_UPDATED);
+        RefUpdated stream = (RefUpdated)viaStream(REF_UPDATED);
+        assertEquals(tree, stream);
+        assertEquals(tree.getRefUpdate(), stream.getRefUpdate());
+        assertEquals(tree.getAccount(), stream.getAccount());
+        RefReplicationDone done = (RefReplicationDone)viaStream(REF_REPLICATION_DONE);
+        assertEquals(viaJsonObject(REF_REPLICATION_DONE), done);
+        assertEquals(3, done.getNodesCount());
+    }
+
+    /**
+     * Tests the json files used by the other DTO tests.
+     *
+     * @throws IOException if a file can't be read.
+     */
+    @Test
+    public void testResourceFiles() throws IOException {
+        String hashtags = readResource("events/DeserializeHashtagsChangedTest.json");
+        HashtagsChanged treeHashtags = (HashtagsChanged)viaJsonObject(hashtags);
+        HashtagsChanged streamHashtags = (HashtagsChanged)viaStream(hashtags);
+        assertEquals(treeHashtags.getHashtags(), streamHashtags.getHashtags());
+        assertEquals(treeHashtags.getAddedHashtags(), streamHashtags.getAddedHashtags());
+        assertEquals(treeHashtags.getRemovedHashtags(), streamHashtags.getRemovedHashtags());
+
+        String voteDeleted = readResource("events/DeserializeVoteDeletedTest.json");
+        VoteDeleted treeVote = (VoteDeleted)viaJsonObject(voteDeleted);
+        VoteDeleted streamVote = (VoteDeleted)viaStream(voteDeleted);
+        assertEquals(treeVote.getApprovals(), streamVote.getApprovals());
+        assertEquals(treeVote.getRemover(), streamVote.getRemover());
+        assertEquals(treeVote.getReviewer(), streamVote.getReviewer());
+        assertEquals(treeVote.getComment(), streamVote.getComment());
+
+        String createdOn = readResource("events/DeserializeEventCreatedOnTest.json");
+        GerritTriggeredEvent treeCreated = (GerritTriggeredEvent)viaJsonObject(createdOn);
+        GerritTriggeredEvent streamCreated = (GerritTriggeredEvent)viaStream(createdOn);
+        assertNotNull(streamCreated.getEventCreatedOn());
+        assertEquals(treeCreated.getEventCreatedOn(), streamCreated.getEventCreatedOn());
+    }
+
+    /**
+     * Tests that malformed and uninteresting lines give no event.
+     */
+    @Test
+    public void testBadLines() {
+        assertNull(GerritJsonEventFactory.getEventIfInteresting("{\"type\":\"patchset-created\",\"change\":{"));
+        assertNull(GerritJsonEventFactory.getEventIfInteresting("{\"type\":\"no-such-event\"}"));
+        assertNull(GerritJsonEventFactory.getEventIfInteresting(""));
+        assertNull(GerritJsonEventFactory.getEventIfInteresting(null));
+        Provider provider = ((GerritTriggeredEvent)viaStream(
+                "{\"type\":\"ref-updated\",\"provider\":{\"proto\":\"ssh\",\"scheme\":\"http\"}}")).getProvider();
+        assertEquals("ssh", provider.getScheme());
+    }
+
+    /**
+     * Decodes the line the old way, through a json-lib object tree.
+     *
+     * @param line the line.
+     * @return the event.
+     */
+    private static GerritEvent viaJsonObject(String line) {
+        JSONObject json = GerritJsonEventFactory.getJsonObjectIfInterestingAndUsable(line);
+        assertNotNull(json);
+        return GerritJsonEventFactory.getEvent(json);
+    }
+
+    /**
+     * Decodes the line with the streaming decoder.
+     *
+     * @param line the line.
+     * @return the event.
+     */
+    private static GerritEvent viaStream(String line) {
+        GerritEvent event = GerritJsonEventFactory.getEventIfInteresting(line);
+        assertTrue(event instanceof GerritJsonStreamDTO);
+        return event;
+    }
+
+    /**
+     * Reads a test resource.
+     *
+     * @param name the name relative to this package.
+     * @return the content.
+     * @throws IOException if it can't be read.
+     */
+    private String readResource(String name) throws IOException {
+        InputStream stream = getClass().getResourceAsStream(name);
+        try {
+            return IOUtils.toString(stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.spool;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritEventListener;
+import com.sonymobile.tools.gerrit.gerritevents.GerritHandler;
+import com.sonymobile.tools.gerrit.gerritevents.ListenerIsolation;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.RefUpdated;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link EventJournal}.
+ */
+public class EventJournalTest {
+
+    private static final int RECORDS = 5;
+    private static final long SMALL_SEGMENT = 64;
+    private static final long COMMIT_INTERVAL = 1;
+    private static final long WAIT_MILLIS = 10000;
+    private static final long POLL_INTERVAL = 10;
+    private static final long RECEIVED_ON = 1234567890L;
+
+    private TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The folder the journal directories are created in.
+     *
+     * @return the folder rule.
+     */
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    /**
+     * Tests that the acknowledged offset only moves past records that have all been acknowledged.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testAcknowledgeOutOfOrder() throws Exception {
+        EventJournal journal = new EventJournal(folder.newFolder());
+        long[] offsets = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            offsets[i] = journal.append(new EventRecord("line " + i, null, System.currentTimeMillis()));
+        }
+        journal.flush();
+        assertEquals(journal.getEndOffset(), journal.getCommittedOffset());
+        journal.acknowledge(offsets[1]);
+        assertEquals(offsets[0], journal.getAcknowledgedOffset());
+        journal.acknowledge(offsets[0]);
+        assertEquals(offsets[2], journal.getAcknowledgedOffset());
+        for (long offset : offsets) {
+            journal.acknowledge(offset);
+        }
+        assertEquals(journal.getEndOffset(), journal.getAcknowledgedOffset());
+        assertEquals(0, journal.getUnacknowledgedCount());
+        journal.close();
+    }
+
+    /**
+     * Tests that records that weren't acknowledged before the journal was closed are replayed in order
+     * when it is opened again, and stay unacknowledged until the replayer acknowledges them.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testReplayAfterReopen() throws Exception {
+        File dir = folder.newFolder();
+        Provider provider = new Provider("gerrit", "localhost", "29418", "ssh", "http://localhost/", "2.15");
+        EventJournal journal = new EventJournal(dir, SMALL_SEGMENT, COMMIT_INTERVAL);
+        long[] offsets = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            offsets[i] = journal.append(new EventRecord("line " + i, provider, System.currentTimeMillis()));
+            journal.flush();
+        }
+        journal.acknowledge(offsets[0]);
+        journal.acknowledge(offsets[1]);
+        journal.close();
+
+        journal = new EventJournal(dir, SMALL_SEGMENT, COMMIT_INTERVAL);
+        assertEquals(RECORDS - 2, journal.getUnacknowledgedCount());
+        final List<EventRecord> records = new ArrayList<EventRecord>();
+        final List<Long> replayedOffsets = new ArrayList<Long>();
+        EventJournal.Replayer replayer = new EventJournal.Replayer() {
+            @Override
+            public void replay(EventRecord record, long offset) {
+                records.add(record);
+                replayedOffsets.add(offset);
+            }
+        };
+        assertEquals(RECORDS - 2, journal.replay(replayer));
+        assertEquals(0, journal.replay(replayer));
+        assertEquals(RECORDS - 2, journal.getUnacknowledgedCount());
+        for (int i = 2; i < RECORDS; i++) {
+            assertEquals("line " + i, records.get(i - 2).getLine());
+            assertEquals(provider, records.get(i - 2).getProvider());
+            assertEquals(offsets[i], (long)replayedOffsets.get(i - 2));
+        }
+        for (long offset : replayedOffsets) {
+            journal.acknowledge(offset);
+        }
+        assertEquals(0, journal.getUnacknowledgedCount());
+        journal.flush();
+        journal.close();
+
+        journal = new EventJournal(dir, SMALL_SEGMENT, COMMIT_INTERVAL);
+        assertEquals(0, journal.getUnacknowledgedCount());
+        journal.close();
+    }
+
+    /**
+     * Tests that segments are deleted once everything in them has been acknowledged.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testAcknowledgedSegmentsAreDeleted() throws Exception {
+        File dir = folder.newFolder();
+        EventJournal journal = new EventJournal(dir, SMALL_SEGMENT, COMMIT_INTERVAL);
+        long[] offsets = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            offsets[i] = journal.append(new EventRecord("line " + i, null, System.currentTimeMillis()));
+            journal.flush();
+        }
+        assertTrue(dir.list().length > 2);
+        for (long offset : offsets) {
+            journal.acknowledge(offset);
+        }
+        journal.append(new EventRecord("last", null, System.currentTimeMillis()));
+        journal.flush();
+        assertEquals(Arrays.asList(dir.list()).toString(), 2, dir.list().length);
+        journal.close();
+    }
+
+    /**
+     * Tests that a {@link GerritHandler} with a journal acknowledges the lines it has performed.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testHandlerAcknowledges() throws Exception {
+        GerritHandler handler = new GerritHandler(1);
+        EventJournal journal = new EventJournal(folder.newFolder());
+        handler.setEventJournal(journal);
+        handler.post(Arrays.asList("{\"type\":\"ref-updated\"}", "not an event", "{}"), null);
+        handler.post("{\"type\":\"change-merged\"}");
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (journal.getUnacknowledgedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+        assertEquals(0, journal.getUnacknowledgedCount());
+        assertEquals(journal.getEndOffset(), journal.getAcknowledgedOffset());
+        handler.shutdown(true);
+    }
+
+    /**
+     * Tests that with isolated listeners a journaled line is only acknowledged once the listener has been called,
+     * not when the event has been handed over to the listener's thread.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testHandlerAcknowledgesAfterIsolatedListener() throws Exception {
+        GerritHandler handler = new GerritHandler(1);
+        ListenerIsolation isolation = new ListenerIsolation(RECORDS, WAIT_MILLIS, RECORDS, WAIT_MILLIS);
+        handler.setListenerIsolation(isolation);
+        EventJournal journal = new EventJournal(folder.newFolder());
+        handler.setEventJournal(journal);
+        final CountDownLatch called = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                called.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        handler.post("{\"type\":\"ref-updated\"}");
+        assertTrue(called.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        Thread.sleep(POLL_INTERVAL * 2);
+        assertEquals(1, journal.getUnacknowledgedCount());
+        release.countDown();
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (journal.getUnacknowledgedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+        assertEquals(0, journal.getUnacknowledgedCount());
+        handler.shutdown(true);
+        isolation.shutdown();
+    }
+
+    /**
+     * Tests that lines a handler journaled but never performed before a restart reach the listeners
+     * of the next handler, which replays the journal after its listeners have been added.
+     * The events keep the time the lines were received, and the lines are not journaled again.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testHandlerReplaysAfterRestart() throws Exception {
+        File dir = folder.newFolder();
+        EventJournal journal = new EventJournal(dir);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < RECORDS; i++) {
+            String line = "{\"type\":\"ref-updated\",\"refUpdate\":{\"newRev\":\"" + i + "\"}}";
+            journal.append(new EventRecord(line, null, RECEIVED_ON));
+            expected.add(String.valueOf(i));
+        }
+        journal.close();
+
+        GerritHandler handler = new GerritHandler(1);
+        journal = new EventJournal(dir);
+        handler.setEventJournal(journal);
+        assertEquals(RECORDS, journal.getUnacknowledgedCount());
+        long endOffset = journal.getEndOffset();
+        final List<Long> receivedOn = new CopyOnWriteArrayList<Long>();
+        final List<String> received = new CopyOnWriteArrayList<String>();
+        handler.addListener(new GerritEventListener() {
+            @Override
+            public void gerritEvent(GerritEvent event) {
+                receivedOn.add(((RefUpdated)event).getReceivedOn());
+                received.add(((RefUpdated)event).getRefUpdate().getNewRev());
+            }
+        });
+        assertEquals(RECORDS, handler.replayJournal());
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while ((received.size() < RECORDS || journal.getUnacknowledgedCount() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+        assertEquals(expected, received);
+        assertEquals(Collections.nCopies(RECORDS, RECEIVED_ON), receivedOn);
+        assertEquals(0, journal.getUnacknowledgedCount());
+        assertEquals(endOffset, journal.getEndOffset());
+        handler.shutdown(true);
+
+        journal = new EventJournal(dir);
+        assertEquals(0, journal.getUnacknowledgedCount());
+        journal.close();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.spool;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.attr.Provider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link EventSpool}.
+ */
+public class EventSpoolTest {
+
+    private static final int SMALL_SEGMENT = 128;
+    private static final int RECORDS = 50;
+    private static final long RECEIVED_ON = 1234567890L;
+
+    private TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The folder the spool directories are created in.
+     *
+     * @return the folder rule.
+     */
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    /**
+     * Tests that records come out in the order they went in, across many small segments,
+     * and that consumed segments are deleted once their records have been acknowledged.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testOrderAcrossSegments() throws Exception {
+        File dir = folder.newFolder();
+        EventSpool spool = new EventSpool(dir, SMALL_SEGMENT);
+        Provider provider = new Provider("gerrit", "localhost", "29418", "ssh", "http://localhost/", "2.15");
+        for (int i = 0; i < RECORDS; i++) {
+            spool.append(new EventRecord("{\"line\":" + i + "}", provider, RECEIVED_ON + i));
+        }
+        assertEquals(RECORDS, spool.size());
+        assertTrue(dir.list().length > 2);
+        for (int i = 0; i < RECORDS; i++) {
+            EventRecord record = spool.poll();
+            assertEquals("{\"line\":" + i + "}", record.getLine());
+            assertEquals(provider, record.getProvider());
+            assertEquals(RECEIVED_ON + i, record.getReceivedOn());
+            spool.acknowledge(record);
+        }
+        assertNull(spool.poll());
+        assertTrue(spool.isEmpty());
+        assertEquals(0, spool.getUnacknowledgedCount());
+        assertEquals(2, dir.list().length);
+        spool.close();
+    }
+
+    /**
+     * Tests that a spool opened again continues after the last acknowledged record.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testReopen() throws Exception {
+        File dir = folder.newFolder();
+        EventSpool spool = new EventSpool(dir, SMALL_SEGMENT);
+        for (int i = 0; i < RECORDS; i++) {
+            spool.append(new EventRecord("line " + i, null, RECEIVED_ON));
+        }
+        for (int i = 0; i < RECORDS / 2; i++) {
+            spool.acknowledge(spool.poll());
+        }
+        spool.close();
+
+        spool = new EventSpool(dir, SMALL_SEGMENT);
+        assertEquals(RECORDS / 2, spool.size());
+        spool.append(new EventRecord("after restart", null, RECEIVED_ON));
+        for (int i = RECORDS / 2; i < RECORDS; i++) {
+            EventRecord record = spool.poll();
+            assertEquals("line " + i, record.getLine());
+            assertNull(record.getProvider());
+        }
+        assertEquals("after restart", spool.poll().getLine());
+        assertNull(spool.poll());
+        spool.close();
+    }
+
+    /**
+     * Tests that a record larger than a segment gets a segment of its own.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testRecordLargerThanSegment() throws Exception {
+        EventSpool spool = new EventSpool(folder.newFolder(), SMALL_SEGMENT);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < SMALL_SEGMENT; i++) {
+            large.append("large ");
+        }
+        spool.append(new EventRecord("small", null, RECEIVED_ON));
+        spool.append(new EventRecord(large.toString(), null, RECEIVED_ON));
+        spool.append(new EventRecord("small again", null, RECEIVED_ON));
+        assertEquals("small", spool.poll().getLine());
+        assertEquals(large.toString(), spool.poll().getLine());
+        assertEquals("small again", spool.poll().getLine());
+        spool.close();
+    }
+
+    /**
+     * Tests that records which were polled but not acknowledged before the spool was closed are given out again,
+     * even when records after them were acknowledged.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testUnacknowledgedAfterReopen() throws Exception {
+        File dir = folder.newFolder();
+        EventSpool spool = new EventSpool(dir, SMALL_SEGMENT);
+        for (int i = 0; i < RECORDS; i++) {
+            spool.append(new EventRecord("line " + i, null, RECEIVED_ON));
+        }
+        EventRecord[] records = new EventRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = spool.poll();
+        }
+        for (int i = 0; i < RECORDS / 2; i++) {
+            spool.acknowledge(records[i]);
+        }
+        for (int i = RECORDS / 2 + 1; i < RECORDS; i++) {
+            spool.acknowledge(records[i]);
+        }
+        assertEquals(1, spool.getUnacknowledgedCount());
+        assertTrue(spool.isEmpty());
+        spool.close();
+
+        spool = new EventSpool(dir, SMALL_SEGMENT);
+        assertEquals(RECORDS - RECORDS / 2, spool.size());
+        for (int i = RECORDS / 2; i < RECORDS; i++) {
+            assertEquals("line " + i, spool.poll().getLine());
+        }
+        assertNull(spool.poll());
+        spool.close();
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.server.Environment;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jcraft.jsch.ChannelExec;
+import com.sonymobile.tools.gerrit.gerritevents.mock.SshdServerMock;
+
+/**
+ * Tests for {@link SshConnectionImpl} against a mock ssh server.
+ */
+//CS IGNORE MagicNumber FOR NEXT 200 LINES. REASON: test data.
+public class SshConnectionImplTest {
+
+    private static final int PORT = SshdServerMock.GERRIT_SSH_PORT + 1;
+    private static SshServer sshd;
+    private static SshdServerMock.KeyPairFiles sshKey;
+    private static volatile CountDownLatch started;
+    private static volatile CountDownLatch finish;
+    private SshConnectionImpl connection;
+    private ExecutorService executor;
+
+    /**
+     * Starts the mock server.
+     *
+     * @throws Exception if so.
+     */
+    @BeforeClass
+    public static void startServer() throws Exception {
+        sshKey = SshdServerMock.generateKeyPair();
+        SshdServerMock server = new SshdServerMock();
+        sshd = SshdServerMock.startServer(PORT, server);
+        server.returnCommandFor("gerrit slow", HeldCommand.class);
+        server.returnCommandFor("gerrit version", SshdServerMock.EofCommandMock.class);
+        server.returnCommandFor("gerrit fail", FailingCommand.class);
+    }
+
+    /**
+     * Stops the mock server.
+     *
+     * @throws Exception if so.
+     */
+    @AfterClass
+    public static void stopServer() throws Exception {
+        sshd.stop(true);
+    }
+
+    /**
+     * Connects to the mock server.
+     *
+     * @throws Exception if so.
+     */
+    @Before
+    public void setUp() throws Exception {
+        started = new CountDownLatch(2);
+        finish = new CountDownLatch(1);
+        connection = new SshConnectionImpl("localhost", PORT, new Authentication(sshKey.getPrivateKey(), "jenkins"));
+        connection.connect();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Disconnects from the mock server.
+     */
+    @After
+    public void tearDown() {
+        finish.countDown();
+        executor.shutdownNow();
+        connection.disconnect();
+    }
+
+    /**
+     * Executes a held command on the connection from another thread.
+     *
+     * @return the future output.
+     */
+    private Future<String> executeSlow() {
+        return executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return connection.executeCommand("gerrit slow");
+            }
+        });
+    }
+
+    /**
+     * Tests that commands from several threads run on the session at the same time.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testConcurrentCommands() throws Exception {
+        Future<String> first = executeSlow();
+        Future<String> second = executeSlow();
+        assertTrue("Both commands should run at once", started.await(10, TimeUnit.SECONDS));
+        assertEquals(2, connection.getActiveChannelCount());
+        assertTrue(connection.isConnected());
+        finish.countDown();
+        assertEquals("done\n", first.get());
+        assertEquals("done\n", second.get());
+        assertEquals(0, connection.getActiveChannelCount());
+    }
+
+    /**
+     * Tests that no more than the max number of channels are open at the same time.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testMaxChannels() throws Exception {
+        connection.setMaxChannels(1);
+        Future<String> first = executeSlow();
+        Future<String> second = executeSlow();
+        assertFalse("Only one command should run", started.await(1, TimeUnit.SECONDS));
+        assertEquals(1, started.getCount());
+        assertEquals(1, connection.getActiveChannelCount());
+        finish.countDown();
+        assertEquals("done\n", first.get());
+        assertEquals("done\n", second.get());
+        assertEquals(0, started.getCount());
+    }
+
+    /**
+     * Tests that a channel handed out to the caller counts against the limit until it is closed.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testHandedOutChannel() throws Exception {
+        ChannelExec channel = connection.executeCommandChannel("gerrit version");
+        assertEquals(1, connection.getActiveChannelCount());
+        channel.disconnect();
+        assertEquals(0, connection.getActiveChannelCount());
+        assertEquals("", connection.executeCommand("gerrit version"));
+    }
+
+    /**
+     * Tests that a thread waiting on a full session gets the channel of a handed out reader
+     * when that channel closes, without any other caller coming along.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testWaitingForHandedOutChannel() throws Exception {
+        connection.setMaxChannels(1);
+        Reader reader = connection.executeCommandReader("gerrit slow");
+        Future<String> waiting = executeSlow();
+        assertFalse("The second command should wait", started.await(1, TimeUnit.SECONDS));
+        assertFalse(waiting.isDone());
+        finish.countDown();
+        assertEquals("done\n", waiting.get(10, TimeUnit.SECONDS));
+        assertEquals('d', reader.read());
+        reader.close();
+    }
+
+    /**
+     * Tests that the exit status and error output of a command are picked up once the channel closes.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testExitStatus() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            try {
+                connection.executeCommand("gerrit fail");
+                fail("The exit status should be reported");
+            } catch (SshException e) {
+                assertEquals("fatal: not permitted (3)", e.getMessage());
+            }
+        }
+        assertEquals(0, connection.getActiveChannelCount());
+    }
+
+    /**
+     * A command that prints an error and exits with status 3.
+     */
+    public static class FailingCommand extends SshdServerMock.CommandMock {
+
+        /**
+         * Standard constructor.
+         *
+         * @param command the command.
+         */
+        public FailingCommand(String command) {
+            super(command);
+        }
+
+        @Override
+        public void start(Environment environment) throws IOException {
+            getErrorStream().write("fatal: not permitted\n".getBytes("UTF-8"));
+            getErrorStream().flush();
+            stop(3);
+        }
+    }
+
+    /**
+     * A command that prints a line and exits when the test lets it finish.
+     */
+    public static class HeldCommand extends SshdServerMock.CommandMock implements Runnable {
+
+        /**
+         * Standard constructor.
+         *
+         * @param command the command.
+         */
+        public HeldCommand(String command) {
+            super(command);
+        }
+
+        @Override
+        public void start(Environment environment) throws IOException {
+            Thread thread = new Thread(this, "HeldCommand " + command);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                finish.await();
+                getOutputStream().write("done\n".getBytes("UTF-8"));
+                getOutputStream().flush();
+            } catch (Exception e) {
+                System.err.println("HeldCommand failed: " + e);
+            }
+            stop(0);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jcraft.jsch.Identity;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+
+/**
+ * Tests for {@link SshIdentityCache}.
+ */
+//CS IGNORE MagicNumber FOR NEXT 220 LINES. REASON: test data.
+public class SshIdentityCacheTest {
+
+    private static final String PASSPHRASE = "letmein";
+
+    private TemporaryFolder folder = new TemporaryFolder();
+    private final SshIdentityCache cache = new SshIdentityCache(2);
+
+    /**
+     * The folder the copies of the test keys are put in.
+     *
+     * @return the folder rule.
+     */
+    @Rule
+    public TemporaryFolder getFolder() {
+        return folder;
+    }
+
+    /**
+     * Copies a test key into the temporary folder.
+     *
+     * @param name the name of the key resource.
+     * @return the copy.
+     * @throws Exception if so.
+     */
+    private File copyKey(String name) throws Exception {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(
+                "com/sonymobile/tools/gerrit/gerritevents/" + name);
+        File copy = new File(folder.getRoot(), name);
+        Files.copy(new File(url.toURI()).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * Tests that a key is parsed once and shared until the file changes.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testReuseUntilFileChanges() throws Exception {
+        File key = copyKey("id_rsa");
+        assertFalse(cache.isLoaded(key));
+        JSch first = cache.getClient(new Authentication(key, "alice"));
+        JSch second = cache.getClient(new Authentication(key, "bob"));
+        assertSame(first, second);
+        assertEquals(1, first.getIdentityNames().size());
+        assertTrue(cache.isLoaded(key));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertTrue(key.setLastModified(key.lastModified() - 60000));
+        assertFalse(cache.isLoaded(key));
+        JSch third = cache.getClient(new Authentication(key, "alice"));
+        assertNotSame(first, third);
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Tests that an encrypted key is decrypted once per passphrase and parsed again when the passphrase changes.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testPassphrase() throws Exception {
+        File key = copyKey("id_rsa_passphrase");
+        JSch wrong = cache.getClient(new Authentication(key, "alice", PASSPHRASE + "x"));
+        assertTrue(getIdentity(wrong).isEncrypted());
+        JSch right = cache.getClient(new Authentication(key, "alice", PASSPHRASE));
+        assertNotSame(wrong, right);
+        assertFalse(getIdentity(right).isEncrypted());
+        assertSame(right, cache.getClient(new Authentication(key, "alice", PASSPHRASE)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    /**
+     * The only identity of the client.
+     *
+     * @param client the client.
+     * @return the identity.
+     * @throws JSchException if so.
+     */
+    private static Identity getIdentity(JSch client) throws JSchException {
+        return (Identity)client.getIdentityRepository().getIdentities().get(0);
+    }
+
+    /**
+     * Tests that keys given as bytes are cached by their content,
+     * so different keys for the same user don't push each other out.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testKeyBytes() throws Exception {
+        byte[] bytes = Files.readAllBytes(copyKey("id_rsa").toPath());
+        JSch first = cache.getClient(new Authentication(null, "alice", "", bytes));
+        assertSame(first, cache.getClient(new Authentication(null, "alice", "", bytes.clone())));
+        byte[] other = Files.readAllBytes(copyKey("id_rsa_passphrase").toPath());
+        JSch second = cache.getClient(new Authentication(null, "alice", PASSPHRASE, other));
+        assertNotSame(first, second);
+        assertSame(first, cache.getClient(new Authentication(null, "alice", "", bytes)));
+        assertSame(second, cache.getClient(new Authentication(null, "alice", PASSPHRASE, other)));
+        assertEquals(0, cache.getInvalidationCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    /**
+     * Tests that a key being parsed doesn't hold up connections with other keys.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testParseOutsideLock() throws Exception {
+        final File slowKey = copyKey("id_rsa_passphrase");
+        final CountDownLatch parsing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final SshIdentityCache slowCache = new SshIdentityCache(2) {
+            @Override
+            protected JSch createClient(Authentication authentication) throws JSchException {
+                if (slowKey.equals(authentication.getPrivateKeyFile())) {
+                    parsing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.createClient(authentication);
+            }
+        };
+        Thread slow = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    slowCache.getClient(new Authentication(slowKey, "alice", PASSPHRASE));
+                } catch (JSchException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        slow.start();
+        try {
+            assertTrue(parsing.await(10, TimeUnit.SECONDS));
+            assertNotNull(slowCache.getClient(new Authentication(copyKey("id_rsa"), "bob")));
+        } finally {
+            release.countDown();
+            slow.join();
+        }
+        assertEquals(2, slowCache.size());
+    }
+
+    /**
+     * Tests that the least recently used key is dropped when the cache is full.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        File rsa = copyKey("id_rsa");
+        File encrypted = copyKey("id_rsa_passphrase");
+        File other = new File(folder.getRoot(), "id_rsa_other");
+        Files.copy(rsa.toPath(), other.toPath());
+        cache.getClient(new Authentication(rsa, "alice"));
+        cache.getClient(new Authentication(encrypted, "alice", PASSPHRASE));
+        cache.getClient(new Authentication(rsa, "alice"));
+        cache.getClient(new Authentication(other, "alice"));
+        assertEquals(2, cache.size());
+        assertTrue(cache.isLoaded(rsa));
+        assertFalse(cache.isLoaded(encrypted));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.tools.gerrit.gerritevents.ssh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+
+import com.jcraft.jsch.JSchException;
+
+/**
+ * Tests for {@link SshSessionPool}.
+ */
+//CS IGNORE MagicNumber FOR NEXT 200 LINES. REASON: test data.
+public class SshSessionPoolTest {
+
+    private final Authentication alice = new Authentication(new File("key"), "alice");
+    private final Authentication bob = new Authentication(new File("key"), "bob");
+    private final List<SshConnection> opened = new ArrayList<SshConnection>();
+    private SshSessionPool pool;
+
+    /**
+     * Closes the pool.
+     */
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Creates a pool that opens mocked sessions.
+     *
+     * @param maxIdle the max number of idle sessions per key.
+     * @param idleTimeoutMillis the idle timeout.
+     * @return the pool.
+     */
+    private SshSessionPool createPool(int maxIdle, long idleTimeoutMillis) {
+        pool = new SshSessionPool(maxIdle, idleTimeoutMillis) {
+            @Override
+            protected SshConnection open(String host, int port, String proxy, Authentication authentication) {
+                SshConnection connection = mock(SshConnection.class);
+                when(connection.isConnected()).thenReturn(true);
+                opened.add(connection);
+                return connection;
+            }
+        };
+        return pool;
+    }
+
+    /**
+     * Tests that a session given back is lent out again to the same host, port, user and proxy only.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testReuse() throws Exception {
+        createPool(2, 60000);
+        SshConnection first = pool.borrow("gerrit", 29418, null, alice);
+        first.executeCommand("gerrit version");
+        first.disconnect();
+        first.disconnect();
+        assertFalse(first.isConnected());
+        assertEquals(1, pool.getIdleCount());
+        verify(opened.get(0), never()).disconnect();
+
+        SshConnection second = pool.borrow("gerrit", 29418, "", alice);
+        second.executeCommand("gerrit review");
+        verify(opened.get(0)).executeCommand("gerrit review");
+        assertEquals(1, pool.getHitCount());
+
+        pool.borrow("gerrit", 29418, null, bob);
+        pool.borrow("gerrit", 22, null, alice);
+        pool.borrow("gerrit", 29418, "http://proxy:8080", alice);
+        assertEquals(4, opened.size());
+        assertEquals(4, pool.getMissCount());
+        assertEquals(0.2, pool.getHitRate(), 0.001);
+    }
+
+    /**
+     * Tests that broken and stale sessions are closed instead of lent out.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testHealthCheck() throws Exception {
+        createPool(2, 50);
+        pool.borrow("gerrit", 29418, null, alice).disconnect();
+        when(opened.get(0).isConnected()).thenReturn(false);
+        pool.borrow("gerrit", 29418, null, alice).disconnect();
+        assertEquals(1, pool.getEvictionCount());
+        verify(opened.get(0)).disconnect();
+        assertEquals(2, opened.size());
+
+        Thread.sleep(100);
+        pool.evictIdle();
+        assertEquals(2, pool.getEvictionCount());
+        assertEquals(0, pool.getIdleCount());
+        verify(opened.get(1)).disconnect();
+    }
+
+    /**
+     * Tests that a session authenticated with one key isn't lent out to a job with another key for the same user.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testKeyIsPartOfTheKey() throws Exception {
+        createPool(2, 60000);
+        pool.borrow("gerrit", 29418, null, alice).disconnect();
+        pool.borrow("gerrit", 29418, null, new Authentication(new File("other"), "alice")).disconnect();
+        pool.borrow("gerrit", 29418, null, new Authentication(new File("key"), "alice", "secret")).disconnect();
+        pool.borrow("gerrit", 29418, null, new Authentication(null, "alice", null, new byte[] {1, 2, 3})).disconnect();
+        assertEquals(4, opened.size());
+        assertEquals(0, pool.getHitCount());
+        pool.borrow("gerrit", 29418, null, new Authentication(null, "alice", null, new byte[] {1, 2, 3}));
+        assertEquals(1, pool.getHitCount());
+    }
+
+    /**
+     * Tests that the first command on a reused session that turns out to be dead is tried again on a new session,
+     * and that failures of the command itself aren't.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testRetryOnDeadSession() throws Exception {
+        createPool(2, 60000);
+        pool.borrow("gerrit", 29418, null, alice).disconnect();
+        when(opened.get(0).executeCommand("gerrit version"))
+                .thenThrow(new SshException(new JSchException("session is down")));
+        SshConnection reused = pool.borrow("gerrit", 29418, null, alice);
+        reused.executeCommand("gerrit version");
+        assertEquals(2, opened.size());
+        verify(opened.get(0)).disconnect();
+        verify(opened.get(1)).executeCommand("gerrit version");
+        assertEquals(1, pool.getEvictionCount());
+        reused.disconnect();
+
+        when(opened.get(1).executeCommand("gerrit fail")).thenThrow(new SshException("fatal (1)"));
+        SshConnection again = pool.borrow("gerrit", 29418, null, alice);
+        try {
+            again.executeCommand("gerrit fail");
+            fail("The failure of the command should be reported");
+        } catch (SshException e) {
+            assertEquals("fatal (1)", e.getMessage());
+        }
+        assertEquals(2, opened.size());
+    }
+
+    /**
+     * Tests that sessions beyond the max idle count, broken sessions and sessions given back to a closed pool
+     * are closed.
+     *
+     * @throws Exception if so.
+     */
+    @Test
+    public void testClosing() throws Exception {
+        createPool(1, 60000);
+        SshConnection first = pool.borrow("gerrit", 29418, null, alice);
+        SshConnection second = pool.borrow("gerrit", 29418, null, alice);
+        SshConnection third = pool.borrow("gerrit", 29418, null, alice);
+        first.disconnect();
+        second.disconnect();
+        verify(opened.get(0), never()).disconnect();
+        verify(opened.get(1)).disconnect();
+        when(opened.get(2).isConnected()).thenReturn(false);
+        pool.close();
+        verify(opened.get(0)).disconnect();
+        third.disconnect();
+        verify(opened.get(2)).disconnect();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(pool.getHitRate() == 0);
+    }
+}
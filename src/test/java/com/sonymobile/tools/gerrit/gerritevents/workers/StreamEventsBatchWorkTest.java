@@ -0,0 +1,114 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.workers;
+
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEvent;
+import com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventType;
+import com.sonymobile.tools.gerrit.gerritevents.dto.events.PatchsetCreated;
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.BRANCH;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.CHANGE;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.ID;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.NUMBER;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PATCH_SET;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.PROJECT;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REF;
+import static com.sonymobile.tools.gerrit.gerritevents.dto.GerritEventKeys.REVISION;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link com.sonymobile.tools.gerrit.gerritevents.workers.StreamEventsBatchWork}.
+ */
+public class StreamEventsBatchWorkTest {
+
+    /**
+     * Tests {@link StreamEventsBatchWork#perform(Coordinator)}.
+     * The events should be notified in the order of the lines, and lines that aren't usable
+     * should not stop the rest of the batch.
+     * @throws Exception if so.
+     */
+    @Test
+    public void testPerformInOrder() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        lines.add(patchsetCreated("100"));
+        lines.add("not json at all");
+        lines.add(patchsetCreated("101"));
+        lines.add("{\"type\":\"unknown-event\"}");
+        lines.add(patchsetCreated("102"));
+
+        final List<GerritEvent> notified = new ArrayList<GerritEvent>();
+        Coordinator coordinator = new Coordinator() {
+
+            @Override
+            public BlockingQueue<Work> getWorkQueue() {
+                return mock(BlockingQueue.class);
+            }
+            @Override
+            public void notifyListeners(GerritEvent event) {
+                notified.add(event);
+            }
+        };
+        new StreamEventsBatchWork(lines, null).perform(coordinator);
+
+        List<String> numbers = new ArrayList<String>();
+        for (GerritEvent event : notified) {
+            numbers.add(((PatchsetCreated)event).getChange().getNumber());
+        }
+        assertEquals(Arrays.asList("100", "101", "102"), numbers);
+    }
+
+    /**
+     * Creates a patchset-created event line.
+     *
+     * @param number the change number.
+     * @return the line.
+     */
+    private String patchsetCreated(String number) {
+        JSONObject patch = new JSONObject();
+        patch.put(NUMBER, "1");
+        patch.put(REVISION, "ad123456789");
+        patch.put(REF, "refs/changes/00/" + number + "/1");
+
+        JSONObject change = new JSONObject();
+        change.put(PROJECT, "project");
+        change.put(BRANCH, "branch");
+        change.put(ID, "I2343434344");
+        change.put(NUMBER, number);
+
+        JSONObject jsonEvent = new JSONObject();
+        jsonEvent.put("type", GerritEventType.PATCHSET_CREATED.getTypeValue());
+        jsonEvent.put(CHANGE, change);
+        jsonEvent.put(PATCH_SET, patch);
+        return jsonEvent.toString();
+    }
+}
@@ -87,6 +87,28 @@ public class AbstractSendCommandJob2Test {
         verify(mockSshConnection).disconnect();
     }
 
+    /**
+     * Tests {@link sendCommand()} with pooled sessions.
+     *
+     * @throws IOException if so.
+     */
+    @Test
+    public void testSendCommandPooled() throws IOException {
+        SshConnection mockSshConnection = mock(SshConnection.class);
+        when(mockSshConnection.executeCommand(anyString())).thenReturn("OK");
+        PowerMockito.mockStatic(SshConnectionFactory.class);
+        when(SshConnectionFactory.isPooling()).thenReturn(true);
+        when(SshConnectionFactory.getPooledConnection(nullable(String.class), anyInt(), nullable(String.class),
+            nullable(Authentication.class)))
+            .thenReturn(mockSshConnection);
+        AbstractSendCommandJob2 job = new AbstractSendCommandJob2Impl(mockConfig);
+        Assert.assertThat(job.call(), containsString("OK"));
+        verify(mockSshConnection).disconnect();
+        PowerMockito.verifyStatic(SshConnectionFactory.class, never());
+        SshConnectionFactory.getConnection(nullable(String.class), anyInt(), nullable(String.class),
+            nullable(Authentication.class));
+    }
+
     /**
      * Tests {@link sendCommand()} without connection.
      *
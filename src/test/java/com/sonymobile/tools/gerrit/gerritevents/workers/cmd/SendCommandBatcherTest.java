@@ -0,0 +1,285 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Sony Mobile Communications Inc. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.sonymobile.tools.gerrit.gerritevents.workers.cmd;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.server.Environment;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sonymobile.tools.gerrit.gerritevents.GerritConnectionConfig2;
+import com.sonymobile.tools.gerrit.gerritevents.mock.SshdServerMock;
+import com.sonymobile.tools.gerrit.gerritevents.ssh.Authentication;
+
+/**
+ * Tests for {@link SendCommandBatcher} against a mock ssh server.
+ */
+//CS IGNORE MagicNumber FOR NEXT 260 LINES. REASON: test data.
+public class SendCommandBatcherTest {
+
+    private static final int PORT = SshdServerMock.GERRIT_SSH_PORT + 2;
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+    private static volatile CountDownLatch held;
+    private static SshServer sshd;
+    private static GerritConnectionConfig2 config;
+    private ExecutorService executor;
+    private SendCommandBatcher batcher;
+
+    /**
+     * Starts the mock server.
+     *
+     * @throws Exception if so.
+     */
+    @BeforeClass
+    public static void startServer() throws Exception {
+        SshdServerMock.KeyPairFiles sshKey = SshdServerMock.generateKeyPair();
+        SshdServerMock server = new SshdServerMock();
+        sshd = SshdServerMock.startServer(PORT, server);
+        server.returnCommandFor("gerrit review", ReviewCommand.class);
+        config = mock(GerritConnectionConfig2.class);
+        when(config.getGerritHostName()).thenReturn("localhost");
+        when(config.getGerritSshPort()).thenReturn(PORT);
+        when(config.getGerritAuthentication()).thenReturn(new Authentication(sshKey.getPrivateKey(), "jenkins"));
+    }
+
+    /**
+     * Stops the mock server.
+     *
+     * @throws Exception if so.
+     */
+    @AfterClass
+    public static void stopServer() throws Exception {
+        sshd.stop(true);
+    }
+
+    /**
+     * Creates the executor, a single sending thread like the default.
+     */
+    @Before
+    public void setUp() {
+        RUNNING.set(0);
+        MAX_RUNNING.set(0);
+        held = new CountDownLatch(1);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Stops the batcher and the executor.
+     */
+    @After
+    public void tearDown() {
+        held.countDown();
+        if (batcher != null) {
+            batcher.close();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that jobs to the same server within the linger time run at the same time on one session,
+     * and that each job gets its own result.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testPipelinedBatch() throws Exception {
+        batcher = new SendCommandBatcher(500, 10, executor);
+        Future<String> first = batcher.queue(new Review(config, "1,1"));
+        Future<String> second = batcher.queue(new Review(config, "2,1"));
+        Future<String> failing = batcher.queue(new Review(config, "fail"));
+        Future<String> third = batcher.queue(new Review(config, "3,1"));
+        assertEquals(4, batcher.getPendingCount());
+
+        assertEquals("reviewed 1,1\n", first.get());
+        assertEquals("reviewed 2,1\n", second.get());
+        assertEquals("reviewed 3,1\n", third.get());
+        try {
+            failing.get();
+            fail("The failing review should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertThat(e.getCause().getCause().getMessage(), containsString("no such change (1)"));
+        }
+        assertEquals(1, batcher.getBatchCount());
+        assertEquals(4, batcher.getJobCount());
+        assertEquals(4, MAX_RUNNING.get());
+    }
+
+    /**
+     * Tests that each job's future completes when its own command is done, not when the whole batch is.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testJobsCompleteIndividually() throws Exception {
+        batcher = new SendCommandBatcher(500, 10, executor);
+        Future<String> slow = batcher.queue(new Review(config, "held"));
+        Future<String> first = batcher.queue(new Review(config, "1,1"));
+        Future<String> second = batcher.queue(new Review(config, "2,1"));
+        assertEquals("reviewed 1,1\n", first.get(10, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+        held.countDown();
+        assertEquals("reviewed held\n", slow.get());
+        assertEquals("reviewed 2,1\n", second.get());
+    }
+
+    /**
+     * Tests that jobs with different keys for the same user aren't batched on one connection.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testBatchedByKey() throws Exception {
+        GerritConnectionConfig2 other = mock(GerritConnectionConfig2.class);
+        when(other.getGerritHostName()).thenReturn("localhost");
+        when(other.getGerritSshPort()).thenReturn(PORT);
+        Authentication auth = config.getGerritAuthentication();
+        when(other.getGerritAuthentication()).thenReturn(
+                new Authentication(auth.getPrivateKeyFile(), auth.getUsername(), "unused"));
+        batcher = new SendCommandBatcher(TimeUnit.MINUTES.toMillis(10), 10, executor);
+        batcher.queue(new Review(config, "1,1"));
+        batcher.queue(new Review(other, "2,1"));
+        batcher.queue(new Review(config, "3,1"));
+        assertEquals(3, batcher.getPendingCount());
+        batcher.flush();
+        assertEquals(2, batcher.getBatchCount());
+    }
+
+    /**
+     * Tests that a full batch is sent without waiting for the linger time,
+     * and that a lone job is sent on its own.
+     *
+     * @throws Exception if so.
+     */
+    @Test(timeout = 30000)
+    public void testFullBatchAndLoneJob() throws Exception {
+        batcher = new SendCommandBatcher(TimeUnit.MINUTES.toMillis(10), 2, executor);
+        Future<String> first = batcher.queue(new Review(config, "1,1"));
+        Future<String> second = batcher.queue(new Review(config, "2,1"));
+        assertEquals("reviewed 1,1\n", first.get());
+        assertEquals("reviewed 2,1\n", second.get());
+
+        Future<String> lone = batcher.queue(new Review(config, "3,1"));
+        batcher.flush();
+        assertEquals("reviewed 3,1\n", lone.get());
+        assertEquals(2, batcher.getBatchCount());
+    }
+
+    /**
+     * A review job.
+     */
+    private static class Review extends AbstractSendCommandJob2 {
+        private final String change;
+
+        /**
+         * Standard constructor.
+         *
+         * @param config the config.
+         * @param change the change and patch set to review.
+         */
+        Review(GerritConnectionConfig2 config, String change) {
+            super(config);
+            this.change = change;
+        }
+
+        @Override
+        protected String createGerritCommand() {
+            return "gerrit review " + change;
+        }
+    }
+
+    /**
+     * A review command that takes a while and counts how many run at the same time.
+     */
+    public static class ReviewCommand extends SshdServerMock.CommandMock implements Runnable {
+
+        /**
+         * Standard constructor.
+         *
+         * @param command the command.
+         */
+        public ReviewCommand(String command) {
+            super(command);
+        }
+
+        @Override
+        public void start(Environment environment) throws IOException {
+            Thread thread = new Thread(this, "ReviewCommand " + command);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            int running = RUNNING.incrementAndGet();
+            int max = MAX_RUNNING.get();
+            while (running > max && !MAX_RUNNING.compareAndSet(max, running)) {
+                max = MAX_RUNNING.get();
+            }
+            int exitCode = 0;
+            try {
+                Thread.sleep(300);
+                String change = command.substring("gerrit review ".length());
+                if ("held".equals(change)) {
+                    held.await(10, TimeUnit.SECONDS);
+                }
+                if ("fail".equals(change)) {
+                    getErrorStream().write("no such change\n".getBytes("UTF-8"));
+                    getErrorStream().flush();
+                    exitCode = 1;
+                } else {
+                    getOutputStream().write(("reviewed " + change + "\n").getBytes("UTF-8"));
+                    getOutputStream().flush();
+                }
+            } catch (Exception e) {
+                System.err.println("ReviewCommand failed: " + e);
+            }
+            RUNNING.decrementAndGet();
+            stop(exitCode);
+        }
+    }
+}